@@ -0,0 +1,152 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.CompilationFailedException;
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexIndexedConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.graph.AppInfoWithSubtyping;
+import com.android.tools.r8.graph.AppServices;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.shaking.Enqueuer;
+import com.android.tools.r8.shaking.ProguardConfiguration;
+import com.android.tools.r8.shaking.ProguardConfigurationParser;
+import com.android.tools.r8.shaking.RootSetBuilder;
+import com.android.tools.r8.shaking.RootSetBuilder.RootSet;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.Timing;
+import com.android.tools.r8.utils.ZipUtils;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Inputs for the JMH benchmarks.
+ *
+ * <p>All inputs are derived from the example jars built by the buildExampleJars task, and paths are
+ * relative to the project root, which is the working directory of the jmh task.
+ */
+public class BenchmarkInputs {
+
+  public static final String EXAMPLES_DIR = "src/test/examples";
+  public static final String EXAMPLES_BUILD_DIR = "build/test/examples";
+  public static final String ANDROID_JAR = "third_party/android_jar/lib-v28/android.jar";
+
+  public static Path exampleJar(String example) {
+    return Paths.get(EXAMPLES_BUILD_DIR, example + ".jar");
+  }
+
+  public static Path keepRules(String example) {
+    return Paths.get(EXAMPLES_DIR, example, "keep-rules.txt");
+  }
+
+  public static Path androidJar() {
+    return Paths.get(ANDROID_JAR);
+  }
+
+  /** Returns the bytes of all class files in the example jar. */
+  public static List<byte[]> classFiles(String example) throws IOException {
+    List<byte[]> classFiles = new ArrayList<>();
+    ZipUtils.iter(
+        exampleJar(example).toString(),
+        (entry, input) -> {
+          if (ZipUtils.isClassFile(entry.getName())) {
+            classFiles.add(ByteStreams.toByteArray(input));
+          }
+        });
+    return classFiles;
+  }
+
+  /** Compiles the example jar with D8 and returns the bytes of the resulting DEX files. */
+  public static List<byte[]> dexFiles(String example) throws CompilationFailedException {
+    List<byte[]> dexFiles = new ArrayList<>();
+    D8.run(
+        D8Command.builder()
+            .addProgramFiles(exampleJar(example))
+            .addLibraryFiles(androidJar())
+            .setProgramConsumer(
+                new DexIndexedConsumer.ForwardingConsumer(null) {
+                  @Override
+                  public synchronized void accept(
+                      int fileIndex,
+                      ByteDataView data,
+                      Set<String> descriptors,
+                      DiagnosticsHandler handler) {
+                    dexFiles.add(data.copyByteData());
+                  }
+                })
+            .build());
+    return dexFiles;
+  }
+
+  /** Options for compiling to DEX without a configuration, as D8 does. */
+  public static InternalOptions d8Options() {
+    InternalOptions options = new InternalOptions();
+    options.programConsumer = DexIndexedConsumer.emptyConsumer();
+    return options;
+  }
+
+  /** Options for compiling to DEX with the keep rules of the example, as R8 does. */
+  public static InternalOptions r8Options(String example) {
+    DexItemFactory factory = new DexItemFactory();
+    Reporter reporter = new Reporter();
+    ProguardConfigurationParser parser = new ProguardConfigurationParser(factory, reporter, true);
+    parser.parse(keepRules(example));
+    ProguardConfiguration configuration = parser.getConfig();
+    InternalOptions options = new InternalOptions(configuration, reporter);
+    options.programConsumer = DexIndexedConsumer.emptyConsumer();
+    return options;
+  }
+
+  /** Reads the example jar with the Android library. */
+  public static DexApplication read(String example, InternalOptions options)
+      throws IOException, ExecutionException {
+    AndroidApp app =
+        AndroidApp.builder()
+            .addProgramFiles(exampleJar(example))
+            .addLibraryFiles(androidJar())
+            .build();
+    // The root set builder requires the classes to be loaded.
+    return new ApplicationReader(app, options, new Timing("benchmark")).read().toDirect();
+  }
+
+  /** Sets up the application view of R8, as it is before tree shaking. */
+  public static AppView<AppInfoWithSubtyping> r8AppView(
+      DexApplication application, InternalOptions options) {
+    AppView<AppInfoWithSubtyping> appView =
+        AppView.createForR8(new AppInfoWithSubtyping(application.toDirect()), options);
+    appView.setAppServices(AppServices.builder(appView).build());
+    return appView;
+  }
+
+  /** Computes the root set of the keep rules, which is the input of tracing. */
+  public static RootSet rootSet(
+      AppView<AppInfoWithSubtyping> appView,
+      DexApplication application,
+      ExecutorService executor)
+      throws ExecutionException {
+    return new RootSetBuilder(
+            appView, application, appView.options().getProguardConfiguration().getRules())
+        .run(executor);
+  }
+
+  /** Creates an enqueuer as used for the first round of tree shaking. */
+  public static Enqueuer newEnqueuer(AppView<AppInfoWithSubtyping> appView) {
+    return new Enqueuer(appView, appView.options(), null);
+  }
+}
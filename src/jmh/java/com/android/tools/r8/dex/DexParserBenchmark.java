@@ -0,0 +1,57 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.Reporter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Parsing of DEX files, including the code of all methods. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DexParserBenchmark {
+
+  @Param({"regalloc", "shaking1", "minification", "inlining"})
+  public String example;
+
+  private List<byte[]> dexFiles;
+
+  @Setup
+  public void setup() throws Exception {
+    dexFiles = BenchmarkInputs.dexFiles(example);
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) {
+    DexItemFactory factory = new DexItemFactory();
+    Reporter reporter = new Reporter();
+    for (byte[] dexFile : dexFiles) {
+      DexParser parser =
+          new DexParser(
+              new DexReader(Origin.unknown(), dexFile), ClassKind.PROGRAM, factory, reporter);
+      parser.populateIndexTables();
+      parser.addClassDefsTo(blackhole::consume);
+    }
+  }
+}
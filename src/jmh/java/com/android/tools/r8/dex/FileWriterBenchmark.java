@@ -0,0 +1,82 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import com.android.tools.r8.ByteBufferProvider;
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.dex.FileWriter.ByteBufferResult;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.ObjectToOffsetMapping;
+import com.android.tools.r8.naming.NamingLens;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.Timing;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation of a DEX file with {@link FileWriter#generate} for the example compiled to DEX.
+ *
+ * <p>The input is read from DEX, so the code is written as is without going through IR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileWriterBenchmark {
+
+  @Param({"regalloc", "shaking1", "minification", "inlining"})
+  public String example;
+
+  private final ByteBufferProvider provider = new ByteBufferProvider() {};
+  private InternalOptions options;
+  private DexApplication application;
+  private ObjectToOffsetMapping mapping;
+
+  @Setup
+  public void setup() throws Exception {
+    AndroidApp.Builder builder = AndroidApp.builder();
+    List<byte[]> dexFiles = BenchmarkInputs.dexFiles(example);
+    for (byte[] dexFile : dexFiles) {
+      builder.addDexProgramData(dexFile, Origin.unknown());
+    }
+    options = BenchmarkInputs.d8Options();
+    application = new ApplicationReader(builder.build(), options, new Timing("benchmark")).read();
+    application.dexItemFactory.sort(NamingLens.getIdentityLens());
+    VirtualFile virtualFile = new VirtualFile(0, NamingLens.getIdentityLens());
+    for (DexProgramClass clazz : application.classes()) {
+      virtualFile.addClass(clazz);
+    }
+    virtualFile.commitTransaction();
+    mapping = virtualFile.computeMapping(application);
+  }
+
+  @Benchmark
+  public ByteBufferResult generate() {
+    return new FileWriter(
+            provider,
+            mapping,
+            MethodToCodeObjectMapping.fromMethodBacking(),
+            application,
+            options,
+            NamingLens.getIdentityLens())
+        .collect()
+        .generate();
+  }
+}
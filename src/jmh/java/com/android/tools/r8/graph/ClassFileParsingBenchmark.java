@@ -0,0 +1,67 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.InternalOptions;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading of class files with {@link JarClassFileReader}, including the parsing of the
+ * {@link LazyCfCode} of all methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClassFileParsingBenchmark {
+
+  @Param({"regalloc", "shaking1", "minification", "inlining"})
+  public String example;
+
+  private List<byte[]> classFiles;
+
+  @Setup
+  public void setup() throws IOException {
+    classFiles = BenchmarkInputs.classFiles(example);
+  }
+
+  @Benchmark
+  public void parse(Blackhole blackhole) throws IOException {
+    InternalOptions options = BenchmarkInputs.d8Options();
+    options.enableCfFrontend = true;
+    JarClassFileReader reader =
+        new JarClassFileReader(
+            new JarApplicationReader(options),
+            clazz ->
+                clazz.forEachMethod(
+                    method -> {
+                      Code code = method.getCode();
+                      if (code != null) {
+                        blackhole.consume(code.asCfCode());
+                      }
+                    }));
+    for (byte[] classFile : classFiles) {
+      reader.read(Origin.unknown(), ClassKind.PROGRAM, new ByteArrayInputStream(classFile));
+    }
+  }
+}
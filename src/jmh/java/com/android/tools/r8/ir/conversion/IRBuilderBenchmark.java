@@ -0,0 +1,66 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.conversion;
+
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.InternalOptions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Building of IR for all program methods, as done by {@link IRBuilder#build}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IRBuilderBenchmark {
+
+  @Param({"regalloc", "shaking1", "minification", "inlining"})
+  public String example;
+
+  private AppView<AppInfo> appView;
+  private final List<DexEncodedMethod> methods = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    InternalOptions options = BenchmarkInputs.d8Options();
+    DexApplication application = BenchmarkInputs.read(example, options);
+    appView = AppView.createForD8(new AppInfo(application), options);
+    for (DexProgramClass clazz : application.classes()) {
+      clazz.forEachMethod(
+          method -> {
+            if (method.getCode() != null) {
+              methods.add(method);
+            }
+          });
+    }
+  }
+
+  @Benchmark
+  public void build(Blackhole blackhole) {
+    for (DexEncodedMethod method : methods) {
+      blackhole.consume(method.buildIR(appView, Origin.unknown()));
+    }
+  }
+}
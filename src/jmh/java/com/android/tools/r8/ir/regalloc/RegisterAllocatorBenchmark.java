@@ -0,0 +1,111 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.regalloc;
+
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.ir.code.BasicBlock;
+import com.android.tools.r8.ir.code.IRCode;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.InternalOptions;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Register allocation for all program methods with {@link
+ * LinearScanRegisterAllocator#allocateRegisters}.
+ *
+ * <p>Allocation rewrites the IR, so the IR is rebuilt before each invocation. The invocation covers
+ * all methods of the example to keep the per-invocation setup cost small in comparison.
+ *
+ * <p>With {@code methods=largest} only the largest methods of the example are allocated, which is
+ * where allocation time grows the fastest with the number of live intervals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RegisterAllocatorBenchmark {
+
+  @Param({"regalloc", "shaking1", "minification", "inlining"})
+  public String example;
+
+  @Param({"all", "largest"})
+  public String methods;
+
+  private static final int NUMBER_OF_LARGEST_METHODS = 10;
+
+  private AppView<AppInfo> appView;
+  private final List<DexEncodedMethod> selectedMethods = new ArrayList<>();
+  private final List<IRCode> codes = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    InternalOptions options = BenchmarkInputs.d8Options();
+    DexApplication application = BenchmarkInputs.read(example, options);
+    appView = AppView.createForD8(new AppInfo(application), options);
+    for (DexProgramClass clazz : application.classes()) {
+      clazz.forEachMethod(
+          method -> {
+            if (method.getCode() != null) {
+              selectedMethods.add(method);
+            }
+          });
+    }
+    if (methods.equals("largest")) {
+      Reference2IntMap<DexEncodedMethod> sizes = new Reference2IntOpenHashMap<>();
+      for (DexEncodedMethod method : selectedMethods) {
+        sizes.put(method, numberOfInstructions(method.buildIR(appView, Origin.unknown())));
+      }
+      selectedMethods.sort(Comparator.comparingInt(sizes::getInt).reversed());
+      int size = selectedMethods.size();
+      selectedMethods.subList(Math.min(NUMBER_OF_LARGEST_METHODS, size), size).clear();
+    }
+  }
+
+  private static int numberOfInstructions(IRCode code) {
+    int result = 0;
+    for (BasicBlock block : code.blocks) {
+      result += block.getInstructions().size();
+    }
+    return result;
+  }
+
+  @Setup(Level.Invocation)
+  public void buildIR() {
+    codes.clear();
+    for (DexEncodedMethod method : selectedMethods) {
+      codes.add(method.buildIR(appView, Origin.unknown()));
+    }
+  }
+
+  @Benchmark
+  public void allocateRegisters() {
+    for (IRCode code : codes) {
+      new LinearScanRegisterAllocator(appView, code).allocateRegisters();
+    }
+  }
+}
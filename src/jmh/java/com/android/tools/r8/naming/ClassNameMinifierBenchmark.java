@@ -0,0 +1,78 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.naming;
+
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.graph.AppInfoWithSubtyping;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.naming.ClassNameMinifier.ClassRenaming;
+import com.android.tools.r8.naming.Minifier.MinificationClassNamingStrategy;
+import com.android.tools.r8.naming.Minifier.MinificationPackageNamingStrategy;
+import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.shaking.RootSetBuilder.RootSet;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Computation of the class renaming of the example after tree shaking. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClassNameMinifierBenchmark {
+
+  @Param({"minification", "minifygeneric", "minifygenericwithinner", "shaking1"})
+  public String example;
+
+  private AppView<AppInfoWithLiveness> appView;
+
+  @Setup
+  public void setup() throws Exception {
+    InternalOptions options = BenchmarkInputs.r8Options(example);
+    ExecutorService executor = ThreadUtils.getExecutorService(options);
+    try {
+      DexApplication application = BenchmarkInputs.read(example, options);
+      AppView<AppInfoWithSubtyping> appView = BenchmarkInputs.r8AppView(application, options);
+      RootSet rootSet = BenchmarkInputs.rootSet(appView, application, executor);
+      appView.setRootSet(rootSet);
+      this.appView =
+          appView.setAppInfo(
+              BenchmarkInputs.newEnqueuer(appView)
+                  .traceApplication(
+                      rootSet,
+                      options.getProguardConfiguration().getDontWarnPatterns(),
+                      executor,
+                      new Timing("benchmark")));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Benchmark
+  public ClassRenaming computeRenaming() {
+    return new ClassNameMinifier(
+            appView,
+            new MinificationClassNamingStrategy(
+                appView.dexItemFactory(), appView.rootSet().noObfuscation),
+            new MinificationPackageNamingStrategy(),
+            appView.appInfo().classesWithDeterministicOrder())
+        .computeRenaming(new Timing("benchmark"));
+  }
+}
@@ -0,0 +1,102 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.retrace;
+
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of stack trace deobfuscation in frames per second.
+ *
+ * <p>The mapping and the stack traces are generated: each class has methods with several line
+ * ranges, each with a frame of an inlined method, and the frames are picked at random.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RetraceBenchmark {
+
+  private static final int CLASSES = 2000;
+  private static final int METHODS_PER_CLASS = 10;
+  private static final int RANGES_PER_METHOD = 8;
+  private static final int FRAMES = 100000;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private RetraceMapping mapping;
+  private String stackTraces;
+  private ExecutorService executor;
+
+  private static String methodName(int index) {
+    return String.valueOf((char) ('a' + index));
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    StringBuilder map = new StringBuilder();
+    for (int c = 0; c < CLASSES; c++) {
+      map.append("com.example.package").append(c % 20).append(".Class").append(c);
+      map.append(" -> o").append(c).append(":\n");
+      for (int m = 0; m < METHODS_PER_CLASS; m++) {
+        for (int r = 0; r < RANGES_PER_METHOD; r++) {
+          int from = m * 100 + r * 10 + 1;
+          String range = "    " + from + ":" + (from + 9) + ":";
+          map.append(range).append("void com.example.Util.inlined():").append(r + 1);
+          map.append(":").append(r + 10).append(" -> ").append(methodName(m)).append('\n');
+          map.append(range).append("void method").append(m).append("():").append(from + 100);
+          map.append(" -> ").append(methodName(m)).append('\n');
+        }
+      }
+    }
+    mapping = RetraceMapping.create(ClassNameMapper.mapperFromString(map.toString()));
+
+    Random random = new Random(0);
+    StringBuilder traces = new StringBuilder();
+    for (int i = 0; i < FRAMES; i++) {
+      int m = random.nextInt(METHODS_PER_CLASS);
+      traces.append("\tat o").append(random.nextInt(CLASSES)).append('.').append(methodName(m));
+      traces.append("(SourceFile:").append(m * 100 + random.nextInt(RANGES_PER_METHOD * 10) + 1);
+      traces.append(")\n");
+    }
+    stackTraces = traces.toString();
+    executor = ThreadUtils.getExecutorService(threads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public String retrace() throws Exception {
+    StringWriter output = new StringWriter(stackTraces.length() * 4);
+    Retrace.run(
+        mapping, new BufferedReader(new StringReader(stackTraces)), output, executor, threads);
+    return output.toString();
+  }
+}
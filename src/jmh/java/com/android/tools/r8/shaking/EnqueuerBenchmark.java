@@ -0,0 +1,70 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.graph.AppInfoWithSubtyping;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.shaking.RootSetBuilder.RootSet;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Tracing of the example with {@link Enqueuer#traceApplication} from the roots of its rules. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EnqueuerBenchmark {
+
+  @Param({"shaking1", "shaking2", "minification", "inlining"})
+  public String example;
+
+  private InternalOptions options;
+  private AppView<AppInfoWithSubtyping> appView;
+  private RootSet rootSet;
+  private ExecutorService executor;
+
+  @Setup
+  public void setup() throws Exception {
+    options = BenchmarkInputs.r8Options(example);
+    executor = ThreadUtils.getExecutorService(options);
+    DexApplication application = BenchmarkInputs.read(example, options);
+    appView = BenchmarkInputs.r8AppView(application, options);
+    rootSet = BenchmarkInputs.rootSet(appView, application, executor);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public AppInfoWithLiveness traceApplication() throws ExecutionException {
+    return BenchmarkInputs.newEnqueuer(appView)
+        .traceApplication(
+            rootSet,
+            options.getProguardConfiguration().getDontWarnPatterns(),
+            executor,
+            new Timing("benchmark"));
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.utils.AbortException;
+import com.android.tools.r8.utils.Reporter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Parsing of the keep rules of all examples with {@link ProguardConfigurationParser}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProguardConfigurationParserBenchmark {
+
+  private final List<ProguardConfigurationSource> sources = new ArrayList<>();
+
+  @Setup
+  public void setup() throws IOException {
+    List<Path> files;
+    try (Stream<Path> examples = Files.list(Paths.get(BenchmarkInputs.EXAMPLES_DIR))) {
+      files =
+          examples
+              .map(example -> example.resolve("keep-rules.txt"))
+              .filter(Files::exists)
+              .sorted()
+              .collect(Collectors.toList());
+    }
+    // Only keep the rules that parse on their own, some examples test invalid configurations.
+    for (Path file : files) {
+      ProguardConfigurationSource source =
+          new ProguardConfigurationSourceStrings(
+              Files.readAllLines(file, StandardCharsets.UTF_8),
+              file.getParent(),
+              new PathOrigin(file));
+      Reporter reporter = new Reporter(new DiagnosticsHandler() {});
+      try {
+        new ProguardConfigurationParser(new DexItemFactory(), reporter, true).parse(source);
+        reporter.failIfPendingErrors();
+        sources.add(source);
+      } catch (AbortException | CompilationError e) {
+        // Skip the file.
+      }
+    }
+  }
+
+  @Benchmark
+  public ProguardConfiguration parse() {
+    ProguardConfigurationParser parser =
+        new ProguardConfigurationParser(new DexItemFactory(), new Reporter(), true);
+    parser.parse(sources);
+    return parser.getConfig();
+  }
+}
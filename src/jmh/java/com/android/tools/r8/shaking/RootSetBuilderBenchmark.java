@@ -0,0 +1,112 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import com.android.tools.r8.ClassFileConsumer;
+import com.android.tools.r8.benchmarks.BenchmarkInputs;
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.graph.AppInfoWithSubtyping;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.shaking.RootSetBuilder.RootSet;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching of real-world rule sets against the classes of the pinned R8 jar with {@link
+ * RootSetBuilder}.
+ *
+ * <p>The rule sets are the rules used for building R8 and the Android and library templates that
+ * come with ProGuard. The "all" rule set combines them, as an app does with the rules of its
+ * libraries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RootSetBuilderBenchmark {
+
+  private static final Path R8_JAR = Paths.get("third_party/r8/r8.jar");
+  private static final Path RT_JAR = Paths.get("third_party/openjdk/openjdk-rt-1.8/rt.jar");
+  private static final String PROGUARD_EXAMPLES = "third_party/proguard/proguard6.0.1/examples";
+
+  private static final Map<String, List<Path>> RULE_SETS =
+      ImmutableMap.of(
+          "r8",
+          ImmutableList.of(Paths.get("src/main/keep.txt")),
+          "android",
+          ImmutableList.of(Paths.get(PROGUARD_EXAMPLES, "android.pro")),
+          "library",
+          ImmutableList.of(Paths.get(PROGUARD_EXAMPLES, "library.pro")),
+          "all",
+          ImmutableList.of(
+              Paths.get("src/main/keep.txt"),
+              Paths.get("src/main/keep-compatproguard.txt"),
+              Paths.get(PROGUARD_EXAMPLES, "android.pro"),
+              Paths.get(PROGUARD_EXAMPLES, "library.pro")));
+
+  @Param({"r8", "android", "library", "all"})
+  public String rules;
+
+  private AppView<AppInfoWithSubtyping> appView;
+  private DexApplication application;
+  private ExecutorService executor;
+
+  @Setup
+  public void setup() throws Exception {
+    DexItemFactory factory = new DexItemFactory();
+    Reporter reporter = new Reporter();
+    ProguardConfigurationParser parser = new ProguardConfigurationParser(factory, reporter);
+    parser.parse(
+        RULE_SETS.get(rules).stream()
+            .map(ProguardConfigurationSourceFile::new)
+            .collect(Collectors.toList()));
+    InternalOptions options = new InternalOptions(parser.getConfig(), reporter);
+    options.programConsumer = ClassFileConsumer.emptyConsumer();
+    executor = ThreadUtils.getExecutorService(options);
+    AndroidApp app =
+        AndroidApp.builder().addProgramFiles(R8_JAR).addLibraryFiles(RT_JAR).build();
+    application =
+        new ApplicationReader(app, options, new Timing("benchmark")).read(executor).toDirect();
+    appView = BenchmarkInputs.r8AppView(application, options);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public RootSet run() throws ExecutionException {
+    return BenchmarkInputs.rootSet(appView, application, executor);
+  }
+}
@@ -12,6 +12,8 @@ import com.android.tools.r8.origin.ArchiveEntryOrigin;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.origin.PathOrigin;
 import com.android.tools.r8.utils.DescriptorUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.MappedZipFile;
 import com.android.tools.r8.utils.ZipUtils;
 import com.google.common.io.ByteStreams;
 import java.io.Closeable;
@@ -27,6 +29,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 /**
@@ -38,6 +41,9 @@ import java.util.zip.ZipFile;
 @Keep
 public class ArchiveClassFileProvider implements ClassFileResourceProvider, Closeable {
   private final Origin origin;
+  // The archive is read from a memory mapping if enabled and its format allows it, otherwise with a
+  // ZipFile.
+  private final MappedZipFile mappedZipFile;
   private final ZipFile zipFile;
   private final Set<String> descriptors = new HashSet<>();
 
@@ -60,7 +66,9 @@ public class ArchiveClassFileProvider implements ClassFileResourceProvider, Clos
     assert isArchive(archive);
     origin = new PathOrigin(archive);
     try {
-      zipFile = new ZipFile(archive.toFile(), StandardCharsets.UTF_8);
+      mappedZipFile = openMappedZipFile(archive);
+      zipFile =
+          mappedZipFile == null ? new ZipFile(archive.toFile(), StandardCharsets.UTF_8) : null;
     } catch (IOException e) {
       if (!Files.exists(archive)) {
         throw new NoSuchFileException(archive.toString());
@@ -68,16 +76,36 @@ public class ArchiveClassFileProvider implements ClassFileResourceProvider, Clos
         throw e;
       }
     }
-    final Enumeration<? extends ZipEntry> entries = zipFile.entries();
-    while (entries.hasMoreElements()) {
-      ZipEntry entry = entries.nextElement();
-      String name = entry.getName();
-      if (ZipUtils.isClassFile(name) && include.test(name)) {
-        descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
+    if (mappedZipFile != null) {
+      for (String name : mappedZipFile.getEntryNames()) {
+        addDescriptor(name, include);
+      }
+    } else {
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        addDescriptor(entries.nextElement().getName(), include);
       }
     }
   }
 
+  private static MappedZipFile openMappedZipFile(Path archive) throws IOException {
+    if (!InternalOptions.shouldEnableMemoryMappedArchiveInput()) {
+      return null;
+    }
+    try {
+      return MappedZipFile.open(archive);
+    } catch (ZipException e) {
+      // Leave it to ZipFile to report the malformed archive.
+      return null;
+    }
+  }
+
+  private void addDescriptor(String name, Predicate<String> include) {
+    if (ZipUtils.isClassFile(name) && include.test(name)) {
+      descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
+    }
+  }
+
   @Override
   public Set<String> getClassDescriptors() {
     return Collections.unmodifiableSet(descriptors);
@@ -88,13 +116,18 @@ public class ArchiveClassFileProvider implements ClassFileResourceProvider, Clos
     if (!descriptors.contains(descriptor)) {
       return null;
     }
-    ZipEntry zipEntry = getZipEntryFromDescriptor(descriptor);
-    try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+    String name = descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION;
+    try {
+      byte[] bytes;
+      if (mappedZipFile != null) {
+        bytes = mappedZipFile.getBytes(name);
+      } else {
+        try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name))) {
+          bytes = ByteStreams.toByteArray(inputStream);
+        }
+      }
       return ProgramResource.fromBytes(
-          new ArchiveEntryOrigin(zipEntry.getName(), origin),
-          Kind.CF,
-          ByteStreams.toByteArray(inputStream),
-          Collections.singleton(descriptor));
+          new ArchiveEntryOrigin(name, origin), Kind.CF, bytes, Collections.singleton(descriptor));
     } catch (IOException e) {
       throw new CompilationError("Failed to read '" + descriptor, origin);
     }
@@ -108,10 +141,10 @@ public class ArchiveClassFileProvider implements ClassFileResourceProvider, Clos
 
   @Override
   public void close() throws IOException {
-    zipFile.close();
-  }
-
-  private ZipEntry getZipEntryFromDescriptor(String descriptor) {
-    return zipFile.getEntry(descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION);
+    if (mappedZipFile != null) {
+      mappedZipFile.close();
+    } else {
+      zipFile.close();
+    }
   }
 }
@@ -30,6 +30,7 @@ public abstract class BaseCompilerCommand extends BaseCommand {
   private final Reporter reporter;
   private final boolean enableDesugaring;
   private final boolean optimizeMultidexForLinearAlloc;
+  private final StringConsumer timingReportConsumer;
 
   BaseCompilerCommand(boolean printHelp, boolean printVersion) {
     super(printHelp, printVersion);
@@ -40,6 +41,7 @@ public abstract class BaseCompilerCommand extends BaseCommand {
     reporter = new Reporter();
     enableDesugaring = true;
     optimizeMultidexForLinearAlloc = false;
+    timingReportConsumer = null;
   }
 
   BaseCompilerCommand(
@@ -50,7 +52,8 @@ public abstract class BaseCompilerCommand extends BaseCommand {
       int minApiLevel,
       Reporter reporter,
       boolean enableDesugaring,
-      boolean optimizeMultidexForLinearAlloc) {
+      boolean optimizeMultidexForLinearAlloc,
+      StringConsumer timingReportConsumer) {
     super(app);
     assert minApiLevel > 0;
     assert mode != null;
@@ -61,6 +64,7 @@ public abstract class BaseCompilerCommand extends BaseCommand {
     this.reporter = reporter;
     this.enableDesugaring = enableDesugaring;
     this.optimizeMultidexForLinearAlloc = optimizeMultidexForLinearAlloc;
+    this.timingReportConsumer = timingReportConsumer;
   }
 
   /**
@@ -105,6 +109,11 @@ public abstract class BaseCompilerCommand extends BaseCommand {
     return optimizeMultidexForLinearAlloc;
   }
 
+  /** Get the consumer that will receive the timing and memory report, if any. */
+  public StringConsumer getTimingReportConsumer() {
+    return timingReportConsumer;
+  }
+
   Reporter getReporter() {
     return reporter;
   }
@@ -129,6 +138,7 @@ public abstract class BaseCompilerCommand extends BaseCommand {
     private int minApiLevel = 0;
     private boolean disableDesugaring = false;
     private boolean optimizeMultidexForLinearAlloc = false;
+    private StringConsumer timingReportConsumer = null;
 
     abstract CompilationMode defaultCompilationMode();
 
@@ -269,6 +279,40 @@ public abstract class BaseCompilerCommand extends BaseCommand {
       return self();
     }
 
+    /**
+     * Set an output destination to which a JSON report of the time, allocated bytes and heap use of
+     * each compilation phase should be written.
+     *
+     * <p>This is a short-hand for setting a {@link StringConsumer.FileConsumer} using {@link
+     * #setTimingReportConsumer}. Note that any subsequent call to this method or {@link
+     * #setTimingReportConsumer} will override the previous setting.
+     *
+     * @param timingReportOutputPath File-system path to write output at.
+     */
+    public B setTimingReportOutputPath(Path timingReportOutputPath) {
+      timingReportConsumer = new StringConsumer.FileConsumer(timingReportOutputPath);
+      return self();
+    }
+
+    /**
+     * Set a consumer for receiving a JSON report of the time, allocated bytes and heap use of each
+     * compilation phase.
+     *
+     * <p>Note that any subsequent call to this method or {@link #setTimingReportOutputPath} will
+     * override the previous setting.
+     *
+     * @param timingReportConsumer Consumer to receive the report once the compilation is done.
+     */
+    public B setTimingReportConsumer(StringConsumer timingReportConsumer) {
+      this.timingReportConsumer = timingReportConsumer;
+      return self();
+    }
+
+    /** Get the consumer that will receive the timing and memory report, if any. */
+    public StringConsumer getTimingReportConsumer() {
+      return timingReportConsumer;
+    }
+
     /**
      * Set the output path-and-mode.
      *
@@ -13,13 +13,16 @@ import com.android.tools.r8.graph.AppInfo;
 import com.android.tools.r8.graph.DexApplication;
 import com.android.tools.r8.graph.DexProgramClass;
 import com.android.tools.r8.graph.GraphLense;
+import com.android.tools.r8.graph.LazyLoadedDexApplication;
 import com.android.tools.r8.ir.conversion.IRConverter;
 import com.android.tools.r8.naming.NamingLens;
 import com.android.tools.r8.origin.CommandLineOrigin;
 import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.CfgPrinter;
+import com.android.tools.r8.utils.DexPerClassFileCache;
 import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ProgramChunks;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.android.tools.r8.utils.VersionProperties;
@@ -29,6 +32,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -74,7 +78,7 @@ public final class D8 {
         command.getReporter(),
         () -> {
           try {
-            run(app, options, executor);
+            run(command, app, options, executor);
           } finally {
             executor.shutdown();
           }
@@ -94,7 +98,7 @@ public final class D8 {
     ExceptionUtils.withD8CompilationHandler(
         command.getReporter(),
         () -> {
-          run(app, options, executor);
+          run(command, app, options, executor);
         });
   }
 
@@ -110,7 +114,16 @@ public final class D8 {
     }
     InternalOptions options = command.getInternalOptions();
     AndroidApp app = command.getInputApp();
-    runForTesting(app, options);
+    ExecutorService executor = ThreadUtils.getExecutorService(options);
+    ExceptionUtils.withD8CompilationHandler(
+        command.getReporter(),
+        () -> {
+          try {
+            run(command, app, options, executor);
+          } finally {
+            executor.shutdown();
+          }
+        });
   }
 
   /**
@@ -158,18 +171,76 @@ public final class D8 {
     return marker;
   }
 
+  private static void run(
+      D8Command command, AndroidApp inputApp, InternalOptions options, ExecutorService executor)
+      throws IOException {
+    List<AndroidApp> chunks =
+        ProgramChunks.isApplicable(options) ? ProgramChunks.split(inputApp, options) : null;
+    if (chunks == null) {
+      run(inputApp, options, executor);
+      return;
+    }
+    // Compile the chunks one after the other, each with its own options and item factory, such
+    // that nothing of a chunk is retained once it has been written. The phases of all chunks are
+    // recorded in the same timing, which is reported once.
+    Timing timing = new Timing("D8", options.isMemoryTrackingInTimingEnabled());
+    ProgramChunks.ChunkConsumer consumer =
+        new ProgramChunks.ChunkConsumer(options.getDexFilePerClassFileConsumer());
+    try {
+      for (AndroidApp chunk : chunks) {
+        InternalOptions chunkOptions = command.getInternalOptions();
+        chunkOptions.programConsumer = consumer;
+        run(chunk, chunkOptions, executor, timing);
+      }
+    } finally {
+      options.signalFinishedToConsumers();
+      reportTiming(timing, options);
+    }
+  }
+
   private static void run(AndroidApp inputApp, InternalOptions options, ExecutorService executor)
       throws IOException {
-    Timing timing = new Timing("D8");
+    Timing timing = new Timing("D8", options.isMemoryTrackingInTimingEnabled());
+    try {
+      run(inputApp, options, executor, timing);
+    } finally {
+      reportTiming(timing, options);
+    }
+  }
+
+  private static void reportTiming(Timing timing, InternalOptions options) {
+    if (options.printTimes) {
+      timing.report();
+    }
+    if (options.timingReportConsumer != null) {
+      options.timingReportConsumer.accept(timing.toJson(), options.reporter);
+    }
+  }
+
+  private static void run(
+      AndroidApp inputApp, InternalOptions options, ExecutorService executor, Timing timing)
+      throws IOException {
     try {
       // Disable global optimizations.
       options.disableGlobalOptimizations();
 
-      DexApplication app = new ApplicationReader(inputApp, options, timing).read(executor);
-      AppInfo appInfo = new AppInfo(app, inputApp.getBucketId());
-      app = optimize(app, appInfo, options, timing, executor);
+      if (options.dexPerClassFileCache != null && DexPerClassFileCache.isApplicable(options)) {
+        timing.begin("Dex cache lookup");
+        inputApp = options.dexPerClassFileCache.apply(inputApp, options);
+        timing.end();
+      }
+
+      LazyLoadedDexApplication lazyApp =
+          new ApplicationReader(inputApp, options, timing).read(executor);
+      AppInfo appInfo = new AppInfo(lazyApp, inputApp.getBucketId());
+      DexApplication app = optimize(lazyApp, appInfo, options, timing, executor);
 
-      // Close any internal archive providers now the application is fully processed.
+      // Close any internal archive providers now the application is fully processed, once no
+      // classes are loaded from them in the background.
+      lazyApp.cancelPrefetching();
+      if (options.enableClassPrefetching) {
+        lazyApp.reportClassLoadStatistics(timing);
+      }
       inputApp.closeInternalArchiveProviders();
 
       // If a method filter is present don't produce output since the application is likely partial.
@@ -204,15 +275,14 @@ public final class D8 {
               null,
               null)
           .write(executor);
+      if (options.dexPerClassFileCache != null) {
+        options.dexPerClassFileCache.evict();
+      }
       options.printWarnings();
     } catch (ExecutionException e) {
       throw R8.unwrapExecutionException(e);
     } finally {
       options.signalFinishedToConsumers();
-      // Dump timings.
-      if (options.printTimes) {
-        timing.report();
-      }
     }
   }
 
@@ -8,6 +8,7 @@ import com.android.tools.r8.graph.DexItemFactory;
 import com.android.tools.r8.origin.Origin;
 import com.android.tools.r8.utils.AndroidApiLevel;
 import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.DexPerClassFileCache;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.Reporter;
 import com.android.tools.r8.utils.StringDiagnostic;
@@ -66,6 +67,9 @@ public final class D8Command extends BaseCompilerCommand {
 
     private boolean intermediate = false;
     private Consumer<InternalOptions> internalOptionsModifier;
+    private Path dexCacheDirectory = null;
+    private long dexCacheMaxSizeInBytes = DEFAULT_DEX_CACHE_MAX_SIZE_IN_BYTES;
+    private int perClassFileChunkSize = 0;
 
     private Builder() {
       this(new DefaultD8DiagnosticsHandler());
@@ -125,6 +129,47 @@ public final class D8Command extends BaseCompilerCommand {
       return self();
     }
 
+    /**
+     * Set a directory for caching the DEX output of individual class files across compilations.
+     *
+     * <p>The cache is only used when compiling to a {@link DexFilePerClassFileConsumer} that
+     * combines synthetic classes with their primary class, without a methods filter. It is skipped
+     * when interface methods are desugared, i.e., when desugaring for a min API level below 24.
+     * Classes with lambdas or method references that are not implemented in the class itself are
+     * always compiled, as their output depends on other classes.
+     *
+     * <p>Entries are keyed by the class-file content, compilation mode, min API level,
+     * intermediate mode, desugaring, DEX passthrough, line number optimization, bucket id, marker
+     * and compiler version. Several processes can safely share the same directory.
+     */
+    public Builder setDexCacheDirectory(Path directory) {
+      this.dexCacheDirectory = directory;
+      return self();
+    }
+
+    /**
+     * Set the maximum total size of the DEX cache directory. Least recently used entries are
+     * evicted at the end of a compilation once the size is exceeded.
+     */
+    public Builder setDexCacheMaxSize(long bytes) {
+      this.dexCacheMaxSizeInBytes = bytes;
+      return self();
+    }
+
+    /**
+     * Set the maximum number of program classes that are compiled together when compiling to a
+     * {@link DexFilePerClassFileConsumer}, to bound the memory use of large inputs.
+     *
+     * <p>The class-file inputs are compiled in chunks of at most this many classes, in input order,
+     * with the classes of the other chunks on the classpath. The output does not depend on the
+     * chunk size. Inputs with DEX files, multi-class resources or duplicate classes are compiled
+     * together. The default, 0, compiles all inputs together.
+     */
+    public Builder setPerClassFileChunkSize(int classes) {
+      this.perClassFileChunkSize = classes;
+      return self();
+    }
+
     @Override
     Builder self() {
       return this;
@@ -151,6 +196,12 @@ public final class D8Command extends BaseCompilerCommand {
       } else if (getMainDexListConsumer() != null) {
         reporter.error("Option --main-dex-list-output require --main-dex-list");
       }
+      if (dexCacheDirectory != null && dexCacheMaxSizeInBytes <= 0) {
+        reporter.error("The DEX cache size must be positive");
+      }
+      if (perClassFileChunkSize < 0) {
+        reporter.error("The per-class-file chunk size must not be negative");
+      }
       if (getMinApiLevel() >= AndroidApiLevel.L.getLevel()) {
         if (getMainDexListConsumer() != null || getAppBuilder().hasMainDexList()) {
           reporter.error(
@@ -180,13 +231,22 @@ public final class D8Command extends BaseCompilerCommand {
           !getDisableDesugaring(),
           intermediate,
           isOptimizeMultidexForLinearAlloc(),
-          internalOptionsModifier);
+          getTimingReportConsumer(),
+          internalOptionsModifier,
+          dexCacheDirectory == null
+              ? null
+              : new DexPerClassFileCache(dexCacheDirectory, dexCacheMaxSizeInBytes),
+          perClassFileChunkSize);
     }
   }
 
   static final String USAGE_MESSAGE = D8CommandParser.USAGE_MESSAGE;
 
+  private static final long DEFAULT_DEX_CACHE_MAX_SIZE_IN_BYTES = 1024L * 1024L * 1024L;
+
   private boolean intermediate = false;
+  private DexPerClassFileCache dexCache = null;
+  private int perClassFileChunkSize = 0;
   private DexItemFactory dexItemFactory;
 
   public DexItemFactory getDexItemFactory() {
@@ -243,7 +303,10 @@ public final class D8Command extends BaseCompilerCommand {
       boolean enableDesugaring,
       boolean intermediate,
       boolean optimizeMultidexForLinearAlloc,
-      Consumer<InternalOptions> internalOptionsModifier) {
+      StringConsumer timingReportConsumer,
+      Consumer<InternalOptions> internalOptionsModifier,
+      DexPerClassFileCache dexCache,
+      int perClassFileChunkSize) {
     super(
         inputApp,
         mode,
@@ -252,9 +315,12 @@ public final class D8Command extends BaseCompilerCommand {
         minApiLevel,
         diagnosticsHandler,
         enableDesugaring,
-        optimizeMultidexForLinearAlloc);
+        optimizeMultidexForLinearAlloc,
+        timingReportConsumer);
     this.intermediate = intermediate;
     this.internalOptionsModifier = internalOptionsModifier;
+    this.dexCache = dexCache;
+    this.perClassFileChunkSize = perClassFileChunkSize;
   }
 
   private D8Command(boolean printHelp, boolean printVersion) {
@@ -269,6 +335,7 @@ public final class D8Command extends BaseCompilerCommand {
     internal.debug = getMode() == CompilationMode.DEBUG;
     internal.programConsumer = getProgramConsumer();
     internal.mainDexListConsumer = getMainDexListConsumer();
+    internal.timingReportConsumer = getTimingReportConsumer();
     internal.minimalMainDex = internal.debug;
     internal.minApiLevel = getMinApiLevel();
     internal.intermediate = intermediate;
@@ -292,6 +359,10 @@ public final class D8Command extends BaseCompilerCommand {
 
     internal.enableDesugaring = getEnableDesugaring();
     internal.enableInheritanceClassInDexDistributor = isOptimizeMultidexForLinearAlloc();
+    internal.dexPerClassFileCache = dexCache;
+    if (perClassFileChunkSize > 0) {
+      internal.d8StreamingChunkSize = perClassFileChunkSize;
+    }
     if (internalOptionsModifier != null) {
       internalOptionsModifier.accept(internal);
     }
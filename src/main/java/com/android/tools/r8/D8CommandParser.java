@@ -30,7 +30,8 @@ public class D8CommandParser extends BaseCompilerCommandParser {
           "--classpath",
           "--min-api",
           "--main-dex-list",
-          "--main-dex-list-output");
+          "--main-dex-list-output",
+          "--timing-report");
 
   private static final String APK_EXTENSION = ".apk";
   private static final String JAR_EXTENSION = ".jar";
@@ -127,6 +128,7 @@ public class D8CommandParser extends BaseCompilerCommandParser {
               "  --main-dex-list <file>  # List of classes to place in the primary dex file.",
               "  --main-dex-list-output <file>",
               "                          # Output resulting main dex list in <file>.",
+              "  --timing-report <file>  # Output time and memory use per phase as JSON in <file>.",
               "  --version               # Print the version of d8.",
               "  --help                  # Print this message."));
 
@@ -232,6 +234,8 @@ public class D8CommandParser extends BaseCompilerCommandParser {
         builder.addMainDexListFiles(Paths.get(nextArg));
       } else if (arg.equals("--main-dex-list-output")) {
         builder.setMainDexListOutputPath(Paths.get(nextArg));
+      } else if (arg.equals("--timing-report")) {
+        builder.setTimingReportOutputPath(Paths.get(nextArg));
       } else if (arg.equals("--optimize-multidex-for-linearalloc")) {
         builder.setOptimizeMultidexForLinearAlloc(true);
       } else if (arg.equals("--min-api")) {
@@ -9,16 +9,20 @@ import com.android.tools.r8.utils.ArchiveBuilder;
 import com.android.tools.r8.utils.DirectoryBuilder;
 import com.android.tools.r8.utils.ExceptionDiagnostic;
 import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.OutputBuilder;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.ZipUtils;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -124,6 +128,10 @@ public interface DexIndexedConsumer extends ProgramConsumer, ByteBufferProvider
       implements DataResourceConsumer, InternalProgramOutputPathConsumer {
     protected final OutputBuilder outputBuilder;
     protected final boolean consumeDataResources;
+    // DEX files are compressed before accept returns, so their buffers can be reused for the
+    // files that are written later. At most one buffer per writer thread is kept.
+    private static final int MAX_RELEASED_BYTE_BUFFERS = Runtime.getRuntime().availableProcessors();
+    private final List<ByteBuffer> releasedByteBuffers = new ArrayList<>();
 
     public ArchiveConsumer(Path archive) {
       this(archive, null, false);
@@ -139,7 +147,8 @@ public interface DexIndexedConsumer extends ProgramConsumer, ByteBufferProvider
 
     public ArchiveConsumer(Path archive, DexIndexedConsumer consumer, boolean consumeDataResouces) {
       super(consumer);
-      this.outputBuilder = new ArchiveBuilder(archive);
+      this.outputBuilder =
+          new ArchiveBuilder(archive, InternalOptions.shouldEnableParallelArchiveCompression());
       this.consumeDataResources = consumeDataResouces;
       this.outputBuilder.open();
       if (getDataResourceConsumer() != null) {
@@ -163,6 +172,49 @@ public interface DexIndexedConsumer extends ProgramConsumer, ByteBufferProvider
       outputBuilder.addIndexedClassFile(fileIndex, getDexFileName(fileIndex), data, handler);
     }
 
+    @Override
+    public ByteBuffer acquireByteBuffer(int capacity) {
+      synchronized (releasedByteBuffers) {
+        // Use the smallest buffer that fits, to keep the larger ones for larger files.
+        int bestIndex = -1;
+        for (int i = 0; i < releasedByteBuffers.size(); i++) {
+          int bufferCapacity = releasedByteBuffers.get(i).capacity();
+          if (bufferCapacity >= capacity
+              && (bestIndex == -1
+                  || bufferCapacity < releasedByteBuffers.get(bestIndex).capacity())) {
+            bestIndex = i;
+          }
+        }
+        if (bestIndex != -1) {
+          return releasedByteBuffers.remove(bestIndex);
+        }
+      }
+      return super.acquireByteBuffer(capacity);
+    }
+
+    @Override
+    public void releaseByteBuffer(ByteBuffer buffer) {
+      // Cast to Buffer as ByteBuffer.clear() only exists from JDK 9 (see CompatByteBuffer).
+      ((Buffer) buffer).clear();
+      synchronized (releasedByteBuffers) {
+        if (releasedByteBuffers.size() < MAX_RELEASED_BYTE_BUFFERS) {
+          releasedByteBuffers.add(buffer);
+          return;
+        }
+        // The pool is full, drop the smallest buffer, such as one outgrown by a DEX file.
+        int smallestIndex = 0;
+        for (int i = 1; i < releasedByteBuffers.size(); i++) {
+          if (releasedByteBuffers.get(i).capacity()
+              < releasedByteBuffers.get(smallestIndex).capacity()) {
+            smallestIndex = i;
+          }
+        }
+        if (releasedByteBuffers.get(smallestIndex).capacity() < buffer.capacity()) {
+          releasedByteBuffers.set(smallestIndex, buffer);
+        }
+      }
+    }
+
     @Override
     public void accept(DataDirectoryResource directory, DiagnosticsHandler handler) {
       outputBuilder.addDirectory(directory.getName(), handler);
@@ -177,6 +229,9 @@ public interface DexIndexedConsumer extends ProgramConsumer, ByteBufferProvider
     public void finished(DiagnosticsHandler handler) {
       super.finished(handler);
       outputBuilder.close(handler);
+      synchronized (releasedByteBuffers) {
+        releasedByteBuffers.clear();
+      }
     }
 
     public static void writeResources(
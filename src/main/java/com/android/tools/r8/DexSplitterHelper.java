@@ -73,7 +73,7 @@ public final class DexSplitterHelper {
 
       ClassNameMapper mapper = null;
       if (proguardMap != null) {
-        mapper = ClassNameMapper.mapperFromFile(Paths.get(proguardMap));
+        mapper = ClassNameMapper.lazyMapperFromFile(Paths.get(proguardMap));
       }
       Map<String, LazyLoadedDexApplication.Builder> applications =
           getDistribution(app, featureClassMapping, mapper);
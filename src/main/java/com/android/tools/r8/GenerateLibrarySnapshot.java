@@ -0,0 +1,58 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8;
+
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.FileUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.LibrarySnapshotClassFileProvider;
+import com.android.tools.r8.utils.ListUtils;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Writes the library classes of jars and directories to a snapshot, which can be passed to D8 and
+ * R8 as a library in place of the jars and directories.
+ *
+ * <p>See {@link LibrarySnapshotClassFileProvider} for the content of a snapshot. The snapshot
+ * file must have the extension {@value FileUtils#LIBRARY_SNAPSHOT_EXTENSION}.
+ */
+public class GenerateLibrarySnapshot {
+
+  private static final String USAGE =
+      "Usage: librarysnapshot <output" + FileUtils.LIBRARY_SNAPSHOT_EXTENSION + "> <library>+";
+
+  public static void run(Path output, List<Path> libraries)
+      throws IOException, ExecutionException {
+    AndroidApp app = AndroidApp.builder().addLibraryFiles(libraries).build();
+    InternalOptions options = new InternalOptions();
+    ExecutorService executor = ThreadUtils.getExecutorService(options);
+    try {
+      LibrarySnapshotClassFileProvider.write(
+          new ApplicationReader(app, options, new Timing("GenerateLibrarySnapshot"))
+              .read(executor)
+              .toDirect()
+              .libraryClasses(),
+          output);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public static void main(String[] args) throws IOException, ExecutionException {
+    if (args.length < 2 || !FileUtils.isLibrarySnapshot(Paths.get(args[0]))) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    run(Paths.get(args[0]), ListUtils.map(Arrays.asList(args).subList(1, args.length), Paths::get));
+  }
+}
@@ -23,7 +23,9 @@ import com.android.tools.r8.graph.DexMethod;
 import com.android.tools.r8.graph.DexProgramClass;
 import com.android.tools.r8.graph.DexReference;
 import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.EagerCodeParser;
 import com.android.tools.r8.graph.GraphLense;
+import com.android.tools.r8.graph.LazyLoadedDexApplication;
 import com.android.tools.r8.ir.conversion.IRConverter;
 import com.android.tools.r8.ir.optimize.EnumOrdinalMapCollector;
 import com.android.tools.r8.ir.optimize.MethodPoolCollection;
@@ -65,6 +67,7 @@ import com.android.tools.r8.utils.AndroidApiLevel;
 import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.CfgPrinter;
 import com.android.tools.r8.utils.CollectionUtils;
+import com.android.tools.r8.utils.CompilationCache;
 import com.android.tools.r8.utils.ExceptionUtils;
 import com.android.tools.r8.utils.FileUtils;
 import com.android.tools.r8.utils.InternalOptions;
@@ -127,11 +130,12 @@ import java.util.concurrent.ExecutorService;
 @Keep
 public class R8 {
 
-  private final Timing timing = new Timing("R8");
+  private final Timing timing;
   private final InternalOptions options;
 
   private R8(InternalOptions options) {
     this.options = options;
+    this.timing = new Timing("R8", options.isMemoryTrackingInTimingEnabled());
     options.itemFactory.resetSortedIndices();
   }
 
@@ -254,7 +258,17 @@ public class R8 {
 
   private static void run(AndroidApp app, InternalOptions options, ExecutorService executor)
       throws IOException {
+    CompilationCache cache = CompilationCache.create(app, options);
+    if (cache == null) {
+      new R8(options).run(app, executor);
+      return;
+    }
+    if (cache.replay()) {
+      return;
+    }
+    cache.record();
     new R8(options).run(app, executor);
+    cache.store();
   }
 
   private void run(AndroidApp inputApp, ExecutorService executorService) throws IOException {
@@ -263,12 +277,28 @@ public class R8 {
       System.setOut(new PrintStream(ByteStreams.nullOutputStream()));
     }
     try {
-      DexApplication application =
-          new ApplicationReader(inputApp, options, timing).read(executorService).toDirect();
+      LazyLoadedDexApplication lazyApplication =
+          new ApplicationReader(inputApp, options, timing).read(executorService);
+      if (options.enableClassPrefetching) {
+        // All classes are loaded when creating the direct application, load them in parallel.
+        lazyApplication.prefetchAllClasses(executorService);
+      }
+      timing.begin("Load classes");
+      DexApplication application = lazyApplication.toDirect();
+      lazyApplication.cancelPrefetching();
+      if (options.enableClassPrefetching) {
+        lazyApplication.reportClassLoadStatistics(timing);
+      }
+      timing.end();
 
       // Now that the dex-application is fully loaded, close any internal archive providers.
       inputApp.closeInternalArchiveProviders();
 
+      EagerCodeParser eagerCodeParser =
+          options.enableEagerCodeParsing
+              ? EagerCodeParser.start(application, options, executorService)
+              : null;
+
       AppView<AppInfoWithSubtyping> appView =
           AppView.createForR8(new AppInfoWithSubtyping(application), options);
       appView.setAppServices(AppServices.builder(appView).build());
@@ -328,6 +358,11 @@ public class R8 {
                     options.getProguardConfiguration().getDontWarnPatterns(),
                     executorService,
                     timing));
+        if (eagerCodeParser != null) {
+          // The code that has not been parsed yet is not needed before pruning the application.
+          eagerCodeParser.stop();
+          eagerCodeParser.reportStatistics(timing);
+        }
         assert appView.rootSet().verifyKeptFieldsAreAccessedAndLive(appViewWithLiveness.appInfo());
         assert appView.rootSet().verifyKeptMethodsAreTargetedAndLive(appViewWithLiveness.appInfo());
         assert appView.rootSet().verifyKeptTypesAreLive(appViewWithLiveness.appInfo());
@@ -498,6 +533,10 @@ public class R8 {
         IRConverter converter = new IRConverter(appView, timing, printer, mainDexClasses);
         application = converter.optimize(application, executorService);
         desugaredCallSites = converter.getDesugaredCallSites();
+        appView
+            .dexItemFactory()
+            .leastUpperBoundOfInterfacesCache
+            .reportCounters("Least upper bound of interfaces cache", timing);
       } finally {
         timing.end();
       }
@@ -640,7 +679,9 @@ public class R8 {
         timing.end();
       } else if (options.isMinifying()) {
         timing.begin("Minification");
-        namingLens = new Minifier(appView.withLiveness(), desugaredCallSites).run(timing);
+        namingLens =
+            new Minifier(appView.withLiveness(), desugaredCallSites)
+                .run(executorService, timing);
         timing.end();
       } else {
         if (appView.appInfo().hasLiveness()) {
@@ -723,6 +764,9 @@ public class R8 {
       if (options.printTimes) {
         timing.report();
       }
+      if (options.timingReportConsumer != null) {
+        options.timingReportConsumer.accept(timing.toJson(), options.reporter);
+      }
     }
   }
 
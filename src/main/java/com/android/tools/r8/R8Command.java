@@ -458,7 +458,8 @@ public final class R8Command extends BaseCompilerCommand {
               keptGraphConsumer,
               mainDexKeptGraphConsumer,
               syntheticProguardRulesConsumer,
-              isOptimizeMultidexForLinearAlloc());
+              isOptimizeMultidexForLinearAlloc(),
+              getTimingReportConsumer());
 
       return command;
     }
@@ -602,9 +603,10 @@ public final class R8Command extends BaseCompilerCommand {
       GraphConsumer keptGraphConsumer,
       GraphConsumer mainDexKeptGraphConsumer,
       Consumer<List<ProguardConfigurationRule>> syntheticProguardRulesConsumer,
-      boolean optimizeMultidexForLinearAlloc) {
+      boolean optimizeMultidexForLinearAlloc,
+      StringConsumer timingReportConsumer) {
     super(inputApp, mode, programConsumer, mainDexListConsumer, minApiLevel, reporter,
-        enableDesugaring, optimizeMultidexForLinearAlloc);
+        enableDesugaring, optimizeMultidexForLinearAlloc, timingReportConsumer);
     assert proguardConfiguration != null;
     assert mainDexKeepRules != null;
     this.mainDexKeepRules = mainDexKeepRules;
@@ -671,6 +673,7 @@ public final class R8Command extends BaseCompilerCommand {
     internal.mainDexKeepRules = mainDexKeepRules;
     internal.minimalMainDex = getMode() == CompilationMode.DEBUG;
     internal.mainDexListConsumer = getMainDexListConsumer();
+    internal.timingReportConsumer = getTimingReportConsumer();
     internal.lineNumberOptimization =
         !internal.debug && (proguardConfiguration.isOptimizing() || internal.isMinifying())
             ? LineNumberOptimization.ON
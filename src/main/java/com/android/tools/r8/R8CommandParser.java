@@ -25,7 +25,8 @@ public class R8CommandParser extends BaseCompilerCommandParser {
           "--main-dex-list",
           "--main-dex-list-output",
           "--pg-conf",
-          "--pg-map-output");
+          "--pg-map-output",
+          "--timing-report");
 
   public static void main(String[] args) throws CompilationFailedException {
     R8Command command = parse(args, Origin.root()).build();
@@ -74,6 +75,8 @@ public class R8CommandParser extends BaseCompilerCommandParser {
               "  --main-dex-list <file>   # List of classes to place in the primary dex file.",
               "  --main-dex-list-output <file>  ",
               "                           # Output the full main-dex list in <file>.",
+              "  --timing-report <file>   # Output time and memory use per phase as JSON in",
+              "                           # <file>.",
               "  --version                # Print the version of r8.",
               "  --help                   # Print this message."));
   /**
@@ -206,6 +209,8 @@ public class R8CommandParser extends BaseCompilerCommandParser {
         builder.addProguardConfigurationFiles(Paths.get(nextArg));
       } else if (arg.equals("--pg-map-output")) {
         builder.setProguardMapOutputPath(Paths.get(nextArg));
+      } else if (arg.equals("--timing-report")) {
+        builder.setTimingReportOutputPath(Paths.get(nextArg));
       } else if (arg.equals("--no-data-resources")) {
         state.includeDataResources = false;
       } else {
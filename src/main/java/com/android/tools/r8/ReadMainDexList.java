@@ -56,7 +56,7 @@ public class ReadMainDexList {
     Path mainDexList = Paths.get(arg);
 
     final ClassNameMapper mapper =
-        arguments.hasNext() ? ClassNameMapper.mapperFromFile(Paths.get(arguments.next())) : null;
+        arguments.hasNext() ? ClassNameMapper.lazyMapperFromFile(Paths.get(arguments.next())) : null;
 
     FileUtils.readAllLines(mainDexList)
         .stream()
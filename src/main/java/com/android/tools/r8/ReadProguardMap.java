@@ -24,6 +24,9 @@ public class ReadProguardMap {
       timing.begin("Reading " + fileName);
       ClassNameMapper.mapperFromFile(Paths.get(fileName));
       timing.end();
+      timing.begin("Indexing " + fileName);
+      ClassNameMapper.lazyMapperFromFile(Paths.get(fileName));
+      timing.end();
     } catch (IOException e) {
       System.err.print("Failed to parse Proguard mapping file: " + e.getMessage());
     }
@@ -8,6 +8,7 @@ import com.android.tools.r8.compatdx.CompatDx;
 import com.android.tools.r8.compatproguard.CompatProguard;
 import com.android.tools.r8.dexfilemerger.DexFileMerger;
 import com.android.tools.r8.dexsplitter.DexSplitter;
+import com.android.tools.r8.retrace.Retrace;
 import java.util.Arrays;
 
 /**
@@ -64,6 +65,9 @@ public class SwissArmyKnife {
       case "jarsizecompare":
         JarSizeCompare.main(shift(args));
         break;
+      case "librarysnapshot":
+        GenerateLibrarySnapshot.main(shift(args));
+        break;
       case "maindex":
         GenerateMainDexList.main(shift(args));
         break;
@@ -76,6 +80,9 @@ public class SwissArmyKnife {
       case "r8":
         R8.main(shift(args));
         break;
+      case "retrace":
+        Retrace.main(shift(args));
+        break;
       default:
         runDefault(args);
         break;
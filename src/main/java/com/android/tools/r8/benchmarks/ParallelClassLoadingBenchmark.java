@@ -0,0 +1,51 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.benchmarks;
+
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Measures parsing of a large program on all available cores. All parser threads intern their
+ * strings, types and members in the same {@link com.android.tools.r8.graph.DexItemFactory}, so
+ * this mostly stresses contention on the item factory.
+ */
+public class ParallelClassLoadingBenchmark {
+  private static final int ITERATIONS = 10;
+  private static final Path DEFAULT_INPUT =
+      Paths.get("third_party", "framework", "framework_14082017.jar");
+
+  public static void load(Path input, ExecutorService executor)
+      throws IOException, ExecutionException {
+    AndroidApp app = AndroidApp.builder().addProgramFiles(input).build();
+    new ApplicationReader(app, new InternalOptions(), new Timing("ParallelClassLoading"))
+        .read(executor);
+  }
+
+  public static void main(String[] args) throws IOException, ExecutionException {
+    Path input = args.length > 0 ? Paths.get(args[0]) : DEFAULT_INPUT;
+    ExecutorService executor =
+        ThreadUtils.getExecutorService(Runtime.getRuntime().availableProcessors());
+    try {
+      // Warm up the JIT before measuring.
+      load(input, executor);
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        load(input, executor);
+      }
+      BenchmarkUtils.printRuntimeNanoseconds(
+          "ParallelClassLoading", (System.nanoTime() - start) / (double) ITERATIONS);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -19,9 +19,12 @@ import com.android.tools.r8.graph.ClassKind;
 import com.android.tools.r8.graph.DexApplication;
 import com.android.tools.r8.graph.DexClass;
 import com.android.tools.r8.graph.DexClasspathClass;
+import com.android.tools.r8.graph.DexEncodedField;
+import com.android.tools.r8.graph.DexEncodedMethod;
 import com.android.tools.r8.graph.DexItemFactory;
 import com.android.tools.r8.graph.DexLibraryClass;
 import com.android.tools.r8.graph.DexProgramClass;
+import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.graph.JarApplicationReader;
 import com.android.tools.r8.graph.JarClassFileReader;
 import com.android.tools.r8.graph.LazyLoadedDexApplication;
@@ -39,17 +42,20 @@ import com.android.tools.r8.utils.ProgramClassCollection;
 import com.android.tools.r8.utils.StringDiagnostic;
 import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class ApplicationReader {
@@ -70,11 +76,12 @@ public class ApplicationReader {
     this.inputApp = inputApp;
   }
 
-  public DexApplication read() throws IOException, ExecutionException {
+  public LazyLoadedDexApplication read() throws IOException, ExecutionException {
     return read((StringResource) null);
   }
 
-  public DexApplication read(StringResource proguardMap) throws IOException, ExecutionException {
+  public LazyLoadedDexApplication read(StringResource proguardMap)
+      throws IOException, ExecutionException {
     ExecutorService executor = Executors.newSingleThreadExecutor();
     try {
       return read(proguardMap, executor);
@@ -83,17 +90,18 @@ public class ApplicationReader {
     }
   }
 
-  public final DexApplication read(ExecutorService executorService)
+  public final LazyLoadedDexApplication read(ExecutorService executorService)
       throws IOException, ExecutionException {
     return read(null, executorService, ProgramClassCollection::resolveClassConflictImpl);
   }
 
-  public final DexApplication read(StringResource proguardMap, ExecutorService executorService)
+  public final LazyLoadedDexApplication read(
+      StringResource proguardMap, ExecutorService executorService)
       throws IOException, ExecutionException {
     return read(proguardMap, executorService, ProgramClassCollection::resolveClassConflictImpl);
   }
 
-  public final DexApplication read(
+  public final LazyLoadedDexApplication read(
       StringResource proguardMap,
       ExecutorService executorService,
       ProgramClassConflictResolver resolver)
@@ -221,7 +229,7 @@ public class ApplicationReader {
         List<DexParser> dexParsers = new ArrayList<>(dexSources.size());
         int computedMinApiLevel = options.minApiLevel;
         for (ProgramResource input : dexSources) {
-          DexReader dexReader = new DexReader(input);
+          DexReader dexReader = new DexReader(input, options.enableMemoryMappedDexInput);
           if (options.passthroughDexCode) {
             computedMinApiLevel = validateOrComputeMinApiLevel(computedMinApiLevel, dexReader);
           }
@@ -309,17 +317,68 @@ public class ApplicationReader {
       }
 
       // Create classpath class collection if needed.
+      ClasspathClassCollection classpathClassCollection = null;
       ClassProvider<DexClasspathClass> classpathClassProvider = buildClassProvider(CLASSPATH,
           classpathClasses, inputApp.getClasspathResourceProviders(), application);
       if (classpathClassProvider != null) {
-        builder.setClasspathClassCollection(new ClasspathClassCollection(classpathClassProvider));
+        classpathClassCollection = new ClasspathClassCollection(classpathClassProvider);
+        builder.setClasspathClassCollection(classpathClassCollection);
       }
 
       // Create library class collection if needed.
+      LibraryClassCollection libraryClassCollection = null;
       ClassProvider<DexLibraryClass> libraryClassProvider = buildClassProvider(LIBRARY,
           libraryClasses, inputApp.getLibraryResourceProviders(), application);
       if (libraryClassProvider != null) {
-        builder.setLibraryClassCollection(new LibraryClassCollection(libraryClassProvider));
+        libraryClassCollection = new LibraryClassCollection(libraryClassProvider);
+        builder.setLibraryClassCollection(libraryClassCollection);
+      }
+
+      if (options.enableClassPrefetching) {
+        prefetchReferencedClasses(classpathClassCollection, libraryClassCollection);
+      }
+    }
+
+    // Starts loading the classpath and library classes referenced from the signatures of the
+    // program classes in the background, such that the compilation finds them loaded.
+    private void prefetchReferencedClasses(
+        ClasspathClassCollection classpathClassCollection,
+        LibraryClassCollection libraryClassCollection) {
+      Set<DexType> programTypes = Sets.newIdentityHashSet();
+      for (DexProgramClass clazz : programClasses) {
+        programTypes.add(clazz.type);
+      }
+      Set<DexType> seen = Sets.newIdentityHashSet();
+      Consumer<DexType> prefetch =
+          type -> {
+            DexType baseType = type.toBaseType(itemFactory);
+            if (baseType.isClassType()
+                && !programTypes.contains(baseType)
+                && seen.add(baseType)) {
+              if (classpathClassCollection != null) {
+                classpathClassCollection.prefetch(baseType, executorService);
+              }
+              if (libraryClassCollection != null) {
+                libraryClassCollection.prefetch(baseType, executorService);
+              }
+            }
+          };
+      for (DexProgramClass clazz : programClasses) {
+        if (clazz.superType != null) {
+          prefetch.accept(clazz.superType);
+        }
+        for (DexType iface : clazz.interfaces.values) {
+          prefetch.accept(iface);
+        }
+        for (DexEncodedField field : clazz.fields()) {
+          prefetch.accept(field.field.type);
+        }
+        for (DexEncodedMethod method : clazz.methods()) {
+          prefetch.accept(method.method.proto.returnType);
+          for (DexType parameter : method.method.proto.parameters.values) {
+            prefetch.accept(parameter);
+          }
+        }
       }
     }
   }
@@ -7,9 +7,14 @@ package com.android.tools.r8.dex;
 import com.android.tools.r8.ProgramResource;
 import com.android.tools.r8.ResourceException;
 import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
 import com.android.tools.r8.utils.LebUtils;
 import com.android.tools.r8.utils.StreamUtils;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Base class for reading binary content.
@@ -19,13 +24,39 @@ public abstract class BinaryReader {
   protected final CompatByteBuffer buffer;
 
   protected BinaryReader(ProgramResource resource) throws ResourceException, IOException {
-    this(resource.getOrigin(), StreamUtils.StreamToByteArrayClose(resource.getByteStream()));
+    this(resource, false);
+  }
+
+  protected BinaryReader(ProgramResource resource, boolean mapFiles)
+      throws ResourceException, IOException {
+    this(resource.getOrigin(), readOrMap(resource, mapFiles));
   }
 
   protected BinaryReader(Origin origin, byte[] bytes) {
+    this(origin, CompatByteBuffer.wrap(bytes));
+  }
+
+  private BinaryReader(Origin origin, CompatByteBuffer buffer) {
     assert origin != null;
     this.origin = origin;
-    buffer = CompatByteBuffer.wrap(bytes);
+    this.buffer = buffer;
+  }
+
+  private static CompatByteBuffer readOrMap(ProgramResource resource, boolean mapFiles)
+      throws ResourceException, IOException {
+    // File resources are mapped read-only instead of being copied to the heap. The mapping is
+    // released when the buffer is no longer reachable, i.e., when the reader is.
+    if (mapFiles
+        && resource instanceof ProgramResource.FileResource
+        && resource.getOrigin() instanceof PathOrigin) {
+      Path file = ((PathOrigin) resource.getOrigin()).getPath();
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        return new CompatByteBuffer(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+      } catch (IOException e) {
+        throw new ResourceException(resource.getOrigin(), e);
+      }
+    }
+    return CompatByteBuffer.wrap(StreamUtils.StreamToByteArrayClose(resource.getByteStream()));
   }
 
   public Origin getOrigin() {
@@ -40,6 +71,16 @@ public abstract class BinaryReader {
     return result;
   }
 
+  /** Returns the bytes up to and including the next zero byte, advancing past it. */
+  byte[] getZeroTerminatedByteArray() {
+    int start = buffer.position();
+    int end = start;
+    while (buffer.get(end) != 0) {
+      end++;
+    }
+    return getByteArray(end - start + 1);
+  }
+
   int getUleb128() {
     return LebUtils.parseUleb128(this);
   }
@@ -64,7 +64,6 @@ import com.google.common.io.ByteStreams;
 import it.unimi.dsi.fastutil.ints.Int2IntArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ShortBuffer;
@@ -1064,13 +1063,7 @@ public class DexParser {
     final int offset = stringIDs[index];
     dexReader.position(offset);
     int size = dexReader.getUleb128();
-    ByteArrayOutputStream os = new ByteArrayOutputStream();
-    byte read;
-    do {
-      read = dexReader.get();
-      os.write(read);
-    } while (read != 0);
-    return dexItemFactory.createString(size, os.toByteArray());
+    return dexItemFactory.createString(size, dexReader.getZeroTerminatedByteArray());
   }
 
   private DexType typeAt(int index) {
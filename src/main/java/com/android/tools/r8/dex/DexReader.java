@@ -22,7 +22,18 @@ public class DexReader extends BinaryReader {
   private final int version;
 
   public DexReader(ProgramResource resource) throws ResourceException, IOException {
-    super(resource);
+    this(resource, false);
+  }
+
+  /**
+   * Creates a reader for the given resource.
+   *
+   * @param mapFiles if true and the resource is backed by a file, the file is memory-mapped instead
+   *     of being read into the heap.
+   */
+  public DexReader(ProgramResource resource, boolean mapFiles)
+      throws ResourceException, IOException {
+    super(resource, mapFiles);
     version = parseMagic(buffer);
   }
 
@@ -10,15 +10,22 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.AbstractSet;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -108,18 +115,118 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
     }
   }
 
+  /**
+   * Numbering of the classes in the class hierarchy (not including interfaces) by a pre-order
+   * traversal from java.lang.Object.
+   *
+   * <p>All subclasses of a class are numbered right after the class itself, so the subclasses of
+   * the class with number n are the classes with numbers in [n + 1, end(n)[. This makes checking
+   * if a class is a subclass of another two comparisons, and gives the subclasses of a class as a
+   * range of the pre-order array. The numbering is immutable and can be queried without locking.
+   * Types registered with {@link #registerNewType} after the numbering was computed are not
+   * numbered.
+   */
+  private static class ClassHierarchyIntervals {
+    private static final int NOT_NUMBERED = -1;
+
+    private final Reference2IntMap<DexType> numbers = new Reference2IntOpenHashMap<>();
+    private final List<DexType> preorder = new ArrayList<>();
+    private int[] ends;
+
+    private ClassHierarchyIntervals() {
+      numbers.defaultReturnValue(NOT_NUMBERED);
+    }
+
+    // Returns null if the hierarchy is not a tree, which can happen for broken inputs.
+    static ClassHierarchyIntervals compute(DexType root, Map<DexType, TypeInfo> typeInfo) {
+      ClassHierarchyIntervals intervals = new ClassHierarchyIntervals();
+      intervals.ends = new int[16];
+      return intervals.number(root, typeInfo) ? intervals : null;
+    }
+
+    private boolean number(DexType type, Map<DexType, TypeInfo> typeInfo) {
+      int number = preorder.size();
+      if (numbers.put(type, number) != NOT_NUMBERED) {
+        return false;
+      }
+      preorder.add(type);
+      for (DexType subtype : typeInfo.get(type).directSubtypes) {
+        TypeInfo subtypeInfo = typeInfo.get(subtype);
+        if (subtypeInfo.hierarchyLevel != INTERFACE_LEVEL && !number(subtype, typeInfo)) {
+          return false;
+        }
+      }
+      if (number >= ends.length) {
+        ends = Arrays.copyOf(ends, Math.max(ends.length * 2, number + 1));
+      }
+      ends[number] = preorder.size();
+      return true;
+    }
+
+    boolean isNumbered(DexType type) {
+      return numbers.getInt(type) != NOT_NUMBERED;
+    }
+
+    boolean isSubclassOf(DexType subtype, DexType supertype) {
+      int subtypeNumber = numbers.getInt(subtype);
+      int supertypeNumber = numbers.getInt(supertype);
+      assert subtypeNumber != NOT_NUMBERED && supertypeNumber != NOT_NUMBERED;
+      return supertypeNumber <= subtypeNumber && subtypeNumber < ends[supertypeNumber];
+    }
+
+    Set<DexType> strictSubclasses(DexType type) {
+      int number = numbers.getInt(type);
+      assert number != NOT_NUMBERED;
+      return new StrictSubclasses(this, number);
+    }
+  }
+
+  // The strict subclasses of a numbered class as a view of the pre-order array.
+  private static class StrictSubclasses extends AbstractSet<DexType> {
+    private final ClassHierarchyIntervals intervals;
+    private final int number;
+
+    StrictSubclasses(ClassHierarchyIntervals intervals, int number) {
+      this.intervals = intervals;
+      this.number = number;
+    }
+
+    @Override
+    public Iterator<DexType> iterator() {
+      return intervals.preorder.subList(number + 1, intervals.ends[number]).iterator();
+    }
+
+    @Override
+    public int size() {
+      return intervals.ends[number] - number - 1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof DexType)) {
+        return false;
+      }
+      int other = intervals.numbers.getInt(o);
+      return number < other && other < intervals.ends[number];
+    }
+  }
+
   // Set of missing classes, discovered during subtypeMap computation.
   private final Set<DexType> missingClasses = Sets.newIdentityHashSet();
 
-  // Map from types to their subtypes.
+  // Map from types to their subtypes. The subtypes of classes that are numbered in
+  // classHierarchyIntervals are not stored in the map, except for java.lang.Object.
   private final Map<DexType, ImmutableSet<DexType>> subtypeMap = new IdentityHashMap<>();
 
   // Map from types to their subtyping information.
   private final Map<DexType, TypeInfo> typeInfo;
 
+  // Interval numbering of the class hierarchy, or null if the hierarchy could not be numbered.
+  private ClassHierarchyIntervals classHierarchyIntervals;
+
   public AppInfoWithSubtyping(DexApplication application) {
     super(application);
-    typeInfo = Collections.synchronizedMap(new IdentityHashMap<>());
+    typeInfo = new ConcurrentHashMap<>();
     // Recompute subtype map if we have modified the graph.
     populateSubtypeMap(application.asDirect(), application.dexItemFactory);
   }
@@ -128,7 +235,8 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
     super(previous);
     missingClasses.addAll(previous.missingClasses);
     subtypeMap.putAll(previous.subtypeMap);
-    typeInfo = Collections.synchronizedMap(new IdentityHashMap<>(previous.typeInfo));
+    typeInfo = new ConcurrentHashMap<>(previous.typeInfo);
+    classHierarchyIntervals = previous.classHierarchyIntervals;
     assert app() instanceof DirectMappedDexApplication;
   }
 
@@ -150,6 +258,9 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
   public Set<DexType> subtypes(DexType type) {
     assert checkIfObsolete();
     assert type.isClassType();
+    if (isNumberedSubclassOfObject(type)) {
+      return classHierarchyIntervals.strictSubclasses(type);
+    }
     ImmutableSet<DexType> subtypes = subtypeMap.get(type);
     return subtypes == null ? ImmutableSet.of() : subtypes;
   }
@@ -165,8 +276,17 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
     }
   }
 
+  // Whether the strict subtypes of type are given by the class hierarchy numbering.
+  private boolean isNumberedSubclassOfObject(DexType type) {
+    return classHierarchyIntervals != null
+        && type != dexItemFactory().objectType
+        && classHierarchyIntervals.isNumbered(type);
+  }
+
   private TypeInfo getTypeInfo(DexType type) {
-    return typeInfo.computeIfAbsent(type, TypeInfo::new);
+    // Look up the type before computeIfAbsent, which may lock even if the type is present.
+    TypeInfo info = typeInfo.get(type);
+    return info != null ? info : typeInfo.computeIfAbsent(type, TypeInfo::new);
   }
 
   private void populateAllSuperTypes(Map<DexType, Set<DexType>> map, DexType holder,
@@ -205,10 +325,30 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
     for (DexClass clazz : app.allClasses()) {
       populateAllSuperTypes(map, clazz.type, clazz, app::definitionFor);
     }
+    classHierarchyIntervals =
+        ClassHierarchyIntervals.compute(dexItemFactory.objectType, typeInfo);
     for (Map.Entry<DexType, Set<DexType>> entry : map.entrySet()) {
-      subtypeMap.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+      if (!isNumberedSubclassOfObject(entry.getKey())) {
+        subtypeMap.put(entry.getKey(), ImmutableSet.copyOf(entry.getValue()));
+      }
     }
     assert validateLevelsAreCorrect(app::definitionFor, dexItemFactory);
+    assert validateClassHierarchyIntervals(map);
+  }
+
+  private boolean validateClassHierarchyIntervals(Map<DexType, Set<DexType>> map) {
+    if (classHierarchyIntervals == null) {
+      return true;
+    }
+    for (DexType type : classHierarchyIntervals.preorder) {
+      if (isNumberedSubclassOfObject(type)) {
+        Set<DexType> expected = map.getOrDefault(type, Collections.emptySet());
+        Set<DexType> actual = subtypes(type);
+        assert expected.size() == actual.size() && expected.containsAll(actual)
+            : "Inconsistent subclasses of " + type;
+      }
+    }
+    return true;
   }
 
   private boolean validateLevelsAreCorrect(
@@ -229,11 +369,11 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
       }
       assert !seenTypes.contains(next);
       seenTypes.add(next);
-      TypeInfo superInfo = getTypeInfo(superType);
       TypeInfo nextInfo = getTypeInfo(next);
       if (superType == null) {
         assert nextInfo.hierarchyLevel == ROOT_LEVEL;
       } else {
+        TypeInfo superInfo = getTypeInfo(superType);
         assert superInfo.hierarchyLevel == nextInfo.hierarchyLevel - 1
             || (superInfo.hierarchyLevel == ROOT_LEVEL
                 && nextInfo.hierarchyLevel == INTERFACE_LEVEL);
@@ -533,6 +673,11 @@ public class AppInfoWithSubtyping extends AppInfo implements ClassHierarchy {
       // We have no definition for this class, hence it is not part of the hierarchy.
       return orElse;
     }
+    if (classHierarchyIntervals != null
+        && classHierarchyIntervals.isNumbered(subInfo.type)
+        && classHierarchyIntervals.isNumbered(superInfo.type)) {
+      return classHierarchyIntervals.isSubclassOf(subInfo.type, superInfo.type);
+    }
     while (superInfo.hierarchyLevel < subInfo.hierarchyLevel) {
       DexClass holder = definitionFor(subInfo.type);
       assert holder != null && !holder.isInterface();
@@ -121,7 +121,10 @@ public class AppView<T extends AppInfo> implements DexDefinitionSupplier {
   /** @return true if the graph lens changed, otherwise false. */
   public boolean setGraphLense(GraphLense graphLense) {
     if (graphLense != this.graphLense) {
-      this.graphLense = graphLense;
+      this.graphLense =
+          options.enableGraphLenseCaching && !graphLense.isIdentityLense()
+              ? new CachingGraphLense(this, graphLense)
+              : graphLense;
       return true;
     }
     return false;
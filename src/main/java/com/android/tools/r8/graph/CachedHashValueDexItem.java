@@ -20,15 +20,17 @@ public abstract class CachedHashValueDexItem extends DexItem {
   public final int hashCode() {
     int cache = hash;
     if (cache == NOT_COMPUTED_HASH_VALUE) {
-      cache = computeHashCode();
-      if (cache == NOT_COMPUTED_HASH_VALUE) {
-        cache = SENTINEL_HASH_VALUE;
-      }
+      cache = toHashValue(computeHashCode());
       hash = cache;
     }
     return cache;
   }
 
+  /** Returns the hash code of an item for which computeHashCode() returns the given value. */
+  static int toHashValue(int computedHash) {
+    return computedHash == NOT_COMPUTED_HASH_VALUE ? SENTINEL_HASH_VALUE : computedHash;
+  }
+
   @Override
   public void flushCachedValues() {
     super.flushCachedValues();
@@ -0,0 +1,145 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.ir.code.Invoke.Type;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A graph lens that remembers the results of type, field, and context free method lookups in the
+ * lens it wraps, such that repeated lookups do not walk the chain of nested lenses.
+ *
+ * <p>Method lookups may depend on the definitions of the application, for example to decide if an
+ * invoke should be an invoke-interface. The cached results are therefore dropped when the
+ * application info of the {@link AppView} changes.
+ */
+final class CachingGraphLense extends GraphLense {
+
+  // Index of the cached method lookup result for a null invoke type.
+  private static final int NO_TYPE = Type.values().length;
+
+  private final AppView<?> appView;
+  private final GraphLense lense;
+
+  private final Map<DexType, DexType> types = new ConcurrentHashMap<>();
+  private final Map<DexField, DexField> fields = new ConcurrentHashMap<>();
+  private final Map<DexMethod, GraphLenseLookupResult[]> methods = new ConcurrentHashMap<>();
+
+  // The application info the cached method lookups were computed for.
+  private volatile AppInfo appInfo;
+
+  CachingGraphLense(AppView<?> appView, GraphLense lense) {
+    assert !lense.isIdentityLense();
+    this.appView = appView;
+    this.lense = lense;
+    this.appInfo = appView.appInfo();
+  }
+
+  private void ensureValid() {
+    AppInfo current = appView.appInfo();
+    if (current != appInfo) {
+      synchronized (this) {
+        if (current != appInfo) {
+          types.clear();
+          fields.clear();
+          methods.clear();
+          appInfo = current;
+        }
+      }
+    }
+  }
+
+  @Override
+  public DexType getOriginalType(DexType type) {
+    return lense.getOriginalType(type);
+  }
+
+  @Override
+  public DexField getOriginalFieldSignature(DexField field) {
+    return lense.getOriginalFieldSignature(field);
+  }
+
+  @Override
+  public DexMethod getOriginalMethodSignature(DexMethod method) {
+    return lense.getOriginalMethodSignature(method);
+  }
+
+  @Override
+  public DexField getRenamedFieldSignature(DexField originalField) {
+    return lense.getRenamedFieldSignature(originalField);
+  }
+
+  @Override
+  public DexMethod getRenamedMethodSignature(DexMethod originalMethod) {
+    return lense.getRenamedMethodSignature(originalMethod);
+  }
+
+  @Override
+  public DexType lookupType(DexType type) {
+    ensureValid();
+    DexType result = types.get(type);
+    if (result == null) {
+      result = lense.lookupType(type);
+      types.putIfAbsent(type, result);
+    }
+    return result;
+  }
+
+  @Override
+  public GraphLenseLookupResult lookupMethod(DexMethod method, DexMethod context, Type type) {
+    if (!lense.isContextFreeForMethod(method)) {
+      return lense.lookupMethod(method, context, type);
+    }
+    ensureValid();
+    GraphLenseLookupResult[] results =
+        methods.computeIfAbsent(method, ignore -> new GraphLenseLookupResult[NO_TYPE + 1]);
+    int index = type != null ? type.ordinal() : NO_TYPE;
+    // The results are immutable, so a racing lookup at worst computes the same result again.
+    GraphLenseLookupResult result = results[index];
+    if (result == null) {
+      result = lense.lookupMethod(method, context, type);
+      results[index] = result;
+    }
+    return result;
+  }
+
+  @Override
+  public RewrittenPrototypeDescription lookupPrototypeChanges(DexMethod method) {
+    return lense.lookupPrototypeChanges(method);
+  }
+
+  @Override
+  public Set<DexMethod> lookupMethodInAllContexts(DexMethod method) {
+    return lense.lookupMethodInAllContexts(method);
+  }
+
+  @Override
+  public DexField lookupField(DexField field) {
+    ensureValid();
+    DexField result = fields.get(field);
+    if (result == null) {
+      result = lense.lookupField(field);
+      fields.putIfAbsent(field, result);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean isContextFreeForMethods() {
+    return lense.isContextFreeForMethods();
+  }
+
+  @Override
+  public boolean isContextFreeForMethod(DexMethod method) {
+    return lense.isContextFreeForMethod(method);
+  }
+
+  @Override
+  public String toString() {
+    return lense.toString();
+  }
+}
@@ -26,6 +26,10 @@ public class DexField extends Descriptor<DexEncodedField, DexField> implements
 
   @Override
   public int computeHashCode() {
+    return computeHashCode(holder, type, name);
+  }
+
+  static int computeHashCode(DexType holder, DexType type, DexString name) {
     return holder.hashCode()
         + type.hashCode() * 7
         + name.hashCode() * 31;
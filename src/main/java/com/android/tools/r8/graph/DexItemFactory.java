@@ -19,6 +19,7 @@ import com.android.tools.r8.graph.DexDebugEvent.SetPrologueEnd;
 import com.android.tools.r8.graph.DexMethodHandle.MethodHandleType;
 import com.android.tools.r8.ir.analysis.type.ArrayTypeLatticeElement;
 import com.android.tools.r8.ir.analysis.type.ClassTypeLatticeElement;
+import com.android.tools.r8.ir.analysis.type.ClassTypeLatticeElement.InterfacesPair;
 import com.android.tools.r8.ir.analysis.type.Nullability;
 import com.android.tools.r8.ir.analysis.type.ReferenceTypeLatticeElement;
 import com.android.tools.r8.ir.analysis.type.TypeLatticeElement;
@@ -26,7 +27,7 @@ import com.android.tools.r8.ir.code.Position;
 import com.android.tools.r8.kotlin.Kotlin;
 import com.android.tools.r8.naming.NamingLens;
 import com.android.tools.r8.utils.ArrayUtils;
-import com.android.tools.r8.utils.LRUCacheTable;
+import com.android.tools.r8.utils.StripedLRUCache;
 import com.google.common.base.Strings;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
@@ -77,8 +78,10 @@ public class DexItemFactory {
       referenceTypeLatticeElements = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<DexType, Set<DexType>>
       classTypeLatticeInterfaces = new ConcurrentHashMap<>();
-  public final LRUCacheTable<Set<DexType>, Set<DexType>, Set<DexType>>
-      leastUpperBoundOfInterfacesTable = LRUCacheTable.create(8, 8);
+  // Least upper bounds of pairs of sets of interfaces, computed by the type lattice joins of
+  // possibly many threads.
+  public final StripedLRUCache<InterfacesPair, Set<DexType>> leastUpperBoundOfInterfacesCache =
+      new StripedLRUCache<>(16, 256);
 
   boolean sorted = false;
 
@@ -945,7 +948,140 @@ public class DexItemFactory {
     }
   }
 
+  /**
+   * Keys for looking up an item in a pool without allocating the item.
+   *
+   * <p>A key has the hash code of the item that it describes and equals that item, such that
+   * {@link ConcurrentHashMap#get} finds the item. The items do not equal the keys, so keys are only
+   * used for lookups and never put into a pool. Each thread has its own keys, which are cleared
+   * after each lookup so that they do not keep items alive.
+   */
+  private static class LookupKeys {
+
+    private final StringKey string = new StringKey();
+    private final ContentKey content = new ContentKey();
+    private final FieldKey field = new FieldKey();
+    private final ProtoKey proto = new ProtoKey();
+    private final MethodKey method = new MethodKey();
+  }
+
+  private static final ThreadLocal<LookupKeys> lookupKeys =
+      ThreadLocal.withInitial(LookupKeys::new);
+
+  private static class StringKey {
+
+    private String source;
+
+    @Override
+    public int hashCode() {
+      return CachedHashValueDexItem.toHashValue(DexString.computeHashCode(source));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof DexString && ((DexString) other).isEncodingOf(source);
+    }
+  }
+
+  private static class ContentKey {
+
+    private int size;
+    private byte[] content;
+
+    @Override
+    public int hashCode() {
+      return CachedHashValueDexItem.toHashValue(DexString.computeHashCode(size, content));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other instanceof DexString) {
+        DexString o = (DexString) other;
+        return size == o.size && Arrays.equals(content, o.content);
+      }
+      return false;
+    }
+  }
+
+  private static class FieldKey {
+
+    private DexType holder;
+    private DexType type;
+    private DexString name;
+
+    @Override
+    public int hashCode() {
+      return CachedHashValueDexItem.toHashValue(DexField.computeHashCode(holder, type, name));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other instanceof DexField) {
+        DexField o = (DexField) other;
+        return holder.equals(o.holder) && type.equals(o.type) && name.equals(o.name);
+      }
+      return false;
+    }
+  }
+
+  private static class ProtoKey {
+
+    private DexString shorty;
+    private DexType returnType;
+    private DexTypeList parameters;
+
+    @Override
+    public int hashCode() {
+      return CachedHashValueDexItem.toHashValue(
+          DexProto.computeHashCode(shorty, returnType, parameters));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other instanceof DexProto) {
+        DexProto o = (DexProto) other;
+        return shorty.equals(o.shorty)
+            && returnType.equals(o.returnType)
+            && parameters.equals(o.parameters);
+      }
+      return false;
+    }
+  }
+
+  private static class MethodKey {
+
+    private DexType holder;
+    private DexProto proto;
+    private DexString name;
+
+    @Override
+    public int hashCode() {
+      return CachedHashValueDexItem.toHashValue(DexMethod.computeHashCode(holder, proto, name));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (other instanceof DexMethod) {
+        DexMethod o = (DexMethod) other;
+        return holder.equals(o.holder) && name.equals(o.name) && proto.equals(o.proto);
+      }
+      return false;
+    }
+  }
+
   private static <T extends DexItem> T canonicalize(ConcurrentHashMap<T, T> map, T item) {
+    assert item != null;
+    // Most items are already interned, so probe with a lock-free get before falling back to
+    // putIfAbsent, which locks the bin it inserts into.
+    T previous = map.get(item);
+    if (previous != null) {
+      return previous;
+    }
+    return insert(map, item);
+  }
+
+  // Adds an item that a lookup did not find, unless another thread has added it in the meantime.
+  private static <T extends DexItem> T insert(ConcurrentHashMap<T, T> map, T item) {
     assert item != null;
     assert !DexItemFactory.isInternalSentinel(item);
     T previous = map.putIfAbsent(item, item);
@@ -954,16 +1090,31 @@ public class DexItemFactory {
 
   public DexString createString(int size, byte[] content) {
     assert !sorted;
-    return canonicalize(strings, new DexString(size, content));
+    DexString result = lookupString(size, content);
+    return result != null ? result : insert(strings, new DexString(size, content));
   }
 
   public DexString createString(String source) {
     assert !sorted;
-    return canonicalize(strings, new DexString(source));
+    DexString result = lookupString(source);
+    return result != null ? result : insert(strings, new DexString(source));
+  }
+
+  private DexString lookupString(int size, byte[] content) {
+    ContentKey key = lookupKeys.get().content;
+    key.size = size;
+    key.content = content;
+    DexString result = strings.get(key);
+    key.content = null;
+    return result;
   }
 
   public DexString lookupString(String source) {
-    return strings.get(new DexString(source));
+    StringKey key = lookupKeys.get().string;
+    key.source = source;
+    DexString result = strings.get(key);
+    key.source = null;
+    return result;
   }
 
   // Debugging support to extract marking string.
@@ -993,18 +1144,20 @@ public class DexItemFactory {
     return markers;
   }
 
-  synchronized public DexType createType(DexString descriptor) {
+  public DexType createType(DexString descriptor) {
     assert !sorted;
     assert descriptor != null;
     DexType result = types.get(descriptor);
-    if (result == null) {
-      result = new DexType(descriptor);
-      assert result.isArrayType() || result.isClassType() || result.isPrimitiveType() ||
-          result.isVoidType();
-      assert !isInternalSentinel(result);
-      types.put(descriptor, result);
+    if (result != null) {
+      return result;
     }
-    return result;
+    // Racing threads may each allocate a candidate, but only the first one is published.
+    DexType candidate = new DexType(descriptor);
+    assert candidate.isArrayType() || candidate.isClassType() || candidate.isPrimitiveType() ||
+        candidate.isVoidType();
+    assert !isInternalSentinel(candidate);
+    result = types.putIfAbsent(descriptor, candidate);
+    return result == null ? candidate : result;
   }
 
   public DexType createType(String descriptor) {
@@ -1022,8 +1175,18 @@ public class DexItemFactory {
 
   public DexField createField(DexType clazz, DexType type, DexString name) {
     assert !sorted;
-    DexField field = new DexField(clazz, type, name, skipNameValidationForTesting);
-    return canonicalize(fields, field);
+    FieldKey key = lookupKeys.get().field;
+    key.holder = clazz;
+    key.type = type;
+    key.name = name;
+    DexField field = fields.get(key);
+    key.holder = null;
+    key.type = null;
+    key.name = null;
+    if (field != null) {
+      return field;
+    }
+    return insert(fields, new DexField(clazz, type, name, skipNameValidationForTesting));
   }
 
   public DexField createField(DexType clazz, DexType type, String name) {
@@ -1032,8 +1195,18 @@ public class DexItemFactory {
 
   public DexProto createProto(DexType returnType, DexString shorty, DexTypeList parameters) {
     assert !sorted;
-    DexProto proto = new DexProto(shorty, returnType, parameters);
-    return canonicalize(protos, proto);
+    ProtoKey key = lookupKeys.get().proto;
+    key.shorty = shorty;
+    key.returnType = returnType;
+    key.parameters = parameters;
+    DexProto proto = protos.get(key);
+    key.shorty = null;
+    key.returnType = null;
+    key.parameters = null;
+    if (proto != null) {
+      return proto;
+    }
+    return insert(protos, new DexProto(shorty, returnType, parameters));
   }
 
   public DexProto createProto(DexType returnType, DexType... parameters) {
@@ -1088,8 +1261,18 @@ public class DexItemFactory {
 
   public DexMethod createMethod(DexType holder, DexProto proto, DexString name) {
     assert !sorted;
-    DexMethod method = new DexMethod(holder, proto, name, skipNameValidationForTesting);
-    return canonicalize(methods, method);
+    MethodKey key = lookupKeys.get().method;
+    key.holder = holder;
+    key.proto = proto;
+    key.name = name;
+    DexMethod method = methods.get(key);
+    key.holder = null;
+    key.proto = null;
+    key.name = null;
+    if (method != null) {
+      return method;
+    }
+    return insert(methods, new DexMethod(holder, proto, name, skipNameValidationForTesting));
   }
 
   public DexMethod createMethod(DexType holder, DexProto proto, String name) {
@@ -1192,13 +1375,13 @@ public class DexItemFactory {
   public void clearTypeLatticeElementsCache() {
     referenceTypeLatticeElements.clear();
     classTypeLatticeInterfaces.clear();
-    leastUpperBoundOfInterfacesTable.clear();
+    leastUpperBoundOfInterfacesCache.clear();
   }
 
   public boolean verifyNoCachedTypeLatticeElements() {
     assert referenceTypeLatticeElements.isEmpty();
     assert classTypeLatticeInterfaces.isEmpty();
-    assert leastUpperBoundOfInterfacesTable.isEmpty();
+    assert leastUpperBoundOfInterfacesCache.isEmpty();
     return true;
   }
 
@@ -79,6 +79,10 @@ public class DexMethod extends Descriptor<DexEncodedMethod, DexMethod>
 
   @Override
   public int computeHashCode() {
+    return computeHashCode(holder, proto, name);
+  }
+
+  static int computeHashCode(DexType holder, DexProto proto, DexString name) {
     return holder.hashCode()
         + proto.hashCode() * 7
         + name.hashCode() * 31;
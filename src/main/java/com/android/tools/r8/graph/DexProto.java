@@ -22,6 +22,10 @@ public class DexProto extends IndexedDexItem implements PresortedComparable<DexP
 
   @Override
   public int computeHashCode() {
+    return computeHashCode(shorty, returnType, parameters);
+  }
+
+  static int computeHashCode(DexString shorty, DexType returnType, DexTypeList parameters) {
     return shorty.hashCode()
         + returnType.hashCode() * 7
         + parameters.hashCode() * 31;
@@ -9,6 +9,7 @@ import com.android.tools.r8.naming.NamingLens;
 import com.android.tools.r8.utils.IdentifierUtils;
 import com.android.tools.r8.utils.StringUtils;
 import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 public class DexString extends IndexedDexItem implements PresortedComparable<DexString> {
@@ -30,9 +31,34 @@ public class DexString extends IndexedDexItem implements PresortedComparable<Dex
 
   @Override
   public int computeHashCode() {
+    return computeHashCode(size, content);
+  }
+
+  static int computeHashCode(int size, byte[] content) {
     return size * 7 + Arrays.hashCode(content);
   }
 
+  /** Returns the hash code of the DexString for the string, without encoding it to a byte[]. */
+  static int computeHashCode(String string) {
+    int result = 1;
+    for (int i = 0; i < string.length(); i++) {
+      char ch = string.charAt(i);
+      if (ch != 0 && ch <= 127) { // U+0000 uses two bytes.
+        result = 31 * result + (byte) ch;
+      } else if (ch <= 2047) {
+        result = 31 * result + (byte) (0xc0 | (0x1f & (ch >> 6)));
+        result = 31 * result + (byte) (0x80 | (0x3f & ch));
+      } else {
+        result = 31 * result + (byte) (0xe0 | (0x0f & (ch >> 12)));
+        result = 31 * result + (byte) (0x80 | (0x3f & (ch >> 6)));
+        result = 31 * result + (byte) (0x80 | (0x3f & ch));
+      }
+    }
+    // The terminating '0'.
+    result = 31 * result;
+    return string.length() * 7 + result;
+  }
+
   @Override
   public boolean computeEquals(Object other) {
     if (other instanceof DexString) {
@@ -67,8 +93,17 @@ public class DexString extends IndexedDexItem implements PresortedComparable<Dex
     return result;
   }
 
+  // Only strings of characters in the range U+0001 to U+007F have one byte per character in the
+  // MUTF-8 encoding, which makes them the common case of class, member and package names.
+  private boolean isAscii() {
+    return content.length == size + 1;
+  }
+
   // Inspired from /dex/src/main/java/com/android/dex/Mutf8.java
   private String decode() throws UTFDataFormatException {
+    if (isAscii()) {
+      return new String(content, 0, size, StandardCharsets.ISO_8859_1);
+    }
     int s = 0;
     int p = 0;
     char[] out = new char[size];
@@ -119,7 +154,11 @@ public class DexString extends IndexedDexItem implements PresortedComparable<Dex
 
   // Inspired from /dex/src/main/java/com/android/dex/Mutf8.java
   public static byte[] encodeToMutf8(String string) {
-    byte[] result = new byte[countBytes(string)];
+    byte[] result = encodeAsciiToMutf8(string);
+    if (result != null) {
+      return result;
+    }
+    result = new byte[countBytes(string)];
     int offset = 0;
     for (int i = 0; i < string.length(); i++) {
       char ch = string.charAt(i);
@@ -138,6 +177,51 @@ public class DexString extends IndexedDexItem implements PresortedComparable<Dex
     return result;
   }
 
+  /** Returns true if the content is the MUTF-8 encoding of the string. */
+  boolean isEncodingOf(String string) {
+    if (size != string.length()) {
+      return false;
+    }
+    // The last byte is the terminating '0'.
+    int end = content.length - 1;
+    int offset = 0;
+    for (int i = 0; i < string.length(); i++) {
+      char ch = string.charAt(i);
+      if (ch != 0 && ch <= 127) { // U+0000 uses two bytes.
+        if (offset + 1 > end || content[offset++] != (byte) ch) {
+          return false;
+        }
+      } else if (ch <= 2047) {
+        if (offset + 2 > end
+            || content[offset++] != (byte) (0xc0 | (0x1f & (ch >> 6)))
+            || content[offset++] != (byte) (0x80 | (0x3f & ch))) {
+          return false;
+        }
+      } else {
+        if (offset + 3 > end
+            || content[offset++] != (byte) (0xe0 | (0x0f & (ch >> 12)))
+            || content[offset++] != (byte) (0x80 | (0x3f & (ch >> 6)))
+            || content[offset++] != (byte) (0x80 | (0x3f & ch))) {
+          return false;
+        }
+      }
+    }
+    return offset == end && content[end] == 0;
+  }
+
+  // Returns null if the string has a character that is not encoded in a single byte.
+  private static byte[] encodeAsciiToMutf8(String string) {
+    byte[] result = new byte[string.length() + 1];
+    for (int i = 0; i < string.length(); i++) {
+      char ch = string.charAt(i);
+      if (ch == 0 || ch > 127) {
+        return null;
+      }
+      result[i] = (byte) ch;
+    }
+    return result;
+  }
+
   @Override
   public void collectIndexedItems(IndexedItemCollection indexedItems,
       DexMethod method, int instructionOffset) {
@@ -75,7 +75,29 @@ public class DexType extends DexReference implements PresortedComparable<DexType
   }
 
   public boolean isSamePackage(DexType other) {
-    return getPackageDescriptor().equals(other.getPackageDescriptor());
+    assert isClassType() && other.isClassType();
+    // Compare the encoded descriptors up to the last package separator instead of decoding them.
+    // The byte of '/' is never part of the encoding of another character.
+    int lastSeparator = lastPackageSeparator();
+    if (lastSeparator != other.lastPackageSeparator()) {
+      return false;
+    }
+    for (int i = 1; i < lastSeparator; i++) {
+      if (descriptor.content[i] != other.descriptor.content[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int lastPackageSeparator() {
+    byte[] content = descriptor.content;
+    for (int i = content.length - 1; i > 0; i--) {
+      if (content[i] == '/') {
+        return i;
+      }
+    }
+    return -1;
   }
 
   public String toDescriptorString() {
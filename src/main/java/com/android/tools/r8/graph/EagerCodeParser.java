@@ -0,0 +1,191 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Parses the code of the program classes in the background, before the compilation requests it.
+ *
+ * <p>The code of a class read from a class file is parsed when the code of one of its methods is
+ * first requested, see {@link JarCode} and {@link LazyCfCode}. This happens on the requesting
+ * thread, which is often on the critical path, such as the tracing of the {@code Enqueuer}. This
+ * parser instead parses the classes one by one on the executor, while the compilation does other
+ * work.
+ *
+ * <p>Code that has been parsed ahead is kept until it is requested. To bound the memory used, at
+ * most {@link InternalOptions#eagerCodeParsingCapacity} classes are parsed but not yet requested
+ * at any time. A class that is never requested keeps its slot until the parser is stopped.
+ */
+public class EagerCodeParser {
+
+  /** Shared by the code of the methods of a class that has been parsed ahead. */
+  static class ParsedClass {
+
+    private final EagerCodeParser parser;
+
+    // Guarded by the parser.
+    private boolean pending = false;
+    private boolean requested = false;
+
+    private ParsedClass(EagerCodeParser parser) {
+      this.parser = parser;
+    }
+
+    void markRequested() {
+      parser.markRequested(this);
+    }
+  }
+
+  private final ExecutorService executorService;
+  private final int capacity;
+  private final int parallelism;
+
+  // Guarded by this.
+  private List<DexProgramClass> classes;
+  private int nextClass = 0;
+  private int inFlight = 0;
+  private int pending = 0;
+  private int parsedClasses = 0;
+  private int requestedClasses = 0;
+  private boolean stopped = false;
+
+  private EagerCodeParser(
+      List<DexProgramClass> classes,
+      ExecutorService executorService,
+      int capacity,
+      int parallelism) {
+    this.classes = classes;
+    this.executorService = executorService;
+    this.capacity = capacity;
+    this.parallelism = parallelism;
+  }
+
+  /** Starts parsing the code of the program classes of the application on the executor. */
+  public static EagerCodeParser start(
+      DexApplication application, InternalOptions options, ExecutorService executorService) {
+    EagerCodeParser parser =
+        new EagerCodeParser(
+            new ArrayList<>(application.classes()),
+            executorService,
+            options.eagerCodeParsingCapacity,
+            options.numberOfThreads == ThreadUtils.NOT_SPECIFIED
+                ? Runtime.getRuntime().availableProcessors()
+                : options.numberOfThreads);
+    parser.schedule();
+    return parser;
+  }
+
+  /**
+   * Stops parsing classes and waits for the classes being parsed. Code of classes that have not
+   * been parsed is parsed on request as before.
+   */
+  public synchronized void stop() {
+    stopped = true;
+    classes = null;
+    while (inFlight > 0) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        throw new RuntimeException("Interrupted while waiting for code parsing.", e);
+      }
+    }
+  }
+
+  /** Adds counters for the classes that have been parsed ahead to the timing. */
+  public synchronized void reportStatistics(Timing timing) {
+    timing.addCounter("Classes parsed ahead", parsedClasses);
+    timing.addCounter("Classes parsed ahead and requested", requestedClasses);
+  }
+
+  private synchronized void schedule() {
+    while (!stopped
+        && nextClass < classes.size()
+        && inFlight < parallelism
+        && inFlight + pending < capacity) {
+      DexProgramClass clazz = classes.get(nextClass++);
+      inFlight++;
+      try {
+        executorService.submit(() -> parse(clazz));
+      } catch (RejectedExecutionException e) {
+        // The executor has been shut down, the code will be parsed on request.
+        inFlight--;
+        stopped = true;
+      }
+    }
+  }
+
+  private void parse(DexProgramClass clazz) {
+    ParsedClass parsedClass = new ParsedClass(this);
+    boolean parsed = false;
+    try {
+      parsed = parseAhead(clazz, parsedClass);
+    } catch (RuntimeException e) {
+      // The code is left unparsed, and the failure is reported when the code is requested.
+    } finally {
+      parsed(parsedClass, parsed);
+    }
+  }
+
+  // All the code of a class is parsed at once, so parsing the code of one method suffices.
+  private static boolean parseAhead(DexProgramClass clazz, ParsedClass parsedClass) {
+    Code codeToParse = null;
+    for (DexEncodedMethod method : clazz.methods()) {
+      Code code = method.getCode();
+      if (code == null) {
+        continue;
+      }
+      if (code.isJarCode()) {
+        code.asJarCode().setParsedAhead(parsedClass);
+      } else if (code.isLazyCfCode()) {
+        code.asLazyCfCode().setParsedAhead(parsedClass);
+      } else {
+        continue;
+      }
+      if (codeToParse == null) {
+        codeToParse = code;
+      }
+    }
+    if (codeToParse == null) {
+      return false;
+    }
+    return codeToParse.isJarCode()
+        ? codeToParse.asJarCode().parseIfNecessary()
+        : codeToParse.asLazyCfCode().parseIfNecessary();
+  }
+
+  private synchronized void parsed(ParsedClass parsedClass, boolean parsed) {
+    inFlight--;
+    if (parsed) {
+      parsedClasses++;
+      if (parsedClass.requested) {
+        requestedClasses++;
+      } else {
+        parsedClass.pending = true;
+        pending++;
+      }
+    }
+    schedule();
+    notifyAll();
+  }
+
+  private synchronized void markRequested(ParsedClass parsedClass) {
+    if (parsedClass.requested) {
+      return;
+    }
+    parsedClass.requested = true;
+    if (parsedClass.pending) {
+      parsedClass.pending = false;
+      pending--;
+      requestedClasses++;
+      schedule();
+    }
+  }
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -805,7 +806,7 @@ public abstract class GraphLense {
     protected final DexItemFactory dexItemFactory;
 
     protected final Map<DexType, DexType> typeMap;
-    private final Map<DexType, DexType> arrayTypeCache = new IdentityHashMap<>();
+    private final Map<DexType, DexType> arrayTypeCache = new ConcurrentHashMap<>();
     protected final Map<DexMethod, DexMethod> methodMap;
     protected final Map<DexField, DexField> fieldMap;
 
@@ -881,21 +882,18 @@ public abstract class GraphLense {
     @Override
     public DexType lookupType(DexType type) {
       if (type.isArrayType()) {
-        synchronized (this) {
-          // This block need to be synchronized due to arrayTypeCache.
-          DexType result = arrayTypeCache.get(type);
-          if (result == null) {
-            DexType baseType = type.toBaseType(dexItemFactory);
-            DexType newType = lookupType(baseType);
-            if (baseType == newType) {
-              result = type;
-            } else {
-              result = type.replaceBaseType(newType, dexItemFactory);
-            }
-            arrayTypeCache.put(type, result);
+        DexType result = arrayTypeCache.get(type);
+        if (result == null) {
+          DexType baseType = type.toBaseType(dexItemFactory);
+          DexType newType = lookupType(baseType);
+          if (baseType == newType) {
+            result = type;
+          } else {
+            result = type.replaceBaseType(newType, dexItemFactory);
           }
-          return result;
+          arrayTypeCache.putIfAbsent(type, result);
         }
+        return result;
       }
       DexType previous = previousLense.lookupType(type);
       return typeMap != null ? typeMap.getOrDefault(previous, previous) : previous;
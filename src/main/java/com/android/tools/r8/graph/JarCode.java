@@ -49,7 +49,10 @@ public class JarCode extends Code {
   private final DexMethod method;
   private final Origin origin;
   private MethodNode node;
-  protected ReparseContext context;
+  // Written after the node, such that a thread that sees no context also sees the parsed node.
+  protected volatile ReparseContext context;
+  // Set if the code of the class has been parsed by an EagerCodeParser, see parseAhead.
+  private volatile EagerCodeParser.ParsedClass parsedAhead = null;
   protected final JarApplicationReader application;
   private boolean reachabilitySensitive = false;
 
@@ -275,16 +278,54 @@ public class JarCode extends Code {
   }
 
   private void triggerDelayedParsingIfNeccessary() {
-    if (this.context != null) {
-      // The SecondVisitor is in charge of setting this.context to null.
-      ReparseContext context = this.context;
-      parseCode(context, false);
-      if (hasJsr(context)) {
-        parseCode(context, true);
-        assert !hasJsr(context);
+    EagerCodeParser.ParsedClass parsedAhead = this.parsedAhead;
+    if (parsedAhead != null) {
+      this.parsedAhead = null;
+      parsedAhead.markRequested();
+    }
+    parseIfNecessary();
+  }
+
+  // Parses the code of all the methods in the class, unless it has been parsed already. Returns
+  // true if this call parsed the code.
+  boolean parseIfNecessary() {
+    ReparseContext context = this.context;
+    if (context == null) {
+      return false;
+    }
+    // The code of a class is parsed once, by the first thread to request code from it.
+    synchronized (context) {
+      if (this.context == null) {
+        return false;
+      }
+      try {
+        parseCode(context, false);
+        if (hasJsr(context)) {
+          parseCode(context, true);
+          assert !hasJsr(context);
+        }
+      } catch (RuntimeException e) {
+        // Leave the class unparsed, such that a later request fails in the same way.
+        resetCode(context);
+        throw e;
+      }
+      // Only remove the context once all nodes are final.
+      for (Code code : context.codeList) {
+        code.asJarCode().context = null;
       }
       assert verifyNoReparseContext(context.owner);
     }
+    return true;
+  }
+
+  private static void resetCode(ReparseContext context) {
+    for (Code code : context.codeList) {
+      code.asJarCode().node = null;
+    }
+  }
+
+  void setParsedAhead(EagerCodeParser.ParsedClass parsedAhead) {
+    this.parsedAhead = parsedAhead;
   }
 
   private void parseCode(ReparseContext context, boolean useJsrInliner) {
@@ -357,7 +398,7 @@ public class JarCode extends Code {
   }
 
   /**
-   * Fills the MethodNodes of all the methods in the class and removes the ReparseContext.
+   * Fills the MethodNodes of all the methods in the class.
    */
   private static class SecondVisitor extends ClassVisitor {
     private final BiFunction<String, String, JarCode> codeLocator;
@@ -382,7 +423,6 @@ public class JarCode extends Code {
         code = codeLocator.apply(name, desc);
       }
       if (code != null) {
-        code.context = null;
         code.node = node;
         return node;
       }
@@ -97,13 +97,21 @@ public class LazyCfCode extends Code {
   private final Origin origin;
   private final JarApplicationReader application;
   private CfCode code;
-  private ReparseContext context;
+  // Written after the code, such that a thread that sees no context also sees the parsed code.
+  private volatile ReparseContext context;
+  // Set if the code of the class has been parsed by an EagerCodeParser, see parseAhead.
+  private volatile EagerCodeParser.ParsedClass parsedAhead = null;
 
   @Override
   public boolean isCfCode() {
     return true;
   }
 
+  @Override
+  public boolean isLazyCfCode() {
+    return true;
+  }
+
   @Override
   public LazyCfCode asLazyCfCode() {
     return this;
@@ -111,28 +119,60 @@ public class LazyCfCode extends Code {
 
   @Override
   public CfCode asCfCode() {
-    if (code == null) {
-      ReparseContext context = this.context;
-      assert context != null;
-      // The ClassCodeVisitor is in charge of setting this.context to null.
+    EagerCodeParser.ParsedClass parsedAhead = this.parsedAhead;
+    if (parsedAhead != null) {
+      this.parsedAhead = null;
+      parsedAhead.markRequested();
+    }
+    parseIfNecessary();
+    assert code != null;
+    return code;
+  }
+
+  // Parses the code of all the methods in the class, unless it has been parsed already. Returns
+  // true if this call parsed the code.
+  boolean parseIfNecessary() {
+    ReparseContext context = this.context;
+    if (context == null) {
+      return false;
+    }
+    // The code of a class is parsed once, by the first thread to request code from it.
+    synchronized (context) {
+      if (this.context == null) {
+        return false;
+      }
       try {
         parseCode(context, false);
       } catch (JsrEncountered e) {
         System.out.println("LazyCfCode: JSR encountered; reparse using JSRInlinerAdapter");
-        for (Code code : context.codeList) {
-          code.asLazyCfCode().code = null;
-          code.asLazyCfCode().context = context;
-        }
+        resetCode(context);
         try {
           parseCode(context, true);
         } catch (JsrEncountered e1) {
           throw new Unreachable(e1);
         }
+      } catch (RuntimeException e) {
+        // Leave the class unparsed, such that a later request fails in the same way.
+        resetCode(context);
+        throw e;
+      }
+      // Only remove the context once all code is final.
+      for (Code code : context.codeList) {
+        code.asLazyCfCode().context = null;
       }
       assert verifyNoReparseContext(context.owner);
     }
-    assert code != null;
-    return code;
+    return true;
+  }
+
+  private static void resetCode(ReparseContext context) {
+    for (Code code : context.codeList) {
+      code.asLazyCfCode().code = null;
+    }
+  }
+
+  void setParsedAhead(EagerCodeParser.ParsedClass parsedAhead) {
+    this.parsedAhead = parsedAhead;
   }
 
   public void parseCode(ReparseContext context, boolean useJsrInliner) {
@@ -143,10 +183,9 @@ public class LazyCfCode extends Code {
   private void setCode(CfCode code) {
     assert this.code == null;
     assert this.context != null;
-    this.code = code;
-    this.context = null;
     // Propagate the ownership of LazyCfCode to CfCode.
     code.setOwner(this.getOwner());
+    this.code = code;
   }
 
   @Override
@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 public class LazyLoadedDexApplication extends DexApplication {
 
@@ -232,6 +233,42 @@ public class LazyLoadedDexApplication extends DexApplication {
     return new DirectMappedDexApplication.Builder(this).build().asDirect();
   }
 
+  /**
+   * Starts loading all classpath and library classes on the given executor, such that {@link
+   * #toDirect()} does not have to load all of them itself.
+   */
+  public void prefetchAllClasses(ExecutorService executorService) {
+    if (classpathClasses != null) {
+      classpathClasses.prefetchAll(executorService);
+    }
+    if (libraryClasses != null) {
+      libraryClasses.prefetchAll(executorService);
+    }
+  }
+
+  /**
+   * Stops prefetching classpath and library classes and waits for the classes being loaded in the
+   * background, which must be done before closing the input archives.
+   */
+  public void cancelPrefetching() {
+    if (classpathClasses != null) {
+      classpathClasses.cancelPrefetching();
+    }
+    if (libraryClasses != null) {
+      libraryClasses.cancelPrefetching();
+    }
+  }
+
+  /** Adds counters for how the classpath and library classes have been loaded to the timing. */
+  public void reportClassLoadStatistics(Timing timing) {
+    if (classpathClasses != null) {
+      classpathClasses.reportLoadStatistics("Classpath classes", timing);
+    }
+    if (libraryClasses != null) {
+      libraryClasses.reportLoadStatistics("Library classes", timing);
+    }
+  }
+
   @Override
   public String toString() {
     return "Application (" + programClasses + "; " + classpathClasses + "; " + libraryClasses
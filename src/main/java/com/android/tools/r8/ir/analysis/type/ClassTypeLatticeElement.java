@@ -163,6 +163,38 @@ public class ClassTypeLatticeElement extends ReferenceTypeLatticeElement {
     RIGHT
   }
 
+  /**
+   * Key of the cache of least upper bounds of interfaces. The least upper bound is symmetric, so
+   * the order of the two sets does not matter.
+   */
+  public static final class InterfacesPair {
+    private final Set<DexType> first;
+    private final Set<DexType> second;
+
+    InterfacesPair(Set<DexType> first, Set<DexType> second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public int hashCode() {
+      return first.hashCode() + second.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof InterfacesPair)) {
+        return false;
+      }
+      InterfacesPair other = (InterfacesPair) o;
+      return (first.equals(other.first) && second.equals(other.second))
+          || (first.equals(other.second) && second.equals(other.first));
+    }
+  }
+
   private static class InterfaceWithMarker {
     final DexType itf;
     final InterfaceMarker marker;
@@ -179,11 +211,8 @@ public class ClassTypeLatticeElement extends ReferenceTypeLatticeElement {
     if (s1.isEmpty() || s2.isEmpty()) {
       return Collections.emptySet();
     }
-    Set<DexType> cached = appView.dexItemFactory().leastUpperBoundOfInterfacesTable.get(s1, s2);
-    if (cached != null) {
-      return cached;
-    }
-    cached = appView.dexItemFactory().leastUpperBoundOfInterfacesTable.get(s2, s1);
+    InterfacesPair key = new InterfacesPair(s1, s2);
+    Set<DexType> cached = appView.dexItemFactory().leastUpperBoundOfInterfacesCache.get(key);
     if (cached != null) {
       return cached;
     }
@@ -251,9 +280,7 @@ public class ClassTypeLatticeElement extends ReferenceTypeLatticeElement {
     Set<DexType> lub = lubBuilder.build();
     // Cache the computation result only if the given two sets of interfaces are different.
     if (s1.size() != s2.size() || !s1.containsAll(s2)) {
-      synchronized (appView.dexItemFactory().leastUpperBoundOfInterfacesTable) {
-        appView.dexItemFactory().leastUpperBoundOfInterfacesTable.put(s1, s2, lub);
-      }
+      appView.dexItemFactory().leastUpperBoundOfInterfacesCache.put(key, lub);
     }
     return lub;
   }
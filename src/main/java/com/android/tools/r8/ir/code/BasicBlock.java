@@ -37,7 +37,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -149,7 +148,7 @@ public class BasicBlock {
   // Catch handler information about which successors are catch handlers and what their guards are.
   private CatchHandlers<Integer> catchHandlers = CatchHandlers.EMPTY_INDICES;
 
-  private LinkedList<Instruction> instructions = new LinkedList<>();
+  private final InstructionList instructions = new InstructionList();
   private int number = -1;
   private List<Phi> phis = new ArrayList<>();
 
@@ -525,7 +524,7 @@ public class BasicBlock {
     return nextInstructionNumber;
   }
 
-  public LinkedList<Instruction> getInstructions() {
+  public InstructionList getInstructions() {
     return instructions;
   }
 
@@ -1196,29 +1195,27 @@ public class BasicBlock {
     instructions.add(branch);
   }
 
-  public void setInstructions(LinkedList<Instruction> instructions) {
-    this.instructions = instructions;
-  }
-
   /**
    * Remove a number of instructions. The instructions to remove are given as indexes in the
    * instruction stream.
    */
   public void removeInstructions(List<Integer> toRemove) {
     if (!toRemove.isEmpty()) {
-      LinkedList<Instruction> newInstructions = new LinkedList<>();
+      int sizeBefore = instructions.size();
+      ListIterator<Instruction> iterator = instructions.listIterator();
       int nextIndex = 0;
       for (Integer index : toRemove) {
         assert index >= nextIndex;  // Indexes in toRemove must be sorted ascending.
-        newInstructions.addAll(instructions.subList(nextIndex, index));
-        instructions.get(index).clearBlock();
-        nextIndex = index + 1;
-      }
-      if (nextIndex < instructions.size()) {
-        newInstructions.addAll(instructions.subList(nextIndex, instructions.size()));
+        while (nextIndex < index) {
+          iterator.next();
+          nextIndex++;
+        }
+        Instruction instruction = iterator.next();
+        iterator.remove();
+        instruction.clearBlock();
+        nextIndex++;
       }
-      assert instructions.size() == newInstructions.size() + toRemove.size();
-      setInstructions(newInstructions);
+      assert instructions.size() == sizeBefore - toRemove.size();
     }
   }
 
@@ -1226,9 +1223,9 @@ public class BasicBlock {
    * Remove an instruction.
    */
   public void removeInstruction(Instruction toRemove) {
-    int index = instructions.indexOf(toRemove);
-    assert index >= 0;
-    removeInstructions(Collections.singletonList(index));
+    boolean removed = instructions.remove(toRemove);
+    assert removed;
+    toRemove.clearBlock();
   }
 
   /**
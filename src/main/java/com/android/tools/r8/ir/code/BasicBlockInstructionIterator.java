@@ -277,9 +277,9 @@ public class BasicBlockInstructionIterator implements InstructionIterator, Instr
     // Move all remaining instructions to the new block.
     while (listIterator.hasNext()) {
       Instruction instruction = listIterator.next();
+      listIterator.remove();
       newBlock.getInstructions().addLast(instruction);
       instruction.setBlock(newBlock);
-      listIterator.remove();
     }
 
     // Insert the new block in the block list right after the current block.
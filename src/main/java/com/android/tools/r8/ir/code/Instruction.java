@@ -41,6 +41,10 @@ public abstract class Instruction implements InstructionOrPhi {
   protected Value outValue = null;
   protected final List<Value> inValues = new ArrayList<>();
   private BasicBlock block = null;
+  // Links of the instruction list of the block that contains this instruction.
+  InstructionList list = null;
+  Instruction previous = null;
+  Instruction next = null;
   private int number = -1;
   private Set<Value> debugValues = null;
   private Position position = null;
@@ -0,0 +1,373 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.code;
+
+import java.util.AbstractSequentialList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The instructions of a basic block.
+ *
+ * <p>The instructions are linked through fields on {@link Instruction}, such that adding an
+ * instruction does not allocate a list node. An instruction can therefore only be in one list at a
+ * time, and must be removed from one list before it is added to another.
+ */
+public class InstructionList extends AbstractSequentialList<Instruction> {
+
+  private Instruction first = null;
+  private Instruction last = null;
+  private int size = 0;
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public Instruction getFirst() {
+    if (first == null) {
+      throw new NoSuchElementException();
+    }
+    return first;
+  }
+
+  public Instruction getLast() {
+    if (last == null) {
+      throw new NoSuchElementException();
+    }
+    return last;
+  }
+
+  public void addFirst(Instruction instruction) {
+    linkBefore(instruction, first);
+  }
+
+  public void addLast(Instruction instruction) {
+    linkBefore(instruction, null);
+  }
+
+  public Instruction removeFirst() {
+    Instruction instruction = getFirst();
+    unlink(instruction);
+    return instruction;
+  }
+
+  public Instruction removeLast() {
+    Instruction instruction = getLast();
+    unlink(instruction);
+    return instruction;
+  }
+
+  @Override
+  public boolean add(Instruction instruction) {
+    linkBefore(instruction, null);
+    return true;
+  }
+
+  @Override
+  public void add(int index, Instruction instruction) {
+    checkPositionIndex(index);
+    linkBefore(instruction, index == size ? null : instructionAt(index));
+  }
+
+  @Override
+  public Instruction get(int index) {
+    checkElementIndex(index);
+    return instructionAt(index);
+  }
+
+  @Override
+  public Instruction set(int index, Instruction instruction) {
+    checkElementIndex(index);
+    Instruction old = instructionAt(index);
+    replace(old, instruction);
+    return old;
+  }
+
+  @Override
+  public Instruction remove(int index) {
+    checkElementIndex(index);
+    Instruction instruction = instructionAt(index);
+    unlink(instruction);
+    return instruction;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!contains(o)) {
+      return false;
+    }
+    unlink((Instruction) o);
+    return true;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Instruction && ((Instruction) o).list == this;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (!contains(o)) {
+      return -1;
+    }
+    int index = 0;
+    for (Instruction current = first; current != o; current = current.next) {
+      index++;
+    }
+    return index;
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    // An instruction is in the list at most once.
+    return indexOf(o);
+  }
+
+  @Override
+  public void clear() {
+    Instruction current = first;
+    while (current != null) {
+      Instruction next = current.next;
+      current.list = null;
+      current.previous = null;
+      current.next = null;
+      current = next;
+    }
+    first = null;
+    last = null;
+    size = 0;
+    modCount++;
+  }
+
+  @Override
+  public ListIterator<Instruction> listIterator(int index) {
+    checkPositionIndex(index);
+    return new ListIteratorImpl(index);
+  }
+
+  public Iterator<Instruction> descendingIterator() {
+    ListIterator<Instruction> iterator = listIterator(size);
+    return new Iterator<Instruction>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasPrevious();
+      }
+
+      @Override
+      public Instruction next() {
+        return iterator.previous();
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+      }
+    };
+  }
+
+  private Instruction instructionAt(int index) {
+    if (index < (size >> 1)) {
+      Instruction current = first;
+      for (int i = 0; i < index; i++) {
+        current = current.next;
+      }
+      return current;
+    }
+    Instruction current = last;
+    for (int i = size - 1; i > index; i--) {
+      current = current.previous;
+    }
+    return current;
+  }
+
+  private void linkBefore(Instruction instruction, Instruction successor) {
+    assert instruction.list == null : "Instruction is already in a list: " + instruction;
+    Instruction predecessor = successor == null ? last : successor.previous;
+    instruction.list = this;
+    instruction.previous = predecessor;
+    instruction.next = successor;
+    if (predecessor == null) {
+      first = instruction;
+    } else {
+      predecessor.next = instruction;
+    }
+    if (successor == null) {
+      last = instruction;
+    } else {
+      successor.previous = instruction;
+    }
+    size++;
+    modCount++;
+  }
+
+  private void unlink(Instruction instruction) {
+    assert instruction.list == this;
+    Instruction predecessor = instruction.previous;
+    Instruction successor = instruction.next;
+    if (predecessor == null) {
+      first = successor;
+    } else {
+      predecessor.next = successor;
+    }
+    if (successor == null) {
+      last = predecessor;
+    } else {
+      successor.previous = predecessor;
+    }
+    instruction.list = null;
+    instruction.previous = null;
+    instruction.next = null;
+    size--;
+    modCount++;
+  }
+
+  // Puts the replacement at the position of the instruction, which is thereby removed.
+  private void replace(Instruction instruction, Instruction replacement) {
+    assert instruction.list == this;
+    if (instruction == replacement) {
+      return;
+    }
+    assert replacement.list == null : "Instruction is already in a list: " + replacement;
+    Instruction predecessor = instruction.previous;
+    Instruction successor = instruction.next;
+    replacement.list = this;
+    replacement.previous = predecessor;
+    replacement.next = successor;
+    if (predecessor == null) {
+      first = replacement;
+    } else {
+      predecessor.next = replacement;
+    }
+    if (successor == null) {
+      last = replacement;
+    } else {
+      successor.previous = replacement;
+    }
+    instruction.list = null;
+    instruction.previous = null;
+    instruction.next = null;
+  }
+
+  private void checkElementIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private void checkPositionIndex(int index) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private class ListIteratorImpl implements ListIterator<Instruction> {
+
+    private Instruction lastReturned = null;
+    private Instruction nextInstruction;
+    private int nextIndex;
+    private int expectedModCount = modCount;
+
+    ListIteratorImpl(int index) {
+      nextInstruction = index == size ? null : instructionAt(index);
+      nextIndex = index;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextIndex < size;
+    }
+
+    @Override
+    public Instruction next() {
+      checkForComodification();
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastReturned = nextInstruction;
+      nextInstruction = nextInstruction.next;
+      nextIndex++;
+      return lastReturned;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+      return nextIndex > 0;
+    }
+
+    @Override
+    public Instruction previous() {
+      checkForComodification();
+      if (!hasPrevious()) {
+        throw new NoSuchElementException();
+      }
+      nextInstruction = nextInstruction == null ? last : nextInstruction.previous;
+      lastReturned = nextInstruction;
+      nextIndex--;
+      return lastReturned;
+    }
+
+    @Override
+    public int nextIndex() {
+      return nextIndex;
+    }
+
+    @Override
+    public int previousIndex() {
+      return nextIndex - 1;
+    }
+
+    @Override
+    public void remove() {
+      checkForComodification();
+      if (lastReturned == null) {
+        throw new IllegalStateException();
+      }
+      Instruction lastNext = lastReturned.next;
+      unlink(lastReturned);
+      if (nextInstruction == lastReturned) {
+        nextInstruction = lastNext;
+      } else {
+        nextIndex--;
+      }
+      lastReturned = null;
+      expectedModCount++;
+    }
+
+    @Override
+    public void set(Instruction instruction) {
+      checkForComodification();
+      if (lastReturned == null) {
+        throw new IllegalStateException();
+      }
+      replace(lastReturned, instruction);
+      if (nextInstruction == lastReturned) {
+        nextInstruction = instruction;
+      }
+      lastReturned = instruction;
+    }
+
+    @Override
+    public void add(Instruction instruction) {
+      checkForComodification();
+      lastReturned = null;
+      linkBefore(instruction, nextInstruction);
+      nextIndex++;
+      expectedModCount++;
+    }
+
+    private void checkForComodification() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+}
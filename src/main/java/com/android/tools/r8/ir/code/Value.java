@@ -25,7 +25,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -200,9 +199,11 @@ public class Value {
 
   protected final int number;
   public Instruction definition = null;
-  private LinkedList<Instruction> users = new LinkedList<>();
+  // User lists are multisets kept in insertion order. They are array-backed since most values have
+  // very few users, and a linked list would allocate a node per use.
+  private ArrayList<Instruction> users = new ArrayList<>();
   private Set<Instruction> uniqueUsers = null;
-  private LinkedList<Phi> phiUsers = new LinkedList<>();
+  private ArrayList<Phi> phiUsers = new ArrayList<>();
   private Set<Phi> uniquePhiUsers = null;
   private Value nextConsecutive = null;
   private Value previousConsecutive = null;
@@ -395,12 +396,12 @@ public class Value {
 
   public Instruction singleUniqueUser() {
     assert ImmutableSet.copyOf(users).size() == 1;
-    return users.getFirst();
+    return users.get(0);
   }
 
   public Phi firstPhiUser() {
     assert !phiUsers.isEmpty();
-    return phiUsers.getFirst();
+    return phiUsers.get(0);
   }
 
   public Set<Phi> uniquePhiUsers() {
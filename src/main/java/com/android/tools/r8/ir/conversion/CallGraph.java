@@ -33,6 +33,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -40,9 +41,13 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -477,6 +482,120 @@ public class CallGraph extends CallSiteInformation {
     }
   }
 
+  /**
+   * Applies the given method to all nodes of the graph without processing them in waves.
+   *
+   * <p>A method is submitted to the executor as soon as all of its callees have been processed,
+   * so no core is left idle waiting for the slowest method of a wave. The {@param methodDone}
+   * callback is run after a method has been processed and before any of its callers are
+   * submitted. It can be used to publish the optimization info of the method to its callers.
+   *
+   * <p>Any method that is not a direct callee may be processed at the same time. Therefore the
+   * predicate passed to the consumer answers true for all methods in the graph that are not
+   * callees of the method being processed. This keeps the result independent of the scheduling,
+   * at the cost of a more conservative answer than in {@link #forEachMethod}.
+   */
+  public <E extends Exception> void forEachMethodWithoutWaves(
+      ThrowingBiConsumer<DexEncodedMethod, Predicate<DexEncodedMethod>, E> consumer,
+      Consumer<DexEncodedMethod> methodDone,
+      ExecutorService executorService)
+      throws ExecutionException {
+    if (isEmpty()) {
+      return;
+    }
+    new DependencyDrivenScheduler<>(consumer, methodDone, executorService).run();
+    nodes.clear();
+  }
+
+  private class DependencyDrivenScheduler<E extends Exception> {
+
+    private final ThrowingBiConsumer<DexEncodedMethod, Predicate<DexEncodedMethod>, E> consumer;
+    private final Consumer<DexEncodedMethod> methodDone;
+    private final ExecutorService executorService;
+
+    // Number of callees that have not been processed yet, per node.
+    private final Map<Node, AtomicInteger> pendingCallees = new IdentityHashMap<>();
+    // Number of submitted tasks that have not finished yet. Reaching zero terminates the run.
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private DependencyDrivenScheduler(
+        ThrowingBiConsumer<DexEncodedMethod, Predicate<DexEncodedMethod>, E> consumer,
+        Consumer<DexEncodedMethod> methodDone,
+        ExecutorService executorService) {
+      this.consumer = consumer;
+      this.methodDone = methodDone;
+      this.executorService = executorService;
+    }
+
+    private void run() throws ExecutionException {
+      Map<DexEncodedMethod, Node> leaves = new LinkedHashMap<>();
+      for (Node node : nodes.values()) {
+        pendingCallees.put(node, new AtomicInteger(node.callees.size()));
+        if (node.isLeaf()) {
+          leaves.put(node.method, node);
+        }
+      }
+      assert !leaves.isEmpty();
+      remaining.set(nodes.size());
+      // Hold on to one unit of outstanding work while submitting the leaves, such that the run
+      // cannot terminate before all leaves have been submitted.
+      outstanding.incrementAndGet();
+      for (DexEncodedMethod method : shuffle.order(leaves.keySet())) {
+        submit(leaves.get(method));
+      }
+      taskFinished();
+      try {
+        completion.get();
+      } catch (InterruptedException e) {
+        throw new RuntimeException("Interrupted while waiting for future.", e);
+      }
+    }
+
+    private void submit(Node node) {
+      outstanding.incrementAndGet();
+      executorService.execute(() -> process(node));
+    }
+
+    private void process(Node node) {
+      try {
+        if (failure.get() == null) {
+          consumer.accept(
+              node.method,
+              method -> {
+                Node other = nodes.get(method);
+                return other != null && !node.callees.contains(other);
+              });
+          methodDone.accept(node.method);
+          remaining.decrementAndGet();
+          for (Node caller : node.callers) {
+            if (pendingCallees.get(caller).decrementAndGet() == 0) {
+              submit(caller);
+            }
+          }
+        }
+      } catch (Throwable e) {
+        failure.compareAndSet(null, e);
+      } finally {
+        taskFinished();
+      }
+    }
+
+    private void taskFinished() {
+      if (outstanding.decrementAndGet() == 0) {
+        Throwable e = failure.get();
+        if (e != null) {
+          completion.completeExceptionally(e);
+        } else {
+          assert remaining.get() == 0;
+          completion.complete(null);
+        }
+      }
+    }
+  }
+
   public void dump() {
     nodes.forEach((m, n) -> System.out.println(n + "\n"));
   }
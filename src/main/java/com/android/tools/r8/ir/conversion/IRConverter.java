@@ -504,12 +504,24 @@ public class IRConverter {
       timing.begin("IR conversion phase 1");
       BiConsumer<IRCode, DexEncodedMethod> outlineHandler =
           outliner == null ? Outliner::noProcessing : outliner.identifyCandidateMethods();
-      callGraph.forEachMethod(
-          (method, isProcessedConcurrently) ->
-              processMethod(method, feedback, isProcessedConcurrently, callGraph, outlineHandler),
-          this::waveStart,
-          this::waveDone,
-          executorService);
+      if (options.enableDependencyDrivenMethodProcessing) {
+        // All methods are processed in a single wave, and the optimization info of each method is
+        // published as soon as it has been processed.
+        waveStart();
+        callGraph.forEachMethodWithoutWaves(
+            (method, isProcessedConcurrently) ->
+                processMethod(method, feedback, isProcessedConcurrently, callGraph, outlineHandler),
+            feedback::updateVisibleOptimizationInfo,
+            executorService);
+        waveDone();
+      } else {
+        callGraph.forEachMethod(
+            (method, isProcessedConcurrently) ->
+                processMethod(method, feedback, isProcessedConcurrently, callGraph, outlineHandler),
+            this::waveStart,
+            this::waveDone,
+            executorService);
+      }
       timing.end();
       assert graphLenseForIR == appView.graphLense();
     }
@@ -126,6 +126,26 @@ public class OptimizationFeedbackDelayed implements OptimizationFeedback {
     getOptimizationInfoForUpdating(method).setNonNullParamOnNormalExits(facts);
   }
 
+  /**
+   * Publishes the optimization info that has been collected for a single method.
+   *
+   * <p>Used when methods are not processed in waves, such that callers of {@param method} see its
+   * optimization info as soon as they are processed.
+   */
+  public synchronized void updateVisibleOptimizationInfo(DexEncodedMethod method) {
+    UpdatableOptimizationInfo info = optimizationInfos.remove(method);
+    ConstraintWithTarget state = processed.remove(method);
+    if (method.isObsolete()) {
+      return;
+    }
+    if (info != null) {
+      method.setOptimizationInfo(info);
+    }
+    if (state != null) {
+      method.markProcessed(state);
+    }
+  }
+
   public void updateVisibleOptimizationInfo() {
     // Remove methods that have become obsolete. A method may become obsolete, for example, as a
     // result of the class staticizer, which aims to transform virtual methods on companion classes
@@ -46,7 +46,8 @@ import java.util.function.BiFunction;
 public final class Java8MethodRewriter {
   public static final String UTILITY_CLASS_NAME_PREFIX = "$r8$java8methods$utility";
   private static final String UTILITY_CLASS_DESCRIPTOR_PREFIX = "L$r8$java8methods$utility";
-  private final Set<DexType> holders = Sets.newConcurrentHashSet();
+  // The classes using each utility method.
+  private final Map<DexMethod, Set<DexType>> holders = new ConcurrentHashMap<>();
 
   private final AppView<? extends AppInfo> appView;
   private final IRConverter converter;
@@ -79,8 +80,11 @@ public final class Java8MethodRewriter {
       iterator.replaceCurrentInstruction(
             new InvokeStatic(generator.generateMethod(factory, appInfo.getBucketId()),
                 invoke.outValue(), invoke.inValues()));
-      methodGenerators.putIfAbsent(generator.generateMethod(factory, appInfo.getBucketId()), generator);
-      holders.add(code.method.method.holder);
+      DexMethod method = generator.generateMethod(factory, appInfo.getBucketId());
+      methodGenerators.putIfAbsent(method, generator);
+      holders
+          .computeIfAbsent(method, key -> Sets.newConcurrentHashSet())
+          .add(code.method.method.holder);
     }
   }
 
@@ -103,18 +107,7 @@ public final class Java8MethodRewriter {
     if (holders.isEmpty()) {
       return;
     }
-    Set<DexProgramClass> referencingClasses = Sets.newConcurrentHashSet();
     AppInfo appInfo = appView.appInfo();
-    for (DexType holder : holders) {
-      DexClass definitionFor = appInfo.definitionFor(holder);
-      if (definitionFor == null) {
-        Collection<DexProgramClass> synthesizedFrom = findSynthesizedFrom(builder, holder);
-        assert synthesizedFrom != null;
-        referencingClasses.addAll(synthesizedFrom);
-      } else {
-        referencingClasses.add(definitionFor.asProgramClass());
-      }
-    }
     MethodAccessFlags flags = MethodAccessFlags.fromSharedAccessFlags(
         Constants.ACC_PUBLIC | Constants.ACC_STATIC | Constants.ACC_SYNTHETIC, false);
     ClassAccessFlags classAccessFlags =
@@ -122,6 +115,19 @@ public final class Java8MethodRewriter {
 
     for (MethodGenerator generator : methodGenerators.values()) {
       DexMethod method = generator.generateMethod(factory, appInfo.getBucketId());
+      // Each utility class only originates from the classes using it, so that it does not depend
+      // on the other classes being compiled.
+      Set<DexProgramClass> referencingClasses = Sets.newConcurrentHashSet();
+      for (DexType holder : holders.get(method)) {
+        DexClass definitionFor = appInfo.definitionFor(holder);
+        if (definitionFor == null) {
+          Collection<DexProgramClass> synthesizedFrom = findSynthesizedFrom(builder, holder);
+          assert synthesizedFrom != null;
+          referencingClasses.addAll(synthesizedFrom);
+        } else {
+          referencingClasses.add(definitionFor.asProgramClass());
+        }
+      }
       TemplateMethodCode code = generator.generateTemplateMethod(options, method);
       DexEncodedMethod dexEncodedMethod= new DexEncodedMethod(method,
           flags, DexAnnotationSet.empty(), ParameterAnnotationsList.empty(), code);
@@ -11,6 +11,7 @@ import com.android.tools.r8.ir.code.Goto;
 import com.android.tools.r8.ir.code.IRCode;
 import com.android.tools.r8.ir.code.Instruction;
 import com.android.tools.r8.ir.code.InstructionIterator;
+import com.android.tools.r8.ir.code.InstructionList;
 import com.android.tools.r8.ir.code.InstructionListIterator;
 import com.android.tools.r8.ir.code.Position;
 import com.android.tools.r8.ir.code.Value;
@@ -25,7 +26,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -156,7 +156,7 @@ public class PeepholeOptimizer {
         if (instruction.isJumpInstruction()) {
           // Replace jump instruction in predecessor with the jump instruction from the two normal
           // successors.
-          LinkedList<Instruction> instructions = block.getInstructions();
+          InstructionList instructions = block.getInstructions();
           instructions.removeLast();
           instructions.add(instruction);
           instruction.setBlock(block);
@@ -307,19 +307,20 @@ public class PeepholeOptimizer {
 
     allocator.addNewBlockToShareIdenticalSuffix(newBlock, suffixSize, preds);
 
+    // The suffix is only moved to the new block once it is removed from the predecessors below.
+    List<Instruction> suffix = new ArrayList<>(suffixSize);
     boolean movedThrowingInstruction = false;
     for (int i = 0; i < suffixSize; i++) {
       Instruction instruction = from.previous();
       movedThrowingInstruction = movedThrowingInstruction || instruction.instructionTypeCanThrow();
-      newBlock.getInstructions().addFirst(instruction);
-      instruction.setBlock(newBlock);
+      suffix.add(instruction);
     }
     if (movedThrowingInstruction && first.hasCatchHandlers()) {
       newBlock.transferCatchHandlers(first);
     }
     for (BasicBlock pred : preds) {
       Position lastPosition = pred.getPosition();
-      LinkedList<Instruction> instructions = pred.getInstructions();
+      InstructionList instructions = pred.getInstructions();
       for (int i = 0; i < suffixSize; i++) {
         instructions.removeLast();
       }
@@ -343,6 +344,10 @@ public class PeepholeOptimizer {
         pred.clearCatchHandlers();
       }
     }
+    for (Instruction instruction : suffix) {
+      newBlock.getInstructions().addFirst(instruction);
+      instruction.setBlock(newBlock);
+    }
     newBlock.close(null);
     if (newBlockEntryLocals != null) {
       newBlock.setLocalsAtEntry(newBlockEntryLocals);
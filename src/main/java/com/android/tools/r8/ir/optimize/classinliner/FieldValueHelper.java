@@ -14,13 +14,13 @@ import com.android.tools.r8.ir.code.BasicBlock;
 import com.android.tools.r8.ir.code.ConstNumber;
 import com.android.tools.r8.ir.code.IRCode;
 import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.InstructionList;
 import com.android.tools.r8.ir.code.InstructionListIterator;
 import com.android.tools.r8.ir.code.Phi;
 import com.android.tools.r8.ir.code.Phi.RegisterReadType;
 import com.android.tools.r8.ir.code.Value;
 import java.util.ArrayList;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -148,7 +148,7 @@ final class FieldValueHelper {
           code.createValue(TypeLatticeElement.fromDexType(field.type, maybeNull(), appView));
       ConstNumber defaultValueInsn = new ConstNumber(defaultValue, 0);
       defaultValueInsn.setPosition(root.getPosition());
-      LinkedList<Instruction> instructions = block.getInstructions();
+      InstructionList instructions = block.getInstructions();
       instructions.add(instructions.indexOf(root) + 1, defaultValueInsn);
       defaultValueInsn.setBlock(block);
     }
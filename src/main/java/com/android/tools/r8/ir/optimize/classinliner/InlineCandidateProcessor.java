@@ -26,6 +26,7 @@ import com.android.tools.r8.ir.code.IRCode;
 import com.android.tools.r8.ir.code.If;
 import com.android.tools.r8.ir.code.InstanceGet;
 import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.InstructionList;
 import com.android.tools.r8.ir.code.InstructionOrPhi;
 import com.android.tools.r8.ir.code.Invoke.Type;
 import com.android.tools.r8.ir.code.InvokeDirect;
@@ -47,7 +48,6 @@ import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -381,7 +381,7 @@ final class InlineCandidateProcessor {
 
       ConstNumber nullValue = code.createConstNull();
       nullValue.setPosition(invoke.getPosition());
-      LinkedList<Instruction> instructions = block.getInstructions();
+      InstructionList instructions = block.getInstructions();
       instructions.add(instructions.indexOf(invoke), nullValue);
       nullValue.setBlock(block);
 
@@ -55,19 +55,24 @@ public class PeepholeHelper {
   public static void moveInstructionsUpToCurrentPosition(
       InstructionListIterator it, List<Instruction> instructions) {
     assert !instructions.isEmpty();
+    // An instruction can only be in one instruction list, so remove the instructions before adding
+    // them back just before the instruction that is currently next.
+    Instruction next = it.peekNext();
+    assert next != null && !instructions.contains(next);
+    Instruction current = it.nextUntil(i -> i == instructions.get(0));
+    for (int i = 0; i < instructions.size(); i++) {
+      assert current == instructions.get(i);
+      it.removeOrReplaceByDebugLocalRead();
+      if (i < instructions.size() - 1) {
+        current = it.next();
+      }
+    }
+    it.previousUntil(i -> i == next);
     for (Instruction instruction : instructions) {
       for (Value inValue : instruction.inValues()) {
         inValue.addUser(instruction);
       }
       it.add(instruction);
     }
-    Instruction current = it.nextUntil(i -> i == instructions.get(0));
-    for (int i = 0; i < instructions.size(); i++) {
-      assert current == instructions.get(i);
-      it.removeOrReplaceByDebugLocalRead();
-      current = it.next();
-    }
-    it.previousUntil(i -> i == instructions.get(instructions.size() - 1));
-    it.next();
   }
 }
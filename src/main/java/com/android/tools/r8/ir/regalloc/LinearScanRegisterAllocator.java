@@ -147,9 +147,9 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
   // List of all top-level live intervals for all SSA values.
   private List<LiveIntervals> liveIntervals = new ArrayList<>();
   // List of active intervals.
-  private List<LiveIntervals> active = new LinkedList<>();
+  private List<LiveIntervals> active = new ArrayList<>();
   // List of intervals where the current instruction falls into one of their live range holes.
-  protected List<LiveIntervals> inactive = new LinkedList<>();
+  protected List<LiveIntervals> inactive = new ArrayList<>();
   // List of intervals that no register has been allocated to sorted by first live range.
   protected PriorityQueue<LiveIntervals> unhandled = new PriorityQueue<>();
 
@@ -269,11 +269,12 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       if (!value.hasLocalInfo()) {
         continue;
       }
-      List<LiveRange> liveRanges = new ArrayList<>(interval.getRanges());
+      List<LiveRange> liveRanges = new ArrayList<>();
+      interval.collectRanges(liveRanges);
       for (LiveIntervals child : interval.getSplitChildren()) {
         assert child.getValue() == value;
         assert child.getSplitChildren() == null || child.getSplitChildren().isEmpty();
-        liveRanges.addAll(child.getRanges());
+        child.collectRanges(liveRanges);
       }
       liveRanges.sort((r1, r2) -> Integer.compare(r1.start, r2.start));
       for (LiveRange liveRange : liveRanges) {
@@ -942,12 +943,12 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       }
 
       int start = unhandledInterval.getStart();
-      // Check for active intervals that expired or became inactive.
-      Iterator<LiveIntervals> activeIterator = active.iterator();
-      while (activeIterator.hasNext()) {
-        LiveIntervals activeIntervals = activeIterator.next();
+      // Check for active intervals that expired or became inactive. The remaining intervals are
+      // compacted in place to keep their order without the cost of removing from the middle.
+      int remaining = 0;
+      for (int i = 0; i < active.size(); i++) {
+        LiveIntervals activeIntervals = active.get(i);
         if (start >= activeIntervals.getEnd()) {
-          activeIterator.remove();
           freeOccupiedRegistersForIntervals(activeIntervals);
           if (start == activeIntervals.getEnd()) {
             expiredHere.add(activeIntervals.getRegister());
@@ -956,19 +957,20 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
             }
           }
         } else if (!activeIntervals.overlapsPosition(start)) {
-          activeIterator.remove();
           assert activeIntervals.getRegister() != NO_REGISTER;
           inactive.add(activeIntervals);
           freeOccupiedRegistersForIntervals(activeIntervals);
+        } else {
+          active.set(remaining++, activeIntervals);
         }
       }
+      truncate(active, remaining);
 
       // Check for inactive intervals that expired or became reactivated.
-      Iterator<LiveIntervals> inactiveIterator = inactive.iterator();
-      while (inactiveIterator.hasNext()) {
-        LiveIntervals inactiveIntervals = inactiveIterator.next();
+      remaining = 0;
+      for (int i = 0; i < inactive.size(); i++) {
+        LiveIntervals inactiveIntervals = inactive.get(i);
         if (start >= inactiveIntervals.getEnd()) {
-          inactiveIterator.remove();
           if (start == inactiveIntervals.getEnd()) {
             expiredHere.add(inactiveIntervals.getRegister());
             if (inactiveIntervals.getType().isWide()) {
@@ -976,12 +978,14 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
             }
           }
         } else if (inactiveIntervals.overlapsPosition(start)) {
-          inactiveIterator.remove();
           assert inactiveIntervals.getRegister() != NO_REGISTER;
           active.add(inactiveIntervals);
           takeFreeRegistersForIntervals(inactiveIntervals);
+        } else {
+          inactive.set(remaining++, inactiveIntervals);
         }
       }
+      truncate(inactive, remaining);
 
       // Perform the actual allocation.
       if (unhandledInterval.isLinked() && !unhandledInterval.isArgumentInterval()) {
@@ -995,6 +999,10 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
     return true;
   }
 
+  private static void truncate(List<LiveIntervals> intervals, int size) {
+    intervals.subList(size, intervals.size()).clear();
+  }
+
   private boolean invariantsHold(ArgumentReuseMode mode) {
     TreeSet<Integer> computedFreeRegisters = new TreeSet<>();
     for (int register = 0; register <= maxRegisterNumber; ++register) {
@@ -1127,7 +1135,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
           // Save the current register allocation state so we can restore it at the end.
           TreeSet<Integer> savedFreeRegisters = new TreeSet<>(freeRegisters);
           int savedMaxRegisterNumber = maxRegisterNumber;
-          List<LiveIntervals> savedInactive = new LinkedList<>(inactive);
+          List<LiveIntervals> savedInactive = new ArrayList<>(inactive);
 
           // Add all the active intervals to the inactive set. When allocating linked intervals we
           // check all inactive intervals and exclude the registers for overlapping inactive
@@ -2494,14 +2502,14 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         // the phi value is defined on the inflowing edge.
         instructionNumber--;
       }
-      intervals.addRange(new LiveRange(instructionNumber, end));
+      intervals.addRange(instructionNumber, end);
       assert unconstrainedForCf(intervals.getRegisterLimit(), options);
       if (options.isGeneratingDex() && !value.isPhi()) {
         int constraint = value.definition.maxOutValueRegister();
         intervals.addUse(new LiveIntervalsUse(instructionNumber, constraint));
       }
     } else {
-      intervals.addRange(new LiveRange(firstInstructionInBlock - 1, end));
+      intervals.addRange(firstInstructionInBlock - 1, end);
     }
   }
 
@@ -2517,8 +2525,8 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
         if (instruction.isArgument() && instruction.outValue().isThis()) {
           Value thisValue = instruction.outValue();
           LiveIntervals thisIntervals = thisValue.getLiveIntervals();
-          thisIntervals.getRanges().clear();
-          thisIntervals.addRange(new LiveRange(0, code.getNextInstructionNumber()));
+          thisIntervals.clearRanges();
+          thisIntervals.addRange(0, code.getNextInstructionNumber());
           for (LiveAtEntrySets values : liveAtEntrySets.values()) {
             values.liveValues.add(thisValue);
           }
@@ -2905,7 +2913,7 @@ public class LinearScanRegisterAllocator implements RegisterAllocator {
       // instruction to avoid dead arguments without a range. This may create an actually empty
       // range like [0,0[ but that works, too.
       LiveIntervals argumentInterval = new LiveIntervals(argument);
-      argumentInterval.addRange(new LiveRange(0, index));
+      argumentInterval.addRange(0, index);
       liveIntervals.add(argumentInterval);
       index += INSTRUCTION_NUMBER_DELTA;
     }
@@ -13,9 +13,9 @@ import com.android.tools.r8.ir.code.ValueType;
 import com.android.tools.r8.utils.CfgPrinter;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
 import java.util.function.IntConsumer;
@@ -32,7 +32,10 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   private final List<LiveIntervals> splitChildren = new ArrayList<>();
   private final IntArrayList sortedSplitChildrenEnds = new IntArrayList();
   private boolean sortedChildren = false;
-  private List<LiveRange> ranges = new ArrayList<>();
+  // The live ranges as [start, end[ pairs, sorted and non-overlapping. The start of range i is at
+  // ranges[2 * i] and its end at ranges[2 * i + 1].
+  private int[] ranges = new int[4];
+  private int numberOfRanges = 0;
   private final TreeSet<LiveIntervalsUse> uses = new TreeSet<>();
   private int numberOfConsecutiveRegisters = -1;
   private int register = NO_REGISTER;
@@ -208,30 +211,77 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
    * @param range the range to add
    */
   public void addRange(LiveRange range) {
-    boolean added = tryAddRange(range);
+    addRange(range.start, range.end);
+  }
+
+  /**
+   * Add the live range [start, end[ to the intervals.
+   */
+  public void addRange(int start, int end) {
+    boolean added = tryAddRange(start, end);
     assert added;
   }
 
-  private boolean tryAddRange(LiveRange range) {
-    if (ranges.size() > 0) {
-      LiveRange lastRange = ranges.get(ranges.size() - 1);
-      if (lastRange.isInfinite()) {
+  private boolean tryAddRange(int start, int end) {
+    if (numberOfRanges > 0) {
+      int lastRangeEnd = getRangeEnd(numberOfRanges - 1);
+      if (lastRangeEnd == Integer.MAX_VALUE) {
+        // The last range is infinite.
         return false;
       }
-      int rangeStartInstructionPosition = toInstructionPosition(range.start);
-      int lastRangeEndInstructionPosition = toInstructionPosition(lastRange.end);
+      int rangeStartInstructionPosition = toInstructionPosition(start);
+      int lastRangeEndInstructionPosition = toInstructionPosition(lastRangeEnd);
       if (lastRangeEndInstructionPosition > rangeStartInstructionPosition) {
         return false;
       }
       if (lastRangeEndInstructionPosition == rangeStartInstructionPosition) {
-        lastRange.end = range.end;
+        ranges[2 * numberOfRanges - 1] = end;
         return true;
       }
     }
-    ranges.add(range);
+    if (2 * numberOfRanges == ranges.length) {
+      ranges = Arrays.copyOf(ranges, ranges.length * 2);
+    }
+    ranges[2 * numberOfRanges] = start;
+    ranges[2 * numberOfRanges + 1] = end;
+    numberOfRanges++;
     return true;
   }
 
+  public void clearRanges() {
+    numberOfRanges = 0;
+  }
+
+  public int numberOfRanges() {
+    return numberOfRanges;
+  }
+
+  public int getRangeStart(int index) {
+    assert index < numberOfRanges;
+    return ranges[2 * index];
+  }
+
+  public int getRangeEnd(int index) {
+    assert index < numberOfRanges;
+    return ranges[2 * index + 1];
+  }
+
+  // Returns the index of the first range that ends after position, or the number of ranges if
+  // there is no such range.
+  private int firstRangeEndingAfter(int position) {
+    int low = 0;
+    int high = numberOfRanges;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getRangeEnd(mid) <= position) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
   /**
    * Record a use for this interval.
    */
@@ -248,18 +298,14 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
     return uses;
   }
 
-  public List<LiveRange> getRanges() {
-    return ranges;
-  }
-
   public int getStart() {
-    assert !ranges.isEmpty();
-    return ranges.get(0).start;
+    assert numberOfRanges > 0;
+    return ranges[0];
   }
 
   public int getEnd() {
-    assert !ranges.isEmpty();
-    return ranges.get(ranges.size() - 1).end;
+    assert numberOfRanges > 0;
+    return ranges[2 * numberOfRanges - 1];
   }
 
   public int getRegister() {
@@ -324,16 +370,9 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   }
 
   public boolean overlapsPosition(int position) {
-    for (LiveRange range : ranges) {
-      if (range.start > position) {
-        // Ranges are sorted. When a range starts after position there is no overlap.
-        return false;
-      }
-      if (position < range.end) {
-        return true;
-      }
-    }
-    return false;
+    // Ranges are sorted. Only the first range that ends after position can contain it.
+    int index = firstRangeEndingAfter(position);
+    return index < numberOfRanges && getRangeStart(index) <= position;
   }
 
   public boolean overlaps(LiveIntervals other) {
@@ -354,29 +393,34 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
   }
 
   public int nextOverlap(LiveIntervals other) {
-    Iterator<LiveRange> it = other.ranges.iterator();
-    LiveRange otherRange = it.next();
-    for (LiveRange range : ranges) {
-      while (otherRange.end <= range.start) {
-        if (!it.hasNext()) {
+    if (numberOfRanges == 0) {
+      return -1;
+    }
+    // Skip the ranges of both intervals that end before the other intervals start, as they
+    // cannot overlap.
+    int otherIndex = other.firstRangeEndingAfter(getStart());
+    if (otherIndex == other.numberOfRanges) {
+      return -1;
+    }
+    for (int index = firstRangeEndingAfter(other.getStart()); index < numberOfRanges; index++) {
+      int start = getRangeStart(index);
+      while (other.getRangeEnd(otherIndex) <= start) {
+        if (++otherIndex == other.numberOfRanges) {
           return -1;
         }
-        otherRange = it.next();
       }
-      if (otherRange.start < range.end) {
-        return otherRange.start;
+      int otherStart = other.getRangeStart(otherIndex);
+      if (otherStart < getRangeEnd(index)) {
+        return otherStart;
       }
     }
     return -1;
   }
 
   public int firstUseAfter(int unhandledStart) {
-    for (LiveIntervalsUse use : uses) {
-      if (use.getPosition() >= unhandledStart) {
-        return use.getPosition();
-      }
-    }
-    return Integer.MAX_VALUE;
+    // Uses are ordered by position first, and limits are non-negative.
+    LiveIntervalsUse use = uses.ceiling(new LiveIntervalsUse(unhandledStart, 0));
+    return use != null ? use.getPosition() : Integer.MAX_VALUE;
   }
 
   public int getFirstUse() {
@@ -410,54 +454,45 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
     LiveIntervals splitChild = new LiveIntervals(splitParent);
     splitParent.splitChildren.add(splitChild);
     splitParent.sortedChildren = false;
-    List<LiveRange> beforeSplit = new ArrayList<>();
-    List<LiveRange> afterSplit = new ArrayList<>();
     if (start == getEnd()) {
-      beforeSplit = ranges;
-      afterSplit.add(new LiveRange(start, start));
+      splitChild.addRange(start, start);
     } else {
-      int rangeToSplitIndex = 0;
-      for (; rangeToSplitIndex < ranges.size(); rangeToSplitIndex++) {
-        LiveRange range = ranges.get(rangeToSplitIndex);
-        if (range.start <= start && range.end > start) {
-          break;
-        }
-        if (range.start > start) {
-          break;
-        }
-      }
-      LiveRange rangeToSplit = ranges.get(rangeToSplitIndex);
-      beforeSplit.addAll(ranges.subList(0, rangeToSplitIndex));
-      if (rangeToSplit.start < start) {
-        beforeSplit.add(new LiveRange(rangeToSplit.start, start));
-        afterSplit.add(new LiveRange(start, rangeToSplit.end));
-      } else {
-        afterSplit.add(rangeToSplit);
+      // The range to split is the first one that contains start or starts after it.
+      int rangeToSplitIndex = firstRangeEndingAfter(start);
+      assert rangeToSplitIndex < numberOfRanges;
+      int rangeToSplitStart = getRangeStart(rangeToSplitIndex);
+      int numberOfRangesAfterSplit = numberOfRanges - rangeToSplitIndex;
+      splitChild.ranges =
+          Arrays.copyOfRange(ranges, 2 * rangeToSplitIndex, 2 * numberOfRanges);
+      splitChild.numberOfRanges = numberOfRangesAfterSplit;
+      numberOfRanges = rangeToSplitIndex;
+      if (rangeToSplitStart < start) {
+        splitChild.ranges[0] = start;
+        ranges[2 * numberOfRanges + 1] = start;
+        numberOfRanges++;
       }
-      afterSplit.addAll(ranges.subList(rangeToSplitIndex + 1, ranges.size()));
     }
-    splitChild.ranges = afterSplit;
-    ranges = beforeSplit;
     while (!uses.isEmpty() && uses.last().getPosition() >= start) {
       splitChild.addUse(uses.pollLast());
     }
     // Recompute limit after having removed uses from this interval.
     recomputeLimit();
-    assert !ranges.isEmpty();
-    assert !splitChild.ranges.isEmpty();
+    assert numberOfRanges > 0;
+    assert splitChild.numberOfRanges > 0;
     return splitChild;
   }
 
   public void undoSplits() {
-    List<LiveRange> ranges = new ArrayList<>(this.ranges);
+    List<LiveRange> ranges = new ArrayList<>();
+    collectRanges(ranges);
     for (LiveIntervals split : splitChildren) {
-      ranges.addAll(split.ranges);
+      split.collectRanges(ranges);
       for (LiveIntervalsUse use : split.uses) {
         addUse(use);
       }
     }
     Collections.sort(ranges);
-    this.ranges.clear();
+    clearRanges();
     for (LiveRange range : ranges) {
       addRange(range);
     }
@@ -465,6 +500,13 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
     recomputeLimit();
   }
 
+  /** Add the live ranges of this interval to ranges. */
+  public void collectRanges(List<LiveRange> ranges) {
+    for (int i = 0; i < numberOfRanges; i++) {
+      ranges.add(new LiveRange(getRangeStart(i), getRangeEnd(i)));
+    }
+  }
+
   private void recomputeLimit() {
     registerLimit = U16BIT_MAX;
     for (LiveIntervalsUse use : uses) {
@@ -548,26 +590,30 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
     // Use the field here to avoid toString to have side effects.
     builder.append(numberOfConsecutiveRegisters);
     builder.append("): ");
-    for (LiveRange range : getRanges()) {
-      builder.append(range);
+    for (int i = 0; i < numberOfRanges; i++) {
+      builder.append(rangeToString(i));
       builder.append(" ");
     }
     builder.append("\n");
     return builder.toString();
   }
 
+  private String rangeToString(int index) {
+    return "[" + getRangeStart(index) + ", " + getRangeEnd(index) + "[";
+  }
+
   public String toAscciArtString() {
     StringBuilder builder = new StringBuilder();
     int current = 0;
-    for (LiveRange range : getRanges()) {
-      if (range.isInfinite()) {
+    for (int i = 0; i < numberOfRanges; i++) {
+      if (getRangeEnd(i) == Integer.MAX_VALUE) {
         builder.append("--- infinite ---...");
         break;
       }
-      for (; current < range.start; current++) {
+      for (; current < getRangeStart(i); current++) {
         builder.append(" ");
       }
-      for (; current < range.end; current++) {
+      for (; current < getRangeEnd(i); current++) {
         builder.append("-");
       }
     }
@@ -579,8 +625,8 @@ public class LiveIntervals implements Comparable<LiveIntervals> {
         .sp().append("object") // range type
         .sp().append(parentNumber * 10000 + getSplitParent().getRegister()) // split parent
         .sp().append(-1); // hint
-    for (LiveRange range : getRanges()) {
-      printer.sp().append(range.toString());
+    for (int i = 0; i < numberOfRanges; i++) {
+      printer.sp().append(rangeToString(i));
     }
     for (LiveIntervalsUse use : getUses()) {
       printer.sp().append(use.getPosition()).sp().append("M");
@@ -87,6 +87,20 @@ public class ClassNameMapper implements ProguardMap {
     return mapperFromInputStream(Files.newInputStream(path));
   }
 
+  /**
+   * Create a mapper that only indexes the class mappings of the file when it is created.
+   *
+   * <p>The member mappings of a class are parsed when the class is first looked up, which makes
+   * this preferable to {@link #mapperFromFile(Path)} for looking up a few classes in a large file.
+   * Errors in member mappings are reported when the class is looked up.
+   */
+  public static ClassNameMapper lazyMapperFromFile(Path path) throws IOException {
+    if (!ProguardMapIndex.canIndex(Files.size(path))) {
+      return mapperFromFile(path);
+    }
+    return new ClassNameMapper(ProguardMapIndex.create(path));
+  }
+
   public static ClassNameMapper mapperFromString(String contents) throws IOException {
     return mapperFromBufferedReader(CharSource.wrap(contents).openBufferedStream());
   }
@@ -100,7 +114,10 @@ public class ClassNameMapper implements ProguardMap {
     }
   }
 
-  private final ImmutableMap<String, ClassNamingForNameMapper> classNameMappings;
+  // All class namings, or null if the mapper is lazy and the class namings have not been needed.
+  private ImmutableMap<String, ClassNamingForNameMapper> classNameMappings;
+  // Index of the class mappings in the file if the mapper is lazy, otherwise null.
+  private final ProguardMapIndex index;
   private BiMapContainer<String, String> nameMapping;
 
   private final Map<Signature, Signature> signatureMap = new HashMap<>();
@@ -111,6 +128,19 @@ public class ClassNameMapper implements ProguardMap {
       builder.put(entry.getKey(), entry.getValue().build());
     }
     this.classNameMappings = builder.build();
+    this.index = null;
+  }
+
+  private ClassNameMapper(ProguardMapIndex index) {
+    this.classNameMappings = null;
+    this.index = index;
+  }
+
+  private synchronized ImmutableMap<String, ClassNamingForNameMapper> getClassNameMappings() {
+    if (classNameMappings == null) {
+      classNameMappings = index.parseAll();
+    }
+    return classNameMappings;
   }
 
   private Signature canonicalizeSignature(Signature signature) {
@@ -147,6 +177,10 @@ public class ClassNameMapper implements ProguardMap {
    * name.
    */
   public String deobfuscateClassName(String obfuscatedName) {
+    if (index != null) {
+      String originalName = index.getOriginalName(obfuscatedName);
+      return originalName == null ? obfuscatedName : originalName;
+    }
     ClassNamingForNameMapper classNaming = classNameMappings.get(obfuscatedName);
     if (classNaming == null) {
       return obfuscatedName;
@@ -161,24 +195,26 @@ public class ClassNameMapper implements ProguardMap {
   @Override
   public boolean hasMapping(DexType type) {
     String decoded = descriptorToJavaType(type.descriptor.toString());
-    return classNameMappings.containsKey(decoded);
+    return index != null ? index.hasMapping(decoded) : classNameMappings.containsKey(decoded);
   }
 
   @Override
   public ClassNamingForNameMapper getClassNaming(DexType type) {
     String decoded = descriptorToJavaType(type.descriptor.toString());
-    return classNameMappings.get(decoded);
+    return getClassNaming(decoded);
   }
 
   public ClassNamingForNameMapper getClassNaming(String obfuscatedName) {
-    return classNameMappings.get(obfuscatedName);
+    return index != null
+        ? index.getClassNaming(obfuscatedName)
+        : classNameMappings.get(obfuscatedName);
   }
 
   public void write(Writer writer) throws IOException {
     // Sort classes by their original name such that the generated Proguard map is deterministic
     // (and easy to navigate manually).
     List<ClassNamingForNameMapper> classNamingForNameMappers =
-        new ArrayList<>(classNameMappings.values());
+        new ArrayList<>(getClassNameMappings().values());
     classNamingForNameMappers.sort(Comparator.comparing(x -> x.originalName));
     for (ClassNamingForNameMapper naming : classNamingForNameMappers) {
       naming.write(writer);
@@ -199,8 +235,10 @@ public class ClassNameMapper implements ProguardMap {
   public BiMapContainer<String, String> getObfuscatedToOriginalMapping() {
     if (nameMapping == null) {
       ImmutableBiMap.Builder<String, String> builder = ImmutableBiMap.builder();
-      for (String name : classNameMappings.keySet()) {
-        builder.put(name, classNameMappings.get(name).originalName);
+      if (index != null) {
+        index.forEachClass(builder::put);
+      } else {
+        classNameMappings.forEach((name, naming) -> builder.put(name, naming.originalName));
       }
       BiMap<String, String> classNameMappings = builder.build();
       nameMapping = new BiMapContainer<>(classNameMappings, classNameMappings.inverse());
@@ -211,12 +249,12 @@ public class ClassNameMapper implements ProguardMap {
   @Override
   public boolean equals(Object o) {
     return o instanceof ClassNameMapper
-        && classNameMappings.equals(((ClassNameMapper) o).classNameMappings);
+        && getClassNameMappings().equals(((ClassNameMapper) o).getClassNameMappings());
   }
 
   @Override
   public int hashCode() {
-    return 31 * classNameMappings.hashCode();
+    return 31 * getClassNameMappings().hashCode();
   }
 
   public String originalNameOf(IndexedDexItem item) {
@@ -87,6 +87,11 @@ public class ClassNamingForNameMapper implements ClassNaming {
       this.mappedRanges = mappedRanges;
     }
 
+    /** Returns the MappedRanges in the order they appear in the Proguard map. */
+    public List<MappedRange> getMappedRanges() {
+      return Collections.unmodifiableList(mappedRanges);
+    }
+
     /**
      * Return the first MappedRange that contains {@code line}. Return general MappedRange ("a() ->
      * b") if no concrete mapping found or null if nothing found.
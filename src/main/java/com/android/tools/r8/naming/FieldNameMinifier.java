@@ -12,6 +12,7 @@ import com.android.tools.r8.graph.DexString;
 import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.graph.TopDownClassHierarchyTraversal;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
@@ -24,12 +25,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 class FieldNameMinifier {
 
   private final AppView<AppInfoWithLiveness> appView;
-  private final Map<DexField, DexString> renaming = new IdentityHashMap<>();
-  private Map<DexType, ReservedFieldNamingState> reservedNamingStates = new IdentityHashMap<>();
+  private final Map<DexField, DexString> renaming = new ConcurrentHashMap<>();
+  private Map<DexType, ReservedFieldNamingState> reservedNamingStates = new ConcurrentHashMap<>();
   private final MemberNamingStrategy strategy;
 
   FieldNameMinifier(AppView<AppInfoWithLiveness> appView, MemberNamingStrategy strategy) {
@@ -38,6 +44,22 @@ class FieldNameMinifier {
   }
 
   FieldRenaming computeRenaming(Collection<DexClass> interfaces, Timing timing) {
+    try {
+      return computeRenaming(interfaces, null, timing);
+    } catch (ExecutionException e) {
+      throw new AssertionError("Unexpected exception when naming sequentially", e);
+    }
+  }
+
+  /**
+   * Computes the renaming of all fields.
+   *
+   * @param executorService executor to assign names on, or null to assign all names on the calling
+   *     thread.
+   */
+  FieldRenaming computeRenaming(
+      Collection<DexClass> interfaces, ExecutorService executorService, Timing timing)
+      throws ExecutionException {
     // Reserve names in all classes first. We do this in subtyping order so we do not
     // shadow a reserved field in subclasses. While there is no concept of virtual field
     // dispatch in Java, field resolution still traverses the super type chain and external
@@ -49,7 +71,7 @@ class FieldNameMinifier {
     timing.begin("rename-definitions");
     renameFieldsInInterfaces(interfaces);
     propagateReservedFieldNamesUpwards();
-    renameFieldsInClasses();
+    renameFieldsInClasses(executorService);
     timing.end();
     // Rename the references that are not rebound to definitions for some reasons.
     timing.begin("rename-references");
@@ -137,35 +159,74 @@ class FieldNameMinifier {
             });
   }
 
-  private void renameFieldsInClasses() {
-    Map<DexType, FieldNamingState> states = new IdentityHashMap<>();
+  private void renameFieldsInClasses(ExecutorService executorService)
+      throws ExecutionException {
+    Map<DexType, FieldNamingState> states = new ConcurrentHashMap<>();
+    Consumer<DexClass> renameFieldsInClass =
+        clazz -> {
+          assert !clazz.isInterface();
+
+          FieldNamingState parentState =
+              clazz.superType == null
+                  ? new FieldNamingState(appView, strategy)
+                  : states
+                      .computeIfAbsent(
+                          clazz.superType, key -> new FieldNamingState(appView, strategy))
+                      .clone();
+
+          ReservedFieldNamingState reservedNames =
+              getOrCreateReservedFieldNamingState(clazz.type);
+          FieldNamingState state = parentState.createChildState(reservedNames);
+          if (clazz.isProgramClass()) {
+            for (DexEncodedField field : clazz.fields()) {
+              renameField(field, state);
+            }
+          }
+
+          assert !states.containsKey(clazz.type);
+          states.put(clazz.type, state);
+        };
+    // The naming states of a class and its clones share the iterator over the obfuscation
+    // dictionary, so the names only are independent of the order in which subtrees are visited
+    // when there is no dictionary.
+    if (executorService == null
+        || !appView.options().getProguardConfiguration().getObfuscationDictionary().isEmpty()) {
+      TopDownClassHierarchyTraversal.forAllClasses(appView)
+          .excludeInterfaces()
+          .visit(appView.appInfo().classes(), renameFieldsInClass);
+      return;
+    }
+
+    // Partition the program classes into the subtrees below non-program classes. The names in a
+    // subtree only depend on the states of the classes above it, so the subtrees can be named in
+    // parallel once the non-program classes have been visited.
+    List<DexClass> nonProgramClasses = new ArrayList<>();
+    Map<DexType, List<DexClass>> subtrees = new IdentityHashMap<>();
+    List<List<DexClass>> sortedSubtrees = new ArrayList<>();
     TopDownClassHierarchyTraversal.forAllClasses(appView)
         .excludeInterfaces()
         .visit(
             appView.appInfo().classes(),
             clazz -> {
-              assert !clazz.isInterface();
-
-              FieldNamingState parentState =
-                  clazz.superType == null
-                      ? new FieldNamingState(appView, strategy)
-                      : states
-                          .computeIfAbsent(
-                              clazz.superType, key -> new FieldNamingState(appView, strategy))
-                          .clone();
-
-              ReservedFieldNamingState reservedNames =
-                  getOrCreateReservedFieldNamingState(clazz.type);
-              FieldNamingState state = parentState.createChildState(reservedNames);
-              if (clazz.isProgramClass()) {
-                for (DexEncodedField field : clazz.fields()) {
-                  renameField(field, state);
-                }
+              List<DexClass> subtree =
+                  clazz.superType == null ? null : subtrees.get(clazz.superType);
+              if (subtree == null && clazz.isProgramClass()) {
+                subtree = new ArrayList<>();
+                sortedSubtrees.add(subtree);
+              }
+              if (subtree == null) {
+                nonProgramClasses.add(clazz);
+              } else {
+                subtree.add(clazz);
+                subtrees.put(clazz.type, subtree);
               }
-
-              assert !states.containsKey(clazz.type);
-              states.put(clazz.type, state);
             });
+    nonProgramClasses.forEach(renameFieldsInClass);
+    List<Future<?>> futures = new ArrayList<>(sortedSubtrees.size());
+    for (List<DexClass> subtree : sortedSubtrees) {
+      futures.add(executorService.submit(() -> subtree.forEach(renameFieldsInClass)));
+    }
+    ThreadUtils.awaitFutures(futures);
   }
 
   private void renameFieldsInInterfaces(Collection<DexClass> interfaces) {
@@ -15,6 +15,7 @@ import com.android.tools.r8.graph.DexString;
 import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.naming.MethodNameMinifier.FrontierState;
 import com.android.tools.r8.shaking.AppInfoWithLiveness;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Equivalence.Wrapper;
@@ -27,11 +28,17 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -144,7 +151,9 @@ public class InterfaceMethodNameMinifier {
     }
   }
 
-  void assignNamesToInterfaceMethods(Timing timing, Collection<DexClass> interfaces) {
+  void assignNamesToInterfaceMethods(
+      Timing timing, Collection<DexClass> interfaces, ExecutorService executorService)
+      throws ExecutionException {
     // Reserve all the names that are required for interfaces.
     reserveNamesInInterfaces(interfaces);
 
@@ -232,10 +241,10 @@ public class InterfaceMethodNameMinifier {
 
     timing.begin("propogate");
     // Propagate reserved names to all states.
-    List<Wrapper<DexMethod>> reservedInterfaceMethods =
+    Set<Wrapper<DexMethod>> reservedInterfaceMethods =
         interfaceMethods.stream()
             .filter(wrapper -> anyIsReserved(wrapper, unification))
-            .collect(Collectors.toList());
+            .collect(Collectors.toCollection(LinkedHashSet::new));
     for (Wrapper<DexMethod> key : reservedInterfaceMethods) {
       propagateReservedNames(key, unification);
     }
@@ -249,10 +258,28 @@ public class InterfaceMethodNameMinifier {
 
     timing.begin("assing interface");
     // Assign names to unreserved interface methods.
-    for (Wrapper<DexMethod> key : interfaceMethods) {
-      if (!reservedInterfaceMethods.contains(key)) {
+    List<Wrapper<DexMethod>> unreservedInterfaceMethods =
+        interfaceMethods.stream()
+            .filter(wrapper -> !reservedInterfaceMethods.contains(wrapper))
+            .collect(Collectors.toList());
+    if (executorService == null
+        || !appView.options().extensiveInterfaceMethodMinifierLoggingFilter.isEmpty()) {
+      for (Wrapper<DexMethod> key : unreservedInterfaceMethods) {
         assignNameToInterfaceMethod(key, unification);
       }
+    } else {
+      List<Future<?>> futures = new ArrayList<>();
+      for (List<Wrapper<DexMethod>> group :
+          computeIndependentGroups(unreservedInterfaceMethods, unification)) {
+        futures.add(
+            executorService.submit(
+                () -> {
+                  for (Wrapper<DexMethod> key : group) {
+                    assignNameToInterfaceMethod(key, unification);
+                  }
+                }));
+      }
+      ThreadUtils.awaitFutures(futures);
     }
     timing.end();
 
@@ -290,6 +317,88 @@ public class InterfaceMethodNameMinifier {
     return changed;
   }
 
+  /**
+   * Partitions the interface methods into groups such that assigning names to the methods of one
+   * group does not read any naming state that is written when assigning names to another group.
+   * The methods of a group are in the same order as in the given list, hence assigning names to
+   * the groups in parallel gives the same names as assigning names to the list in order.
+   */
+  private Collection<List<Wrapper<DexMethod>>> computeIndependentGroups(
+      List<Wrapper<DexMethod>> methods,
+      Map<Wrapper<DexMethod>, Set<Wrapper<DexMethod>>> unification) {
+    // Union-find over the indices of the methods, where methods are united if one of them writes a
+    // state (a naming state and key) that the other reads or writes.
+    int[] groups = new int[methods.size()];
+    Map<MethodNamingState<?>, Map<Object, Integer>> writers = new IdentityHashMap<>();
+    for (int i = 0; i < methods.size(); i++) {
+      groups[i] = i;
+      int index = i;
+      forEachWrittenState(
+          methods.get(i),
+          unification,
+          (state, key) -> {
+            Integer writer =
+                writers.computeIfAbsent(state, ignore -> new HashMap<>()).putIfAbsent(key, index);
+            if (writer != null) {
+              union(groups, index, writer);
+            }
+          });
+    }
+    for (int i = 0; i < methods.size(); i++) {
+      int index = i;
+      forEachWrittenState(
+          methods.get(i),
+          unification,
+          (state, key) -> {
+            // A name is only available if it is available in all parent states.
+            for (MethodNamingState<?> parent = state.getParent();
+                parent != null;
+                parent = parent.getParent()) {
+              Map<Object, Integer> writersOfParent = writers.get(parent);
+              Integer writer = writersOfParent != null ? writersOfParent.get(key) : null;
+              if (writer != null) {
+                union(groups, index, writer);
+              }
+            }
+          });
+    }
+    Map<Integer, List<Wrapper<DexMethod>>> result = new LinkedHashMap<>();
+    for (int i = 0; i < methods.size(); i++) {
+      result.computeIfAbsent(find(groups, i), ignore -> new ArrayList<>()).add(methods.get(i));
+    }
+    return result.values();
+  }
+
+  private void forEachWrittenState(
+      Wrapper<DexMethod> key,
+      Map<Wrapper<DexMethod>, Set<Wrapper<DexMethod>>> unification,
+      BiConsumer<MethodNamingState<?>, Object> consumer) {
+    for (Wrapper<DexMethod> k : unification.getOrDefault(key, Collections.singleton(key))) {
+      DexMethod unifiedMethod = k.get();
+      for (MethodNamingState<?> namingState : globalStateMap.get(k)) {
+        consumer.accept(namingState, namingState.getKey(unifiedMethod.proto));
+      }
+    }
+    MethodNamingState<?> originState = originStates.get(key);
+    consumer.accept(originState, originState.getKey(key.get().proto));
+  }
+
+  private static int find(int[] groups, int index) {
+    while (groups[index] != index) {
+      groups[index] = groups[groups[index]];
+      index = groups[index];
+    }
+    return index;
+  }
+
+  private static void union(int[] groups, int index, int other) {
+    int root = find(groups, index);
+    int otherRoot = find(groups, other);
+    if (root != otherRoot) {
+      groups[Math.max(root, otherRoot)] = Math.min(root, otherRoot);
+    }
+  }
+
   private void assignNameToInterfaceMethod(
       Wrapper<DexMethod> key, Map<Wrapper<DexMethod>, Set<Wrapper<DexMethod>>> unification) {
     List<InterfaceMethodNamingState> collectedStates = new ArrayList<>();
@@ -15,17 +15,24 @@ import com.android.tools.r8.shaking.AppInfoWithLiveness;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.MethodJavaSignatureEquivalence;
 import com.android.tools.r8.utils.MethodSignatureEquivalence;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Equivalence.Wrapper;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 /**
@@ -80,6 +87,11 @@ import java.util.function.Function;
  * private methods, as those may safely use names that are used by a public method further down in
  * the subtyping tree.
  *
+ * <p>When an executor is given, the interface methods of stage 3 are split into groups that do not
+ * touch each others naming states, and the subtype trees below the frontier are named
+ * independently in the final stage. As a subtree only reads the states of the library classes
+ * above it, the computed names are the same as when all names are assigned on a single thread.
+ *
  * <p>Finally, the computed renamings are returned as a map from {@link DexMethod} to {@link
  * DexString}. The MethodNameMinifier object should not be retained to ensure all intermediate state
  * is freed.
@@ -102,11 +114,15 @@ class MethodNameMinifier {
     }
 
     MethodNamingState<?> getState(DexType type) {
-      return states.get(type);
+      synchronized (states) {
+        return states.get(type);
+      }
     }
 
     DexType getStateKey(MethodNamingState<?> state) {
-      return states.inverse().get(state);
+      synchronized (states) {
+        return states.inverse().get(state);
+      }
     }
 
     boolean isReservedInGlobalState(DexString name, DexProto state) {
@@ -118,7 +134,7 @@ class MethodNameMinifier {
   private final Equivalence<DexMethod> equivalence;
   private final MemberNamingStrategy strategy;
 
-  private final Map<DexMethod, DexString> renaming = new IdentityHashMap<>();
+  private final Map<DexMethod, DexString> renaming = new ConcurrentHashMap<>();
   private final MethodNamingState<?> globalState;
 
   private final State minifierState = new State();
@@ -140,7 +156,9 @@ class MethodNameMinifier {
 
   private MethodNamingState<?> computeStateIfAbsent(
       DexType type, Function<DexType, MethodNamingState<?>> f) {
-    return states.computeIfAbsent(type, f);
+    synchronized (states) {
+      return states.computeIfAbsent(type, f);
+    }
   }
 
   private boolean alwaysReserveMemberNames(DexClass holder) {
@@ -176,6 +194,25 @@ class MethodNameMinifier {
 
   MethodRenaming computeRenaming(
       Collection<DexClass> interfaces, Set<DexCallSite> desugaredCallSites, Timing timing) {
+    try {
+      return computeRenaming(interfaces, desugaredCallSites, null, timing);
+    } catch (ExecutionException e) {
+      throw new AssertionError("Unexpected exception when naming sequentially", e);
+    }
+  }
+
+  /**
+   * Computes the renaming of all methods.
+   *
+   * @param executorService executor to assign names on, or null to assign all names on the calling
+   *     thread.
+   */
+  MethodRenaming computeRenaming(
+      Collection<DexClass> interfaces,
+      Set<DexCallSite> desugaredCallSites,
+      ExecutorService executorService,
+      Timing timing)
+      throws ExecutionException {
     // Phase 1: Reserve all the names that need to be kept and allocate linked state in the
     //          library part.
     timing.begin("Phase 1");
@@ -188,20 +225,49 @@ class MethodNameMinifier {
     InterfaceMethodNameMinifier interfaceMethodNameMinifier =
         new InterfaceMethodNameMinifier(
             appView, desugaredCallSites, equivalence, frontierState, minifierState);
-    interfaceMethodNameMinifier.assignNamesToInterfaceMethods(timing, interfaces);
+    interfaceMethodNameMinifier.assignNamesToInterfaceMethods(timing, interfaces, executorService);
     timing.end();
     // Phase 3: Assign names top-down by traversing the subtype hierarchy.
     timing.begin("Phase 3");
-    assignNamesToClassesMethods(appView.dexItemFactory().objectType, false);
+    assignNamesToClassesMethods(appView.dexItemFactory().objectType, false, executorService);
     timing.end();
     // Phase 4: Do the same for private methods.
     timing.begin("Phase 4");
-    assignNamesToClassesMethods(appView.dexItemFactory().objectType, true);
+    assignNamesToClassesMethods(appView.dexItemFactory().objectType, true, executorService);
     timing.end();
 
     return new MethodRenaming(renaming, interfaceMethodNameMinifier.getCallSiteRenamings());
   }
 
+  private void assignNamesToClassesMethods(
+      DexType type, boolean doPrivates, ExecutorService executorService)
+      throws ExecutionException {
+    if (executorService == null) {
+      assignNamesToClassesMethods(type, doPrivates);
+      return;
+    }
+    List<Future<?>> futures = new ArrayList<>();
+    submitAssignNamesToClassesMethods(type, doPrivates, executorService, futures);
+    ThreadUtils.awaitFutures(futures);
+  }
+
+  private void submitAssignNamesToClassesMethods(
+      DexType type,
+      boolean doPrivates,
+      ExecutorService executorService,
+      List<Future<?>> futures) {
+    DexClass holder = appView.definitionFor(type);
+    if (holder != null && !alwaysReserveMemberNames(holder)) {
+      // The names in this subtree only depend on the states of the classes above it, which are
+      // not changed when assigning names, so the subtree can be named independently.
+      futures.add(executorService.submit(() -> assignNamesToClassesMethods(type, doPrivates)));
+      return;
+    }
+    for (DexType subtype : appView.appInfo().allExtendsSubtypes(type)) {
+      submitAssignNamesToClassesMethods(subtype, doPrivates, executorService, futures);
+    }
+  }
+
   private void assignNamesToClassesMethods(DexType type, boolean doPrivates) {
     DexClass holder = appView.definitionFor(type);
     boolean shouldAssignName = holder != null && !alwaysReserveMemberNames(holder);
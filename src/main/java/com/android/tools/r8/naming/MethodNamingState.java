@@ -17,18 +17,20 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import java.io.PrintStream;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 class MethodNamingState<KeyType> {
 
   private final AppView<? extends AppInfo> appView;
   private final MethodNamingState<KeyType> parent;
-  private final Map<KeyType, InternalState> usedNames = new HashMap<>();
+  // Concurrent as the internal states of a parent are created lazily when naming states of
+  // independent subtrees are computed in parallel.
+  private final Map<KeyType, InternalState> usedNames = new ConcurrentHashMap<>();
   private final Function<DexProto, KeyType> keyTransform;
   private final MemberNamingStrategy strategy;
 
@@ -54,6 +56,14 @@ class MethodNamingState<KeyType> {
     return new MethodNamingState<>(this, appView, keyTransform, strategy);
   }
 
+  MethodNamingState<KeyType> getParent() {
+    return parent;
+  }
+
+  KeyType getKey(DexProto proto) {
+    return keyTransform.apply(proto);
+  }
+
   private InternalState findInternalStateFor(KeyType key) {
     InternalState result = usedNames.get(key);
     if (result == null && parent != null) {
@@ -67,8 +77,7 @@ class MethodNamingState<KeyType> {
     InternalState result = usedNames.get(key);
     if (result == null) {
       InternalState parentState = parent != null ? parent.getOrCreateInternalStateFor(key) : null;
-      result = new InternalState(appView, parentState);
-      usedNames.put(key, result);
+      result = usedNames.computeIfAbsent(key, ignore -> new InternalState(appView, parentState));
     }
     return result;
   }
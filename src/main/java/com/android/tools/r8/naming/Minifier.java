@@ -25,6 +25,8 @@ import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 public class Minifier {
 
@@ -36,7 +38,8 @@ public class Minifier {
     this.desugaredCallSites = desugaredCallSites;
   }
 
-  public NamingLens run(Timing timing) {
+  public NamingLens run(ExecutorService executorService, Timing timing)
+      throws ExecutionException {
     assert appView.options().isMinifying();
     timing.begin("ComputeInterfaces");
     Set<DexClass> interfaces = new TreeSet<>((a, b) -> a.type.slowCompareTo(b.type));
@@ -63,7 +66,7 @@ public class Minifier {
     timing.begin("MinifyMethods");
     MethodRenaming methodRenaming =
         new MethodNameMinifier(appView, minifyMembers)
-            .computeRenaming(interfaces, desugaredCallSites, timing);
+            .computeRenaming(interfaces, desugaredCallSites, executorService, timing);
     timing.end();
 
     assert new MinifiedRenaming(appView, classRenaming, methodRenaming, FieldRenaming.empty())
@@ -71,7 +74,8 @@ public class Minifier {
 
     timing.begin("MinifyFields");
     FieldRenaming fieldRenaming =
-        new FieldNameMinifier(appView, minifyMembers).computeRenaming(interfaces, timing);
+        new FieldNameMinifier(appView, minifyMembers)
+            .computeRenaming(interfaces, executorService, timing);
     timing.end();
 
     NamingLens lens = new MinifiedRenaming(appView, classRenaming, methodRenaming, fieldRenaming);
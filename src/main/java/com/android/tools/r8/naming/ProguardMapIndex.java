@@ -0,0 +1,177 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.naming;
+
+import com.android.tools.r8.utils.StripedLRUCache;
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Index of the class mappings in a Proguard map file.
+ *
+ * <p>The index is built by a single scan over the memory-mapped file, which records the original
+ * name of each class and where its mapping is in the file. The member mappings of a class are only
+ * parsed when its class naming is looked up, and the most recently used class namings are cached.
+ */
+class ProguardMapIndex {
+
+  private static final int CACHE_STRIPES = 16;
+  private static final int CACHE_CAPACITY_PER_STRIPE = 64;
+
+  private static class Entry {
+    final String originalName;
+    // Offsets of the first byte of the class mapping and of the byte following its last member.
+    final int start;
+    int end;
+    final int lineNo;
+
+    Entry(String originalName, int start, int lineNo) {
+      this.originalName = originalName;
+      this.start = start;
+      this.lineNo = lineNo;
+    }
+  }
+
+  private final ByteBuffer contents;
+  private final ImmutableMap<String, Entry> entries;
+  private final StripedLRUCache<String, ClassNamingForNameMapper> cache =
+      new StripedLRUCache<>(CACHE_STRIPES, CACHE_CAPACITY_PER_STRIPE);
+
+  private ProguardMapIndex(ByteBuffer contents, ImmutableMap<String, Entry> entries) {
+    this.contents = contents;
+    this.entries = entries;
+  }
+
+  /** Returns true if a file of the given size can be indexed. */
+  static boolean canIndex(long size) {
+    return size <= Integer.MAX_VALUE;
+  }
+
+  static ProguardMapIndex create(Path path) throws IOException {
+    ByteBuffer contents;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    return new ProguardMapIndex(contents, scan(contents));
+  }
+
+  private static ImmutableMap<String, Entry> scan(ByteBuffer contents) {
+    ImmutableMap.Builder<String, Entry> builder = ImmutableMap.builder();
+    ProguardMapReader headerReader = new ProguardMapReader(null);
+    Entry current = null;
+    int size = contents.limit();
+    int lineNo = 0;
+    int lineStart = 0;
+    while (lineStart < size) {
+      lineNo++;
+      int lineEnd = lineStart;
+      while (lineEnd < size && contents.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      int next = lineEnd < size ? lineEnd + 1 : lineEnd;
+      if (isClassMappingLine(contents, lineStart, lineEnd)) {
+        String line = decode(contents, lineStart, lineEnd);
+        if (line.endsWith("\r")) {
+          line = line.substring(0, line.length() - 1);
+        }
+        if (!Character.isWhitespace(line.codePointAt(0))) {
+          if (current != null) {
+            current.end = lineStart;
+            current = null;
+          }
+          String[] names = headerReader.parseClassMapping(line, lineNo);
+          if (names != null) {
+            current = new Entry(names[0], lineStart, lineNo);
+            builder.put(names[1], current);
+          }
+        }
+      }
+      lineStart = next;
+    }
+    if (current != null) {
+      current.end = size;
+    }
+    return builder.build();
+  }
+
+  // Member mappings are indented, so a line that does not start with white space or a comment is
+  // the mapping of a class. Lines that start with a non-ASCII character are decoded and checked
+  // by the caller.
+  private static boolean isClassMappingLine(ByteBuffer contents, int start, int end) {
+    if (start == end) {
+      return false;
+    }
+    byte first = contents.get(start);
+    if (first < 0) {
+      return true;
+    }
+    return first != '#' && !Character.isWhitespace(first);
+  }
+
+  private static String decode(ByteBuffer contents, int start, int end) {
+    ByteBuffer slice = contents.duplicate();
+    ((Buffer) slice).position(start);
+    byte[] bytes = new byte[end - start];
+    slice.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  boolean hasMapping(String obfuscatedName) {
+    return entries.containsKey(obfuscatedName);
+  }
+
+  String getOriginalName(String obfuscatedName) {
+    Entry entry = entries.get(obfuscatedName);
+    return entry == null ? null : entry.originalName;
+  }
+
+  /** Calls consumer with the obfuscated and original name of each class, in file order. */
+  void forEachClass(BiConsumer<String, String> consumer) {
+    entries.forEach((obfuscatedName, entry) -> consumer.accept(obfuscatedName, entry.originalName));
+  }
+
+  ClassNamingForNameMapper getClassNaming(String obfuscatedName) {
+    Entry entry = entries.get(obfuscatedName);
+    if (entry == null) {
+      return null;
+    }
+    ClassNamingForNameMapper classNaming = cache.get(obfuscatedName);
+    if (classNaming == null) {
+      classNaming = parse(obfuscatedName, entry);
+      cache.put(obfuscatedName, classNaming);
+    }
+    return classNaming;
+  }
+
+  /** Parses all class mappings, bypassing the cache. */
+  ImmutableMap<String, ClassNamingForNameMapper> parseAll() {
+    ImmutableMap.Builder<String, ClassNamingForNameMapper> builder = ImmutableMap.builder();
+    entries.forEach(
+        (obfuscatedName, entry) -> builder.put(obfuscatedName, parse(obfuscatedName, entry)));
+    return builder.build();
+  }
+
+  private ClassNamingForNameMapper parse(String obfuscatedName, Entry entry) {
+    String mapping = decode(contents, entry.start, entry.end);
+    try (ProguardMapReader reader =
+        new ProguardMapReader(new BufferedReader(new StringReader(mapping)), entry.lineNo)) {
+      ClassNameMapper.Builder builder = ClassNameMapper.builder();
+      reader.parse(builder);
+      return builder.build().getClassNaming(obfuscatedName);
+    } catch (IOException e) {
+      // Reading from a string does not throw.
+      throw new UncheckedIOException(e);
+    }
+  }
+}
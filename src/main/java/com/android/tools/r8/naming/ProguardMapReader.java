@@ -63,11 +63,17 @@ public class ProguardMapReader implements AutoCloseable {
   }
 
   ProguardMapReader(BufferedReader reader) {
+    this(reader, 1);
+  }
+
+  /** Create a reader for a part of a file that starts at line number firstLineNo. */
+  ProguardMapReader(BufferedReader reader, int firstLineNo) {
     this.reader = reader;
+    this.lineNo = firstLineNo - 1;
   }
 
   // Internal parser state
-  private int lineNo = 0;
+  private int lineNo;
   private int lineOffset = 0;
   private String line;
 
@@ -168,33 +174,58 @@ public class ProguardMapReader implements AutoCloseable {
 
   private void parseClassMappings(ProguardMap.Builder mapBuilder) throws IOException {
     while (hasLine()) {
-      String before = parseType(false);
-      skipWhitespace();
-      // Workaround for proguard map files that contain entries for package-info.java files.
-      assert IdentifierUtils.isDexIdentifierPart('-');
-      if (before.endsWith("package-info")) {
+      String[] names = parseClassNames();
+      if (names == null) {
         skipLine();
         continue;
       }
-      if (before.endsWith("-") && acceptString(">")) {
-        // With - as a legal identifier part the grammar is ambiguous, and we treat a->b as a -> b,
-        // and not as a- > b (which would be a parse error).
-        before = before.substring(0, before.length() - 1);
-      } else {
-        skipWhitespace();
-        acceptArrow();
-      }
-      skipWhitespace();
-      String after = parseType(false);
-      expect(':');
       ClassNaming.Builder currentClassBuilder =
-          mapBuilder.classNamingBuilder(after, before, getPosition());
+          mapBuilder.classNamingBuilder(names[1], names[0], getPosition());
       if (nextLine()) {
         parseMemberMappings(currentClassBuilder);
       }
     }
   }
 
+  /**
+   * Parses the class mapping on the given line, which is line number lineNo of the file.
+   *
+   * <p>Returns the original and the obfuscated name of the class, or null if the line is an entry
+   * for a package-info file.
+   */
+  String[] parseClassMapping(String line, int lineNo) {
+    this.line = line;
+    this.lineNo = lineNo;
+    this.lineOffset = 0;
+    String[] names = parseClassNames();
+    if (names != null && hasNext()) {
+      throw new ParseException("Expected end of line");
+    }
+    return names;
+  }
+
+  private String[] parseClassNames() {
+    String before = parseType(false);
+    skipWhitespace();
+    // Workaround for proguard map files that contain entries for package-info.java files.
+    assert IdentifierUtils.isDexIdentifierPart('-');
+    if (before.endsWith("package-info")) {
+      return null;
+    }
+    if (before.endsWith("-") && acceptString(">")) {
+      // With - as a legal identifier part the grammar is ambiguous, and we treat a->b as a -> b,
+      // and not as a- > b (which would be a parse error).
+      before = before.substring(0, before.length() - 1);
+    } else {
+      skipWhitespace();
+      acceptArrow();
+    }
+    skipWhitespace();
+    String after = parseType(false);
+    expect(':');
+    return new String[] {before, after};
+  }
+
   private void parseMemberMappings(ClassNaming.Builder classNamingBuilder) throws IOException {
     MemberNaming activeMemberNaming = null;
     Range previousObfuscatedRange = null;
@@ -0,0 +1,144 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.retrace;
+
+import com.android.tools.r8.Keep;
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.utils.ThreadUtils;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Deobfuscates stack traces using a Proguard map.
+ *
+ * <p>The input is read in chunks of lines which are deobfuscated in parallel, and the results are
+ * written in input order. At most a fixed number of chunks per thread are in flight, so the memory
+ * use does not depend on the size of the input.
+ */
+@Keep
+public class Retrace {
+
+  private static final String USAGE_MESSAGE =
+      "Usage: retrace [--threads <number>] <proguard-map> [<stack-trace-file>]\n"
+          + "  Deobfuscates the stack traces in <stack-trace-file>, or standard input if no file\n"
+          + "  is given, and writes the result to standard output.";
+
+  private static final int LINES_PER_CHUNK = 4096;
+  private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+  /**
+   * Deobfuscates all lines of input and writes them to output.
+   *
+   * @param threads number of chunks of lines that are deobfuscated concurrently on executor
+   */
+  public static void run(
+      RetraceMapping mapping,
+      BufferedReader input,
+      Writer output,
+      ExecutorService executor,
+      int threads)
+      throws IOException, ExecutionException {
+    int maxChunksInFlight = Math.max(1, threads) * CHUNKS_IN_FLIGHT_PER_THREAD;
+    Deque<Future<String>> chunks = new ArrayDeque<>(maxChunksInFlight);
+    try {
+      List<String> lines = new ArrayList<>(LINES_PER_CHUNK);
+      String line;
+      while ((line = input.readLine()) != null) {
+        lines.add(line);
+        if (lines.size() == LINES_PER_CHUNK) {
+          if (chunks.size() == maxChunksInFlight) {
+            output.write(getChunk(chunks.removeFirst()));
+          }
+          chunks.addLast(submit(mapping, lines, executor));
+          lines = new ArrayList<>(LINES_PER_CHUNK);
+        }
+      }
+      if (!lines.isEmpty()) {
+        chunks.addLast(submit(mapping, lines, executor));
+      }
+      while (!chunks.isEmpty()) {
+        output.write(getChunk(chunks.removeFirst()));
+      }
+    } finally {
+      // Wait for the remaining chunks if writing or a chunk failed.
+      ThreadUtils.awaitFutures(chunks);
+    }
+    output.flush();
+  }
+
+  private static Future<String> submit(
+      RetraceMapping mapping, List<String> lines, ExecutorService executor) {
+    return executor.submit(
+        () -> {
+          StringBuilder builder = new StringBuilder(lines.size() * 64);
+          for (String line : lines) {
+            mapping.retraceLine(line, builder);
+          }
+          return builder.toString();
+        });
+  }
+
+  private static String getChunk(Future<String> chunk) throws ExecutionException {
+    try {
+      return chunk.get();
+    } catch (InterruptedException e) {
+      throw new RuntimeException("Interrupted while waiting for future.", e);
+    }
+  }
+
+  public static void main(String[] args) throws IOException, ExecutionException {
+    int threads = ThreadUtils.NOT_SPECIFIED;
+    int argIndex = 0;
+    if (args.length > 1 && args[0].equals("--threads")) {
+      try {
+        threads = Integer.parseInt(args[1]);
+      } catch (NumberFormatException e) {
+        threads = 0;
+      }
+      if (threads <= 0) {
+        System.err.println("Invalid number of threads: " + args[1]);
+        System.exit(1);
+      }
+      argIndex = 2;
+    }
+    if (args.length - argIndex < 1 || args.length - argIndex > 2) {
+      System.err.println(USAGE_MESSAGE);
+      System.exit(1);
+    }
+    RetraceMapping mapping =
+        RetraceMapping.create(ClassNameMapper.mapperFromFile(Paths.get(args[argIndex])));
+    ExecutorService executor = ThreadUtils.getExecutorService(threads);
+    try (BufferedReader input =
+            args.length - argIndex == 2
+                ? Files.newBufferedReader(Paths.get(args[argIndex + 1]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer output =
+            new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+      run(
+          mapping,
+          input,
+          output,
+          executor,
+          threads == ThreadUtils.NOT_SPECIFIED
+              ? Runtime.getRuntime().availableProcessors()
+              : threads);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,407 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.retrace;
+
+import com.android.tools.r8.Keep;
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.naming.ClassNamingForNameMapper;
+import com.android.tools.r8.naming.ClassNamingForNameMapper.MappedRange;
+import com.android.tools.r8.naming.ClassNamingForNameMapper.MappedRangesOfName;
+import com.android.tools.r8.naming.Range;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-optimized form of a Proguard map for deobfuscating stack traces.
+ *
+ * <p>For each obfuscated method name the line ranges of the map are stored as sorted arrays, so
+ * the frames of a stack trace line, including frames of inlined methods, are found by binary
+ * search. A RetraceMapping is immutable and can be used by several threads.
+ */
+@Keep
+public class RetraceMapping {
+
+  private static final String SOURCE_FILE = "SourceFile";
+  private static final String AT = "at ";
+  private static final String CAUSED_BY = "Caused by: ";
+  private static final String SUPPRESSED = "Suppressed: ";
+  private static final String EXCEPTION_IN_THREAD = "Exception in thread \"";
+
+  /** Original method of a frame and how to compute its line number. */
+  private static class Frame {
+    final String className;
+    final String methodName;
+    final String fileName;
+    // If fixedLine is non-negative the frame is an inlining caller at that line, otherwise the
+    // original line is the obfuscated line plus lineOffset.
+    final int fixedLine;
+    final int lineOffset;
+
+    Frame(String className, String methodName, int fixedLine, int lineOffset) {
+      this.className = className;
+      this.methodName = methodName;
+      this.fileName = fileNameOf(className);
+      this.fixedLine = fixedLine;
+      this.lineOffset = lineOffset;
+    }
+
+    int originalLine(int line) {
+      return fixedLine >= 0 ? fixedLine : line + lineOffset;
+    }
+
+    boolean isSameMethod(Frame other) {
+      return className.equals(other.className) && methodName.equals(other.methodName);
+    }
+  }
+
+  /** Frames of all methods with the same obfuscated name in a class. */
+  private static class MethodFrames {
+    // Minified line ranges and the frames for each range, innermost frame first. The ranges are
+    // sorted by their start, unless ranges overlap in which case they are kept in file order.
+    final int[] starts;
+    final int[] ends;
+    final Frame[][] framesForRange;
+    final boolean sorted;
+    // Frames for a line not in any range, or null.
+    final Frame[] framesWithoutRange;
+    // Distinct outermost frames, used when the stack trace line has no line number.
+    final Frame[] candidates;
+
+    MethodFrames(
+        int[] starts,
+        int[] ends,
+        Frame[][] framesForRange,
+        boolean sorted,
+        Frame[] framesWithoutRange,
+        Frame[] candidates) {
+      this.starts = starts;
+      this.ends = ends;
+      this.framesForRange = framesForRange;
+      this.sorted = sorted;
+      this.framesWithoutRange = framesWithoutRange;
+      this.candidates = candidates;
+    }
+
+    Frame[] framesForLine(int line) {
+      int index = sorted ? binarySearch(line) : linearSearch(line);
+      return index >= 0 ? framesForRange[index] : framesWithoutRange;
+    }
+
+    private int binarySearch(int line) {
+      // Find the last range starting at or before line.
+      int low = 0;
+      int high = starts.length - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (starts[mid] <= line) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return high >= 0 && line <= ends[high] ? high : -1;
+    }
+
+    private int linearSearch(int line) {
+      for (int i = 0; i < starts.length; i++) {
+        if (starts[i] <= line && line <= ends[i]) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  private static class ClassFrames {
+    final String originalName;
+    final Map<String, MethodFrames> methods;
+
+    ClassFrames(String originalName, Map<String, MethodFrames> methods) {
+      this.originalName = originalName;
+      this.methods = methods;
+    }
+  }
+
+  private final Map<String, ClassFrames> classes;
+
+  private RetraceMapping(Map<String, ClassFrames> classes) {
+    this.classes = classes;
+  }
+
+  public static RetraceMapping create(ClassNameMapper mapper) {
+    Set<String> obfuscatedNames = mapper.getObfuscatedToOriginalMapping().original.keySet();
+    Map<String, ClassFrames> classes = new HashMap<>(obfuscatedNames.size() * 2);
+    for (String obfuscatedName : obfuscatedNames) {
+      ClassNamingForNameMapper naming = mapper.getClassNaming(obfuscatedName);
+      Map<String, MethodFrames> methods = new HashMap<>(naming.mappedRangesByRenamedName.size());
+      naming.mappedRangesByRenamedName.forEach(
+          (renamedName, ranges) ->
+              methods.put(renamedName, createMethodFrames(naming.originalName, ranges)));
+      classes.put(obfuscatedName, new ClassFrames(naming.originalName, methods));
+    }
+    return new RetraceMapping(classes);
+  }
+
+  private static MethodFrames createMethodFrames(String className, MappedRangesOfName ranges) {
+    List<MappedRange> mappedRanges = ranges.getMappedRanges();
+    List<Range> groupRanges = new ArrayList<>();
+    List<Frame[]> groupFrames = new ArrayList<>();
+    Frame[] framesWithoutRange = null;
+    List<Frame> candidates = new ArrayList<>();
+    // Consecutive mapped ranges with the same minified range are the frames of a method and the
+    // methods inlined into it, innermost first.
+    int i = 0;
+    while (i < mappedRanges.size()) {
+      Range minifiedRange = mappedRanges.get(i).minifiedRange;
+      int j = i + 1;
+      if (minifiedRange != null) {
+        while (j < mappedRanges.size()
+            && minifiedRange.equals(mappedRanges.get(j).minifiedRange)) {
+          j++;
+        }
+      }
+      Frame[] frames = new Frame[j - i];
+      for (int k = i; k < j; k++) {
+        frames[k - i] = createFrame(className, mappedRanges.get(k));
+      }
+      if (minifiedRange != null) {
+        groupRanges.add(minifiedRange);
+        groupFrames.add(frames);
+      } else if (framesWithoutRange == null) {
+        framesWithoutRange = frames;
+      }
+      addCandidate(candidates, frames[frames.length - 1]);
+      i = j;
+    }
+
+    int size = groupRanges.size();
+    Integer[] order = new Integer[size];
+    for (int k = 0; k < size; k++) {
+      order[k] = k;
+    }
+    Arrays.sort(order, Comparator.comparingInt(index -> groupRanges.get(index).from));
+    boolean sorted = true;
+    for (int k = 1; k < size && sorted; k++) {
+      sorted = groupRanges.get(order[k - 1]).to < groupRanges.get(order[k]).from;
+    }
+    int[] starts = new int[size];
+    int[] ends = new int[size];
+    Frame[][] framesForRange = new Frame[size][];
+    for (int k = 0; k < size; k++) {
+      // With overlapping ranges the first range in the file that contains a line is used, so the
+      // ranges must be searched in file order.
+      int index = sorted ? order[k] : k;
+      starts[k] = groupRanges.get(index).from;
+      ends[k] = groupRanges.get(index).to;
+      framesForRange[k] = groupFrames.get(index);
+    }
+    return new MethodFrames(
+        starts,
+        ends,
+        framesForRange,
+        sorted,
+        framesWithoutRange,
+        candidates.toArray(new Frame[0]));
+  }
+
+  private static void addCandidate(List<Frame> candidates, Frame frame) {
+    for (Frame candidate : candidates) {
+      if (candidate.isSameMethod(frame)) {
+        return;
+      }
+    }
+    candidates.add(frame);
+  }
+
+  private static Frame createFrame(String className, MappedRange range) {
+    String name = range.signature.name;
+    int lastDot = name.lastIndexOf('.');
+    if (lastDot >= 0) {
+      // The method was inlined from another class.
+      className = name.substring(0, lastDot);
+      name = name.substring(lastDot + 1);
+    }
+    if (range.minifiedRange == null || range.originalRange == null) {
+      return new Frame(className, name, -1, 0);
+    }
+    if (range.originalRange instanceof Integer) {
+      return new Frame(className, name, (int) range.originalRange, 0);
+    }
+    Range originalRange = (Range) range.originalRange;
+    return new Frame(className, name, -1, originalRange.from - range.minifiedRange.from);
+  }
+
+  private static String fileNameOf(String className) {
+    int start = className.lastIndexOf('.') + 1;
+    int end = className.indexOf('$', start);
+    return className.substring(start, end < 0 ? className.length() : end) + ".java";
+  }
+
+  /** Returns the original name of a class, or the given name if the class is not in the map. */
+  public String originalClassName(String obfuscatedName) {
+    ClassFrames classFrames = classes.get(obfuscatedName);
+    return classFrames == null ? obfuscatedName : classFrames.originalName;
+  }
+
+  /**
+   * Deobfuscates a line of a stack trace and appends the result to the builder, terminated by a
+   * new line.
+   *
+   * <p>A frame is replaced by the frames of the original method and the methods inlined into it.
+   * If the line has no line number and the obfuscated method name is ambiguous, a frame is written
+   * for each candidate. The exception class name in the first line of a trace and in "Caused by"
+   * lines is deobfuscated. Other lines are copied unchanged.
+   */
+  public void retraceLine(String line, StringBuilder builder) {
+    if (!retraceFrame(line, builder) && !retraceExceptionLine(line, builder)) {
+      builder.append(line);
+    }
+    builder.append('\n');
+  }
+
+  // Frame lines have the form "<whitespace>at <class>.<method>(<file>[:<line>])".
+  private boolean retraceFrame(String line, StringBuilder builder) {
+    int indentEnd = skipWhitespace(line, 0);
+    if (!line.startsWith(AT, indentEnd)) {
+      return false;
+    }
+    int nameStart = indentEnd + AT.length();
+    int open = line.indexOf('(', nameStart);
+    if (open < 0 || line.charAt(line.length() - 1) != ')') {
+      return false;
+    }
+    int methodStart = line.lastIndexOf('.', open) + 1;
+    if (methodStart <= nameStart) {
+      return false;
+    }
+    ClassFrames classFrames = classes.get(line.substring(nameStart, methodStart - 1));
+    if (classFrames == null) {
+      return false;
+    }
+    int close = line.length() - 1;
+    int colon = line.lastIndexOf(':', close);
+    int lineNumber = colon > open ? parseLineNumber(line, colon + 1, close) : -1;
+    int fileEnd = lineNumber >= 0 ? colon : close;
+    String fileName =
+        keepFileName(line, open + 1, fileEnd) ? line.substring(open + 1, fileEnd) : null;
+    MethodFrames methodFrames = classFrames.methods.get(line.substring(methodStart, open));
+    Frame[] frames;
+    if (methodFrames == null) {
+      frames = null;
+    } else if (lineNumber < 0) {
+      frames = methodFrames.candidates;
+    } else {
+      frames = methodFrames.framesForLine(lineNumber);
+    }
+    String prefix = line.substring(0, indentEnd);
+    if (frames == null) {
+      // Only the class is renamed.
+      String className = classFrames.originalName;
+      appendFrame(
+          prefix,
+          className,
+          line.substring(methodStart, open),
+          fileName != null ? fileName : fileNameOf(className),
+          lineNumber,
+          builder);
+      return true;
+    }
+    for (int i = 0; i < frames.length; i++) {
+      if (i > 0) {
+        builder.append('\n');
+      }
+      Frame frame = frames[i];
+      // The file name of the input is kept unless it is the renamed source file attribute, or the
+      // method was inlined from another class.
+      appendFrame(
+          prefix,
+          frame.className,
+          frame.methodName,
+          fileName != null && frame.className.equals(classFrames.originalName)
+              ? fileName
+              : frame.fileName,
+          lineNumber < 0 ? -1 : frame.originalLine(lineNumber),
+          builder);
+    }
+    return true;
+  }
+
+  private static void appendFrame(
+      String prefix,
+      String className,
+      String methodName,
+      String fileName,
+      int lineNumber,
+      StringBuilder builder) {
+    builder.append(prefix).append(AT).append(className).append('.').append(methodName);
+    builder.append('(').append(fileName);
+    if (lineNumber >= 0) {
+      builder.append(':').append(lineNumber);
+    }
+    builder.append(')');
+  }
+
+  private static boolean keepFileName(String line, int start, int end) {
+    return end - start != SOURCE_FILE.length() || !line.startsWith(SOURCE_FILE, start);
+  }
+
+  private static int parseLineNumber(String line, int start, int end) {
+    if (start == end || end - start > 9) {
+      return -1;
+    }
+    int result = 0;
+    for (int i = start; i < end; i++) {
+      char c = line.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  // Exception lines have the form "[Caused by: |Suppressed: ]<class>[: <message>]", where the
+  // first line of a trace may be prefixed by 'Exception in thread "<name>" '.
+  private boolean retraceExceptionLine(String line, StringBuilder builder) {
+    int start = skipWhitespace(line, 0);
+    if (line.startsWith(CAUSED_BY, start)) {
+      start += CAUSED_BY.length();
+    } else if (line.startsWith(SUPPRESSED, start)) {
+      start += SUPPRESSED.length();
+    } else if (line.startsWith(EXCEPTION_IN_THREAD, start)) {
+      int endOfThreadName = line.indexOf("\" ", start + EXCEPTION_IN_THREAD.length());
+      if (endOfThreadName < 0) {
+        return false;
+      }
+      start = endOfThreadName + 2;
+    }
+    int end = line.indexOf(':', start);
+    if (end < 0) {
+      end = line.length();
+    }
+    int space = line.indexOf(' ', start);
+    if (end == start || (space >= 0 && space < end)) {
+      return false;
+    }
+    ClassFrames classFrames = classes.get(line.substring(start, end));
+    if (classFrames == null) {
+      return false;
+    }
+    builder.append(line, 0, start).append(classFrames.originalName);
+    builder.append(line, end, line.length());
+    return true;
+  }
+
+  private static int skipWhitespace(String line, int index) {
+    while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,217 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import com.android.tools.r8.graph.AppInfo;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexAnnotation;
+import com.android.tools.r8.graph.DexApplication;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.DirectMappedDexApplication;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the program and library classes of an application, used for finding the classes that a
+ * class specification can match without matching it against all classes.
+ *
+ * <p>Classes are looked up by a prefix of their name, by their annotations, and by their super
+ * types. The parts of the index are built on first use. The index does not change once built, so
+ * it is shared by the evaluations of -if rules in all rounds of tracing.
+ */
+class ClassIndex {
+
+  private final AppView<? extends AppInfo> appView;
+  private final DirectMappedDexApplication application;
+
+  // The program classes followed by the library classes, in the order of the application.
+  private final List<DexClass> classes;
+  private final int programClassCount;
+
+  // The indices into classes sorted by the source name of the class.
+  private int[] indicesByName;
+  private String[] sortedNames;
+  private Map<DexType, IntList> indicesByAnnotation;
+  private Map<DexType, IntList> indicesByType;
+  private Map<DexType, List<DexType>> directSubtypes;
+
+  ClassIndex(AppView<? extends AppInfo> appView, DirectMappedDexApplication application) {
+    this.appView = appView;
+    this.application = application;
+    classes = new ArrayList<>(application.classes());
+    programClassCount = classes.size();
+    classes.addAll(application.libraryClasses());
+  }
+
+  boolean isIndexOf(DexApplication application) {
+    return this.application == application;
+  }
+
+  /**
+   * Returns the classes the class specification of the given rule may match, in the order of the
+   * application, or null if the rule must be matched against all classes.
+   */
+  List<DexClass> getCandidates(ProguardConfigurationRule rule) {
+    IntList candidates = null;
+    ProguardTypeMatcher annotation = rule.getClassAnnotation();
+    if (annotation != null && annotation.matchesSpecificType()) {
+      candidates = getAnnotatedWith(annotation.getSpecificType());
+    }
+    if (rule.hasInheritanceClassName() && rule.getInheritanceClassName().matchesSpecificType()) {
+      // Classes that do not match the class names are still checked against the inheritance rule,
+      // to warn about rules using extends for implements and vice versa.
+      if (appView.verticallyMergedClasses() == null) {
+        candidates =
+            smallest(candidates, getSubtypes(rule.getInheritanceClassName().getSpecificType()));
+      }
+    } else {
+      candidates = smallest(candidates, getNamesStartingWith(rule.getClassNames()));
+    }
+    if (candidates == null) {
+      return null;
+    }
+    List<DexClass> result = new ArrayList<>(candidates.size());
+    for (int index : candidates) {
+      if (index < programClassCount || rule.applyToNonProgramClasses()) {
+        result.add(classes.get(index));
+      }
+    }
+    return result;
+  }
+
+  private static IntList smallest(IntList candidates, IntList other) {
+    if (candidates == null) {
+      return other;
+    }
+    return other == null || candidates.size() <= other.size() ? candidates : other;
+  }
+
+  private IntList getNamesStartingWith(ProguardClassNameList classNames) {
+    List<String> prefixes = classNames.getSourceNamePrefixes();
+    if (prefixes.contains("")) {
+      return null;
+    }
+    ensureNameIndex();
+    IntList result = new IntArrayList();
+    for (String prefix : prefixes) {
+      int position = lowerBound(prefix);
+      while (position < sortedNames.length && sortedNames[position].startsWith(prefix)) {
+        result.add(indicesByName[position++]);
+      }
+    }
+    return sortedUnique(result);
+  }
+
+  private int lowerBound(String name) {
+    int low = 0;
+    int high = sortedNames.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sortedNames[middle].compareTo(name) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void ensureNameIndex() {
+    if (sortedNames != null) {
+      return;
+    }
+    String[] names = new String[classes.size()];
+    Integer[] order = new Integer[classes.size()];
+    for (int i = 0; i < classes.size(); i++) {
+      names[i] = classes.get(i).type.toSourceString();
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing(index -> names[index]));
+    indicesByName = new int[order.length];
+    sortedNames = new String[order.length];
+    for (int i = 0; i < order.length; i++) {
+      indicesByName[i] = order[i];
+      sortedNames[i] = names[order[i]];
+    }
+  }
+
+  private IntList getAnnotatedWith(DexType annotationType) {
+    if (indicesByAnnotation == null) {
+      indicesByAnnotation = new IdentityHashMap<>();
+      for (int i = 0; i < classes.size(); i++) {
+        for (DexAnnotation annotation : classes.get(i).annotations.annotations) {
+          IntList indices =
+              indicesByAnnotation.computeIfAbsent(
+                  annotation.annotation.type, ignore -> new IntArrayList());
+          if (indices.isEmpty() || indices.getInt(indices.size() - 1) != i) {
+            indices.add(i);
+          }
+        }
+      }
+    }
+    return indicesByAnnotation.getOrDefault(annotationType, IntLists.EMPTY_LIST);
+  }
+
+  private IntList getSubtypes(DexType type) {
+    if (directSubtypes == null) {
+      directSubtypes = new IdentityHashMap<>();
+      indicesByType = new IdentityHashMap<>();
+      // Super type chains may pass through classpath classes.
+      for (DexClass clazz : application.allClasses()) {
+        if (clazz.superType != null) {
+          addDirectSubtype(clazz.superType, clazz.type);
+        }
+        for (DexType iface : clazz.interfaces.values) {
+          addDirectSubtype(iface, clazz.type);
+        }
+      }
+      for (int i = 0; i < classes.size(); i++) {
+        indicesByType.computeIfAbsent(classes.get(i).type, ignore -> new IntArrayList()).add(i);
+      }
+    }
+    IntList result = new IntArrayList();
+    Set<DexType> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<DexType> worklist = new ArrayDeque<>();
+    worklist.add(type);
+    while (!worklist.isEmpty()) {
+      List<DexType> subtypes =
+          directSubtypes.getOrDefault(worklist.removeFirst(), Collections.emptyList());
+      for (DexType subtype : subtypes) {
+        if (visited.add(subtype)) {
+          result.addAll(indicesByType.getOrDefault(subtype, IntLists.EMPTY_LIST));
+          worklist.addLast(subtype);
+        }
+      }
+    }
+    return sortedUnique(result);
+  }
+
+  private void addDirectSubtype(DexType type, DexType subtype) {
+    directSubtypes.computeIfAbsent(type, ignore -> new ArrayList<>()).add(subtype);
+  }
+
+  private static IntList sortedUnique(IntList indices) {
+    int[] elements = indices.toIntArray();
+    Arrays.sort(elements);
+    IntList result = new IntArrayList(elements.length);
+    for (int element : elements) {
+      if (result.isEmpty() || result.getInt(result.size() - 1) != element) {
+        result.add(element);
+      }
+    }
+    return result;
+  }
+}
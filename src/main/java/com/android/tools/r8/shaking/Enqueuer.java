@@ -24,6 +24,7 @@ import com.android.tools.r8.experimental.graphinfo.MethodGraphNode;
 import com.android.tools.r8.graph.AppInfo.ResolutionResult;
 import com.android.tools.r8.graph.AppInfoWithSubtyping;
 import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.Code;
 import com.android.tools.r8.graph.Descriptor;
 import com.android.tools.r8.graph.DexAnnotation;
 import com.android.tools.r8.graph.DexCallSite;
@@ -60,6 +61,7 @@ import com.android.tools.r8.shaking.RootSetBuilder.IfRuleEvaluator;
 import com.android.tools.r8.shaking.RootSetBuilder.RootSet;
 import com.android.tools.r8.utils.InternalOptions;
 import com.android.tools.r8.utils.StringDiagnostic;
+import com.android.tools.r8.utils.ThreadUtils;
 import com.android.tools.r8.utils.Timing;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
@@ -73,6 +75,7 @@ import it.unimi.dsi.fastutil.objects.Object2BooleanArrayMap;
 import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
 import java.lang.reflect.InvocationHandler;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
@@ -88,6 +91,7 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -233,6 +237,15 @@ public class Enqueuer {
    */
   private final Queue<Action> workList = Queues.newArrayDeque();
 
+  /**
+   * Holders of methods for which parsing of the code has been started ahead of tracing, see
+   * {@link #parseCodeOfMethodsInWorkList}.
+   */
+  private final Set<DexType> holdersWithParsedCode = Sets.newIdentityHashSet();
+
+  /** Index of the classes for matching the consequent rules of -if rules, built on first use. */
+  private ClassIndex classIndexForIfRules;
+
   /**
    * A queue of items that have been added to try to keep Proguard compatibility.
    */
@@ -1615,7 +1628,17 @@ public class Enqueuer {
         long numOfLiveItems = (long) liveTypes.size();
         numOfLiveItems += (long) liveMethods.items.size();
         numOfLiveItems += (long) liveFields.items.size();
+        // The work list is processed in batches of the items that were present when the batch
+        // started, such that the code of the methods in a batch can be parsed ahead in parallel.
+        int remainingInBatch = 0;
         while (!workList.isEmpty()) {
+          if (remainingInBatch == 0) {
+            remainingInBatch = workList.size();
+            if (options.enableParallelCodeParsingInEnqueuer) {
+              parseCodeOfMethodsInWorkList(executorService);
+            }
+          }
+          remainingInBatch--;
           Action action = workList.poll();
           switch (action.kind) {
             case MARK_INSTANTIATED:
@@ -1653,7 +1676,11 @@ public class Enqueuer {
         numOfLiveItemsAfterProcessing += (long) liveMethods.items.size();
         numOfLiveItemsAfterProcessing += (long) liveFields.items.size();
         if (numOfLiveItemsAfterProcessing > numOfLiveItems) {
-          RootSetBuilder consequentSetBuilder = new RootSetBuilder(appView, rootSet.ifRules);
+          if (classIndexForIfRules == null) {
+            classIndexForIfRules = new ClassIndex(appView, appView.appInfo().app().asDirect());
+          }
+          RootSetBuilder consequentSetBuilder =
+              new RootSetBuilder(appView, rootSet.ifRules, classIndexForIfRules);
           IfRuleEvaluator ifRuleEvaluator =
               consequentSetBuilder.getIfRuleEvaluator(
                   liveFields.getItems(),
@@ -1717,6 +1744,52 @@ public class Enqueuer {
     unpinLambdaMethods();
   }
 
+  /**
+   * Parses the code of the methods that are about to be marked live, in parallel.
+   *
+   * <p>Class-file code is parsed lazily, one class at a time, the first time the code of one of its
+   * methods is needed. Without this, all parsing happens on the tracing thread in
+   * registerCodeReferences. The work is therefore partitioned by holder class, and the tracing
+   * waits for it before continuing. The order in which items are traced does not change, so the
+   * result of tracing is the same as without parallel parsing.
+   */
+  private void parseCodeOfMethodsInWorkList(ExecutorService executorService)
+      throws ExecutionException {
+    if (workList.size() < options.parallelCodeParsingInEnqueuerThreshold) {
+      return;
+    }
+    List<Code> codeToParse = new ArrayList<>();
+    for (Action action : workList) {
+      if (action.kind != Action.Kind.MARK_METHOD_LIVE) {
+        continue;
+      }
+      DexEncodedMethod method = (DexEncodedMethod) action.target;
+      Code code = method.getCode();
+      if (code != null
+          && (code.isLazyCfCode() || code.isJarCode())
+          && holdersWithParsedCode.add(method.method.holder)) {
+        codeToParse.add(code);
+      }
+    }
+    if (codeToParse.size() < 2) {
+      // Not worth the synchronization, the code is parsed when it is traced.
+      return;
+    }
+    List<Future<?>> futures = new ArrayList<>(codeToParse.size());
+    for (Code code : codeToParse) {
+      futures.add(
+          executorService.submit(
+              () -> {
+                if (code.isLazyCfCode()) {
+                  code.asCfCode();
+                } else {
+                  code.asJarCode().getNode();
+                }
+              }));
+    }
+    ThreadUtils.awaitFutures(futures);
+  }
+
   private void unpinLambdaMethods() {
     for (DexMethod method : lambdaMethodsTargetedByInvokeDynamic) {
       pinnedItems.remove(method);
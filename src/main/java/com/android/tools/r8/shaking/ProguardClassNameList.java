@@ -9,6 +9,7 @@ import com.google.common.collect.Iterables;
 import it.unimi.dsi.fastutil.objects.Object2BooleanArrayMap;
 import it.unimi.dsi.fastutil.objects.Object2BooleanMap;
 import it.unimi.dsi.fastutil.objects.Object2BooleanMap.Entry;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -75,6 +76,12 @@ public abstract class ProguardClassNameList {
 
   public abstract boolean matches(DexType type);
 
+  /**
+   * Returns prefixes of the source names of the matched types, such that all matched types start
+   * with one of them.
+   */
+  public abstract List<String> getSourceNamePrefixes();
+
   protected Iterable<ProguardWildcard> getWildcards() {
     return Collections::emptyIterator;
   }
@@ -108,6 +115,11 @@ public abstract class ProguardClassNameList {
       return null;
     }
 
+    @Override
+    public List<String> getSourceNamePrefixes() {
+      return ImmutableList.of();
+    }
+
     @Override
     public boolean matches(DexType type) {
       return false;
@@ -142,6 +154,11 @@ public abstract class ProguardClassNameList {
       return specific == null ? null : Collections.singletonList(specific);
     }
 
+    @Override
+    public List<String> getSourceNamePrefixes() {
+      return ImmutableList.of(className.getSourceNamePrefix());
+    }
+
     @Override
     public boolean matches(DexType type) {
       return className.matches(type);
@@ -197,6 +214,13 @@ public abstract class ProguardClassNameList {
       return null;
     }
 
+    @Override
+    public List<String> getSourceNamePrefixes() {
+      return classNames.stream()
+          .map(ProguardTypeMatcher::getSourceNamePrefix)
+          .collect(Collectors.toList());
+    }
+
     @Override
     public boolean matches(DexType type) {
       return classNames.stream().anyMatch(name -> name.matches(type));
@@ -255,6 +279,18 @@ public abstract class ProguardClassNameList {
       return null;
     }
 
+    @Override
+    public List<String> getSourceNamePrefixes() {
+      // Only the types matched by a positive pattern are matched.
+      List<String> prefixes = new ArrayList<>();
+      for (Entry<ProguardTypeMatcher> className : classNames.object2BooleanEntrySet()) {
+        if (!className.getBooleanValue()) {
+          prefixes.add(className.getKey().getSourceNamePrefix());
+        }
+      }
+      return prefixes;
+    }
+
     @Override
     public boolean matches(DexType type) {
       for (Entry<ProguardTypeMatcher> className : classNames.object2BooleanEntrySet()) {
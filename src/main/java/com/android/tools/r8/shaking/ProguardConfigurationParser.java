@@ -1898,6 +1898,45 @@ public class ProguardConfigurationParser {
       return pattern.equals("*");
     }
 
+    /** Returns the literal text before the first wildcard, which all matching names start with. */
+    String getLiteralPrefix() {
+      if (wildcards.isEmpty()) {
+        return pattern;
+      }
+      for (int i = 0; i < pattern.length(); i++) {
+        if (isWildcardStart(pattern.charAt(i))) {
+          return pattern.substring(0, i);
+        }
+      }
+      return pattern;
+    }
+
+    /** Returns the literal text after the last wildcard, which all matching names end with. */
+    String getLiteralSuffix() {
+      if (wildcards.isEmpty()) {
+        return "";
+      }
+      int suffixStart = 0;
+      for (int i = 0; i < pattern.length(); i++) {
+        char c = pattern.charAt(i);
+        if (c == '<') {
+          // Skip the back reference in the same way as the matchers.
+          i = pattern.indexOf('>', i);
+          if (i < 0) {
+            return "";
+          }
+          suffixStart = i + 1;
+        } else if (isWildcardStart(c)) {
+          suffixStart = i + 1;
+        }
+      }
+      return pattern.substring(suffixStart);
+    }
+
+    private static boolean isWildcardStart(char c) {
+      return c == '*' || c == '?' || c == '%' || c == '<';
+    }
+
     boolean hasUnusualCharacters() {
       if (pattern.contains("<") || pattern.contains(">")) {
         int angleStartCount = 0;
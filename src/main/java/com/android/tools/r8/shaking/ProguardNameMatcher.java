@@ -138,21 +138,34 @@ public abstract class ProguardNameMatcher {
 
     private final String pattern;
     private final List<ProguardWildcard> wildcards;
+    // Literal parts of the pattern checked before the full match, to reject most names quickly.
+    private final String prefix;
+    private final String suffix;
 
     MatchNamePattern(IdentifierPatternWithWildcards identifierPatternWithWildcards) {
       this.pattern = identifierPatternWithWildcards.pattern;
       this.wildcards = identifierPatternWithWildcards.wildcards;
+      this.prefix = identifierPatternWithWildcards.getLiteralPrefix();
+      this.suffix = identifierPatternWithWildcards.getLiteralSuffix();
     }
 
     @Override
     public boolean matches(String name) {
-      boolean matched = matchFieldOrMethodNameImpl(pattern, 0, name, 0, wildcards, 0);
+      boolean matched =
+          hasLiteralPrefixAndSuffix(name)
+              && matchFieldOrMethodNameImpl(pattern, 0, name, 0, wildcards, 0);
       if (!matched) {
         wildcards.forEach(ProguardWildcard::clearCaptured);
       }
       return matched;
     }
 
+    private boolean hasLiteralPrefixAndSuffix(String name) {
+      return name.length() >= prefix.length() + suffix.length()
+          && name.startsWith(prefix)
+          && name.endsWith(suffix);
+    }
+
     @Override
     protected Iterable<ProguardWildcard> getWildcards() {
       return wildcards;
@@ -116,6 +116,14 @@ public abstract class ProguardTypeMatcher {
     return getSpecificType() != null;
   }
 
+  /**
+   * Returns a prefix of the source names of all matched types, which is empty if the matched
+   * names do not have a common prefix.
+   */
+  public String getSourceNamePrefix() {
+    return "";
+  }
+
   private static class MatchAllTypes extends ProguardTypeMatcher {
 
     private static final ProguardTypeMatcher MATCH_ALL_TYPES = new MatchAllTypes();
@@ -327,6 +335,11 @@ public abstract class ProguardTypeMatcher {
       return type.hashCode();
     }
 
+    @Override
+    public String getSourceNamePrefix() {
+      return type.toSourceString();
+    }
+
     @Override
     public DexType getSpecificType() {
       return type;
@@ -337,12 +350,17 @@ public abstract class ProguardTypeMatcher {
 
     private final String pattern;
     private final List<ProguardWildcard> wildcards;
+    // Literal parts of the pattern checked before the full match, to reject most names quickly.
+    private final String prefix;
+    private final String suffix;
     private final ClassOrType kind;
 
     private MatchTypePattern(
         IdentifierPatternWithWildcards identifierPatternWithWildcards, ClassOrType kind) {
       this.pattern = identifierPatternWithWildcards.pattern;
       this.wildcards = identifierPatternWithWildcards.wildcards;
+      this.prefix = identifierPatternWithWildcards.getLiteralPrefix();
+      this.suffix = identifierPatternWithWildcards.getLiteralSuffix();
       this.kind = kind;
     }
 
@@ -350,13 +368,26 @@ public abstract class ProguardTypeMatcher {
     public boolean matches(DexType type) {
       // TODO(herhut): Translate pattern to work on descriptors instead.
       String typeName = type.toSourceString();
-      boolean matched = matchClassOrTypeNameImpl(pattern, 0, typeName, 0, wildcards, 0, kind);
+      boolean matched =
+          hasLiteralPrefixAndSuffix(typeName)
+              && matchClassOrTypeNameImpl(pattern, 0, typeName, 0, wildcards, 0, kind);
       if (!matched) {
         wildcards.forEach(ProguardWildcard::clearCaptured);
       }
       return matched;
     }
 
+    private boolean hasLiteralPrefixAndSuffix(String name) {
+      return name.length() >= prefix.length() + suffix.length()
+          && name.startsWith(prefix)
+          && name.endsWith(suffix);
+    }
+
+    @Override
+    public String getSourceNamePrefix() {
+      return prefix;
+    }
+
     @Override
     protected Iterable<ProguardWildcard> getWildcards() {
       return wildcards;
@@ -89,6 +89,9 @@ public class RootSetBuilder {
   private final DexStringCache dexStringCache = new DexStringCache();
   private final Set<ProguardIfRule> ifRules = Sets.newIdentityHashSet();
 
+  // Built on first use by a rule without specific class names, unless shared with other builders.
+  private ClassIndex classIndex;
+
   public RootSetBuilder(
       AppView<? extends AppInfo> appView,
       DexApplication application,
@@ -99,8 +102,13 @@ public class RootSetBuilder {
     this.options = appView.options();
   }
 
-  RootSetBuilder(AppView<? extends AppInfo> appView, Collection<ProguardIfRule> ifRules) {
+  RootSetBuilder(
+      AppView<? extends AppInfo> appView,
+      Collection<ProguardIfRule> ifRules,
+      ClassIndex classIndex) {
     this(appView, appView.appInfo().app(), ifRules);
+    assert classIndex.isIndexOf(application);
+    this.classIndex = classIndex;
   }
 
   // Process a class with the keep rule.
@@ -225,6 +233,20 @@ public class RootSetBuilder {
         }
       }
     } else {
+      List<DexClass> candidates = getClassIndex().getCandidates(rule);
+      if (candidates != null) {
+        // Only the classes found in the index can match the rule.
+        if (!candidates.isEmpty()) {
+          futures.add(
+              executorService.submit(
+                  () -> {
+                    for (DexClass clazz : candidates) {
+                      process(clazz, rule, ifRule);
+                    }
+                  }));
+        }
+        return;
+      }
       futures.add(
           executorService.submit(
               () -> {
@@ -240,6 +262,13 @@ public class RootSetBuilder {
     }
   }
 
+  private ClassIndex getClassIndex() {
+    if (classIndex == null) {
+      classIndex = new ClassIndex(appView, application);
+    }
+    return classIndex;
+  }
+
   public RootSet run(ExecutorService executorService) throws ExecutionException {
     application.timing.begin("Build root set...");
     try {
@@ -6,6 +6,7 @@ package com.android.tools.r8.utils;
 import static com.android.tools.r8.utils.FileUtils.isArchive;
 import static com.android.tools.r8.utils.FileUtils.isClassFile;
 import static com.android.tools.r8.utils.FileUtils.isDexFile;
+import static com.android.tools.r8.utils.FileUtils.isLibrarySnapshot;
 
 import com.android.tools.r8.ClassFileConsumer;
 import com.android.tools.r8.ClassFileResourceProvider;
@@ -772,6 +773,12 @@ public class AndroidApp {
         } catch (IOException e) {
           reporter.error(new ExceptionDiagnostic(e, new PathOrigin(file)));
         }
+      } else if (isLibrarySnapshot(file)) {
+        try {
+          providerList.add(new LibrarySnapshotClassFileProvider(file));
+        } catch (IOException e) {
+          reporter.error(new ExceptionDiagnostic(e, new PathOrigin(file)));
+        }
       } else if (Files.isDirectory(file) ) {
         providerList.add(DirectoryClassFileProvider.fromDirectory(file));
       } else {
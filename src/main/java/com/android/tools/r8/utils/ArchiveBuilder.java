@@ -28,15 +28,26 @@ import java.util.zip.ZipOutputStream;
 public class ArchiveBuilder implements OutputBuilder {
   private final Path archive;
   private final Origin origin;
+  // If set, indexed class files are compressed by the threads adding them and the archive is
+  // written with a PrecompressedZipWriter instead of a ZipOutputStream.
+  private final boolean compressInParallel;
   private ZipOutputStream stream = null;
+  private PrecompressedZipWriter writer = null;
   private boolean closed = false;
   private int openCount = 0;
   private int classesFileIndex = 0;
   private Map<Integer, DelayedData> delayedClassesDexFiles = new HashMap<>();
+  private Map<Integer, PrecompressedZipWriter.Entry> delayedCompressedClassesDexFiles =
+      new HashMap<>();
   private SortedSet<DelayedData> delayedWrites = new TreeSet<>();
 
   public ArchiveBuilder(Path archive) {
+    this(archive, false);
+  }
+
+  public ArchiveBuilder(Path archive, boolean compressInParallel) {
     this.archive = archive;
+    this.compressInParallel = compressInParallel;
     origin = new PathOrigin(archive);
   }
 
@@ -54,8 +65,13 @@ public class ArchiveBuilder implements OutputBuilder {
       writeDelayed(handler);
       closed = true;
       try {
-        getStreamRaw().close();
-        stream = null;
+        if (compressInParallel) {
+          getWriterRaw().close();
+          writer = null;
+        } else {
+          getStreamRaw().close();
+          stream = null;
+        }
       } catch (IOException e) {
         handler.error(new ExceptionDiagnostic(e, origin));
       }
@@ -65,6 +81,7 @@ public class ArchiveBuilder implements OutputBuilder {
   private void writeDelayed(DiagnosticsHandler handler) {
     // We should never have any indexed files at this point
     assert delayedClassesDexFiles.isEmpty();
+    assert delayedCompressedClassesDexFiles.isEmpty();
     for (DelayedData data : delayedWrites) {
       if (data.isDirectory) {
         assert data.content == null;
@@ -85,6 +102,15 @@ public class ArchiveBuilder implements OutputBuilder {
     return stream;
   }
 
+  private PrecompressedZipWriter getWriterRaw() throws IOException {
+    if (writer != null) {
+      return writer;
+    }
+    writer = new PrecompressedZipWriter(Files.newOutputStream(
+        archive, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+    return writer;
+  }
+
   /** Get or open the zip output stream. */
   private synchronized ZipOutputStream getStream(DiagnosticsHandler handler) {
     assert !closed;
@@ -112,6 +138,10 @@ public class ArchiveBuilder implements OutputBuilder {
   }
 
   private void writeDirectoryNow(String name, DiagnosticsHandler handler) {
+    if (compressInParallel) {
+      writeCompressedNow(PrecompressedZipWriter.directory(name), handler);
+      return;
+    }
     if (name.charAt(name.length() - 1) != DataResource.SEPARATOR) {
       name += DataResource.SEPARATOR;
     }
@@ -149,6 +179,10 @@ public class ArchiveBuilder implements OutputBuilder {
   }
 
   private void writeFileNow(String name, ByteDataView content, DiagnosticsHandler handler) {
+    if (compressInParallel) {
+      writeCompressedNow(PrecompressedZipWriter.deflate(name, content), handler);
+      return;
+    }
     try {
       ZipUtils.writeToZipStream(getStream(handler), name, content, ZipEntry.DEFLATED);
     } catch (IOException e) {
@@ -156,6 +190,15 @@ public class ArchiveBuilder implements OutputBuilder {
     }
   }
 
+  private void writeCompressedNow(PrecompressedZipWriter.Entry entry, DiagnosticsHandler handler) {
+    assert !closed;
+    try {
+      getWriterRaw().write(entry);
+    } catch (IOException e) {
+      handleIOException(e, handler);
+    }
+  }
+
   private void writeNextIfAvailable(DiagnosticsHandler handler) {
     DelayedData data = delayedClassesDexFiles.remove(classesFileIndex);
     while (data != null) {
@@ -166,7 +209,30 @@ public class ArchiveBuilder implements OutputBuilder {
   }
 
   @Override
-  public synchronized void addIndexedClassFile(
+  public void addIndexedClassFile(
+      int index, String name, ByteDataView content, DiagnosticsHandler handler) {
+    if (compressInParallel) {
+      // Compress on the calling thread, outside the lock, so that the compression of the
+      // different class files happens in parallel. Only the compressed data is retained.
+      addCompressedIndexedClassFile(
+          index, PrecompressedZipWriter.deflate(name, content), handler);
+    } else {
+      addUncompressedIndexedClassFile(index, name, content, handler);
+    }
+  }
+
+  private synchronized void addCompressedIndexedClassFile(
+      int index, PrecompressedZipWriter.Entry entry, DiagnosticsHandler handler) {
+    delayedCompressedClassesDexFiles.put(index, entry);
+    entry = delayedCompressedClassesDexFiles.remove(classesFileIndex);
+    while (entry != null) {
+      writeCompressedNow(entry, handler);
+      classesFileIndex++;
+      entry = delayedCompressedClassesDexFiles.remove(classesFileIndex);
+    }
+  }
+
+  private synchronized void addUncompressedIndexedClassFile(
       int index, String name, ByteDataView content, DiagnosticsHandler handler) {
     if (index == classesFileIndex) {
       // Fast case, we got the file in order (or we only had one).
@@ -15,8 +15,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -30,6 +37,10 @@ import java.util.function.Supplier;
  *
  * {@link #forceLoad(Predicate)} can be used to load all classes available from the given class
  * provider. Only after
+ *
+ * {@link #prefetch(DexType, ExecutorService)} can be used to load a class in the background before
+ * it is needed, such that {@link #get(DexType)} does not block on it. {@link #cancelPrefetching()}
+ * must be called before the resources of the class provider are closed.
  */
 public abstract class ClassMap<T extends DexClass> {
 
@@ -55,6 +66,16 @@ public abstract class ClassMap<T extends DexClass> {
    */
   private final AtomicReference<ClassProvider<T>> classProvider = new AtomicReference<>();
 
+  // Number of classes found by a caller of get, and number of classes found in the background by
+  // prefetching, of which `prefetchHits` have been requested since.
+  private final AtomicInteger blockingLoads = new AtomicInteger();
+  private final AtomicInteger prefetchedLoads = new AtomicInteger();
+  private final AtomicInteger prefetchHits = new AtomicInteger();
+
+  // The submitted prefetch tasks, which are awaited or skipped when prefetching is cancelled.
+  private final Queue<Future<?>> prefetchFutures = new ConcurrentLinkedQueue<>();
+  private volatile boolean prefetchingCancelled = false;
+
   ClassMap(ConcurrentHashMap<DexType, Supplier<T>> classes, ClassProvider<T> classProvider) {
     assert classProvider == null || classProvider.getClassKind() == getClassKind();
     this.classes = classes == null ? new ConcurrentHashMap<>() : classes;
@@ -91,17 +112,22 @@ public abstract class ClassMap<T extends DexClass> {
       return supplier == null ? null : supplier.get();
     }
 
+    Supplier<T> supplier = getOrCreateSupplier(type);
+    return supplier == null ? null : supplier.get();
+  }
+
+  private Supplier<T> getOrCreateSupplier(DexType type) {
     Supplier<T> supplier = classes.get(type);
     // If we find a result, we can just return it as it won't change.
     if (supplier != null) {
-      return supplier.get();
+      return supplier;
     }
 
     // Otherwise, we have to do the full dance with locking to avoid creating two suppliers.
     // Lock on this to ensure classProvider is not changed concurrently, so we do not create
     // a concurrent class loader with a null classProvider.
     synchronized (this) {
-      supplier = classes.computeIfAbsent(type, key -> {
+      return classes.computeIfAbsent(type, key -> {
         // Get class supplier, create it if it does not
         // exist and the collection is NOT fully loaded.
         if (classProvider.get() == null) {
@@ -112,8 +138,82 @@ public abstract class ClassMap<T extends DexClass> {
         return new ConcurrentClassLoader<>(this, classProvider.get(), type);
       });
     }
+  }
 
-    return supplier == null ? null : supplier.get();
+  /**
+   * Loads the class of a type on the given executor, unless it has been requested already. Once
+   * loaded, the supertypes of the class are prefetched as well.
+   *
+   * <p>Failures to load the class are ignored, they are reported when the class is requested.
+   */
+  public void prefetch(DexType type, ExecutorService executorService) {
+    if (prefetchingCancelled || classProvider.get() == null || classes.containsKey(type)) {
+      return;
+    }
+    Supplier<T> supplier = getOrCreateSupplier(type);
+    if (!(supplier instanceof ConcurrentClassLoader)) {
+      return;
+    }
+    ConcurrentClassLoader<T> loader = (ConcurrentClassLoader<T>) supplier;
+    try {
+      Future<?> future =
+          executorService.submit(
+              () -> {
+                if (prefetchingCancelled || classProvider.get() == null) {
+                  // The collection has been fully loaded since, so the class is no longer needed.
+                  return;
+                }
+                T clazz = loader.prefetch();
+                if (clazz != null) {
+                  if (clazz.superType != null) {
+                    prefetch(clazz.superType, executorService);
+                  }
+                  for (DexType iface : clazz.interfaces.values) {
+                    prefetch(iface, executorService);
+                  }
+                }
+              });
+      // Added before the task that submitted it completes, if submitted from a prefetch task.
+      prefetchFutures.add(future);
+    } catch (RejectedExecutionException e) {
+      // The executor has been shut down, the class will be loaded when it is requested.
+    }
+  }
+
+  /** Prefetches all classes available from the class provider, see {@link #prefetch}. */
+  public void prefetchAll(ExecutorService executorService) {
+    ClassProvider<T> classProvider = this.classProvider.get();
+    if (classProvider == null) {
+      return;
+    }
+    for (DexType type : classProvider.collectTypes()) {
+      prefetch(type, executorService);
+    }
+  }
+
+  /**
+   * Stops prefetching classes and waits for the prefetch tasks that have started, such that the
+   * class provider is no longer used in the background. Tasks that have not started do nothing.
+   */
+  public void cancelPrefetching() {
+    prefetchingCancelled = true;
+    Future<?> future;
+    while ((future = prefetchFutures.poll()) != null) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        // Ignore, failures to load the class are reported when the class is requested.
+      } catch (InterruptedException e) {
+        throw new RuntimeException("Interrupted while waiting for future.", e);
+      }
+    }
+  }
+
+  /** Adds counters for how the classes of this collection have been loaded to the timing. */
+  public void reportLoadStatistics(String name, Timing timing) {
+    timing.addCounter(name + " blocking loads", blockingLoads.get());
+    timing.addCounter(name + " prefetched loads", prefetchedLoads.get());
+    timing.addCounter(name + " prefetch hits", prefetchHits.get());
   }
 
   /**
@@ -235,6 +335,9 @@ public abstract class ClassMap<T extends DexClass> {
 
     private T clazz = null;
     private volatile boolean ready = false;
+    // Set if the class was loaded by prefetching and has not been requested since.
+    private volatile boolean prefetched = false;
+    private AtomicInteger prefetchHits = null;
 
     private ConcurrentClassLoader(ClassMap<T> classMap, ClassProvider<T> provider, DexType type) {
       this.classMap = classMap;
@@ -244,47 +347,80 @@ public abstract class ClassMap<T extends DexClass> {
 
     @Override
     public T get() {
-      if (ready) {
-        return clazz;
-      }
-
-      synchronized (this) {
-        if (!ready) {
-          assert classMap != null && provider != null && type != null;
-          provider.collectClass(type, createdClass -> {
-            assert createdClass != null;
-            assert classMap.getClassKind().isOfKind(createdClass);
-            assert !ready;
-
-            if (createdClass.type != type) {
-              throw new CompilationError(
-                  "Class content provided for type descriptor " + type.toSourceString() +
-                      " actually defines class " + createdClass.type.toSourceString());
-            }
-
-            if (clazz == null) {
-              clazz = createdClass;
-            } else {
-              // The class resolution *may* generate a compilation error as one of
-              // possible resolutions. In this case we leave `value` in (false, null)
-              // state so in rare case of another thread trying to get the same class
-              // before this error is propagated it will get the same conflict.
-              T oldClass = clazz;
-              clazz = null;
-              clazz = classMap.resolveClassConflict(oldClass, createdClass);
+      if (!ready) {
+        synchronized (this) {
+          if (!ready) {
+            ClassMap<T> classMap = this.classMap;
+            load();
+            if (clazz != null) {
+              classMap.blockingLoads.incrementAndGet();
             }
-          });
-
-          classMap = null;
-          provider = null;
-          type = null;
-          ready = true;
+          }
         }
       }
 
       assert ready;
       assert classMap == null && provider == null && type == null;
+      if (prefetched) {
+        recordPrefetchHit();
+      }
+      return clazz;
+    }
+
+    // Returns the class if this call loaded it, and null if it was loaded already.
+    private synchronized T prefetch() {
+      if (ready) {
+        return null;
+      }
+      ClassMap<T> classMap = this.classMap;
+      load();
+      if (clazz != null) {
+        classMap.prefetchedLoads.incrementAndGet();
+        prefetchHits = classMap.prefetchHits;
+        prefetched = true;
+      }
       return clazz;
     }
+
+    private synchronized void recordPrefetchHit() {
+      if (prefetched) {
+        prefetched = false;
+        prefetchHits.incrementAndGet();
+        prefetchHits = null;
+      }
+    }
+
+    private void load() {
+      assert Thread.holdsLock(this);
+      assert classMap != null && provider != null && type != null;
+      provider.collectClass(type, createdClass -> {
+        assert createdClass != null;
+        assert classMap.getClassKind().isOfKind(createdClass);
+        assert !ready;
+
+        if (createdClass.type != type) {
+          throw new CompilationError(
+              "Class content provided for type descriptor " + type.toSourceString() +
+                  " actually defines class " + createdClass.type.toSourceString());
+        }
+
+        if (clazz == null) {
+          clazz = createdClass;
+        } else {
+          // The class resolution *may* generate a compilation error as one of
+          // possible resolutions. In this case we leave `value` in (false, null)
+          // state so in rare case of another thread trying to get the same class
+          // before this error is propagated it will get the same conflict.
+          T oldClass = clazz;
+          clazz = null;
+          clazz = classMap.resolveClassConflict(oldClass, createdClass);
+        }
+      });
+
+      classMap = null;
+      provider = null;
+      type = null;
+      ready = true;
+    }
   }
 }
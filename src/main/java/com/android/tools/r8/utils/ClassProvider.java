@@ -9,6 +9,7 @@ import com.android.tools.r8.ResourceException;
 import com.android.tools.r8.errors.CompilationError;
 import com.android.tools.r8.graph.ClassKind;
 import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexItemFactory;
 import com.android.tools.r8.graph.DexType;
 import com.android.tools.r8.graph.JarApplicationReader;
 import com.android.tools.r8.graph.JarClassFileReader;
@@ -59,6 +60,10 @@ public abstract class ClassProvider<T extends DexClass> {
   /** Create class provider for java class resource provider. */
   public static <T extends DexClass> ClassProvider<T> forClassFileResources(
       ClassKind classKind, ClassFileResourceProvider provider, JarApplicationReader reader) {
+    if (provider instanceof LibrarySnapshotClassFileProvider) {
+      return new LibrarySnapshotReader<>(
+          classKind, (LibrarySnapshotClassFileProvider) provider, reader.getFactory());
+    }
     return new ClassFileResourceReader<>(classKind, provider, reader);
   }
 
@@ -122,6 +127,42 @@ public abstract class ClassProvider<T extends DexClass> {
     }
   }
 
+  private static class LibrarySnapshotReader<T extends DexClass> extends ClassProvider<T> {
+    private final LibrarySnapshotClassFileProvider provider;
+    private final LibrarySnapshotClassFileProvider.Reader reader;
+    private final DexItemFactory factory;
+
+    private LibrarySnapshotReader(
+        ClassKind classKind, LibrarySnapshotClassFileProvider provider, DexItemFactory factory) {
+      super(classKind);
+      this.provider = provider;
+      this.reader = provider.createReader(factory);
+      this.factory = factory;
+    }
+
+    @Override
+    public void collectClass(DexType type, Consumer<T> classConsumer) {
+      DexClass clazz = reader.createClass(type, getClassKind());
+      if (clazz != null) {
+        getClassKind().bridgeConsumer(classConsumer).accept(clazz);
+      }
+    }
+
+    @Override
+    public Collection<DexType> collectTypes() {
+      List<DexType> types = new ArrayList<>();
+      for (String descriptor : provider.getClassDescriptors()) {
+        types.add(factory.createType(descriptor));
+      }
+      return types;
+    }
+
+    @Override
+    public String toString() {
+      return "library-snapshot(" + provider.getClassDescriptors().size() + ")";
+    }
+  }
+
   private static class PreloadedClassProvider<T extends DexClass> extends ClassProvider<T> {
     private final Multimap<DexType, T> classes;
 
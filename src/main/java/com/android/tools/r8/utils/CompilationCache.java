@@ -0,0 +1,624 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.ClassFileConsumer;
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.DataDirectoryResource;
+import com.android.tools.r8.DataEntryResource;
+import com.android.tools.r8.DataResourceConsumer;
+import com.android.tools.r8.DataResourceProvider;
+import com.android.tools.r8.DexIndexedConsumer;
+import com.android.tools.r8.Diagnostic;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResourceProvider;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.StringResource;
+import com.android.tools.r8.Version;
+import com.android.tools.r8.errors.Unreachable;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import com.android.tools.r8.position.Position;
+import com.android.tools.r8.shaking.ProguardConfiguration;
+import com.android.tools.r8.shaking.ProguardConfigurationRule;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Experimental cache of the output of R8, keyed by a digest of all the inputs of a compilation.
+ *
+ * <p>This is an all-or-nothing output cache, not an incremental compilation. The key covers the
+ * program, classpath and library resources, the Proguard configuration including the files it
+ * refers to, the main dex rules and lists, the options that are set from the command, which of the
+ * outputs are consumed, and the internal options that are set from system properties. If the cache
+ * has an entry for the key, the output is replayed to the consumers instead of compiling.
+ * Otherwise the output is recorded while compiling and stored when the compilation succeeds. Any
+ * change to the inputs or the keep rules thus results in a full compilation.
+ *
+ * <p>Only compilations that output the program, its data resources and the Proguard map are
+ * cached. The info and warning diagnostics of the compilation are stored with the output and
+ * reported again when it is replayed, with the origin and position reduced to their descriptions.
+ */
+public class CompilationCache {
+
+  private static final String FILE_EXTENSION = ".r8cache";
+  private static final int FORMAT_VERSION = 2;
+
+  private static final byte DEX_FILE = 0;
+  private static final byte CLASS_FILE = 1;
+  private static final byte DATA_DIRECTORY = 2;
+  private static final byte DATA_ENTRY = 3;
+  private static final byte PROGUARD_MAP = 4;
+  private static final byte END = 5;
+  private static final byte INFO = 6;
+  private static final byte WARNING = 7;
+
+  private static class Output {
+
+    final byte kind;
+    final int fileIndex;
+    final String name;
+    final Set<String> descriptors;
+    final byte[] data;
+    // The origin parts and position description of a diagnostic.
+    final List<String> origin;
+    final String position;
+
+    Output(byte kind, int fileIndex, String name, Set<String> descriptors, byte[] data) {
+      this(kind, fileIndex, name, descriptors, data, null, null);
+    }
+
+    Output(
+        byte kind,
+        int fileIndex,
+        String name,
+        Set<String> descriptors,
+        byte[] data,
+        List<String> origin,
+        String position) {
+      this.kind = kind;
+      this.fileIndex = fileIndex;
+      this.name = name;
+      this.descriptors = descriptors;
+      this.data = data;
+      this.origin = origin;
+      this.position = position;
+    }
+
+    static Output fromDiagnostic(byte kind, Diagnostic diagnostic) {
+      Origin origin = diagnostic.getOrigin();
+      Position position = diagnostic.getPosition();
+      String message = diagnostic.getDiagnosticMessage();
+      return new Output(
+          kind,
+          -1,
+          null,
+          null,
+          (message == null ? "" : message).getBytes(StandardCharsets.UTF_8),
+          origin == null || origin == Origin.unknown() ? ImmutableList.of() : origin.parts(),
+          position == null || position == Position.UNKNOWN ? null : position.getDescription());
+    }
+
+    Diagnostic toDiagnostic() {
+      Origin result = origin.isEmpty() ? Origin.unknown() : Origin.root();
+      for (String part : origin) {
+        result =
+            new Origin(result) {
+              @Override
+              public String part() {
+                return part;
+              }
+            };
+      }
+      return new StringDiagnostic(
+          new String(data, StandardCharsets.UTF_8),
+          result,
+          position == null ? Position.UNKNOWN : () -> position);
+    }
+  }
+
+  private final InternalOptions options;
+  private final Path file;
+  private final List<Output> outputs = new ArrayList<>();
+
+  private CompilationCache(InternalOptions options, Path file) {
+    this.options = options;
+    this.file = file;
+  }
+
+  /**
+   * Returns the cache entry for the compilation of app with options, or null if there is no cache
+   * directory or the outputs of the compilation cannot be cached.
+   */
+  public static CompilationCache create(AndroidApp app, InternalOptions options)
+      throws IOException {
+    if (options.compilationCacheDirectory == null || !isSupported(options)) {
+      return null;
+    }
+    String key;
+    try {
+      key = computeKey(app, options);
+    } catch (ResourceException e) {
+      // Leave it to the compilation to report the input that cannot be read.
+      return null;
+    }
+    Files.createDirectories(options.compilationCacheDirectory);
+    return new CompilationCache(
+        options, options.compilationCacheDirectory.resolve(key + FILE_EXTENSION));
+  }
+
+  private static boolean isSupported(InternalOptions options) {
+    return (options.programConsumer instanceof DexIndexedConsumer
+            || options.programConsumer instanceof ClassFileConsumer)
+        && options.mainDexListConsumer == null
+        && options.proguardSeedsConsumer == null
+        && options.usageInformationConsumer == null
+        && options.configurationConsumer == null
+        && options.keptGraphConsumer == null
+        && options.mainDexKeptGraphConsumer == null
+        && options.syntheticProguardRulesConsumer == null
+        && options.proguardCompatibilityRulesOutput == null;
+  }
+
+  private static String computeKey(AndroidApp app, InternalOptions options)
+      throws IOException, ResourceException {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    putString(hasher, Version.getVersionString());
+
+    // Options.
+    hasher.putBoolean(options.programConsumer instanceof ClassFileConsumer);
+    hasher.putInt(options.minApiLevel);
+    hasher.putBoolean(options.debug);
+    hasher.putBoolean(options.enableDesugaring);
+    hasher.putBoolean(options.isShrinking());
+    hasher.putBoolean(options.isMinifying());
+    hasher.putBoolean(options.forceProguardCompatibility);
+    hasher.putBoolean(options.proguardMapConsumer != null);
+    hasher.putBoolean(options.dataResourceConsumer != null);
+    hasher.putInt(options.lineNumberOptimization.ordinal());
+    hasher.putBoolean(options.minimalMainDex);
+    hasher.putBoolean(options.enableVerticalClassMerging);
+    hasher.putBoolean(options.enableInheritanceClassInDexDistributor);
+    putString(hasher, options.hasMarker() ? options.getMarker().toString() : "");
+
+    // Internal options that are not set from the command.
+    hasher.putBoolean(options.enableInlining);
+    hasher.putBoolean(options.enableParallelCodeParsingInEnqueuer);
+    hasher.putBoolean(options.enableDependencyDrivenMethodProcessing);
+    hasher.putBoolean(options.enableGraphLenseCaching);
+    hasher.putBoolean(options.enableEagerCodeParsing);
+    hasher.putInt(options.eagerCodeParsingCapacity);
+    hasher.putBoolean(options.enableClassPrefetching);
+    hasher.putBoolean(options.enableMemoryMappedDexInput);
+    hasher.putBoolean(InternalOptions.shouldEnableMemoryMappedArchiveInput());
+    hasher.putBoolean(InternalOptions.shouldEnableKeepRuleSynthesisForRecompilation());
+    hasher.putBoolean(options.testing.allowTypeErrors);
+
+    // Configuration, including the contents of the files it refers to.
+    ProguardConfiguration configuration = options.getProguardConfiguration();
+    putString(hasher, configuration.getParsedConfiguration());
+    for (List<String> dictionary :
+        ImmutableList.of(
+            configuration.getObfuscationDictionary(),
+            configuration.getClassObfuscationDictionary(),
+            configuration.getPackageObfuscationDictionary())) {
+      hasher.putInt(dictionary.size());
+      dictionary.forEach(word -> putString(hasher, word));
+    }
+    if (configuration.hasApplyMappingFile()) {
+      putBytes(hasher, Files.readAllBytes(configuration.getApplyMappingFile()));
+    }
+    hasher.putInt(options.mainDexKeepRules.size());
+    for (ProguardConfigurationRule rule : options.mainDexKeepRules) {
+      putString(hasher, rule.toString());
+    }
+    hasher.putInt(app.getMainDexListResources().size());
+    for (StringResource resource : app.getMainDexListResources()) {
+      putString(hasher, resource.getString());
+    }
+    hasher.putInt(app.getMainDexClasses().size());
+    app.getMainDexClasses().forEach(clazz -> putString(hasher, clazz));
+
+    // Inputs.
+    hasher.putInt(app.getProgramResourceProviders().size());
+    for (ProgramResourceProvider provider : app.getProgramResourceProviders()) {
+      putProgramResources(hasher, provider.getProgramResources());
+      putDataResources(hasher, provider.getDataResourceProvider());
+    }
+    putClassFileResources(hasher, app.getClasspathResourceProviders());
+    putClassFileResources(hasher, app.getLibraryResourceProviders());
+    return hasher.hash().toString();
+  }
+
+  private static void putProgramResources(Hasher hasher, Collection<ProgramResource> resources)
+      throws ResourceException {
+    hasher.putInt(resources.size());
+    for (ProgramResource resource : resources) {
+      hasher.putInt(resource.getKind().ordinal());
+      putResource(hasher, resource);
+    }
+  }
+
+  private static void putDataResources(Hasher hasher, DataResourceProvider provider)
+      throws ResourceException {
+    if (provider == null) {
+      hasher.putBoolean(false);
+      return;
+    }
+    hasher.putBoolean(true);
+    List<ResourceException> failures = new ArrayList<>(1);
+    // Entries of archives can only be read while they are visited.
+    provider.accept(
+        new DataResourceProvider.Visitor() {
+          @Override
+          public void visit(DataDirectoryResource directory) {
+            hasher.putByte(DATA_DIRECTORY);
+            putString(hasher, directory.getName());
+          }
+
+          @Override
+          public void visit(DataEntryResource file) {
+            hasher.putByte(DATA_ENTRY);
+            putString(hasher, file.getName());
+            try (InputStream stream = file.getByteStream()) {
+              putBytes(hasher, ByteStreams.toByteArray(stream));
+            } catch (IOException e) {
+              failures.add(new ResourceException(file.getOrigin(), e));
+            } catch (ResourceException e) {
+              failures.add(e);
+            }
+          }
+        });
+    if (!failures.isEmpty()) {
+      throw failures.get(0);
+    }
+    hasher.putByte(END);
+  }
+
+  private static void putClassFileResources(
+      Hasher hasher, List<ClassFileResourceProvider> providers) throws ResourceException {
+    hasher.putInt(providers.size());
+    for (ClassFileResourceProvider provider : providers) {
+      // The descriptors are sorted as the order of the provider is unspecified.
+      Set<String> descriptors = new TreeSet<>(provider.getClassDescriptors());
+      hasher.putInt(descriptors.size());
+      for (String descriptor : descriptors) {
+        putString(hasher, descriptor);
+        putResource(hasher, provider.getProgramResource(descriptor));
+      }
+    }
+  }
+
+  private static void putResource(Hasher hasher, ProgramResource resource)
+      throws ResourceException {
+    try (InputStream stream = resource.getByteStream()) {
+      putBytes(hasher, ByteStreams.toByteArray(stream));
+    } catch (IOException e) {
+      throw new ResourceException(resource.getOrigin(), e);
+    }
+  }
+
+  private static void putString(Hasher hasher, String string) {
+    hasher.putInt(string.length());
+    hasher.putString(string, StandardCharsets.UTF_8);
+  }
+
+  private static void putBytes(Hasher hasher, byte[] bytes) {
+    hasher.putInt(bytes.length);
+    hasher.putBytes(bytes);
+  }
+
+  /**
+   * Passes the cached output to the consumers and signals that the output is finished.
+   *
+   * @return false if there is no cached output, in which case the consumers are not called.
+   */
+  public boolean replay() throws IOException {
+    List<Output> cachedOutputs;
+    try {
+      cachedOutputs = read();
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    if (cachedOutputs == null) {
+      // The entry is from an incompatible or interrupted writer, it is replaced when recompiling.
+      return false;
+    }
+    DiagnosticsHandler handler = options.reporter;
+    Origin origin = new PathOrigin(file);
+    StringBuilder proguardMap = null;
+    for (Output output : cachedOutputs) {
+      switch (output.kind) {
+        case DEX_FILE:
+          options
+              .getDexIndexedConsumer()
+              .accept(output.fileIndex, ByteDataView.of(output.data), output.descriptors, handler);
+          break;
+        case CLASS_FILE:
+          options
+              .getClassFileConsumer()
+              .accept(ByteDataView.of(output.data), output.name, handler);
+          break;
+        case DATA_DIRECTORY:
+          if (options.dataResourceConsumer != null) {
+            options.dataResourceConsumer.accept(
+                DataDirectoryResource.fromName(output.name, origin), handler);
+          }
+          break;
+        case DATA_ENTRY:
+          if (options.dataResourceConsumer != null) {
+            options.dataResourceConsumer.accept(
+                DataEntryResource.fromBytes(output.data, output.name, origin), handler);
+          }
+          break;
+        case PROGUARD_MAP:
+          if (options.proguardMapConsumer != null) {
+            options.proguardMapConsumer.accept(
+                new String(output.data, StandardCharsets.UTF_8), handler);
+          }
+          break;
+        case INFO:
+          options.reporter.info(output.toDiagnostic());
+          break;
+        case WARNING:
+          options.reporter.warning(output.toDiagnostic());
+          break;
+        default:
+          throw new Unreachable();
+      }
+    }
+    options.signalFinishedToConsumers();
+    return true;
+  }
+
+  private List<Output> read() throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (input.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      List<Output> result = new ArrayList<>();
+      while (true) {
+        byte kind = input.readByte();
+        switch (kind) {
+          case DEX_FILE:
+            {
+              int fileIndex = input.readInt();
+              ImmutableSet.Builder<String> descriptors = ImmutableSet.builder();
+              for (int i = input.readInt(); i > 0; i--) {
+                descriptors.add(input.readUTF());
+              }
+              result.add(new Output(kind, fileIndex, null, descriptors.build(), readBytes(input)));
+              break;
+            }
+          case CLASS_FILE:
+          case DATA_ENTRY:
+            result.add(new Output(kind, -1, input.readUTF(), null, readBytes(input)));
+            break;
+          case DATA_DIRECTORY:
+            result.add(new Output(kind, -1, input.readUTF(), null, null));
+            break;
+          case PROGUARD_MAP:
+            result.add(new Output(kind, -1, null, null, readBytes(input)));
+            break;
+          case INFO:
+          case WARNING:
+            {
+              ImmutableList.Builder<String> origin = ImmutableList.builder();
+              for (int i = input.readInt(); i > 0; i--) {
+                origin.add(input.readUTF());
+              }
+              String position = input.readBoolean() ? input.readUTF() : null;
+              result.add(
+                  new Output(kind, -1, null, null, readBytes(input), origin.build(), position));
+              break;
+            }
+          case END:
+            return result;
+          default:
+            return null;
+        }
+      }
+    } catch (NoSuchFileException e) {
+      throw e;
+    } catch (IOException e) {
+      // A truncated or otherwise corrupt entry.
+      return null;
+    }
+  }
+
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  /** Wraps the consumers of options to record the output and diagnostics of the compilation. */
+  public void record() {
+    options.reporter.setRecorder(
+        new DiagnosticsHandler() {
+          @Override
+          public void info(Diagnostic info) {
+            addOutput(Output.fromDiagnostic(INFO, info));
+          }
+
+          @Override
+          public void warning(Diagnostic warning) {
+            addOutput(Output.fromDiagnostic(WARNING, warning));
+          }
+        });
+    if (options.programConsumer instanceof DexIndexedConsumer) {
+      options.programConsumer =
+          new DexIndexedConsumer.ForwardingConsumer(options.getDexIndexedConsumer()) {
+            @Override
+            public void accept(
+                int fileIndex,
+                ByteDataView data,
+                Set<String> descriptors,
+                DiagnosticsHandler handler) {
+              super.accept(fileIndex, data, descriptors, handler);
+              addOutput(
+                  new Output(
+                      DEX_FILE,
+                      fileIndex,
+                      null,
+                      ImmutableSet.copyOf(descriptors),
+                      data.copyByteData()));
+            }
+          };
+    } else {
+      options.programConsumer =
+          new ClassFileConsumer.ForwardingConsumer(options.getClassFileConsumer()) {
+            @Override
+            public void accept(ByteDataView data, String descriptor, DiagnosticsHandler handler) {
+              super.accept(data, descriptor, handler);
+              addOutput(new Output(CLASS_FILE, -1, descriptor, null, data.copyByteData()));
+            }
+          };
+    }
+    if (options.dataResourceConsumer != null) {
+      options.dataResourceConsumer = recordDataResources(options.dataResourceConsumer);
+    }
+    if (options.proguardMapConsumer != null) {
+      options.proguardMapConsumer =
+          new StringConsumer.ForwardingConsumer(options.proguardMapConsumer) {
+            @Override
+            public void accept(String string, DiagnosticsHandler handler) {
+              super.accept(string, handler);
+              addOutput(
+                  new Output(
+                      PROGUARD_MAP, -1, null, null, string.getBytes(StandardCharsets.UTF_8)));
+            }
+          };
+    }
+  }
+
+  private DataResourceConsumer recordDataResources(DataResourceConsumer consumer) {
+    return new DataResourceConsumer() {
+
+      @Override
+      public void accept(DataDirectoryResource directory, DiagnosticsHandler handler) {
+        consumer.accept(directory, handler);
+        addOutput(new Output(DATA_DIRECTORY, -1, directory.getName(), null, null));
+      }
+
+      @Override
+      public void accept(DataEntryResource file, DiagnosticsHandler handler) {
+        byte[] bytes;
+        try (InputStream stream = file.getByteStream()) {
+          bytes = ByteStreams.toByteArray(stream);
+        } catch (IOException e) {
+          throw options.reporter.fatalError(new ExceptionDiagnostic(e, file.getOrigin()));
+        } catch (ResourceException e) {
+          throw options.reporter.fatalError(
+              new StringDiagnostic(e.getMessage(), e.getOrigin()));
+        }
+        consumer.accept(
+            DataEntryResource.fromBytes(bytes, file.getName(), file.getOrigin()), handler);
+        addOutput(new Output(DATA_ENTRY, -1, file.getName(), null, bytes));
+      }
+
+      @Override
+      public void finished(DiagnosticsHandler handler) {
+        consumer.finished(handler);
+      }
+    };
+  }
+
+  private synchronized void addOutput(Output output) {
+    outputs.add(output);
+  }
+
+  /**
+   * Stores the recorded output, which must be called after the compilation succeeded.
+   *
+   * <p>The cache is best effort. Failing to store the output does not fail the compilation.
+   */
+  public synchronized void store() {
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        output.writeInt(FORMAT_VERSION);
+        for (Output recorded : outputs) {
+          output.writeByte(recorded.kind);
+          switch (recorded.kind) {
+            case DEX_FILE:
+              output.writeInt(recorded.fileIndex);
+              output.writeInt(recorded.descriptors.size());
+              for (String descriptor : recorded.descriptors) {
+                output.writeUTF(descriptor);
+              }
+              break;
+            case CLASS_FILE:
+            case DATA_DIRECTORY:
+            case DATA_ENTRY:
+              output.writeUTF(recorded.name);
+              break;
+            case INFO:
+            case WARNING:
+              output.writeInt(recorded.origin.size());
+              for (String part : recorded.origin) {
+                output.writeUTF(part);
+              }
+              output.writeBoolean(recorded.position != null);
+              if (recorded.position != null) {
+                output.writeUTF(recorded.position);
+              }
+              break;
+            default:
+              assert recorded.kind == PROGUARD_MAP;
+          }
+          if (recorded.data != null) {
+            output.writeInt(recorded.data.length);
+            output.write(recorded.data);
+          }
+        }
+        output.writeByte(END);
+      }
+      // Concurrent compilations of the same inputs write the same entry, so either one may win.
+      try {
+        Files.move(
+            tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // Ignore, the compilation is simply not cached.
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          // Ignore.
+        }
+      }
+    }
+  }
+}
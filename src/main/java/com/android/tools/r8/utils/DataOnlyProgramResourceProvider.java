@@ -0,0 +1,30 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.DataResourceProvider;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResourceProvider;
+import java.util.Collection;
+import java.util.Collections;
+
+/** Provides the data resources of a program resource provider, but none of its classes. */
+class DataOnlyProgramResourceProvider implements ProgramResourceProvider {
+
+  private final ProgramResourceProvider provider;
+
+  DataOnlyProgramResourceProvider(ProgramResourceProvider provider) {
+    this.provider = provider;
+  }
+
+  @Override
+  public Collection<ProgramResource> getProgramResources() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public DataResourceProvider getDataResourceProvider() {
+    return provider.getDataResourceProvider();
+  }
+}
@@ -0,0 +1,415 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static com.android.tools.r8.utils.InternalOptions.ASM_VERSION;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.CompilationMode;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.ProgramResourceProvider;
+import com.android.tools.r8.ResourceException;
+import com.android.tools.r8.Version;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Persistent, content-addressed cache of the DEX output for individual class files.
+ *
+ * <p>The cache only applies to D8 compilations producing a DEX file per class file. Each entry is
+ * keyed by the class-file bytes together with all options that influence the generated code, and
+ * holds the DEX data for the class and the synthetic classes combined with it. Classes whose
+ * output may depend on other classes, such as classes with lambdas referring to methods of other
+ * classes, are always compiled.
+ *
+ * <p>Entries are written to a temporary file and moved into place, so several processes can share
+ * a cache directory. Eviction is least-recently-used based on file modification times, which are
+ * updated on every hit.
+ */
+public class DexPerClassFileCache {
+
+  private static final int MAGIC = 0x44384343; // "D8CC"
+  private static final String ENTRY_EXTENSION = ".dexcache";
+  private static final String TEMP_EXTENSION = ".tmp";
+
+  private final Path directory;
+  private final long maxSizeInBytes;
+
+  public DexPerClassFileCache(Path directory, long maxSizeInBytes) {
+    assert maxSizeInBytes > 0;
+    this.directory = directory;
+    this.maxSizeInBytes = maxSizeInBytes;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public long getMaxSizeInBytes() {
+    return maxSizeInBytes;
+  }
+
+  /**
+   * Returns true if the output for a class file only depends on the class file itself and the
+   * options hashed into the key.
+   *
+   * <p>Desugaring of default and static interface methods depends on the classpath, so the cache
+   * is not used when that desugaring is active.
+   */
+  public static boolean isApplicable(InternalOptions options) {
+    return options.isGeneratingDexFilePerClassFile()
+        && options.getDexFilePerClassFileConsumer().combineSyntheticClassesWithPrimaryClass()
+        && (!options.enableDesugaring || options.canUseDefaultAndStaticInterfaceMethods())
+        && !options.hasMethodsFilter();
+  }
+
+  /**
+   * Forwards all cached classes of {@param app} to the program consumer and returns an app with
+   * the remaining inputs. The program consumer in {@param options} is replaced by a consumer that
+   * records the output of the remaining inputs in the cache.
+   */
+  public AndroidApp apply(AndroidApp app, InternalOptions options) throws IOException {
+    assert isApplicable(options);
+    try {
+      return applyInternal(app, options);
+    } catch (ResourceException e) {
+      throw options.reporter.fatalError(new StringDiagnostic(e.getMessage(), e.getOrigin()));
+    }
+  }
+
+  private AndroidApp applyInternal(AndroidApp app, InternalOptions options)
+      throws IOException, ResourceException {
+    List<CacheCandidate> candidates = new ArrayList<>();
+    Map<String, Integer> descriptorCounts = new HashMap<>();
+    for (ProgramResourceProvider provider : app.getProgramResourceProviders()) {
+      for (ProgramResource resource : provider.getProgramResources()) {
+        Set<String> descriptors = resource.getClassDescriptors();
+        if (resource.getKind() != Kind.CF || (descriptors != null && descriptors.size() != 1)) {
+          // Only plain class-file inputs are cached. Leave the input untouched otherwise.
+          return app;
+        }
+        byte[] bytes;
+        try (InputStream stream = resource.getByteStream()) {
+          bytes = ByteStreams.toByteArray(stream);
+        }
+        String descriptor =
+            descriptors != null
+                ? descriptors.iterator().next()
+                : DescriptorUtils.getDescriptorFromClassBinaryName(
+                    new ClassReader(bytes).getClassName());
+        candidates.add(
+            new CacheCandidate(resource, descriptor, bytes, isSelfContained(bytes)));
+        descriptorCounts.merge(descriptor, 1, Integer::sum);
+      }
+    }
+    Files.createDirectories(directory);
+    DexFilePerClassFileConsumer consumer = options.getDexFilePerClassFileConsumer();
+    List<ProgramResource> misses = new ArrayList<>();
+    Map<String, String> pendingKeys = new ConcurrentHashMap<>();
+    for (CacheCandidate candidate : candidates) {
+      if (descriptorCounts.get(candidate.descriptor) > 1) {
+        // Leave duplicate definitions to the compiler for reporting.
+        misses.add(candidate.toProgramResource());
+        continue;
+      }
+      if (!candidate.selfContained) {
+        misses.add(candidate.toProgramResource());
+        continue;
+      }
+      String key = computeKey(candidate.bytes, app, options);
+      if (!lookup(key, candidate.descriptor, consumer, options.reporter)) {
+        pendingKeys.put(candidate.descriptor, key);
+        misses.add(candidate.toProgramResource());
+      }
+    }
+    options.programConsumer = new CachingConsumer(consumer, pendingKeys);
+
+    // Keep the data resources of the original providers and replace their program resources.
+    AndroidApp.Builder builder = AndroidApp.builder(app);
+    List<ProgramResourceProvider> providers = builder.getProgramResourceProviders();
+    List<ProgramResourceProvider> originalProviders = ImmutableList.copyOf(providers);
+    providers.clear();
+    for (ProgramResourceProvider provider : originalProviders) {
+      providers.add(new DataOnlyProgramResourceProvider(provider));
+    }
+    List<ProgramResource> finalMisses = ImmutableList.copyOf(misses);
+    providers.add(() -> finalMisses);
+    builder.setBucketId(app.getBucketId());
+    return builder.build();
+  }
+
+  /**
+   * Returns true if the output for the class cannot depend on other classes.
+   *
+   * <p>Desugaring a lambda looks up the method it refers to, which may be defined in another
+   * class. Only lambdas with a body in a lambda$ method of the class itself are independent of
+   * other classes. Synthesized classes for backported methods and try-with-resources only depend
+   * on the methods used by the class.
+   */
+  private static boolean isSelfContained(byte[] classFileBytes) {
+    ClassReader reader;
+    try {
+      reader = new ClassReader(classFileBytes);
+    } catch (RuntimeException e) {
+      // Leave it to the compiler to report invalid class files.
+      return false;
+    }
+    String className = reader.getClassName();
+    boolean[] selfContained = {true};
+    reader.accept(
+        new ClassVisitor(ASM_VERSION) {
+          @Override
+          public MethodVisitor visitMethod(
+              int access, String name, String desc, String signature, String[] exceptions) {
+            return new MethodVisitor(ASM_VERSION) {
+              @Override
+              public void visitInvokeDynamicInsn(
+                  String name, String desc, Handle bootstrap, Object... arguments) {
+                boolean hasLocalLambdaMethod = false;
+                for (Object argument : arguments) {
+                  if (argument instanceof Handle) {
+                    Handle handle = (Handle) argument;
+                    hasLocalLambdaMethod |=
+                        handle.getOwner().equals(className)
+                            && handle.getName().startsWith("lambda$");
+                  }
+                }
+                if (!hasLocalLambdaMethod) {
+                  selfContained[0] = false;
+                }
+              }
+            };
+          }
+        },
+        ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    return selfContained[0];
+  }
+
+  private static String computeKey(byte[] classFileBytes, AndroidApp app, InternalOptions options) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(classFileBytes.length);
+    hasher.putBytes(classFileBytes);
+    hasher.putString(
+        (options.debug ? CompilationMode.DEBUG : CompilationMode.RELEASE).name(),
+        StandardCharsets.UTF_8);
+    hasher.putInt(options.minApiLevel);
+    hasher.putBoolean(options.intermediate);
+    hasher.putBoolean(options.enableDesugaring);
+    hasher.putBoolean(options.passthroughDexCode);
+    hasher.putString(options.lineNumberOptimization.name(), StandardCharsets.UTF_8);
+    // Synthesized class names include the bucket id, and the output includes the marker.
+    hasher.putString(Strings.nullToEmpty(app.getBucketId()), StandardCharsets.UTF_8);
+    hasher.putBoolean(options.testing.dontCreateMarkerInD8);
+    hasher.putString(
+        options.hasMarker() ? options.getMarker().toString() : "", StandardCharsets.UTF_8);
+    hasher.putString(Version.getVersionString(), StandardCharsets.UTF_8);
+    return hasher.hash().toString();
+  }
+
+  private Path entryPath(String key) {
+    return directory.resolve(key + ENTRY_EXTENSION);
+  }
+
+  private boolean lookup(
+      String key,
+      String descriptor,
+      DexFilePerClassFileConsumer consumer,
+      DiagnosticsHandler handler) {
+    Path entry = entryPath(key);
+    byte[] data;
+    Set<String> descriptors;
+    try (DataInputStream input = new DataInputStream(Files.newInputStream(entry))) {
+      if (input.readInt() != MAGIC) {
+        return false;
+      }
+      int count = input.readInt();
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (int i = 0; i < count; i++) {
+        builder.add(input.readUTF());
+      }
+      descriptors = builder.build();
+      data = new byte[input.readInt()];
+      input.readFully(data);
+    } catch (IOException e) {
+      // A missing, truncated or concurrently evicted entry is simply a miss.
+      return false;
+    }
+    if (!descriptors.contains(descriptor)) {
+      return false;
+    }
+    try {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // Failing to update the access time only affects the eviction order.
+    }
+    consumer.accept(descriptor, ByteDataView.of(data), descriptors, handler);
+    return true;
+  }
+
+  private void store(String key, ByteDataView data, Set<String> descriptors) {
+    Path entry = entryPath(key);
+    Path temp = null;
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.getLength() + 256);
+      try (DataOutputStream output = new DataOutputStream(bytes)) {
+        output.writeInt(MAGIC);
+        output.writeInt(descriptors.size());
+        for (String descriptor : descriptors) {
+          output.writeUTF(descriptor);
+        }
+        output.writeInt(data.getLength());
+        output.write(data.getBuffer(), data.getOffset(), data.getLength());
+      }
+      temp = Files.createTempFile(directory, key, TEMP_EXTENSION);
+      Files.write(temp, bytes.toByteArray());
+      try {
+        Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temp = null;
+    } catch (IOException e) {
+      // The cache is best effort. Failing to write an entry does not fail the compilation.
+    } finally {
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e) {
+          // Ignore.
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until the cache is within its size limit.
+   *
+   * <p>Like storing entries, eviction is best effort and never fails the compilation.
+   */
+  public void evict() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    List<CacheEntry> entries = new ArrayList<>();
+    long totalSize = 0;
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, "*" + ENTRY_EXTENSION)) {
+      for (Path path : stream) {
+        try {
+          CacheEntry entry =
+              new CacheEntry(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+          entries.add(entry);
+          totalSize += entry.size;
+        } catch (NoSuchFileException e) {
+          // Removed by a concurrent process.
+        }
+      }
+    } catch (IOException e) {
+      return;
+    }
+    if (totalSize <= maxSizeInBytes) {
+      return;
+    }
+    Collections.sort(entries, (a, b) -> Long.compare(a.lastUsed, b.lastUsed));
+    for (CacheEntry entry : entries) {
+      if (totalSize <= maxSizeInBytes) {
+        break;
+      }
+      try {
+        Files.deleteIfExists(entry.path);
+      } catch (IOException e) {
+        // Leave the entry for a later eviction.
+      }
+      totalSize -= entry.size;
+    }
+  }
+
+  private static class CacheCandidate {
+
+    private final ProgramResource resource;
+    private final String descriptor;
+    private final byte[] bytes;
+    private final boolean selfContained;
+
+    private CacheCandidate(
+        ProgramResource resource, String descriptor, byte[] bytes, boolean selfContained) {
+      this.resource = resource;
+      this.descriptor = descriptor;
+      this.bytes = bytes;
+      this.selfContained = selfContained;
+    }
+
+    private ProgramResource toProgramResource() {
+      return ProgramResource.fromBytes(
+          resource.getOrigin(), Kind.CF, bytes, Collections.singleton(descriptor));
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final Path path;
+    private final long size;
+    private final long lastUsed;
+
+    private CacheEntry(Path path, long size, long lastUsed) {
+      this.path = path;
+      this.size = size;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  private class CachingConsumer extends DexFilePerClassFileConsumer.ForwardingConsumer {
+
+    private final Map<String, String> pendingKeys;
+
+    private CachingConsumer(DexFilePerClassFileConsumer consumer, Map<String, String> pendingKeys) {
+      super(consumer);
+      this.pendingKeys = pendingKeys;
+    }
+
+    @Override
+    public void accept(
+        String primaryClassDescriptor,
+        ByteDataView data,
+        Set<String> descriptors,
+        DiagnosticsHandler handler) {
+      String key = pendingKeys.remove(primaryClassDescriptor);
+      if (key != null) {
+        store(key, data, descriptors);
+      }
+      super.accept(primaryClassDescriptor, data, descriptors, handler);
+    }
+  }
+}
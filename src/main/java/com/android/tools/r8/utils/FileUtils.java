@@ -25,6 +25,7 @@ public class FileUtils {
   public static final String JAR_EXTENSION = ".jar";
   public static final String ZIP_EXTENSION = ".zip";
   public static final String JAVA_EXTENSION = ".java";
+  public static final String LIBRARY_SNAPSHOT_EXTENSION = ".r8lib";
   public static final String MODULE_INFO_CLASS = "module-info.class";
 
   public static boolean isDexFile(Path path) {
@@ -61,6 +62,11 @@ public class FileUtils {
     return name.endsWith(APK_EXTENSION);
   }
 
+  public static boolean isLibrarySnapshot(Path path) {
+    String name = path.getFileName().toString().toLowerCase();
+    return name.endsWith(LIBRARY_SNAPSHOT_EXTENSION);
+  }
+
   public static boolean isArchive(Path path) {
     String name = path.getFileName().toString().toLowerCase();
     return name.endsWith(APK_EXTENSION)
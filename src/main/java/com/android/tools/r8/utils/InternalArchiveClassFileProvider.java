@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 /**
@@ -41,7 +42,10 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
   private final Origin origin;
   private final Set<String> descriptors = new HashSet<>();
 
-  private ZipFile openedZipFile = null;
+  // The archive is read from a memory mapping if enabled and its format allows it, otherwise with a
+  // ZipFile.
+  private volatile MappedZipFile openedMappedZipFile = null;
+  private volatile ZipFile openedZipFile = null;
 
   /**
    * Creates a lazy class-file program-resource provider.
@@ -63,16 +67,25 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
     assert isArchive(archive);
     path = archive;
     origin = new PathOrigin(archive);
-    final Enumeration<? extends ZipEntry> entries = getOpenZipFile().entries();
-    while (entries.hasMoreElements()) {
-      ZipEntry entry = entries.nextElement();
-      String name = entry.getName();
-      if (ZipUtils.isClassFile(name) && include.test(name)) {
-        descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
+    open();
+    if (openedMappedZipFile != null) {
+      for (String name : openedMappedZipFile.getEntryNames()) {
+        addDescriptor(name, include);
+      }
+    } else {
+      final Enumeration<? extends ZipEntry> entries = openedZipFile.entries();
+      while (entries.hasMoreElements()) {
+        addDescriptor(entries.nextElement().getName(), include);
       }
     }
   }
 
+  private void addDescriptor(String name, Predicate<String> include) {
+    if (ZipUtils.isClassFile(name) && include.test(name)) {
+      descriptors.add(DescriptorUtils.guessTypeDescriptor(name));
+    }
+  }
+
   @Override
   public Set<String> getClassDescriptors() {
     return Collections.unmodifiableSet(descriptors);
@@ -83,24 +96,44 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
     if (!descriptors.contains(descriptor)) {
       return null;
     }
+    String name = descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION;
     try {
-      ZipEntry zipEntry = getZipEntryFromDescriptor(descriptor);
-      try (InputStream inputStream = getOpenZipFile().getInputStream(zipEntry)) {
-        return ProgramResource.fromBytes(
-            new ArchiveEntryOrigin(zipEntry.getName(), origin),
-            Kind.CF,
-            ByteStreams.toByteArray(inputStream),
-            Collections.singleton(descriptor));
+      open();
+      MappedZipFile mappedZipFile = openedMappedZipFile;
+      byte[] bytes;
+      if (mappedZipFile != null) {
+        bytes = mappedZipFile.getBytes(name);
+      } else {
+        ZipFile zipFile = openedZipFile;
+        try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name))) {
+          bytes = ByteStreams.toByteArray(inputStream);
+        }
       }
+      return ProgramResource.fromBytes(
+          new ArchiveEntryOrigin(name, origin),
+          Kind.CF,
+          bytes,
+          Collections.singleton(descriptor));
     } catch (IOException e) {
       throw new CompilationError("Failed to read '" + descriptor, origin);
     }
   }
 
-  private ZipFile getOpenZipFile() throws IOException {
-    if (openedZipFile == null) {
+  private void open() throws IOException {
+    if (openedMappedZipFile != null || openedZipFile != null) {
+      return;
+    }
+    synchronized (this) {
+      if (openedMappedZipFile != null || openedZipFile != null) {
+        return;
+      }
       try {
-        openedZipFile = new ZipFile(path.toFile(), StandardCharsets.UTF_8);
+        MappedZipFile mappedZipFile = openMappedZipFile();
+        if (mappedZipFile != null) {
+          openedMappedZipFile = mappedZipFile;
+        } else {
+          openedZipFile = new ZipFile(path.toFile(), StandardCharsets.UTF_8);
+        }
       } catch (IOException e) {
         if (!Files.exists(path)) {
           throw new NoSuchFileException(path.toString());
@@ -109,17 +142,29 @@ class InternalArchiveClassFileProvider implements ClassFileResourceProvider, Aut
         }
       }
     }
-    return openedZipFile;
   }
 
-  @Override
-  public void close() throws IOException {
-    openedZipFile.close();
-    openedZipFile = null;
+  private MappedZipFile openMappedZipFile() throws IOException {
+    if (!InternalOptions.shouldEnableMemoryMappedArchiveInput()) {
+      return null;
+    }
+    try {
+      return MappedZipFile.open(path);
+    } catch (ZipException e) {
+      // Leave it to ZipFile to report the malformed archive.
+      return null;
+    }
   }
 
-  private ZipEntry getZipEntryFromDescriptor(String descriptor) throws IOException {
-    return getOpenZipFile()
-        .getEntry(descriptor.substring(1, descriptor.length() - 1) + CLASS_EXTENSION);
+  @Override
+  public synchronized void close() throws IOException {
+    if (openedMappedZipFile != null) {
+      openedMappedZipFile.close();
+      openedMappedZipFile = null;
+    }
+    if (openedZipFile != null) {
+      openedZipFile.close();
+      openedZipFile = null;
+    }
   }
 }
@@ -31,6 +31,7 @@ import com.google.common.base.Equivalence.Wrapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -129,6 +130,14 @@ public class InternalOptions {
   }
 
   public boolean printTimes = System.getProperty("com.android.tools.r8.printtimes") != null;
+  // Record allocated bytes and heap usage per phase in addition to the time.
+  public boolean printMemory = System.getProperty("com.android.tools.r8.printmemory") != null;
+  // If non null, a JSON report of the timings and memory usage per phase is passed to the consumer.
+  public StringConsumer timingReportConsumer = null;
+
+  public boolean isMemoryTrackingInTimingEnabled() {
+    return printMemory || timingReportConsumer != null;
+  }
 
   // Flag to toggle if DEX code objects should pass-through without IR processing.
   public boolean passthroughDexCode = false;
@@ -152,6 +161,25 @@ public class InternalOptions {
   public boolean enableServiceLoaderRewriting = true;
   // TODO(b/120138731): Enable this when it is worthwhile, e.g., combined with Class#forName.
   public boolean enableNameReflectionOptimization = false;
+  // Parse the code of methods that are about to become live in parallel during tree shaking.
+  public boolean enableParallelCodeParsingInEnqueuer =
+      System.getProperty("com.android.tools.r8.parallelCodeParsingInEnqueuer") != null;
+  // Minimum number of pending tracing actions for which parsing in parallel is attempted.
+  public int parallelCodeParsingInEnqueuerThreshold = 16;
+  // Process methods of the call graph as soon as their callees are processed instead of in waves.
+  public boolean enableDependencyDrivenMethodProcessing =
+      System.getProperty("com.android.tools.r8.dependencyDrivenMethodProcessing") != null;
+  // Remember the lookups in the graph lens of each phase instead of walking the chain of lenses.
+  public boolean enableGraphLenseCaching =
+      System.getProperty("com.android.tools.r8.graphLenseCaching") != null;
+  // Parse the code of the program classes in the background while the tree shaker runs.
+  public boolean enableEagerCodeParsing =
+      System.getProperty("com.android.tools.r8.eagerCodeParsing") != null;
+  // Maximum number of classes with code parsed in the background that has not been used yet.
+  public int eagerCodeParsingCapacity = 1024;
+  // Load the classpath and library classes referenced by the program in the background.
+  public boolean enableClassPrefetching =
+      System.getProperty("com.android.tools.r8.classPrefetching") != null;
   public int classInliningInstructionLimit = 50;
   // This defines the limit of instructions in the inlinee
   public int inliningInstructionLimit = 3;
@@ -252,6 +280,9 @@ public class InternalOptions {
     }
   }
 
+  // Experimental directory for caching the output of R8, see CompilationCache.
+  public Path compilationCacheDirectory = getCompilationCacheDirectory();
+
   public Set<String> extensiveLoggingFilter = getExtensiveLoggingFilter();
   public Set<String> extensiveFieldMinifierLoggingFilter = getExtensiveFieldMinifierLoggingFilter();
   public Set<String> extensiveInterfaceMethodMinifierLoggingFilter =
@@ -262,6 +293,17 @@ public class InternalOptions {
   // Skipping min_api check and compiling an intermediate result intended for later merging.
   // Intermediate builds also emits or update synthesized classes mapping.
   public boolean intermediate = false;
+  // Persistent cache of DEX output per class file, only used by D8 (see DexPerClassFileCache).
+  public DexPerClassFileCache dexPerClassFileCache = null;
+  // Maximum number of program classes compiled at a time by D8 when producing a DEX file per class
+  // file, see ProgramChunks and D8Command.Builder#setPerClassFileChunkSize. Zero compiles all
+  // classes at once.
+  public int d8StreamingChunkSize =
+      Integer.getInteger("com.android.tools.r8.d8StreamingChunkSize", 0);
+  // Memory-map DEX inputs that are plain files instead of reading them into the heap. The mappings
+  // are only released when garbage collected, which keeps the input files locked on Windows.
+  public boolean enableMemoryMappedDexInput =
+      System.getProperty("com.android.tools.r8.memoryMappedDexInput") != null;
   public List<String> logArgumentsFilter = ImmutableList.of();
 
   // Flag to turn on/off lambda class merging in R8.
@@ -323,6 +365,19 @@ public class InternalOptions {
 
   public LineNumberOptimization lineNumberOptimization = LineNumberOptimization.ON;
 
+  // Read class file archives from a memory mapping instead of with a ZipFile, see MappedZipFile.
+  // The archive providers are created before the options, so this is not an instance field.
+  public static boolean shouldEnableMemoryMappedArchiveInput() {
+    return System.getProperty("com.android.tools.r8.memoryMappedArchiveInput") != null;
+  }
+
+  // Compress the DEX files of an archive output on the writer threads and write the archive with a
+  // PrecompressedZipWriter, see ArchiveBuilder. The archive consumers are created before the
+  // options, so this is not an instance field.
+  public static boolean shouldEnableParallelArchiveCompression() {
+    return System.getProperty("com.android.tools.r8.parallelArchiveCompression") != null;
+  }
+
   public static boolean shouldEnableKeepRuleSynthesisForRecompilation() {
     return System.getProperty("com.android.tools.r8.keepRuleSynthesisForRecompilation") != null;
   }
@@ -352,6 +407,11 @@ public class InternalOptions {
     return ImmutableSet.of();
   }
 
+  private static Path getCompilationCacheDirectory() {
+    String property = System.getProperty("com.android.tools.r8.compilationCacheDirectory");
+    return property != null ? Paths.get(property) : null;
+  }
+
   private static Set<String> getExtensiveInterfaceMethodMinifierLoggingFilter() {
     String property =
         System.getProperty("com.android.tools.r8.extensiveInterfaceMethodMinifierLoggingFilter");
@@ -0,0 +1,450 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.GenerateLibrarySnapshot;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.errors.CompilationError;
+import com.android.tools.r8.graph.ClassAccessFlags;
+import com.android.tools.r8.graph.ClassKind;
+import com.android.tools.r8.graph.DexAnnotationSet;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DexEncodedField;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexField;
+import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexLibraryClass;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexString;
+import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.DexTypeList;
+import com.android.tools.r8.graph.FieldAccessFlags;
+import com.android.tools.r8.graph.MethodAccessFlags;
+import com.android.tools.r8.graph.ParameterAnnotationsList;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.origin.PathOrigin;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Class file resource provider for a snapshot of library classes written by {@link
+ * GenerateLibrarySnapshot}.
+ *
+ * <p>A snapshot holds the class hierarchy, the member signatures and the access flags of the
+ * library classes. Code, annotations and other attributes are not part of the snapshot. The
+ * compiler creates the classes directly from the memory mapped snapshot when they are first
+ * needed, without parsing class files. For other users, the provider returns class files with the
+ * same declarations.
+ *
+ * <p>The snapshot starts with a header of four ints: a magic number, the format version, the
+ * number of strings and the number of classes. The header is followed by the offsets of the
+ * strings, and by the index of the descriptor string and the offset of the record of each class.
+ * Each string is its length in UTF-16 followed by its modified UTF-8 encoding as written by {@link
+ * DataOutputStream#writeUTF}. A class record holds the class file version, the access flags, the
+ * type, the super type (-1 for none) and the interfaces. It then holds the static fields, instance
+ * fields, direct methods and virtual methods, each list preceded by its length. All references to
+ * names and types are indices of strings.
+ */
+public class LibrarySnapshotClassFileProvider implements ClassFileResourceProvider {
+
+  private static final int MAGIC = 0x52384c53;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+
+  private final Origin origin;
+  private final ByteBuffer buffer;
+  private final int stringCount;
+  private final Map<String, Integer> recordOffsets = new HashMap<>();
+
+  public LibrarySnapshotClassFileProvider(Path snapshot) throws IOException {
+    origin = new PathOrigin(snapshot);
+    try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.limit() < HEADER_SIZE
+        || buffer.getInt(0) != MAGIC
+        || buffer.getInt(4) != VERSION) {
+      throw new CompilationError("Not a library snapshot of version " + VERSION, origin);
+    }
+    stringCount = buffer.getInt(8);
+    int classCount = buffer.getInt(12);
+    int classTable = HEADER_SIZE + 4 * stringCount;
+    for (int i = 0; i < classCount; i++) {
+      int entry = classTable + 8 * i;
+      recordOffsets.put(readString(buffer.getInt(entry)), buffer.getInt(entry + 4));
+    }
+  }
+
+  @Override
+  public Set<String> getClassDescriptors() {
+    return Collections.unmodifiableSet(recordOffsets.keySet());
+  }
+
+  @Override
+  public ProgramResource getProgramResource(String descriptor) {
+    Integer offset = recordOffsets.get(descriptor);
+    if (offset == null) {
+      return null;
+    }
+    return ProgramResource.fromBytes(
+        origin, Kind.CF, createClassFile(offset), Collections.singleton(descriptor));
+  }
+
+  /** Returns a reader creating classes with the given factory. */
+  public Reader createReader(DexItemFactory factory) {
+    return new Reader(factory);
+  }
+
+  private int getStringOffset(int index) {
+    assert 0 <= index && index < stringCount;
+    return buffer.getInt(HEADER_SIZE + 4 * index);
+  }
+
+  // Returns the modified UTF-8 encoding of the string preceded by its length, skipping its length
+  // in UTF-16.
+  private byte[] readEncodedString(int index) {
+    int offset = getStringOffset(index) + 4;
+    byte[] bytes = new byte[2 + (buffer.getShort(offset) & 0xffff)];
+    ByteBuffer view = buffer.duplicate();
+    ((Buffer) view).position(offset);
+    view.get(bytes);
+    return bytes;
+  }
+
+  private String readString(int index) {
+    try {
+      return new DataInputStream(new ByteArrayInputStream(readEncodedString(index))).readUTF();
+    } catch (IOException e) {
+      throw new CompilationError("Invalid string in library snapshot", e, origin);
+    }
+  }
+
+  private String readTypeName(int index) {
+    return DescriptorUtils.getClassBinaryNameFromDescriptor(readString(index));
+  }
+
+  private byte[] createClassFile(int offset) {
+    Record record = new Record(offset);
+    ClassWriter writer = new ClassWriter(0);
+    int superType = record.next();
+    String[] interfaces = new String[record.next()];
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaces[i] = readTypeName(record.next());
+    }
+    writer.visit(
+        record.classFileVersion,
+        record.access,
+        readTypeName(record.type),
+        null,
+        superType < 0 ? null : readTypeName(superType),
+        interfaces);
+    for (int list = 0; list < 2; list++) {
+      int count = record.next();
+      for (int i = 0; i < count; i++) {
+        int access = record.next();
+        String name = readString(record.next());
+        writer.visitField(access, name, readString(record.next()), null, null).visitEnd();
+      }
+    }
+    for (int list = 0; list < 2; list++) {
+      int count = record.next();
+      for (int i = 0; i < count; i++) {
+        int access = record.next();
+        String name = readString(record.next());
+        String returnType = readString(record.next());
+        StringBuilder descriptor = new StringBuilder("(");
+        int parameterCount = record.next();
+        for (int j = 0; j < parameterCount; j++) {
+          descriptor.append(readString(record.next()));
+        }
+        descriptor.append(')').append(returnType);
+        writer.visitMethod(access, name, descriptor.toString(), null, null).visitEnd();
+      }
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /** Reads the ints of a class record in order. */
+  private class Record {
+
+    private int position;
+
+    final int classFileVersion;
+    final int access;
+    final int type;
+
+    Record(int offset) {
+      position = offset;
+      classFileVersion = next();
+      access = next();
+      type = next();
+    }
+
+    int next() {
+      int value = buffer.getInt(position);
+      position += 4;
+      return value;
+    }
+  }
+
+  /**
+   * Creates the classes of the snapshot for a compilation.
+   *
+   * <p>The strings of the snapshot are created in the factory of the compilation on first use.
+   */
+  public class Reader {
+
+    private final DexItemFactory factory;
+    private final DexString[] strings;
+
+    private Reader(DexItemFactory factory) {
+      this.factory = factory;
+      this.strings = new DexString[stringCount];
+    }
+
+    private DexString getString(int index) {
+      // Strings are canonicalized by the factory, so racing threads store the same string.
+      DexString string = strings[index];
+      if (string == null) {
+        byte[] encoded = readEncodedString(index);
+        // Replace the length with the terminating zero of the encoding used by DexString.
+        byte[] content = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 2, content, 0, encoded.length - 2);
+        string = factory.createString(buffer.getInt(getStringOffset(index)), content);
+        strings[index] = string;
+      }
+      return string;
+    }
+
+    private DexType getType(int index) {
+      return factory.createType(getString(index));
+    }
+
+    /** Creates the class of the given type if it is in the snapshot, otherwise returns null. */
+    public DexClass createClass(DexType type, ClassKind classKind) {
+      Integer offset = recordOffsets.get(type.toDescriptorString());
+      if (offset == null) {
+        return null;
+      }
+      Record record = new Record(offset);
+      assert getType(record.type) == type;
+      int superType = record.next();
+      DexType[] interfaces = new DexType[record.next()];
+      for (int i = 0; i < interfaces.length; i++) {
+        interfaces[i] = getType(record.next());
+      }
+      DexEncodedField[] staticFields = createFields(record, type);
+      DexEncodedField[] instanceFields = createFields(record, type);
+      DexEncodedMethod[] directMethods = createMethods(record, type);
+      DexEncodedMethod[] virtualMethods = createMethods(record, type);
+      return classKind.create(
+          type,
+          Kind.CF,
+          origin,
+          ClassAccessFlags.fromCfAccessFlags(record.access),
+          superType < 0 ? null : getType(superType),
+          interfaces.length == 0 ? DexTypeList.empty() : new DexTypeList(interfaces),
+          null,
+          null,
+          Collections.emptyList(),
+          null,
+          Collections.emptyList(),
+          DexAnnotationSet.empty(),
+          staticFields,
+          instanceFields,
+          directMethods,
+          virtualMethods,
+          factory.getSkipNameValidationForTesting());
+    }
+
+    private DexEncodedField[] createFields(Record record, DexType holder) {
+      DexEncodedField[] fields = new DexEncodedField[record.next()];
+      for (int i = 0; i < fields.length; i++) {
+        FieldAccessFlags flags = FieldAccessFlags.fromCfAccessFlags(record.next());
+        DexString name = getString(record.next());
+        DexField field = factory.createField(holder, getType(record.next()), name);
+        fields[i] = new DexEncodedField(field, flags, DexAnnotationSet.empty(), null);
+      }
+      return fields;
+    }
+
+    private DexEncodedMethod[] createMethods(Record record, DexType holder) {
+      DexEncodedMethod[] methods = new DexEncodedMethod[record.next()];
+      for (int i = 0; i < methods.length; i++) {
+        int access = record.next();
+        DexString name = getString(record.next());
+        DexType returnType = getType(record.next());
+        DexType[] parameters = new DexType[record.next()];
+        for (int j = 0; j < parameters.length; j++) {
+          parameters[j] = getType(record.next());
+        }
+        DexMethod method =
+            factory.createMethod(holder, factory.createProto(returnType, parameters), name);
+        boolean isConstructor =
+            name == factory.constructorMethodName || name == factory.classConstructorMethodName;
+        methods[i] =
+            new DexEncodedMethod(
+                method,
+                MethodAccessFlags.fromCfAccessFlags(access, isConstructor),
+                DexAnnotationSet.empty(),
+                ParameterAnnotationsList.empty(),
+                null,
+                record.classFileVersion);
+      }
+      return methods;
+    }
+  }
+
+  /** Writes a snapshot of the given library classes. */
+  public static void write(Collection<DexLibraryClass> classes, Path output) throws IOException {
+    List<DexLibraryClass> sortedClasses = new ArrayList<>(classes);
+    sortedClasses.sort(Comparator.comparing(clazz -> clazz.type.toDescriptorString()));
+    Map<DexString, Integer> stringIndices = new IdentityHashMap<>();
+    List<DexString> strings = new ArrayList<>();
+    ByteArrayOutputStream records = new ByteArrayOutputStream();
+    DataOutputStream recordsOut = new DataOutputStream(records);
+    StringTable writer = new StringTable(stringIndices, strings, recordsOut);
+    int[] recordOffsets = new int[sortedClasses.size()];
+    for (int i = 0; i < sortedClasses.size(); i++) {
+      DexLibraryClass clazz = sortedClasses.get(i);
+      recordOffsets[i] = recordsOut.size();
+      recordsOut.writeInt(getClassFileVersion(clazz));
+      recordsOut.writeInt(clazz.accessFlags.getAsCfAccessFlags());
+      writer.write(clazz.type.descriptor);
+      recordsOut.writeInt(
+          clazz.superType == null ? -1 : writer.indexOf(clazz.superType.descriptor));
+      recordsOut.writeInt(clazz.interfaces.size());
+      for (DexType iface : clazz.interfaces.values) {
+        writer.write(iface.descriptor);
+      }
+      writeFields(clazz.staticFields(), writer);
+      writeFields(clazz.instanceFields(), writer);
+      writeMethods(clazz.directMethods(), writer);
+      writeMethods(clazz.virtualMethods(), writer);
+    }
+
+    ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+    DataOutputStream stringsOut = new DataOutputStream(stringBytes);
+    int stringsStart = HEADER_SIZE + 4 * strings.size() + 8 * sortedClasses.size();
+    int[] stringOffsets = new int[strings.size()];
+    for (int i = 0; i < strings.size(); i++) {
+      DexString string = strings.get(i);
+      // The content of a DexString has a terminating zero.
+      int length = string.content.length - 1;
+      if (length > 0xffff) {
+        throw new CompilationError("String too long for library snapshot: " + string);
+      }
+      stringOffsets[i] = stringsStart + stringsOut.size();
+      stringsOut.writeInt(string.size);
+      stringsOut.writeShort(length);
+      stringsOut.write(string.content, 0, length);
+    }
+    int recordsStart = stringsStart + stringsOut.size();
+
+    try (OutputStream file = Files.newOutputStream(output)) {
+      DataOutputStream out = new DataOutputStream(file);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(strings.size());
+      out.writeInt(sortedClasses.size());
+      for (int offset : stringOffsets) {
+        out.writeInt(offset);
+      }
+      for (int i = 0; i < sortedClasses.size(); i++) {
+        out.writeInt(stringIndices.get(sortedClasses.get(i).type.descriptor));
+        out.writeInt(recordsStart + recordOffsets[i]);
+      }
+      stringBytes.writeTo(out);
+      records.writeTo(out);
+      out.flush();
+    }
+  }
+
+  // The class file version is only kept on the methods of a class. Classes without methods are
+  // written with the version of Java 8.
+  private static int getClassFileVersion(DexClass clazz) {
+    for (DexEncodedMethod method : clazz.methods()) {
+      if (method.hasClassFileVersion()) {
+        return method.getClassFileVersion();
+      }
+    }
+    return Opcodes.V1_8;
+  }
+
+  private static void writeFields(List<DexEncodedField> fields, StringTable writer)
+      throws IOException {
+    writer.out.writeInt(fields.size());
+    for (DexEncodedField field : fields) {
+      writer.out.writeInt(field.accessFlags.getAsCfAccessFlags());
+      writer.write(field.field.name);
+      writer.write(field.field.type.descriptor);
+    }
+  }
+
+  private static void writeMethods(List<DexEncodedMethod> methods, StringTable writer)
+      throws IOException {
+    writer.out.writeInt(methods.size());
+    for (DexEncodedMethod method : methods) {
+      writer.out.writeInt(method.accessFlags.getAsCfAccessFlags());
+      writer.write(method.method.name);
+      writer.write(method.method.proto.returnType.descriptor);
+      writer.out.writeInt(method.method.proto.parameters.size());
+      for (DexType parameter : method.method.proto.parameters.values) {
+        writer.write(parameter.descriptor);
+      }
+    }
+  }
+
+  /** Writes the indices of strings, adding the strings to the string table on first use. */
+  private static class StringTable {
+
+    private final Map<DexString, Integer> indices;
+    private final List<DexString> strings;
+    private final DataOutputStream out;
+
+    StringTable(Map<DexString, Integer> indices, List<DexString> strings, DataOutputStream out) {
+      this.indices = indices;
+      this.strings = strings;
+      this.out = out;
+    }
+
+    int indexOf(DexString string) {
+      return indices.computeIfAbsent(
+          string,
+          ignore -> {
+            strings.add(string);
+            return strings.size() - 1;
+          });
+    }
+
+    void write(DexString string) throws IOException {
+      out.writeInt(indexOf(string));
+    }
+  }
+}
@@ -0,0 +1,245 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Zip archive read from a memory mapping of the archive file.
+ *
+ * <p>Unlike {@link java.util.zip.ZipFile}, reading an entry takes no lock, so threads can read
+ * entries concurrently. Stored entries are copied out of the mapping directly, and deflated
+ * entries are inflated into an array of the size of the entry with an inflater taken from a pool.
+ *
+ * <p>Only the common subset of the zip format is supported: archives smaller than 2GB without
+ * zip64 records or encrypted entries. {@link #open} returns null for other archives, and throws a
+ * {@link ZipException} for malformed archives. Both should then be read with {@link
+ * java.util.zip.ZipFile}.
+ *
+ * <p>The mapping is only released when it is garbage collected, not by {@link #close}. Until then
+ * the archive file stays locked on Windows, and truncating it crashes the VM instead of raising an
+ * I/O error. The mapped reader is therefore only used when enabled by {@link
+ * InternalOptions#shouldEnableMemoryMappedArchiveInput}.
+ */
+public class MappedZipFile implements Closeable {
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_HEADER_SIGNATURE = 0x06054b50;
+  private static final int END_HEADER_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xffff;
+
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+  private static final int ENCRYPTED_FLAG = 1;
+
+  private static class Entry {
+
+    final int method;
+    final int compressedSize;
+    final int size;
+    final int localHeaderOffset;
+
+    Entry(int method, int compressedSize, int size, int localHeaderOffset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+  private final ByteBuffer buffer;
+  private final Map<String, Entry> entries;
+  private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+  private MappedZipFile(ByteBuffer buffer, Map<String, Entry> entries) {
+    this.buffer = buffer;
+    this.entries = entries;
+  }
+
+  /**
+   * Returns the archive at the given path, or null if its format is not supported.
+   *
+   * @throws ZipException if the central directory of the archive is malformed.
+   */
+  public static MappedZipFile open(Path path) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        return null;
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    Map<String, Entry> entries = readCentralDirectory(buffer);
+    return entries == null ? null : new MappedZipFile(buffer, entries);
+  }
+
+  private static Map<String, Entry> readCentralDirectory(ByteBuffer buffer) throws ZipException {
+    int end = findEndHeader(buffer);
+    if (end < 0) {
+      return null;
+    }
+    int entryCount = getUnsignedShort(buffer, end + 10);
+    long directorySize = getUnsignedInt(buffer, end + 12);
+    long directoryOffset = getUnsignedInt(buffer, end + 16);
+    if (entryCount == 0xffff
+        || directorySize == 0xffffffffL
+        || directoryOffset == 0xffffffffL
+        || directoryOffset + directorySize > end) {
+      // Zip64 archive.
+      return null;
+    }
+    Map<String, Entry> entries = new LinkedHashMap<>(2 * entryCount);
+    int position = (int) directoryOffset;
+    for (int i = 0; i < entryCount; i++) {
+      if (position + CENTRAL_HEADER_SIZE > end
+          || buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+        throw new ZipException("Invalid central directory header");
+      }
+      int flags = getUnsignedShort(buffer, position + 8);
+      int method = getUnsignedShort(buffer, position + 10);
+      long compressedSize = getUnsignedInt(buffer, position + 20);
+      long size = getUnsignedInt(buffer, position + 24);
+      int nameLength = getUnsignedShort(buffer, position + 28);
+      int extraLength = getUnsignedShort(buffer, position + 30);
+      int commentLength = getUnsignedShort(buffer, position + 32);
+      long localHeaderOffset = getUnsignedInt(buffer, position + 42);
+      if ((flags & ENCRYPTED_FLAG) != 0
+          || (method != STORED && method != DEFLATED)
+          || compressedSize > Integer.MAX_VALUE
+          || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      if (localHeaderOffset + LOCAL_HEADER_SIZE > directoryOffset
+          || position + CENTRAL_HEADER_SIZE + nameLength > end) {
+        throw new ZipException("Invalid central directory header");
+      }
+      byte[] name = new byte[nameLength];
+      getBytes(buffer, position + CENTRAL_HEADER_SIZE, name);
+      entries.putIfAbsent(
+          new String(name, StandardCharsets.UTF_8),
+          new Entry(method, (int) compressedSize, (int) size, (int) localHeaderOffset));
+      position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return entries;
+  }
+
+  private static int findEndHeader(ByteBuffer buffer) {
+    int last = buffer.limit() - END_HEADER_SIZE;
+    int first = Math.max(0, last - MAX_COMMENT_SIZE);
+    for (int position = last; position >= first; position--) {
+      if (buffer.getInt(position) == END_HEADER_SIGNATURE) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  private static int getUnsignedShort(ByteBuffer buffer, int position) {
+    return buffer.getShort(position) & 0xffff;
+  }
+
+  private static long getUnsignedInt(ByteBuffer buffer, int position) {
+    return buffer.getInt(position) & 0xffffffffL;
+  }
+
+  private static void getBytes(ByteBuffer buffer, int position, byte[] bytes) {
+    // Bulk reads use the position of the buffer, so read from a view to stay thread safe.
+    ByteBuffer view = buffer.duplicate();
+    ((Buffer) view).position(position);
+    view.get(bytes);
+  }
+
+  /** Returns the names of the entries, in the order of the central directory. */
+  public Set<String> getEntryNames() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  public boolean hasEntry(String name) {
+    return entries.containsKey(name);
+  }
+
+  /** Returns the uncompressed content of the entry, or null if there is no such entry. */
+  public byte[] getBytes(String name) throws IOException {
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      return null;
+    }
+    // The central directory only refers to local headers that fit before it.
+    int header = entry.localHeaderOffset;
+    if (buffer.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+      throw new ZipException("Invalid local header for entry " + name);
+    }
+    // The extra field of the local header may differ from the one in the central directory.
+    long data =
+        (long) header
+            + LOCAL_HEADER_SIZE
+            + getUnsignedShort(buffer, header + 26)
+            + getUnsignedShort(buffer, header + 28);
+    if (data + entry.compressedSize > buffer.limit()) {
+      throw new ZipException("Truncated entry " + name);
+    }
+    byte[] result = new byte[entry.size];
+    if (entry.method == STORED) {
+      getBytes(buffer, (int) data, result);
+      return result;
+    }
+    byte[] compressed = new byte[entry.compressedSize];
+    getBytes(buffer, (int) data, compressed);
+    Inflater inflater = inflaters.poll();
+    if (inflater == null) {
+      inflater = new Inflater(true);
+    }
+    try {
+      inflater.setInput(compressed);
+      int size = 0;
+      while (size < result.length) {
+        int inflated = inflater.inflate(result, size, result.length - size);
+        if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+          break;
+        }
+        size += inflated;
+      }
+      if (size != result.length) {
+        throw new ZipException("Invalid size of entry " + name);
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException("Invalid deflated data in entry " + name + ": " + e.getMessage());
+    } finally {
+      inflater.reset();
+      inflaters.add(inflater);
+    }
+    return result;
+  }
+
+  /** Releases the pooled inflaters. The mapping itself is released when garbage collected. */
+  @Override
+  public void close() {
+    Inflater inflater;
+    while ((inflater = inflaters.poll()) != null) {
+      inflater.end();
+    }
+  }
+}
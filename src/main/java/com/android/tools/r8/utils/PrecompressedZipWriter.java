@@ -0,0 +1,236 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.DataResource;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Minimal zip writer for entries that have been compressed up front.
+ *
+ * <p>Unlike {@link java.util.zip.ZipOutputStream}, which deflates the content of an entry while it
+ * is written, this writer only appends entries that were already compressed with {@link
+ * #deflate(String, ByteDataView)}. Compression does not touch the writer, so the entries of an
+ * archive can be compressed in parallel and only the appending needs to be serialized.
+ */
+class PrecompressedZipWriter implements Closeable {
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+  private static final int VERSION = 20;
+  private static final int VERSION_ZIP64 = 45;
+  // Entry names are always UTF-8 encoded.
+  private static final int FLAG_UTF8 = 0x800;
+  // All entries have the time 0, which is stored as the earliest DOS time 1980-01-01 00:00.
+  private static final int DOS_TIME = 0;
+  private static final int DOS_DATE = (1 << 5) | 1;
+
+  private static final long MAX_UINT16 = 0xffffL;
+  private static final long MAX_UINT32 = 0xffffffffL;
+
+  /** An entry with its content compressed and ready to be written. */
+  static class Entry {
+    private final String name;
+    private final byte[] encodedName;
+    private final int method;
+    private final long crc;
+    private final int size;
+    private final byte[] data;
+    private final int dataLength;
+
+    private Entry(String name, int method, long crc, int size, byte[] data, int dataLength) {
+      this.name = name;
+      this.encodedName = name.getBytes(StandardCharsets.UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.data = data;
+      this.dataLength = dataLength;
+    }
+  }
+
+  // Everything but the data of a written entry, which is not retained once written.
+  private static class CentralDirectoryRecord {
+    private final byte[] encodedName;
+    private final int method;
+    private final long crc;
+    private final int size;
+    private final int dataLength;
+    private final long offset;
+
+    CentralDirectoryRecord(Entry entry, long offset) {
+      this.encodedName = entry.encodedName;
+      this.method = entry.method;
+      this.crc = entry.crc;
+      this.size = entry.size;
+      this.dataLength = entry.dataLength;
+      this.offset = offset;
+    }
+  }
+
+  private final OutputStream out;
+  private final Set<String> names = new HashSet<>();
+  private final List<CentralDirectoryRecord> records = new ArrayList<>();
+  private long written = 0;
+
+  PrecompressedZipWriter(OutputStream out) {
+    this.out = new BufferedOutputStream(out);
+  }
+
+  /** Deflate the content of a file entry. Safe to call concurrently. */
+  static Entry deflate(String name, ByteDataView content) {
+    byte[] buffer = content.getBuffer();
+    int offset = content.getOffset();
+    int length = content.getLength();
+    CRC32 crc = new CRC32();
+    crc.update(buffer, offset, length);
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(buffer, offset, length);
+      deflater.finish();
+      byte[] data = new byte[Math.max(64, length / 2)];
+      int dataLength = 0;
+      while (!deflater.finished()) {
+        if (dataLength == data.length) {
+          byte[] newData = new byte[data.length * 2];
+          System.arraycopy(data, 0, newData, 0, dataLength);
+          data = newData;
+        }
+        dataLength += deflater.deflate(data, dataLength, data.length - dataLength);
+      }
+      return new Entry(name, ZipEntry.DEFLATED, crc.getValue(), length, data, dataLength);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /** Create a directory entry. */
+  static Entry directory(String name) {
+    if (name.charAt(name.length() - 1) != DataResource.SEPARATOR) {
+      name += DataResource.SEPARATOR;
+    }
+    return new Entry(name, ZipEntry.STORED, 0, 0, new byte[0], 0);
+  }
+
+  /** Append an entry to the archive. Entries are appended in the order of the calls. */
+  void write(Entry entry) throws IOException {
+    if (!names.add(entry.name)) {
+      throw new ZipException("duplicate entry: " + entry.name);
+    }
+    records.add(new CentralDirectoryRecord(entry, written));
+    writeInt(LOCAL_HEADER_SIGNATURE);
+    writeShort(VERSION);
+    writeShort(FLAG_UTF8);
+    writeShort(entry.method);
+    writeShort(DOS_TIME);
+    writeShort(DOS_DATE);
+    writeInt((int) entry.crc);
+    writeInt(entry.dataLength);
+    writeInt(entry.size);
+    writeShort(entry.encodedName.length);
+    writeShort(0);
+    writeBytes(entry.encodedName, entry.encodedName.length);
+    writeBytes(entry.data, entry.dataLength);
+  }
+
+  @Override
+  public void close() throws IOException {
+    long centralDirectoryOffset = written;
+    for (CentralDirectoryRecord record : records) {
+      boolean zip64 = record.offset >= MAX_UINT32;
+      writeInt(CENTRAL_HEADER_SIGNATURE);
+      writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+      writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+      writeShort(FLAG_UTF8);
+      writeShort(record.method);
+      writeShort(DOS_TIME);
+      writeShort(DOS_DATE);
+      writeInt((int) record.crc);
+      writeInt(record.dataLength);
+      writeInt(record.size);
+      writeShort(record.encodedName.length);
+      writeShort(zip64 ? 12 : 0);
+      writeShort(0); // Comment length.
+      writeShort(0); // Disk number.
+      writeShort(0); // Internal attributes.
+      writeInt(0); // External attributes.
+      writeInt((int) Math.min(record.offset, MAX_UINT32));
+      writeBytes(record.encodedName, record.encodedName.length);
+      if (zip64) {
+        writeShort(0x0001); // Zip64 extended information.
+        writeShort(8);
+        writeLong(record.offset);
+      }
+    }
+    long centralDirectorySize = written - centralDirectoryOffset;
+    long entries = records.size();
+    if (entries >= MAX_UINT16
+        || centralDirectoryOffset >= MAX_UINT32
+        || centralDirectorySize >= MAX_UINT32) {
+      long zip64EndOffset = written;
+      writeInt(ZIP64_END_SIGNATURE);
+      writeLong(44); // Size of the remaining record.
+      writeShort(VERSION_ZIP64);
+      writeShort(VERSION_ZIP64);
+      writeInt(0); // Disk number.
+      writeInt(0); // Disk with the central directory.
+      writeLong(entries);
+      writeLong(entries);
+      writeLong(centralDirectorySize);
+      writeLong(centralDirectoryOffset);
+      writeInt(ZIP64_LOCATOR_SIGNATURE);
+      writeInt(0); // Disk with the zip64 end record.
+      writeLong(zip64EndOffset);
+      writeInt(1); // Number of disks.
+    }
+    writeInt(END_SIGNATURE);
+    writeShort(0); // Disk number.
+    writeShort(0); // Disk with the central directory.
+    writeShort((int) Math.min(entries, MAX_UINT16));
+    writeShort((int) Math.min(entries, MAX_UINT16));
+    writeInt((int) Math.min(centralDirectorySize, MAX_UINT32));
+    writeInt((int) Math.min(centralDirectoryOffset, MAX_UINT32));
+    writeShort(0); // Comment length.
+    out.close();
+  }
+
+  private void writeShort(int value) throws IOException {
+    out.write(value & 0xff);
+    out.write((value >>> 8) & 0xff);
+    written += 2;
+  }
+
+  private void writeInt(int value) throws IOException {
+    writeShort(value & 0xffff);
+    writeShort((value >>> 16) & 0xffff);
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt((int) value);
+    writeInt((int) (value >>> 32));
+  }
+
+  private void writeBytes(byte[] bytes, int length) throws IOException {
+    out.write(bytes, 0, length);
+    written += length;
+  }
+}
@@ -0,0 +1,190 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.ProgramResourceProvider;
+import com.android.tools.r8.ResourceException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Splits the class-file inputs of a D8 compilation into chunks that are compiled one after the
+ * other.
+ *
+ * <p>When producing a DEX file per class file, the output for a class does not depend on the other
+ * program classes being compiled in the same compilation, as long as they are available on the
+ * classpath. Each chunk holds at most {@link InternalOptions#d8StreamingChunkSize} program classes
+ * and has the program classes of the other chunks on its classpath, so only the classes and code
+ * of one chunk, and the synthetic classes derived from them, are live at a time.
+ *
+ * <p>The chunks follow the order of the inputs, and synthetic classes are named from their
+ * primary class or from the method they implement, so the output does not depend on the chunk
+ * size. A synthetic utility class that is used by several chunks is generated by each of them, and
+ * only the first copy is passed on by the {@link ChunkConsumer}.
+ */
+public class ProgramChunks {
+
+  public static boolean isApplicable(InternalOptions options) {
+    return options.d8StreamingChunkSize > 0
+        && options.isGeneratingDexFilePerClassFile()
+        && !options.hasMethodsFilter();
+  }
+
+  /**
+   * Returns the chunks of {@param app}, or null if the program has too few classes to be split or
+   * has inputs other than class files defining a single class.
+   *
+   * <p>The data resources of the program are only part of the first chunk.
+   */
+  public static List<AndroidApp> split(AndroidApp app, InternalOptions options)
+      throws IOException {
+    assert isApplicable(options);
+    try {
+      return splitInternal(app, options.d8StreamingChunkSize);
+    } catch (ResourceException e) {
+      throw options.reporter.fatalError(new StringDiagnostic(e.getMessage(), e.getOrigin()));
+    }
+  }
+
+  private static List<AndroidApp> splitInternal(AndroidApp app, int chunkSize)
+      throws IOException, ResourceException {
+    Map<String, ProgramResource> resources = new LinkedHashMap<>();
+    for (ProgramResourceProvider provider : app.getProgramResourceProviders()) {
+      for (ProgramResource resource : provider.getProgramResources()) {
+        Set<String> descriptors = resource.getClassDescriptors();
+        if (resource.getKind() != Kind.CF || (descriptors != null && descriptors.size() != 1)) {
+          return null;
+        }
+        byte[] bytes;
+        try (InputStream stream = resource.getByteStream()) {
+          bytes = ByteStreams.toByteArray(stream);
+        }
+        String descriptor =
+            descriptors != null
+                ? descriptors.iterator().next()
+                : DescriptorUtils.getDescriptorFromClassBinaryName(
+                    new ClassReader(bytes).getClassName());
+        ProgramResource previous =
+            resources.put(
+                descriptor,
+                ProgramResource.fromBytes(
+                    resource.getOrigin(), Kind.CF, bytes, Collections.singleton(descriptor)));
+        if (previous != null) {
+          // Leave duplicate definitions to the compiler for reporting.
+          return null;
+        }
+      }
+    }
+    if (resources.size() <= chunkSize) {
+      return null;
+    }
+    List<AndroidApp> chunks = new ArrayList<>();
+    List<ProgramResource> chunk = new ArrayList<>(chunkSize);
+    for (ProgramResource resource : resources.values()) {
+      chunk.add(resource);
+      if (chunk.size() == chunkSize) {
+        chunks.add(createChunk(app, resources, chunk, chunks.isEmpty()));
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+    if (!chunk.isEmpty()) {
+      chunks.add(createChunk(app, resources, chunk, chunks.isEmpty()));
+    }
+    return chunks;
+  }
+
+  private static AndroidApp createChunk(
+      AndroidApp app,
+      Map<String, ProgramResource> resources,
+      List<ProgramResource> chunk,
+      boolean isFirst) {
+    Set<String> descriptors = new HashSet<>();
+    for (ProgramResource resource : chunk) {
+      descriptors.addAll(resource.getClassDescriptors());
+    }
+    AndroidApp.Builder builder = AndroidApp.builder(app);
+    List<ProgramResourceProvider> providers = builder.getProgramResourceProviders();
+    List<ProgramResourceProvider> originalProviders = ImmutableList.copyOf(providers);
+    providers.clear();
+    if (isFirst) {
+      for (ProgramResourceProvider provider : originalProviders) {
+        providers.add(new DataOnlyProgramResourceProvider(provider));
+      }
+    }
+    List<ProgramResource> finalChunk = ImmutableList.copyOf(chunk);
+    providers.add(() -> finalChunk);
+    builder.addClasspathResourceProvider(new OtherProgramClassesProvider(resources, descriptors));
+    builder.setBucketId(app.getBucketId());
+    return builder.build();
+  }
+
+  /**
+   * Program consumer shared by the compilations of all chunks. The original consumer is finished
+   * by the caller once all chunks have been compiled.
+   */
+  public static class ChunkConsumer extends DexFilePerClassFileConsumer.ForwardingConsumer {
+
+    private final Set<String> consumedDescriptors = Sets.newConcurrentHashSet();
+
+    public ChunkConsumer(DexFilePerClassFileConsumer consumer) {
+      super(consumer);
+    }
+
+    @Override
+    public void accept(
+        String primaryClassDescriptor,
+        ByteDataView data,
+        Set<String> descriptors,
+        DiagnosticsHandler handler) {
+      if (consumedDescriptors.add(primaryClassDescriptor)) {
+        super.accept(primaryClassDescriptor, data, descriptors, handler);
+      }
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) {
+      // Called for each chunk.
+    }
+  }
+
+  /** Provides the program classes that are not part of a chunk as classpath classes. */
+  private static class OtherProgramClassesProvider implements ClassFileResourceProvider {
+
+    private final Map<String, ProgramResource> resources;
+    private final Set<String> excluded;
+
+    private OtherProgramClassesProvider(
+        Map<String, ProgramResource> resources, Set<String> excluded) {
+      this.resources = resources;
+      this.excluded = excluded;
+    }
+
+    @Override
+    public Set<String> getClassDescriptors() {
+      return Sets.difference(resources.keySet(), excluded);
+    }
+
+    @Override
+    public ProgramResource getProgramResource(String descriptor) {
+      return excluded.contains(descriptor) ? null : resources.get(descriptor);
+    }
+  }
+}
@@ -19,6 +19,7 @@ public class Reporter implements DiagnosticsHandler {
   private int errorCount = 0;
   private Diagnostic lastError;
   private final Collection<Throwable> suppressedExceptions = new ArrayList<>();
+  private DiagnosticsHandler recorder = null;
 
   public Reporter() {
     this(new DiagnosticsHandler() {});
@@ -28,14 +29,25 @@ public class Reporter implements DiagnosticsHandler {
     this.clientHandler = clientHandler;
   }
 
+  /** Sets a handler that is passed the info and warning diagnostics in addition to the client. */
+  public synchronized void setRecorder(DiagnosticsHandler recorder) {
+    this.recorder = recorder;
+  }
+
   @Override
   public synchronized void info(Diagnostic info) {
     clientHandler.info(info);
+    if (recorder != null) {
+      recorder.info(info);
+    }
   }
 
   @Override
   public synchronized void warning(Diagnostic warning) {
     clientHandler.warning(warning);
+    if (recorder != null) {
+      recorder.warning(warning);
+    }
   }
 
   @Override
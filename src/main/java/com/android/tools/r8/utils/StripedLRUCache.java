@@ -0,0 +1,141 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache with least-recently-used eviction.
+ *
+ * <p>Keys are distributed over a number of stripes by their hash code. Each stripe is an
+ * access-ordered map with its own lock and capacity, so threads that access different stripes do
+ * not contend, and eviction is least-recently-used per stripe.
+ */
+public class StripedLRUCache<K, V> {
+
+  private static class Stripe<K, V> {
+    // Access-ordered, so the first entry is the least recently used.
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final int capacity;
+    private final LongAdder evictions;
+
+    Stripe(int capacity, LongAdder evictions) {
+      this.capacity = capacity;
+      this.evictions = evictions;
+    }
+
+    V get(K key) {
+      return map.get(key);
+    }
+
+    void putIfAbsent(K key, V value) {
+      map.putIfAbsent(key, value);
+      if (map.size() > capacity) {
+        Iterator<K> iterator = map.keySet().iterator();
+        iterator.next();
+        iterator.remove();
+        evictions.increment();
+      }
+    }
+
+    void clear() {
+      map.clear();
+    }
+
+    boolean isEmpty() {
+      return map.isEmpty();
+    }
+  }
+
+  private final List<Stripe<K, V>> stripes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Create a cache with {@code numberOfStripes} stripes each holding at most {@code
+   * capacityPerStripe} entries. The number of stripes must be a power of two.
+   */
+  public StripedLRUCache(int numberOfStripes, int capacityPerStripe) {
+    assert numberOfStripes > 0 && Integer.bitCount(numberOfStripes) == 1;
+    assert capacityPerStripe > 0;
+    stripes = new ArrayList<>(numberOfStripes);
+    for (int i = 0; i < numberOfStripes; i++) {
+      stripes.add(new Stripe<>(capacityPerStripe, evictions));
+    }
+  }
+
+  private Stripe<K, V> stripeFor(Object key) {
+    int hash = key.hashCode();
+    hash ^= hash >>> 16;
+    return stripes.get(hash & (stripes.size() - 1));
+  }
+
+  /** Returns the value cached for {@code key}, or null if there is none. */
+  public V get(K key) {
+    Stripe<K, V> stripe = stripeFor(key);
+    V value;
+    synchronized (stripe) {
+      value = stripe.get(key);
+    }
+    if (value != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return value;
+  }
+
+  /** Cache {@code value} for {@code key} unless a value is already cached for it. */
+  public void put(K key, V value) {
+    assert value != null;
+    Stripe<K, V> stripe = stripeFor(key);
+    synchronized (stripe) {
+      stripe.putIfAbsent(key, value);
+    }
+  }
+
+  /** Remove all entries. The hit, miss and eviction counts are kept. */
+  public void clear() {
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  public boolean isEmpty() {
+    for (Stripe<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        if (!stripe.isEmpty()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long misses() {
+    return misses.sum();
+  }
+
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  /** Record the hit, miss and eviction counts as counters of the current task of timing. */
+  public void reportCounters(String name, Timing timing) {
+    timing.addCounter(name + " hits", hits());
+    timing.addCounter(name + " misses", misses());
+    timing.addCounter(name + " evictions", evictions());
+  }
+}
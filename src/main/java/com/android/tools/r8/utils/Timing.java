@@ -12,7 +12,20 @@ package com.android.tools.r8.utils;
 //     t.scope("My task", () -> { ... });
 // Finally a report is printed by:
 //     t.report();
+// or returned in JSON format by:
+//     t.toJson();
+//
+// If memory tracking is enabled, each task additionally records the heap in use when the task last
+// ended, and, if the VM supports it, the bytes allocated by all threads while the task was running.
+//
+// Counters, such as cache statistics, can be attached to the current task by:
+//     t.addCounter("My counter", value);
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Stack;
@@ -20,37 +33,129 @@ import java.util.Stack;
 public class Timing {
 
   private final Stack<Node> stack;
+  private final boolean trackMemory;
 
   public Timing() {
     this("<no title>");
   }
 
   public Timing(String title) {
+    this(title, false);
+  }
+
+  public Timing(String title, boolean trackMemory) {
+    this.trackMemory = trackMemory;
     stack = new Stack<>();
-    stack.push(new Node("Recorded timings for " + title));
+    stack.push(new Node("Recorded timings for " + title, trackMemory));
+  }
+
+  private static class MemoryUsage {
+
+    // The allocated-bytes counters are only available from the HotSpot extension of ThreadMXBean,
+    // which is looked up reflectively so that other VMs can still record the heap in use.
+    private static final MemoryUsage INSTANCE = new MemoryUsage();
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Method getThreadAllocatedBytes = lookupGetThreadAllocatedBytes(threadBean);
+
+    // The ids of the live threads, refreshed when the number of live threads changes.
+    private long[] threadIds = new long[0];
+
+    private static Method lookupGetThreadAllocatedBytes(ThreadMXBean bean) {
+      try {
+        Class<?> sunBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+        if (!sunBeanClass.isInstance(bean)
+            || !(Boolean) sunBeanClass.getMethod("isThreadAllocatedMemorySupported").invoke(bean)) {
+          return null;
+        }
+        if (!(Boolean) sunBeanClass.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean)) {
+          sunBeanClass
+              .getMethod("setThreadAllocatedMemoryEnabled", boolean.class)
+              .invoke(bean, true);
+        }
+        return sunBeanClass.getMethod("getThreadAllocatedBytes", long[].class);
+      } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+        return null;
+      }
+    }
+
+    boolean isAllocatedBytesSupported() {
+      return getThreadAllocatedBytes != null;
+    }
+
+    // Bytes allocated so far by the live threads. Allocations of threads that have terminated are
+    // not included, which is why the delta of a task is clamped at zero.
+    synchronized long allocatedBytes() {
+      assert isAllocatedBytesSupported();
+      if (threadIds.length != threadBean.getThreadCount()) {
+        threadIds = threadBean.getAllThreadIds();
+      }
+      long[] allocatedBytes;
+      try {
+        allocatedBytes = (long[]) getThreadAllocatedBytes.invoke(threadBean, (Object) threadIds);
+      } catch (ReflectiveOperationException e) {
+        return 0;
+      }
+      long total = 0;
+      for (long allocated : allocatedBytes) {
+        if (allocated > 0) {
+          total += allocated;
+        }
+      }
+      return total;
+    }
+
+    long usedHeapBytes() {
+      return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
   }
 
   static class Node {
     final String title;
+    final boolean trackMemory;
+    final boolean trackAllocated;
 
     final Map<String, Node> children = new LinkedHashMap<>();
+    final Map<String, Long> counters = new LinkedHashMap<>();
     long duration = 0;
     long start_time;
+    long allocated = 0;
+    long start_allocated;
+    long heap_used = 0;
 
-    Node(String title) {
+    Node(String title, boolean trackMemory) {
       this.title = title;
-      this.start_time = System.nanoTime();
+      this.trackMemory = trackMemory;
+      this.trackAllocated = trackMemory && MemoryUsage.INSTANCE.isAllocatedBytesSupported();
+      start();
+    }
+
+    private void start() {
+      if (trackAllocated) {
+        start_allocated = MemoryUsage.INSTANCE.allocatedBytes();
+      }
+      start_time = System.nanoTime();
     }
 
     void restart() {
       assert start_time == -1;
-      start_time = System.nanoTime();
+      start();
     }
 
     void end() {
       duration += System.nanoTime() - start_time;
       start_time = -1;
       assert duration() >= 0;
+      if (trackAllocated) {
+        allocated += Math.max(0, MemoryUsage.INSTANCE.allocatedBytes() - start_allocated);
+      }
+      if (trackMemory) {
+        heap_used = MemoryUsage.INSTANCE.usedHeapBytes();
+      }
+    }
+
+    boolean isRunning() {
+      return start_time != -1;
     }
 
     long duration() {
@@ -59,7 +164,14 @@ public class Timing {
 
     @Override
     public String toString() {
-      return title + ": " + (duration() / 1000000) + "ms.";
+      String result = title + ": " + (duration() / 1000000) + "ms.";
+      if (trackAllocated) {
+        result += " Allocated: " + (allocated >> 20) + "MB.";
+      }
+      if (trackMemory) {
+        result += " Heap used: " + (heap_used >> 20) + "MB.";
+      }
+      return result;
     }
 
     public String toString(Node top) {
@@ -77,8 +189,38 @@ public class Timing {
         System.out.print("- ");
       }
       System.out.println(toString(top));
+      counters.forEach(
+          (name, value) -> {
+            for (int i = 0; i <= depth; i++) {
+              System.out.print("  ");
+            }
+            System.out.println("* " + name + ": " + value);
+          });
       children.values().forEach(p -> p.report(depth + 1, top));
     }
+
+    JsonObject toJson() {
+      JsonObject object = new JsonObject();
+      object.addProperty("title", title);
+      object.addProperty("durationMs", duration() / 1000000);
+      if (trackAllocated) {
+        object.addProperty("allocatedBytes", allocated);
+      }
+      if (trackMemory) {
+        object.addProperty("heapUsedBytes", heap_used);
+      }
+      if (!counters.isEmpty()) {
+        JsonObject countersObject = new JsonObject();
+        counters.forEach(countersObject::addProperty);
+        object.add("counters", countersObject);
+      }
+      if (!children.isEmpty()) {
+        JsonArray array = new JsonArray();
+        children.values().forEach(child -> array.add(child.toJson()));
+        object.add("children", array);
+      }
+      return object;
+    }
   }
 
 
@@ -89,7 +231,7 @@ public class Timing {
       child = parent.children.get(title);
       child.restart();
     } else {
-      child = new Node(title);
+      child = new Node(title, trackMemory);
       parent.children.put(title, child);
     }
     stack.push(child);
@@ -100,13 +242,30 @@ public class Timing {
     stack.pop();
   }
 
+  /** Add value to the counter with the given name of the current task. */
+  public void addCounter(String name, long value) {
+    stack.peek().counters.merge(name, value, Long::sum);
+  }
+
   public void report() {
-    Node top = stack.peek();
-    top.end();
+    Node top = endTop();
     System.out.println();
     top.report(0, top);
   }
 
+  /** Returns the recorded timings, and memory usage if tracked, as a JSON object. */
+  public String toJson() {
+    return endTop().toJson().toString();
+  }
+
+  private Node endTop() {
+    Node top = stack.peek();
+    if (top.isRunning()) {
+      top.end();
+    }
+    return top;
+  }
+
   public void scope(String title, TimingScope fn) {
     begin(title);
     try {
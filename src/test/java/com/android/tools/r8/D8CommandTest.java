@@ -23,6 +23,8 @@ import com.android.tools.r8.utils.AndroidApp;
 import com.android.tools.r8.utils.FileUtils;
 import com.android.tools.r8.utils.ZipUtils;
 import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -507,6 +509,30 @@ public class D8CommandTest {
     assertEquals(0, new ZipFile(emptyZip.toFile(), StandardCharsets.UTF_8).size());
   }
 
+  @Test
+  public void timingReport() throws Throwable {
+    Path input = Paths.get(EXAMPLES_BUILD_DIR + "/arithmetic.jar").toAbsolutePath();
+    Path report = temp.getRoot().toPath().resolve("timing.json");
+    D8Command command =
+        parse(
+            input.toString(),
+            "--output",
+            temp.newFolder().toString(),
+            "--timing-report",
+            report.toString());
+    assertTrue(command.getTimingReportConsumer() instanceof StringConsumer.FileConsumer);
+    D8.run(command);
+    JsonObject json =
+        new JsonParser()
+            .parse(new String(Files.readAllBytes(report), StandardCharsets.UTF_8))
+            .getAsJsonObject();
+    assertEquals("Recorded timings for D8", json.get("title").getAsString());
+    assertTrue(json.has("durationMs"));
+    assertTrue(json.has("allocatedBytes"));
+    assertTrue(json.has("heapUsedBytes"));
+    assertTrue(json.getAsJsonArray("children").size() > 0);
+  }
+
   @Test(expected = CompilationFailedException.class)
   public void missingParameterForLastOption() throws CompilationFailedException {
     DiagnosticsChecker.checkErrorsContains(
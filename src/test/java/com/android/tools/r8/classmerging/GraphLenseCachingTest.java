@@ -0,0 +1,89 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.classmerging;
+
+import com.android.tools.r8.NeverClassInline;
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestParameters;
+import com.android.tools.r8.TestParametersCollection;
+import com.android.tools.r8.utils.StringUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class GraphLenseCachingTest extends TestBase {
+
+  private final TestParameters parameters;
+
+  @Parameterized.Parameters(name = "{0}")
+  public static TestParametersCollection data() {
+    return getTestParameters().withAllRuntimes().build();
+  }
+
+  public GraphLenseCachingTest(TestParameters parameters) {
+    this.parameters = parameters;
+  }
+
+  @Test
+  public void test() throws Exception {
+    String expectedOutput =
+        StringUtils.lines("A.greet()", "B.greet()", "A.greet()", "B.greet()", "2");
+    testForR8(parameters.getBackend())
+        .addInnerClasses(GraphLenseCachingTest.class)
+        .addKeepMainRule(TestClass.class)
+        .addOptionsModification(options -> options.enableGraphLenseCaching = true)
+        .enableClassInliningAnnotations()
+        .enableInliningAnnotations()
+        .setMinApi(parameters.getRuntime())
+        .run(parameters.getRuntime(), TestClass.class)
+        .assertSuccessWithOutput(expectedOutput);
+  }
+
+  static class TestClass {
+
+    public static void main(String[] args) {
+      I[] greeters = {new B(), new C().greeter};
+      for (I greeter : greeters) {
+        greeter.greet();
+      }
+      System.out.println(greeters.length);
+    }
+  }
+
+  interface I {
+
+    void greet();
+  }
+
+  // Merged into B.
+  @NeverClassInline
+  static class A implements I {
+
+    @NeverInline
+    @Override
+    public void greet() {
+      System.out.println("A.greet()");
+    }
+  }
+
+  @NeverClassInline
+  static class B extends A {
+
+    @NeverInline
+    @Override
+    public void greet() {
+      super.greet();
+      System.out.println("B.greet()");
+    }
+  }
+
+  @NeverClassInline
+  static class C {
+
+    A greeter = new B();
+  }
+}
@@ -0,0 +1,102 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.desugar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.AndroidApiLevel;
+import com.android.tools.r8.utils.DescriptorUtils;
+import com.android.tools.r8.utils.StringUtils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+/** Checks that each backported method utility class only originates from the classes using it. */
+public class Java8MethodsUtilityClassOriginTest extends TestBase {
+
+  static class IntegerUser {
+    static int hash(int value) {
+      return Integer.hashCode(value);
+    }
+  }
+
+  static class LongUser {
+    static int hash(long value) {
+      return Long.hashCode(value);
+    }
+  }
+
+  static class TestClass {
+    public static void main(String[] args) {
+      System.out.println(IntegerUser.hash(42));
+      System.out.println(LongUser.hash(42L));
+    }
+  }
+
+  private static class CollectingConsumer implements DexFilePerClassFileConsumer {
+    private final Map<String, byte[]> outputs = new HashMap<>();
+
+    @Override
+    public synchronized void accept(
+        String primaryClassDescriptor,
+        ByteDataView data,
+        Set<String> descriptors,
+        DiagnosticsHandler handler) {
+      outputs.put(primaryClassDescriptor, data.copyByteData());
+    }
+
+    @Override
+    public boolean combineSyntheticClassesWithPrimaryClass() {
+      return true;
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) {}
+  }
+
+  private Map<String, byte[]> compileWithD8(Class<?>... classes) throws Exception {
+    CollectingConsumer consumer = new CollectingConsumer();
+    D8Command.Builder builder =
+        D8Command.builder()
+            .addLibraryFiles(ToolHelper.getJava8RuntimeJar())
+            .setMinApiLevel(AndroidApiLevel.L.getLevel())
+            .setProgramConsumer(consumer);
+    for (Class<?> clazz : classes) {
+      builder.addProgramFiles(ToolHelper.getClassFileForTestClass(clazz));
+    }
+    D8.run(builder.build());
+    return consumer.outputs;
+  }
+
+  @Test
+  public void testD8OutputDoesNotDependOnOtherUsers() throws Exception {
+    String descriptor = DescriptorUtils.javaTypeToDescriptor(IntegerUser.class.getTypeName());
+    byte[] alone = compileWithD8(IntegerUser.class).get(descriptor);
+    byte[] withOtherUser = compileWithD8(IntegerUser.class, LongUser.class).get(descriptor);
+    assertNotNull(alone);
+    assertArrayEquals(alone, withOtherUser);
+  }
+
+  @Test
+  public void testR8() throws Exception {
+    testForR8(Backend.DEX)
+        .addProgramClasses(TestClass.class, IntegerUser.class, LongUser.class)
+        .addKeepRules("-keep class ** { *; }")
+        .setMinApi(AndroidApiLevel.L)
+        .run(TestClass.class)
+        .assertSuccessWithOutput(
+            StringUtils.lines(
+                Integer.toString(Integer.hashCode(42)), Integer.toString(Long.hashCode(42L))));
+  }
+}
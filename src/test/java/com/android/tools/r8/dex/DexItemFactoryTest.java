@@ -5,12 +5,18 @@
 package com.android.tools.r8.dex;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import com.android.tools.r8.graph.DexField;
 import com.android.tools.r8.graph.DexItem;
 import com.android.tools.r8.graph.DexItemFactory;
+import com.android.tools.r8.graph.DexMethod;
+import com.android.tools.r8.graph.DexProto;
 import com.android.tools.r8.graph.DexString;
 import com.android.tools.r8.graph.DexType;
+import com.android.tools.r8.graph.DexTypeList;
 import org.junit.Test;
 
 public class DexItemFactoryTest {
@@ -48,6 +54,56 @@ public class DexItemFactoryTest {
     }
   }
 
+  @Test
+  public void canonicalStrings() {
+    DexItemFactory factory = new DexItemFactory();
+    String[] sources = {
+        "", "a", "\u0000", "a\u0000", "\u007f", "\u0080", "\u07ff", "\u0800", "\uffff",
+        "\ud800\udc00", "a\u0080b\u0800c\u0000d",
+    };
+    for (String source : sources) {
+      assertNull(source, factory.lookupString(source));
+      DexString string = factory.createString(source);
+      assertSame(source, string, factory.lookupString(source));
+      assertSame(source, string, factory.createString(source));
+      byte[] content = DexString.encodeToMutf8(source);
+      assertSame(source, string, factory.createString(source.length(), content));
+    }
+    // Strings that only differ in the encoding of a character, or in a prefix, are distinct.
+    for (String source : sources) {
+      for (String other : sources) {
+        if (!source.equals(other)) {
+          assertNotSame(factory.createString(source), factory.createString(other));
+        }
+      }
+    }
+    DexString fromContent = factory.createString(2, DexString.encodeToMutf8("\u0001\u0002"));
+    assertSame(fromContent, factory.createString("\u0001\u0002"));
+  }
+
+  @Test
+  public void canonicalMembers() {
+    DexItemFactory factory = new DexItemFactory();
+    DexType holder = factory.createType("LHolder;");
+    DexField field = factory.createField(holder, factory.intType, "f");
+    assertSame(field, factory.createField(holder, factory.intType, "f"));
+    assertNotSame(field, factory.createField(holder, factory.longType, "f"));
+    assertNotSame(field, factory.createField(factory.objectType, factory.intType, "f"));
+    DexProto proto = factory.createProto(factory.voidType, factory.intType);
+    assertSame(proto, factory.createProto(factory.voidType, factory.intType));
+    assertSame(
+        proto,
+        factory.createProto(
+            factory.voidType,
+            factory.createString("VI"),
+            new DexTypeList(new DexType[] {factory.intType})));
+    assertNotSame(proto, factory.createProto(factory.voidType, factory.longType));
+    DexMethod method = factory.createMethod(holder, proto, "m");
+    assertSame(method, factory.createMethod(holder, proto, "m"));
+    assertNotSame(method, factory.createMethod(holder, proto, "n"));
+    assertNotSame(method, factory.createMethod(holder, factory.createProto(factory.voidType), "m"));
+  }
+
   @Test
   public void getPrimitiveTypeName() {
     DexItemFactory factory = new DexItemFactory();
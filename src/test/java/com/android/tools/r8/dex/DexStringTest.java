@@ -105,4 +105,27 @@ public class DexStringTest {
     assertEquals("\\ud800\\udc00", factory.createString("\ud800\udc00").toASCIIString());
     assertEquals("\\udbff\\udfff", factory.createString("\udbff\udfff").toASCIIString());
   }
+
+  @Test
+  public void testDecode() {
+    DexItemFactory factory = new DexItemFactory();
+    String[] strings = {
+        "",
+        "a",
+        "Ljava/lang/Object;",
+        "\u0000",
+        "a\u0000a",
+        "a\u007f",
+        "a\u0080a",
+        "a\u07ffa",
+        "a\u0800a",
+        "a\ud800\udc00a",
+        "a\uffffa",
+    };
+    for (String string : strings) {
+      DexString dexString = factory.createString(string);
+      assertEquals(string, dexString.toString());
+      assertEquals(string.length(), dexString.size);
+    }
+  }
 }
@@ -0,0 +1,64 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.dex;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.OutputMode;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.ProgramResource.Kind;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.StringUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+public class MemoryMappedDexInputTest extends TestBase {
+
+  static class TestClass {
+    public static void main(String[] args) {
+      System.out.println("Hello, é世🌍");
+    }
+  }
+
+  private static final String EXPECTED = StringUtils.lines("Hello, é世🌍");
+
+  private Path compileToDexFile() throws Exception {
+    Path output = temp.newFolder().toPath();
+    D8.run(
+        D8Command.builder()
+            .addProgramFiles(ToolHelper.getClassFileForTestClass(TestClass.class))
+            .addLibraryFiles(ToolHelper.getDefaultAndroidJar())
+            .setOutput(output, OutputMode.DexIndexed)
+            .build());
+    return output.resolve("classes.dex");
+  }
+
+  @Test
+  public void testReaderContent() throws Exception {
+    Path dexFile = compileToDexFile();
+    ProgramResource resource = ProgramResource.fromFile(Kind.DEX, dexFile);
+    DexReader mapped = new DexReader(resource, true);
+    DexReader read = new DexReader(resource, false);
+    assertEquals(Files.size(dexFile), mapped.end());
+    assertEquals(read.end(), mapped.end());
+    assertArrayEquals(read.getByteArray(read.end()), mapped.getByteArray(mapped.end()));
+  }
+
+  @Test
+  public void testRun() throws Exception {
+    Path dexFile = compileToDexFile();
+    for (boolean mapped : new boolean[] {true, false}) {
+      testForD8()
+          .addProgramFiles(dexFile)
+          .addOptionsModification(options -> options.enableMemoryMappedDexInput = mapped)
+          .run(TestClass.class)
+          .assertSuccessWithOutput(EXPECTED);
+    }
+  }
+}
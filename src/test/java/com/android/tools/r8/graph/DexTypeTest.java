@@ -5,7 +5,10 @@ package com.android.tools.r8.graph;
 
 import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.android.tools.r8.ToolHelper;
 import com.android.tools.r8.dex.ApplicationReader;
@@ -158,4 +161,58 @@ public class DexTypeTest {
     assertThat(interfaces, not(hasItems(functionBase)));
   }
 
+  @Test
+  public void isSubtype_classes() {
+    DexType abstractCollection = factory.createType("Ljava/util/AbstractCollection;");
+    DexType abstractList = factory.createType("Ljava/util/AbstractList;");
+    DexType arrayList = factory.createType("Ljava/util/ArrayList;");
+    DexType linkedList = factory.createType("Ljava/util/LinkedList;");
+    DexType hashMap = factory.createType("Ljava/util/HashMap;");
+
+    assertTrue(appInfo.isSubtype(arrayList, arrayList));
+    assertTrue(appInfo.isStrictSubtypeOf(arrayList, abstractList));
+    assertTrue(appInfo.isStrictSubtypeOf(arrayList, abstractCollection));
+    assertTrue(appInfo.isStrictSubtypeOf(linkedList, abstractCollection));
+    assertTrue(appInfo.isStrictSubtypeOf(hashMap, factory.objectType));
+    assertFalse(appInfo.isStrictSubtypeOf(arrayList, arrayList));
+    assertFalse(appInfo.isStrictSubtypeOf(abstractList, arrayList));
+    assertFalse(appInfo.isStrictSubtypeOf(arrayList, linkedList));
+    assertFalse(appInfo.isStrictSubtypeOf(hashMap, abstractCollection));
+  }
+
+  @Test
+  public void subtypes_classes() {
+    DexType abstractList = factory.createType("Ljava/util/AbstractList;");
+    DexType abstractSequentialList = factory.createType("Ljava/util/AbstractSequentialList;");
+    DexType arrayList = factory.createType("Ljava/util/ArrayList;");
+    DexType linkedList = factory.createType("Ljava/util/LinkedList;");
+
+    Set<DexType> subtypes = appInfo.subtypes(abstractList);
+    assertThat(subtypes, hasItems(arrayList, abstractSequentialList, linkedList));
+    assertThat(subtypes, not(hasItems(abstractList)));
+    assertEquals(subtypes.size(), subtypes.stream().count());
+    for (DexType subtype : subtypes) {
+      assertTrue(appInfo.isStrictSubtypeOf(subtype, abstractList));
+    }
+    assertThat(appInfo.subtypes(abstractSequentialList), hasItems(linkedList));
+    assertFalse(appInfo.subtypes(linkedList).contains(arrayList));
+  }
+
+  @Test
+  public void isSamePackage() {
+    DexType object = factory.createType("Ljava/lang/Object;");
+    DexType string = factory.createType("Ljava/lang/String;");
+    DexType list = factory.createType("Ljava/util/List;");
+    DexType langClass = factory.createType("Ljava/lang;");
+    DexType defaultPackage = factory.createType("LA;");
+    DexType otherDefaultPackage = factory.createType("LB;");
+    DexType nonAscii = factory.createType("Ljava/l\u00e4ng/Object;");
+    assertTrue(object.isSamePackage(string));
+    assertFalse(object.isSamePackage(list));
+    assertFalse(object.isSamePackage(langClass));
+    assertFalse(object.isSamePackage(defaultPackage));
+    assertTrue(defaultPackage.isSamePackage(otherDefaultPackage));
+    assertFalse(object.isSamePackage(nonAscii));
+    assertTrue(nonAscii.isSamePackage(factory.createType("Ljava/l\u00e4ng/String;")));
+  }
 }
@@ -0,0 +1,224 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.BooleanUtils;
+import com.android.tools.r8.utils.DescriptorUtils;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.ThreadUtils;
+import com.android.tools.r8.utils.Timing;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+@RunWith(Parameterized.class)
+public class EagerCodeParserTest extends TestBase {
+
+  static class Parsed {
+
+    int value;
+
+    int get() {
+      return value;
+    }
+  }
+
+  static class Loops {
+
+    static int sum(int[] values) {
+      int sum = 0;
+      for (int value : values) {
+        sum += value;
+      }
+      return sum;
+    }
+
+    static String describe(int value) {
+      switch (value) {
+        case 0:
+          return "zero";
+        case 1:
+          return "one";
+        default:
+          return "many";
+      }
+    }
+  }
+
+  static class Exceptions {
+
+    static int parse(String value) {
+      try {
+        return Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        return -1;
+      } finally {
+        System.out.println(value);
+      }
+    }
+
+    synchronized void locked(Object object) {
+      synchronized (object) {
+        System.out.println(object);
+      }
+    }
+  }
+
+  static class Lambdas {
+
+    static Runnable print(String value) {
+      return () -> System.out.println(value);
+    }
+  }
+
+  private static final Class<?>[] CLASSES = {
+    Parsed.class, Loops.class, Exceptions.class, Lambdas.class, EagerCodeParserTest.class
+  };
+
+  private final boolean useCfFrontend;
+
+  @Parameters(name = "UseCf={0}")
+  public static Boolean[] data() {
+    return BooleanUtils.values();
+  }
+
+  public EagerCodeParserTest(boolean useCfFrontend) {
+    this.useCfFrontend = useCfFrontend;
+  }
+
+  private DexApplication read(Class<?>... classes) throws Exception {
+    return read(AndroidApp.builder().addProgramFiles(jarTestClasses(classes)).build());
+  }
+
+  private DexApplication read(AndroidApp app) throws Exception {
+    InternalOptions options = new InternalOptions();
+    options.enableCfFrontend = useCfFrontend;
+    return new ApplicationReader(app, options, new Timing("EagerCodeParserTest"))
+        .read()
+        .toDirect();
+  }
+
+  private static Map<String, String> describeCode(DexApplication application) {
+    Map<String, String> result = new TreeMap<>();
+    for (DexProgramClass clazz : application.classes()) {
+      for (DexEncodedMethod method : clazz.methods()) {
+        if (method.getCode() != null) {
+          result.put(method.method.toSourceString(), method.getCode().toString());
+        }
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void parsesSameCodeAsOnRequest() throws Exception {
+    Map<String, String> expected = describeCode(read(CLASSES));
+    DexApplication application = read(CLASSES);
+    InternalOptions options = new InternalOptions();
+    options.numberOfThreads = 4;
+    ExecutorService executor = ThreadUtils.getExecutorService(options);
+    try {
+      EagerCodeParser parser = EagerCodeParser.start(application, options, executor);
+      // Request the code while it is parsed in the background.
+      Map<String, String> actual = describeCode(application);
+      parser.stop();
+      assertEquals(expected, actual);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static void assertStatistics(EagerCodeParser parser, int parsed, int requested) {
+    Timing timing = new Timing("EagerCodeParserTest");
+    parser.reportStatistics(timing);
+    JsonObject counters =
+        new JsonParser().parse(timing.toJson()).getAsJsonObject().getAsJsonObject("counters");
+    assertEquals(parsed, counters.get("Classes parsed ahead").getAsInt());
+    assertEquals(requested, counters.get("Classes parsed ahead and requested").getAsInt());
+  }
+
+  @Test
+  public void boundsClassesParsedAhead() throws Exception {
+    DexApplication application = read(Parsed.class);
+    InternalOptions options = new InternalOptions();
+    options.eagerCodeParsingCapacity = 1;
+    ExecutorService executor = ThreadUtils.getExecutorService(2);
+    try {
+      EagerCodeParser parser = EagerCodeParser.start(application, options, executor);
+      // The class being parsed when stopping is still parsed.
+      parser.stop();
+      assertStatistics(parser, 1, 0);
+      DexProgramClass clazz =
+          application.programDefinitionFor(
+              application.dexItemFactory.createType(
+                  DescriptorUtils.javaTypeToDescriptor(Parsed.class.getName())));
+      clazz.methods().forEach(method -> method.getCode().toString());
+      assertStatistics(parser, 1, 1);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  // Returns a class with a method whose code has an undefined opcode, which is only detected when
+  // the code is parsed.
+  private static byte[] createClassWithInvalidCode() {
+    ClassWriter writer = new ClassWriter(0);
+    writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Invalid", null, "java/lang/Object", null);
+    MethodVisitor method =
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "get", "()I", null, null);
+    method.visitCode();
+    method.visitIntInsn(Opcodes.SIPUSH, 0x7B7B);
+    method.visitInsn(Opcodes.IRETURN);
+    method.visitMaxs(1, 0);
+    method.visitEnd();
+    writer.visitEnd();
+    byte[] bytes = writer.toByteArray();
+    for (int i = 0; i < bytes.length - 2; i++) {
+      if (bytes[i] == Opcodes.SIPUSH && bytes[i + 1] == 0x7B && bytes[i + 2] == 0x7B) {
+        bytes[i] = (byte) 0xCB;
+        return bytes;
+      }
+    }
+    throw new AssertionError();
+  }
+
+  private static Class<?> getFailure(DexEncodedMethod method) {
+    try {
+      method.getCode().toString();
+    } catch (RuntimeException e) {
+      return e.getClass();
+    }
+    fail("Expected parsing the code of " + method.method.toSourceString() + " to fail");
+    return null;
+  }
+
+  @Test
+  public void failsAgainOnLaterRequest() throws Exception {
+    DexApplication application =
+        read(
+            AndroidApp.builder()
+                .addClassProgramData(createClassWithInvalidCode(), Origin.unknown())
+                .build());
+    DexEncodedMethod method = application.classes().iterator().next().directMethods().get(0);
+    // A failed parse leaves the code unparsed, such that each request fails in the same way.
+    Class<?> failure = getFailure(method);
+    assertEquals(failure, getFailure(method));
+  }
+}
@@ -0,0 +1,210 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ir.code.AlwaysMaterializingNop;
+import com.android.tools.r8.ir.code.Instruction;
+import com.android.tools.r8.ir.code.InstructionList;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import org.junit.Test;
+
+/** Checks the instruction list against a {@link LinkedList} with the same operations. */
+public class InstructionListTest {
+
+  private static List<Instruction> createInstructions(int count) {
+    List<Instruction> instructions = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      instructions.add(new AlwaysMaterializingNop());
+    }
+    return instructions;
+  }
+
+  private static void assertSameElements(LinkedList<Instruction> expected, InstructionList list) {
+    assertEquals(expected.size(), list.size());
+    assertEquals(expected.isEmpty(), list.isEmpty());
+    Iterator<Instruction> expectedIterator = expected.iterator();
+    for (Instruction instruction : list) {
+      assertSame(expectedIterator.next(), instruction);
+    }
+    assertEquals(Lists.reverse(expected), ImmutableList.copyOf(list.descendingIterator()));
+    if (!expected.isEmpty()) {
+      assertSame(expected.getFirst(), list.getFirst());
+      assertSame(expected.getLast(), list.getLast());
+    }
+  }
+
+  @Test
+  public void testListOperations() {
+    Random random = new Random(42);
+    LinkedList<Instruction> expected = new LinkedList<>();
+    InstructionList list = new InstructionList();
+    // Instructions which are not in the lists.
+    LinkedList<Instruction> unused = new LinkedList<>(createInstructions(20));
+    for (int i = 0; i < 2000; i++) {
+      int index = expected.isEmpty() ? 0 : random.nextInt(expected.size());
+      switch (random.nextInt(9)) {
+        case 0:
+          if (!unused.isEmpty()) {
+            Instruction instruction = unused.removeFirst();
+            expected.add(instruction);
+            list.add(instruction);
+          }
+          break;
+        case 1:
+          if (!unused.isEmpty()) {
+            Instruction instruction = unused.removeFirst();
+            expected.add(index, instruction);
+            list.add(index, instruction);
+          }
+          break;
+        case 2:
+          if (!unused.isEmpty()) {
+            Instruction instruction = unused.removeFirst();
+            expected.addFirst(instruction);
+            list.addFirst(instruction);
+          }
+          break;
+        case 3:
+          if (!expected.isEmpty()) {
+            assertSame(expected.get(index), list.get(index));
+            assertEquals(index, list.indexOf(expected.get(index)));
+            assertTrue(list.contains(expected.get(index)));
+            unused.add(expected.remove(index));
+            assertSame(unused.getLast(), list.remove(index));
+          }
+          break;
+        case 4:
+          if (!expected.isEmpty()) {
+            Instruction instruction = expected.get(index);
+            expected.remove(instruction);
+            assertTrue(list.remove(instruction));
+            assertFalse(list.remove(instruction));
+            assertFalse(list.contains(instruction));
+            assertEquals(-1, list.indexOf(instruction));
+            unused.add(instruction);
+          }
+          break;
+        case 5:
+          if (!expected.isEmpty()) {
+            unused.add(expected.removeLast());
+            assertSame(unused.getLast(), list.removeLast());
+          }
+          break;
+        case 6:
+          if (!expected.isEmpty() && !unused.isEmpty()) {
+            Instruction instruction = unused.removeFirst();
+            unused.add(expected.set(index, instruction));
+            assertSame(unused.getLast(), list.set(index, instruction));
+          }
+          break;
+        case 7:
+          iterate(random, expected, list, unused);
+          break;
+        default:
+          if (!expected.isEmpty()) {
+            unused.add(expected.removeFirst());
+            assertSame(unused.getLast(), list.removeFirst());
+          }
+          break;
+      }
+      assertSameElements(expected, list);
+    }
+    unused.addAll(expected);
+    expected.clear();
+    list.clear();
+    assertSameElements(expected, list);
+    // All instructions can be added again after they have been removed.
+    list.addAll(unused);
+    expected.addAll(unused);
+    assertSameElements(expected, list);
+  }
+
+  private static void iterate(
+      Random random,
+      LinkedList<Instruction> expected,
+      InstructionList list,
+      LinkedList<Instruction> unused) {
+    int index = random.nextInt(expected.size() + 1);
+    ListIterator<Instruction> expectedIterator = expected.listIterator(index);
+    ListIterator<Instruction> iterator = list.listIterator(index);
+    // The instruction that remove() and set() apply to, if any.
+    Instruction lastReturned = null;
+    for (int i = 0; i < 10; i++) {
+      assertEquals(expectedIterator.hasNext(), iterator.hasNext());
+      assertEquals(expectedIterator.hasPrevious(), iterator.hasPrevious());
+      assertEquals(expectedIterator.nextIndex(), iterator.nextIndex());
+      switch (random.nextInt(5)) {
+        case 0:
+          if (expectedIterator.hasNext()) {
+            lastReturned = expectedIterator.next();
+            assertSame(lastReturned, iterator.next());
+          }
+          break;
+        case 1:
+          if (expectedIterator.hasPrevious()) {
+            lastReturned = expectedIterator.previous();
+            assertSame(lastReturned, iterator.previous());
+          }
+          break;
+        case 2:
+          if (lastReturned != null) {
+            expectedIterator.remove();
+            iterator.remove();
+            unused.add(lastReturned);
+            lastReturned = null;
+          }
+          break;
+        case 3:
+          if (lastReturned != null && !unused.isEmpty()) {
+            Instruction instruction = unused.removeFirst();
+            expectedIterator.set(instruction);
+            iterator.set(instruction);
+            unused.add(lastReturned);
+            lastReturned = instruction;
+          }
+          break;
+        default:
+          if (!unused.isEmpty()) {
+            Instruction instruction = unused.removeFirst();
+            expectedIterator.add(instruction);
+            iterator.add(instruction);
+            lastReturned = null;
+          }
+          break;
+      }
+    }
+  }
+
+  @Test
+  public void testMoveBetweenLists() {
+    List<Instruction> instructions = createInstructions(4);
+    InstructionList first = new InstructionList();
+    InstructionList second = new InstructionList();
+    first.addAll(instructions);
+    ListIterator<Instruction> iterator = first.listIterator(2);
+    while (iterator.hasNext()) {
+      Instruction instruction = iterator.next();
+      iterator.remove();
+      second.add(instruction);
+    }
+    assertEquals(instructions.subList(0, 2), first);
+    assertEquals(instructions.subList(2, 4), second);
+    assertFalse(first.contains(instructions.get(2)));
+    assertTrue(second.contains(instructions.get(2)));
+    assertEquals(0, second.indexOf(instructions.get(2)));
+  }
+}
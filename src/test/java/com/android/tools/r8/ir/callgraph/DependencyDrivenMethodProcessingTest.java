@@ -0,0 +1,91 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+
+package com.android.tools.r8.ir.callgraph;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.NeverInline;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.StringUtils;
+import com.android.tools.r8.utils.codeinspector.CodeInspector;
+import com.android.tools.r8.utils.codeinspector.FoundMethodSubject;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class DependencyDrivenMethodProcessingTest extends TestBase {
+
+  static class TestClass {
+
+    public static void main(String[] args) {
+      System.out.println(caller(args.length));
+      System.out.println(otherCaller());
+    }
+
+    @NeverInline
+    static int caller(int x) {
+      return leaf() + middle(x);
+    }
+
+    @NeverInline
+    static int middle(int x) {
+      return x == 0 ? leaf() : x;
+    }
+
+    @NeverInline
+    static int otherCaller() {
+      return leaf() * 2;
+    }
+
+    static int leaf() {
+      return 21;
+    }
+  }
+
+  private static final String EXPECTED = StringUtils.lines("42", "42");
+
+  @Parameterized.Parameters(name = "Backend: {0}")
+  public static Backend[] data() {
+    return ToolHelper.getBackends();
+  }
+
+  private final Backend backend;
+
+  public DependencyDrivenMethodProcessingTest(Backend backend) {
+    this.backend = backend;
+  }
+
+  private CodeInspector compileAndRun(boolean dependencyDriven) throws Exception {
+    return testForR8(backend)
+        .addProgramClasses(TestClass.class)
+        .addKeepMainRule(TestClass.class)
+        .enableInliningAnnotations()
+        .noMinification()
+        .addOptionsModification(
+            options -> options.enableDependencyDrivenMethodProcessing = dependencyDriven)
+        .run(TestClass.class)
+        .assertSuccessWithOutput(EXPECTED)
+        .inspector();
+  }
+
+  private static Map<String, Long> instructionCounts(CodeInspector inspector) {
+    Map<String, Long> counts = new TreeMap<>();
+    for (FoundMethodSubject method : inspector.clazz(TestClass.class).allMethods()) {
+      counts.put(method.getOriginalName(), method.streamInstructions().count());
+    }
+    return counts;
+  }
+
+  @Test
+  public void test() throws Exception {
+    // Processing without waves must not lose any of the callee optimization info.
+    assertEquals(
+        instructionCounts(compileAndRun(false)), instructionCounts(compileAndRun(true)));
+  }
+}
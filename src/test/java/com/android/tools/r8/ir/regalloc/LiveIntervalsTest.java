@@ -0,0 +1,89 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.ir.regalloc;
+
+import static com.android.tools.r8.dex.Constants.U16BIT_MAX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ir.analysis.type.TypeLatticeElement;
+import com.android.tools.r8.ir.code.Value;
+import org.junit.Test;
+
+public class LiveIntervalsTest extends TestBase {
+
+  private int nextValueNumber = 0;
+
+  private LiveIntervals intervals(int... startsAndEnds) {
+    LiveIntervals intervals =
+        new LiveIntervals(new Value(nextValueNumber++, TypeLatticeElement.INT, null));
+    for (int i = 0; i < startsAndEnds.length; i += 2) {
+      intervals.addRange(startsAndEnds[i], startsAndEnds[i + 1]);
+    }
+    return intervals;
+  }
+
+  private static void assertRanges(LiveIntervals intervals, int... startsAndEnds) {
+    assertEquals(startsAndEnds.length / 2, intervals.numberOfRanges());
+    for (int i = 0; i < startsAndEnds.length; i += 2) {
+      assertEquals(startsAndEnds[i], intervals.getRangeStart(i / 2));
+      assertEquals(startsAndEnds[i + 1], intervals.getRangeEnd(i / 2));
+    }
+  }
+
+  @Test
+  public void addRangeMergesAdjacentRanges() {
+    LiveIntervals intervals = intervals(0, 10, 10, 20, 30, 40);
+    assertRanges(intervals, 0, 20, 30, 40);
+    assertEquals(0, intervals.getStart());
+    assertEquals(40, intervals.getEnd());
+  }
+
+  @Test
+  public void overlapsPosition() {
+    LiveIntervals intervals = intervals(0, 10, 20, 30, 40, 50);
+    assertTrue(intervals.overlapsPosition(0));
+    assertTrue(intervals.overlapsPosition(9));
+    assertFalse(intervals.overlapsPosition(10));
+    assertFalse(intervals.overlapsPosition(15));
+    assertTrue(intervals.overlapsPosition(20));
+    assertTrue(intervals.overlapsPosition(49));
+    assertFalse(intervals.overlapsPosition(50));
+  }
+
+  @Test
+  public void nextOverlap() {
+    LiveIntervals intervals = intervals(0, 10, 20, 30, 40, 50);
+    assertEquals(-1, intervals.nextOverlap(intervals(10, 20)));
+    assertEquals(-1, intervals.nextOverlap(intervals(50, 60)));
+    assertEquals(24, intervals.nextOverlap(intervals(12, 14, 24, 26)));
+    assertEquals(30, intervals.nextOverlap(intervals(30, 42)));
+    assertEquals(40, intervals(10, 20, 30, 42).nextOverlap(intervals));
+    assertTrue(intervals.overlaps(intervals(48, 60)));
+    assertFalse(intervals.overlaps(intervals(30, 40, 50, 60)));
+  }
+
+  @Test
+  public void splitBefore() {
+    LiveIntervals intervals = intervals(0, 10, 20, 30, 40, 50);
+    intervals.addUse(new LiveIntervalsUse(4, U16BIT_MAX));
+    intervals.addUse(new LiveIntervalsUse(24, U16BIT_MAX));
+    intervals.addUse(new LiveIntervalsUse(44, U16BIT_MAX));
+    LiveIntervals split = intervals.splitBefore(24);
+    assertRanges(intervals, 0, 10, 20, 23);
+    assertRanges(split, 23, 30, 40, 50);
+    assertEquals(4, intervals.firstUseAfter(0));
+    assertEquals(Integer.MAX_VALUE, intervals.firstUseAfter(5));
+    assertEquals(24, split.firstUseAfter(23));
+    assertEquals(44, split.firstUseAfter(25));
+    // Splitting in a hole moves the next range as a whole.
+    LiveIntervals secondSplit = split.splitBefore(36);
+    assertRanges(split, 23, 30);
+    assertRanges(secondSplit, 40, 50);
+    intervals.undoSplits();
+    assertRanges(intervals, 0, 10, 20, 30, 40, 50);
+  }
+}
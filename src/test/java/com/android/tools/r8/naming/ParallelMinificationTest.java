@@ -0,0 +1,195 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.naming;
+
+import static com.android.tools.r8.ToolHelper.EXAMPLES_BUILD_DIR;
+import static com.android.tools.r8.ToolHelper.EXAMPLES_DIR;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.android.tools.r8.R8FullTestBuilder;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.utils.ThrowingSupplier;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+/**
+ * Checks that naming members in parallel gives the same mapping as naming them on a single thread.
+ *
+ * <p>The interfaces form several groups of interfaces that share naming states, and the classes
+ * form several subtrees below java.lang.Object, so that interface methods and fields are named in
+ * parallel. The minification example is checked as well.
+ */
+public class ParallelMinificationTest extends TestBase {
+
+  interface I1 {
+    void a();
+
+    void b();
+  }
+
+  interface I2 {
+    void a();
+
+    void c();
+  }
+
+  interface I3 extends I1 {
+    void d();
+  }
+
+  interface J1 {
+    void x();
+  }
+
+  interface J2 {
+    void x();
+
+    void y();
+  }
+
+  interface K {
+    void k();
+  }
+
+  static class A implements I1, I2 {
+    int f1;
+    String f2;
+
+    @Override
+    public void a() {
+      System.out.println("A.a " + f1);
+    }
+
+    @Override
+    public void b() {
+      System.out.println("A.b " + f2);
+    }
+
+    @Override
+    public void c() {
+      System.out.println("A.c");
+    }
+
+    void m() {
+      System.out.println("A.m");
+    }
+  }
+
+  static class B extends A implements I3 {
+    long g1;
+    Object g2;
+
+    @Override
+    public void d() {
+      System.out.println("B.d " + g1 + g2);
+    }
+
+    void n() {
+      System.out.println("B.n");
+    }
+  }
+
+  static class C implements J1, Runnable {
+    int h1;
+    int h2;
+
+    @Override
+    public void x() {
+      System.out.println("C.x " + h1 + h2);
+    }
+
+    @Override
+    public void run() {
+      System.out.println("C.run");
+    }
+  }
+
+  static class D extends C implements J2 {
+    int i1;
+
+    @Override
+    public void y() {
+      System.out.println("D.y " + i1);
+    }
+  }
+
+  static class E implements K {
+    boolean j1;
+    char j2;
+    double j3;
+
+    @Override
+    public void k() {
+      System.out.println("E.k " + j1 + j2 + j3);
+    }
+  }
+
+  static class F extends E {
+    float k1;
+
+    void o() {
+      System.out.println("F.o " + k1);
+    }
+  }
+
+  static class Main {
+    public static void main(String[] args) {
+      I1 i1 = new A();
+      i1.a();
+      i1.b();
+      I2 i2 = new A();
+      i2.c();
+      B b = new B();
+      b.d();
+      b.m();
+      b.n();
+      J1 j1 = new C();
+      j1.x();
+      J2 j2 = new D();
+      j2.x();
+      j2.y();
+      new C().run();
+      K k = new F();
+      k.k();
+      new F().o();
+    }
+  }
+
+  private static String compile(R8FullTestBuilder builder, int threads) throws Exception {
+    return builder
+        // Keep the hierarchy and members as they are, only minify them.
+        .addKeepRules("-dontoptimize")
+        .addOptionsModification(options -> options.numberOfThreads = threads)
+        .compile()
+        .getProguardMap();
+  }
+
+  private static void checkSameMappingWithThreads(
+      ThrowingSupplier<R8FullTestBuilder, Exception> builder) throws Exception {
+    String expected = compile(builder.get(), 1);
+    assertNotEquals("", expected);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(expected, compile(builder.get(), 8));
+    }
+  }
+
+  @Test
+  public void testInnerClasses() throws Exception {
+    checkSameMappingWithThreads(
+        () ->
+            testForR8(Backend.DEX)
+                .addInnerClasses(ParallelMinificationTest.class)
+                .addKeepMainRule(Main.class));
+  }
+
+  @Test
+  public void testMinificationExample() throws Exception {
+    checkSameMappingWithThreads(
+        () ->
+            testForR8(Backend.DEX)
+                .addProgramFiles(Paths.get(EXAMPLES_BUILD_DIR, "minification.jar"))
+                .addKeepRuleFiles(Paths.get(EXAMPLES_DIR, "minification", "keep-rules.txt")));
+  }
+}
@@ -0,0 +1,80 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.naming;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.utils.StringUtils;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+public class ProguardMapIndexTest extends TestBase {
+
+  private static final String MAPPING =
+      StringUtils.lines(
+          "# compiler: R8",
+          "a.b.C -> d.e.F:",
+          "    int f -> a",
+          "    1:2:void a():11:12 -> b",
+          "# A comment between members.",
+          "    1:2:void c():21 -> b",
+          "dagger.android.package-info -> dagger.android.package-info",
+          "a.b.D -> d.e.G:",
+          "",
+          "a.b.E -> d.e.H:",
+          "    void m() -> a");
+
+  private Path writeMapping(String mapping) throws Exception {
+    Path path = temp.newFolder().toPath().resolve("mapping.txt");
+    Files.write(path, mapping.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  @Test
+  public void lazyMapperMatchesMapper() throws Exception {
+    Path path = writeMapping(MAPPING);
+    ClassNameMapper mapper = ClassNameMapper.mapperFromFile(path);
+    ClassNameMapper lazyMapper = ClassNameMapper.lazyMapperFromFile(path);
+    for (String name : new String[] {"d.e.F", "d.e.G", "d.e.H"}) {
+      assertEquals(mapper.deobfuscateClassName(name), lazyMapper.deobfuscateClassName(name));
+      assertEquals(mapper.getClassNaming(name), lazyMapper.getClassNaming(name));
+    }
+    assertEquals("a.b.C", lazyMapper.deobfuscateClassName("d.e.F"));
+    assertEquals("x.Y", lazyMapper.deobfuscateClassName("x.Y"));
+    assertNull(lazyMapper.getClassNaming("dagger.android.package-info"));
+    assertEquals(
+        mapper.getObfuscatedToOriginalMapping().original,
+        lazyMapper.getObfuscatedToOriginalMapping().original);
+    assertEquals(mapper, lazyMapper);
+    assertEquals(mapper.toString(), lazyMapper.toString());
+  }
+
+  @Test
+  public void lazyMapperWithWindowsLineEndings() throws Exception {
+    Path path = writeMapping(MAPPING.replace("\n", "\r\n"));
+    assertEquals(ClassNameMapper.mapperFromFile(path), ClassNameMapper.lazyMapperFromFile(path));
+  }
+
+  @Test
+  public void lazyMapperParsesMembersOnLookup() throws Exception {
+    // The member mapping of d.e.F is invalid, which is only reported when d.e.F is looked up.
+    Path path = writeMapping(StringUtils.lines("a.b.C -> d.e.F:", "    void ", "a.b.D -> d.e.G:"));
+    ClassNameMapper lazyMapper = ClassNameMapper.lazyMapperFromFile(path);
+    assertTrue(lazyMapper.getObfuscatedToOriginalMapping().original.containsKey("d.e.F"));
+    assertEquals("a.b.D", lazyMapper.getClassNaming("d.e.G").originalName);
+    boolean failed = false;
+    try {
+      lazyMapper.getClassNaming("d.e.F");
+    } catch (RuntimeException e) {
+      failed = true;
+      assertTrue(e.toString(), e.toString().startsWith("Parse error [2:"));
+    }
+    assertTrue(failed);
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.retrace;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.naming.ClassNameMapper;
+import com.android.tools.r8.utils.StringUtils;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+public class RetraceTest extends TestBase {
+
+  private static final String MAPPING =
+      StringUtils.lines(
+          "com.example.Main -> a:",
+          "    1:3:void main(java.lang.String[]):10:12 -> main",
+          "    4:4:void com.example.Util.check(int):30:30 -> main",
+          "    4:4:void helper():20 -> main",
+          "    4:4:void main(java.lang.String[]):13 -> main",
+          "    void foo() -> b",
+          "    void bar() -> b",
+          "com.example.Util -> b:",
+          "    1:1:void check(int):30:30 -> a",
+          "    2:5:void overlap1():40:43 -> b",
+          "    3:3:void overlap2():50:50 -> b",
+          "com.example.Failure -> c:");
+
+  private static RetraceMapping mapping() throws Exception {
+    return RetraceMapping.create(ClassNameMapper.mapperFromString(MAPPING));
+  }
+
+  private static String retrace(RetraceMapping mapping, String... lines) {
+    StringBuilder builder = new StringBuilder();
+    for (String line : lines) {
+      mapping.retraceLine(line, builder);
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void retraceFrames() throws Exception {
+    RetraceMapping mapping = mapping();
+    assertEquals(
+        StringUtils.lines(
+            "Exception in thread \"main\" com.example.Failure: message",
+            "\tat com.example.Main.main(Main.java:11)",
+            "\tat com.example.Util.check(Util.java:30)",
+            "\tat com.example.Main.helper(Main.java:20)",
+            "\tat com.example.Main.main(Main.java:13)",
+            "\tat com.example.Main.foo(Unknown Source)",
+            "\tat com.example.Main.bar(Unknown Source)",
+            "\tat com.example.Util.unmapped(Util.java:7)",
+            "\tat com.example.Util.overlap1(Util.java:41)",
+            "\tat java.lang.Thread.run(Thread.java:745)",
+            "Caused by: com.example.Failure",
+            "Some other line"),
+        retrace(
+            mapping,
+            "Exception in thread \"main\" c: message",
+            "\tat a.main(SourceFile:2)",
+            "\tat a.main(SourceFile:4)",
+            "\tat a.b(Unknown Source)",
+            "\tat b.unmapped(SourceFile:7)",
+            "\tat b.b(SourceFile:3)",
+            "\tat java.lang.Thread.run(Thread.java:745)",
+            "Caused by: c",
+            "Some other line"));
+  }
+
+  @Test
+  public void retraceInParallel() throws Exception {
+    RetraceMapping mapping = mapping();
+    StringBuilder input = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      String line = "\tat a.main(SourceFile:" + (i % 4 + 1) + ")";
+      input.append(line).append('\n');
+      mapping.retraceLine(line, expected);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      StringWriter output = new StringWriter();
+      Retrace.run(
+          mapping,
+          new BufferedReader(new StringReader(input.toString())),
+          output,
+          executor,
+          4);
+      assertEquals(expected.toString(), output.toString());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import static com.android.tools.r8.shaking.ProguardConfigurationSourceStrings.createConfigurationForTesting;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.graph.AppInfoWithSubtyping;
+import com.android.tools.r8.graph.AppView;
+import com.android.tools.r8.graph.DexClass;
+import com.android.tools.r8.graph.DirectMappedDexApplication;
+import com.android.tools.r8.origin.Origin;
+import com.android.tools.r8.utils.AndroidApp;
+import com.android.tools.r8.utils.InternalOptions;
+import com.android.tools.r8.utils.Reporter;
+import com.android.tools.r8.utils.Timing;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+/** Checks the candidates of the class index against matching the class names of all classes. */
+public class ClassIndexTest {
+
+  private static final List<String> CLASS_NAMES =
+      ImmutableList.of(
+          "a.Foo",
+          "a.b.Foo",
+          "a.b.FooBar",
+          "a.b.Fob",
+          "a.b.c.Foo",
+          "a.b.c.Bar",
+          "a.bc.Foo",
+          "a.c.Bar",
+          "ab.Foo",
+          "b.Bar",
+          "b.Foo$Bar",
+          "x.y.Baz");
+
+  private static AppView<AppInfoWithSubtyping> appView;
+  private static DirectMappedDexApplication application;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    AndroidApp.Builder builder = AndroidApp.builder();
+    for (String name : CLASS_NAMES) {
+      builder.addClassProgramData(createClass(name.replace('.', '/')), Origin.unknown());
+    }
+    InternalOptions options = new InternalOptions();
+    application =
+        new ApplicationReader(builder.build(), options, new Timing("ClassIndexTest"))
+            .read()
+            .toDirect();
+    appView = AppView.createForR8(new AppInfoWithSubtyping(application), options);
+  }
+
+  private static byte[] createClass(String internalName) {
+    ClassWriter writer = new ClassWriter(0);
+    writer.visit(
+        Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  private static ProguardKeepRule parseRule(String rule) {
+    ProguardConfigurationParser parser =
+        new ProguardConfigurationParser(appView.dexItemFactory(), new Reporter());
+    parser.parse(createConfigurationForTesting(ImmutableList.of(rule)));
+    List<ProguardConfigurationRule> rules = parser.getConfigRawForTesting().getRules();
+    assertEquals(1, rules.size());
+    return (ProguardKeepRule) rules.get(0);
+  }
+
+  private static Set<String> getLinearMatches(ProguardConfigurationRule rule) {
+    Set<String> result = new LinkedHashSet<>();
+    for (DexClass clazz : application.classes()) {
+      if (rule.getClassNames().matches(clazz.type)) {
+        result.add(clazz.type.toSourceString());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the candidates of the index for the rule after checking that they include all classes
+   * that the rule matches, or null if the index has no candidates for the rule.
+   */
+  private static Set<String> getCandidates(String ruleString) {
+    ProguardKeepRule rule = parseRule(ruleString);
+    List<DexClass> candidates = new ClassIndex(appView, application).getCandidates(rule);
+    if (candidates == null) {
+      return null;
+    }
+    Set<String> result = new LinkedHashSet<>();
+    candidates.forEach(clazz -> result.add(clazz.type.toSourceString()));
+    assertTrue(ruleString, result.containsAll(getLinearMatches(rule)));
+    return result;
+  }
+
+  private static void assertCandidates(String rule, String... expected) {
+    Set<String> candidates = getCandidates(rule);
+    assertNotNull(rule, candidates);
+    assertEquals(rule, ImmutableSet.copyOf(expected), candidates);
+  }
+
+  @Test
+  public void testLiteral() {
+    // The whole name is the prefix.
+    assertCandidates("-keep class a.b.Foo", "a.b.Foo", "a.b.FooBar");
+  }
+
+  @Test
+  public void testPrefix() {
+    assertCandidates(
+        "-keep class a.b.*", "a.b.Foo", "a.b.FooBar", "a.b.Fob", "a.b.c.Foo", "a.b.c.Bar");
+    assertCandidates("-keep class a.b.Foo*", "a.b.Foo", "a.b.FooBar");
+    assertCandidates("-keep class a.b.c.**", "a.b.c.Foo", "a.b.c.Bar");
+    assertCandidates(
+        "-keep class a.b**",
+        "a.b.Foo",
+        "a.b.FooBar",
+        "a.b.Fob",
+        "a.b.c.Foo",
+        "a.b.c.Bar",
+        "a.bc.Foo");
+  }
+
+  @Test
+  public void testSuffix() {
+    // There is no index of suffixes, so these are matched against all classes.
+    assertNull(getCandidates("-keep class **Bar"));
+    assertNull(getCandidates("-keep class *.Foo"));
+    // The candidates of a prefix with a suffix are those of the prefix.
+    assertCandidates(
+        "-keep class a.b.**Bar", "a.b.Foo", "a.b.FooBar", "a.b.Fob", "a.b.c.Foo", "a.b.c.Bar");
+  }
+
+  @Test
+  public void testQuestionMark() {
+    assertCandidates("-keep class a.b.Fo?", "a.b.Foo", "a.b.FooBar", "a.b.Fob");
+    assertCandidates(
+        "-keep class a.?.Foo",
+        "a.Foo",
+        "a.b.Foo",
+        "a.b.FooBar",
+        "a.b.Fob",
+        "a.b.c.Foo",
+        "a.b.c.Bar",
+        "a.bc.Foo",
+        "a.c.Bar");
+    assertNull(getCandidates("-keep class ?.Foo"));
+  }
+
+  @Test
+  public void testPercent() {
+    // A '%' ends the literal prefix like any other wildcard.
+    assertCandidates(
+        "-keep class a.b.%", "a.b.Foo", "a.b.FooBar", "a.b.Fob", "a.b.c.Foo", "a.b.c.Bar");
+  }
+
+  @Test
+  public void testStars() {
+    assertNull(getCandidates("-keep class *"));
+    assertNull(getCandidates("-keep class **"));
+    assertNull(getCandidates("-keep class **.Foo"));
+    assertCandidates("-keep class b.*", "b.Bar", "b.Foo$Bar");
+    assertCandidates("-keep class b.**", "b.Bar", "b.Foo$Bar");
+  }
+
+  @Test
+  public void testClassNameList() {
+    assertCandidates("-keep class x.**, a.c.*", "a.c.Bar", "x.y.Baz");
+    assertNull(getCandidates("-keep class x.**, **.Foo"));
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.shaking;
+
+import static com.android.tools.r8.ToolHelper.EXAMPLES_BUILD_DIR;
+import static com.android.tools.r8.ToolHelper.EXAMPLES_DIR;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.R8Command;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.utils.AndroidApp;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Differential test checking that tracing with parallel code parsing gives the same result as
+ * tracing without it.
+ */
+@RunWith(Parameterized.class)
+public class ParallelCodeParsingInEnqueuerTest extends TestBase {
+
+  @Parameters(name = "Example: {0}")
+  public static Collection<String> data() {
+    return ImmutableList.of("shaking1", "shaking2", "shaking5", "minification");
+  }
+
+  private final String example;
+
+  public ParallelCodeParsingInEnqueuerTest(String example) {
+    this.example = example;
+  }
+
+  private AndroidApp compile(boolean parallelCodeParsing) throws Exception {
+    R8Command command =
+        ToolHelper.prepareR8CommandBuilder(
+                AndroidApp.builder()
+                    .addProgramFiles(Paths.get(EXAMPLES_BUILD_DIR, example + ".jar"))
+                    .addLibraryFiles(ToolHelper.getDefaultAndroidJar())
+                    .build())
+            .addProguardConfigurationFiles(Paths.get(EXAMPLES_DIR, example, "keep-rules.txt"))
+            .build();
+    return ToolHelper.runR8(
+        command,
+        options -> {
+          options.enableParallelCodeParsingInEnqueuer = parallelCodeParsing;
+          // Make sure that parsing is actually done in parallel for the small examples.
+          options.parallelCodeParsingInEnqueuerThreshold = 2;
+          options.numberOfThreads = 4;
+        });
+  }
+
+  @Test
+  public void test() throws Exception {
+    List<ProgramResource> expected = compile(false).getDexProgramResourcesForTesting();
+    List<ProgramResource> actual = compile(true).getDexProgramResourcesForTesting();
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      try (InputStream expectedStream = expected.get(i).getByteStream();
+          InputStream actualStream = actual.get(i).getByteStream()) {
+        assertArrayEquals(
+            ByteStreams.toByteArray(expectedStream), ByteStreams.toByteArray(actualStream));
+      }
+    }
+  }
+}
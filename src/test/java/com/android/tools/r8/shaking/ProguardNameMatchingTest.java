@@ -3,6 +3,7 @@
 // BSD-style license that can be found in the LICENSE file.
 package com.android.tools.r8.shaking;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -178,6 +179,30 @@ public class ProguardNameMatchingTest {
     assertFalse(matchMemberName("*foo<1>", "barfoobaz"));
   }
 
+  @Test
+  public void matchLiteralPrefixAndSuffix() {
+    assertEquals("get", toIdentifierPatternWithWildCards("get*Name", true).getLiteralPrefix());
+    assertEquals("Name", toIdentifierPatternWithWildCards("get*Name", true).getLiteralSuffix());
+    assertEquals("a", toIdentifierPatternWithWildCards("a%b", false).getLiteralPrefix());
+    assertEquals("b", toIdentifierPatternWithWildCards("a%b", false).getLiteralSuffix());
+    assertEquals("", toIdentifierPatternWithWildCards("*foo<1>", true).getLiteralPrefix());
+    assertEquals("", toIdentifierPatternWithWildCards("*foo<1>", true).getLiteralSuffix());
+    assertEquals("get", toIdentifierPatternWithWildCards("get", true).getLiteralPrefix());
+    assertEquals("", toIdentifierPatternWithWildCards("get", true).getLiteralSuffix());
+
+    assertTrue(matchMemberName("get*Name", "getName"));
+    assertTrue(matchMemberName("get*Name", "getFooName"));
+    assertFalse(matchMemberName("get*Name", "setFooName"));
+    assertFalse(matchMemberName("get*Name", "getFooNam"));
+    // The prefix and suffix may not overlap in a matching name.
+    assertFalse(matchMemberName("ab*ba", "aba"));
+    assertTrue(matchMemberName("ab*ba", "abba"));
+    assertTrue(matchMemberName("a%b", "a%b"));
+    assertTrue(matchClassName("java.lang.Object", "java.**Object"));
+    assertFalse(matchClassName("java.lang.Object", "java.**Objects"));
+    assertFalse(matchClassName("java.lang.Object", "javax.**Object"));
+  }
+
   private static IdentifierPatternWithWildcards toIdentifierPatternWithWildCards(
       String pattern, boolean isForNameMatcher) {
     ImmutableList.Builder<ProguardWildcard> builder = ImmutableList.builder();
@@ -0,0 +1,105 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.TestBase;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class ArchiveBuilderTest extends TestBase {
+
+  private static final int NUMBER_OF_FILES = 8;
+
+  @Parameterized.Parameters(name = "Compress in parallel: {0}")
+  public static Boolean[] data() {
+    return new Boolean[] {true, false};
+  }
+
+  private final boolean compressInParallel;
+
+  public ArchiveBuilderTest(boolean compressInParallel) {
+    this.compressInParallel = compressInParallel;
+  }
+
+  private static String fileName(int index) {
+    return "classes" + (index == 0 ? "" : index + 1) + ".dex";
+  }
+
+  private static byte[] fileContent(int index) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 10000 * (index + 1); i++) {
+      builder.append(i % (index + 7));
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void test() throws Exception {
+    Path archive = temp.newFolder().toPath().resolve("out.zip");
+    ThrowingDiagnosticHandler handler = new ThrowingDiagnosticHandler();
+    ArchiveBuilder builder = new ArchiveBuilder(archive, compressInParallel);
+    builder.open();
+    builder.addDirectory("META-INF", handler);
+    builder.addFile(
+        "META-INF/resource.txt", ByteDataView.of("resource".getBytes(StandardCharsets.UTF_8)),
+        handler);
+    // Add the indexed files concurrently, and in reverse order.
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = NUMBER_OF_FILES - 1; i >= 0; i--) {
+        int index = i;
+        futures.add(
+            executor.submit(
+                () ->
+                    builder.addIndexedClassFile(
+                        index, fileName(index), ByteDataView.of(fileContent(index)), handler)));
+      }
+      ThreadUtils.awaitFutures(futures);
+    } finally {
+      executor.shutdown();
+    }
+    builder.close(handler);
+
+    try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+      List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+      assertEquals(NUMBER_OF_FILES + 2, entries.size());
+      // Indexed files are written first and in index order.
+      for (int i = 0; i < NUMBER_OF_FILES; i++) {
+        ZipEntry entry = entries.get(i);
+        assertEquals(fileName(i), entry.getName());
+        assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+        try (InputStream in = zipFile.getInputStream(entry)) {
+          assertArrayEquals(fileContent(i), ByteStreams.toByteArray(in));
+        }
+      }
+      assertEquals("META-INF/", entries.get(NUMBER_OF_FILES).getName());
+      assertTrue(entries.get(NUMBER_OF_FILES).isDirectory());
+      ZipEntry resource = entries.get(NUMBER_OF_FILES + 1);
+      assertEquals("META-INF/resource.txt", resource.getName());
+      try (InputStream in = zipFile.getInputStream(resource)) {
+        assertEquals("resource", new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8));
+      }
+    }
+  }
+}
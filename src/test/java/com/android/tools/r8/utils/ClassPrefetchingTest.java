@@ -0,0 +1,104 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.graph.LazyLoadedDexApplication;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ClassPrefetchingTest extends TestBase {
+
+  interface LibraryInterface {}
+
+  static class LibrarySuperClass {}
+
+  static class LibraryClass extends LibrarySuperClass implements LibraryInterface {}
+
+  static class UnreferencedLibraryClass {}
+
+  static class ProgramClass {
+
+    LibraryClass field;
+  }
+
+  private LazyLoadedDexApplication read(boolean enableClassPrefetching) throws Exception {
+    AndroidApp app =
+        AndroidApp.builder()
+            .addProgramFiles(jarTestClasses(ProgramClass.class))
+            .addLibraryFiles(
+                jarTestClasses(
+                    LibraryInterface.class,
+                    LibrarySuperClass.class,
+                    LibraryClass.class,
+                    UnreferencedLibraryClass.class))
+            .build();
+    InternalOptions options = new InternalOptions();
+    options.enableClassPrefetching = enableClassPrefetching;
+    ExecutorService executor = ThreadUtils.getExecutorService(2);
+    LazyLoadedDexApplication application;
+    try {
+      application =
+          new ApplicationReader(app, options, new Timing("ClassPrefetchingTest")).read(executor);
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    for (Class<?> clazz :
+        new Class<?>[] {LibraryClass.class, LibrarySuperClass.class, LibraryInterface.class}) {
+      assertNotNull(
+          application.definitionFor(
+              options.itemFactory.createType(
+                  DescriptorUtils.javaTypeToDescriptor(clazz.getTypeName()))));
+    }
+    return application;
+  }
+
+  private static void assertClassLoadCounters(
+      LazyLoadedDexApplication application, int blocking, int prefetched, int hits) {
+    Timing timing = new Timing("ClassPrefetchingTest");
+    application.reportClassLoadStatistics(timing);
+    JsonObject counters =
+        new JsonParser().parse(timing.toJson()).getAsJsonObject().getAsJsonObject("counters");
+    assertEquals(blocking, counters.get("Library classes blocking loads").getAsInt());
+    assertEquals(prefetched, counters.get("Library classes prefetched loads").getAsInt());
+    assertEquals(hits, counters.get("Library classes prefetch hits").getAsInt());
+    assertNull(counters.get("Classpath classes blocking loads"));
+  }
+
+  @Test
+  public void loadsReferencedClassesOnDemand() throws Exception {
+    assertClassLoadCounters(read(false), 3, 0, 0);
+  }
+
+  @Test
+  public void prefetchesReferencedClassesAndSupertypes() throws Exception {
+    assertClassLoadCounters(read(true), 0, 3, 3);
+  }
+
+  @Test
+  public void doesNotPrefetchOnceCancelled() throws Exception {
+    LazyLoadedDexApplication application = read(true);
+    application.cancelPrefetching();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    try {
+      application.prefetchAllClasses(executor);
+      assertEquals(0, executor.getTaskCount());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,191 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.DataDirectoryResource;
+import com.android.tools.r8.DataEntryResource;
+import com.android.tools.r8.DataResourceConsumer;
+import com.android.tools.r8.Diagnostic;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.R8Command;
+import com.android.tools.r8.StringConsumer;
+import com.android.tools.r8.StringResource;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.TestDiagnosticMessagesImpl;
+import com.android.tools.r8.ToolHelper;
+import com.android.tools.r8.origin.Origin;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class CompilationCacheTest extends TestBase {
+
+  static class Main {
+
+    public static void main(String[] args) {
+      System.out.println(new Main().greeting());
+    }
+
+    String greeting() {
+      return "Hello";
+    }
+  }
+
+  static class Base {}
+
+  static class Sub extends Base {}
+
+  private static final DataResourceConsumer IGNORING_DATA_RESOURCE_CONSUMER =
+      new DataResourceConsumer() {
+        @Override
+        public void accept(DataDirectoryResource directory, DiagnosticsHandler handler) {}
+
+        @Override
+        public void accept(DataEntryResource file, DiagnosticsHandler handler) {}
+
+        @Override
+        public void finished(DiagnosticsHandler handler) {}
+      };
+
+  private final Backend backend;
+  private Path cacheDirectory;
+  private int compilations;
+
+  @Parameters(name = "Backend: {0}")
+  public static Backend[] data() {
+    return ToolHelper.getBackends();
+  }
+
+  public CompilationCacheTest(Backend backend) {
+    this.backend = backend;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDirectory = temp.newFolder().toPath();
+    compilations = 0;
+  }
+
+  private AndroidApp compile(String keepRule) throws Exception {
+    return compile(keepRule, new DiagnosticsHandler() {}, false);
+  }
+
+  private AndroidApp compile(
+      String keepRule, DiagnosticsHandler handler, boolean consumeDataResources)
+      throws Exception {
+    R8Command command =
+        R8Command.builder(handler)
+            .addProgramFiles(
+                ToolHelper.getClassFileForTestClass(Main.class),
+                ToolHelper.getClassFileForTestClass(Base.class),
+                ToolHelper.getClassFileForTestClass(Sub.class))
+            .addLibraryFiles(runtimeJar(backend))
+            .addProguardConfiguration(Collections.singletonList(keepRule), Origin.unknown())
+            .setProgramConsumer(emptyConsumer(backend))
+            .setProguardMapConsumer(StringConsumer.emptyConsumer())
+            .build();
+    return ToolHelper.runR8(
+        command,
+        options -> {
+          options.compilationCacheDirectory = cacheDirectory;
+          if (consumeDataResources) {
+            options.dataResourceConsumer = IGNORING_DATA_RESOURCE_CONSUMER;
+          }
+          // The timing report is only produced when compiling.
+          options.timingReportConsumer = (string, handler) -> compilations++;
+        });
+  }
+
+  private List<ProgramResource> getProgramResources(AndroidApp app) throws Exception {
+    return backend == Backend.DEX
+        ? app.getDexProgramResourcesForTesting()
+        : app.getClassProgramResourcesForTesting();
+  }
+
+  private static byte[] getBytes(ProgramResource resource) throws Exception {
+    try (InputStream stream = resource.getByteStream()) {
+      return ByteStreams.toByteArray(stream);
+    }
+  }
+
+  private static String getProguardMap(AndroidApp app) throws Exception {
+    // The class file backend does not output the map.
+    StringResource proguardMap = app.getProguardMapOutputData();
+    return proguardMap == null ? null : proguardMap.getString();
+  }
+
+  private int cacheEntries() {
+    File[] entries = cacheDirectory.toFile().listFiles();
+    return entries == null ? 0 : entries.length;
+  }
+
+  @Test
+  public void replaysOutputForSameInputs() throws Exception {
+    String keepRule = keepMainProguardConfiguration(Main.class);
+    AndroidApp compiled = compile(keepRule);
+    AndroidApp replayed = compile(keepRule);
+    assertEquals(1, compilations);
+    assertEquals(1, cacheEntries());
+
+    List<ProgramResource> compiledResources = getProgramResources(compiled);
+    List<ProgramResource> replayedResources = getProgramResources(replayed);
+    assertEquals(compiledResources.size(), replayedResources.size());
+    for (int i = 0; i < compiledResources.size(); i++) {
+      assertArrayEquals(getBytes(compiledResources.get(i)), getBytes(replayedResources.get(i)));
+    }
+    assertEquals(getProguardMap(compiled), getProguardMap(replayed));
+  }
+
+  @Test
+  public void compilesWhenKeepRulesChange() throws Exception {
+    compile(keepMainProguardConfiguration(Main.class));
+    compile(keepMainProguardConfiguration(Main.class) + " -dontobfuscate");
+    assertEquals(2, compilations);
+    assertEquals(2, cacheEntries());
+  }
+
+  @Test
+  public void compilesWhenDataResourcesAreConsumed() throws Exception {
+    String keepRule = keepMainProguardConfiguration(Main.class);
+    compile(keepRule, new DiagnosticsHandler() {}, false);
+    compile(keepRule, new DiagnosticsHandler() {}, true);
+    assertEquals(2, compilations);
+    assertEquals(2, cacheEntries());
+  }
+
+  @Test
+  public void replaysWarnings() throws Exception {
+    String keepRule =
+        "-keep class " + Sub.class.getTypeName() + " implements " + Base.class.getTypeName();
+    TestDiagnosticMessagesImpl compiledMessages = new TestDiagnosticMessagesImpl();
+    compile(keepRule, compiledMessages, false);
+    TestDiagnosticMessagesImpl replayedMessages = new TestDiagnosticMessagesImpl();
+    compile(keepRule, replayedMessages, false);
+    assertEquals(1, compilations);
+
+    assertTrue(compiledMessages.getWarnings().size() > 0);
+    assertEquals(
+        getMessages(compiledMessages.getWarnings()), getMessages(replayedMessages.getWarnings()));
+    assertEquals(
+        getMessages(compiledMessages.getInfos()), getMessages(replayedMessages.getInfos()));
+  }
+
+  private static List<String> getMessages(List<Diagnostic> diagnostics) {
+    return ListUtils.map(diagnostics, Diagnostic::getDiagnosticMessage);
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ToolHelper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class DexPerClassFileCacheTest extends TestBase {
+
+  static class TestClass {
+    public static void main(String[] args) {
+      System.out.println("Hello, world");
+    }
+  }
+
+  static class TestClassWithMethodReference {
+    public static void main(String[] args) {
+      Runnable runnable = System.out::println;
+      runnable.run();
+    }
+  }
+
+  static class TestClassWithBackportedMethod {
+    public static void main(String[] args) {
+      System.out.println(Integer.hashCode(42));
+    }
+  }
+
+  private static class CollectingConsumer implements DexFilePerClassFileConsumer {
+    private final Map<String, byte[]> outputs = new HashMap<>();
+
+    @Override
+    public synchronized void accept(
+        String primaryClassDescriptor,
+        ByteDataView data,
+        Set<String> descriptors,
+        DiagnosticsHandler handler) {
+      outputs.put(primaryClassDescriptor, data.copyByteData());
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) {}
+  }
+
+  private D8Command.Builder builder(Path cache, CollectingConsumer consumer) {
+    return builder(cache, consumer, TestClass.class);
+  }
+
+  private D8Command.Builder builder(Path cache, CollectingConsumer consumer, Class<?> clazz) {
+    return D8Command.builder()
+        .addProgramFiles(ToolHelper.getClassFileForTestClass(clazz))
+        .addLibraryFiles(ToolHelper.getDefaultAndroidJar())
+        .setMinApiLevel(AndroidApiLevel.N.getLevel())
+        .setDexCacheDirectory(cache)
+        .setProgramConsumer(consumer);
+  }
+
+  private static long countEntries(Path cache) throws Exception {
+    try (Stream<Path> files = Files.list(cache)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void testCacheHit() throws Exception {
+    Path cache = temp.newFolder().toPath();
+    String descriptor = DescriptorUtils.javaTypeToDescriptor(TestClass.class.getTypeName());
+
+    CollectingConsumer first = new CollectingConsumer();
+    D8.run(builder(cache, first).build());
+    assertTrue(first.outputs.containsKey(descriptor));
+    assertEquals(1, countEntries(cache));
+
+    // A second compilation is served from the cache and leaves nothing to compile.
+    CollectingConsumer second = new CollectingConsumer();
+    InternalOptions options = new InternalOptions();
+    options.programConsumer = second;
+    options.debug = true;
+    options.minApiLevel = AndroidApiLevel.N.getLevel();
+    AndroidApp remaining =
+        new DexPerClassFileCache(cache, Long.MAX_VALUE)
+            .apply(
+                AndroidApp.builder()
+                    .addProgramFiles(ToolHelper.getClassFileForTestClass(TestClass.class))
+                    .build(),
+                options);
+    assertTrue(remaining.computeAllProgramResources().isEmpty());
+    assertArrayEquals(first.outputs.get(descriptor), second.outputs.get(descriptor));
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    Path cache = temp.newFolder().toPath();
+    D8.run(builder(cache, new CollectingConsumer()).setDexCacheMaxSize(1).build());
+    assertEquals(0, countEntries(cache));
+  }
+
+  @Test
+  public void testClassDependingOnOtherClassesIsNotCached() throws Exception {
+    Path cache = temp.newFolder().toPath();
+    String descriptor =
+        DescriptorUtils.javaTypeToDescriptor(TestClassWithMethodReference.class.getTypeName());
+    CollectingConsumer consumer = new CollectingConsumer();
+    D8.run(builder(cache, consumer, TestClassWithMethodReference.class).build());
+    assertTrue(consumer.outputs.containsKey(descriptor));
+    assertEquals(0, countEntries(cache));
+  }
+
+  @Test
+  public void testCacheIsNotUsedWhenDesugaringInterfaceMethods() throws Exception {
+    Path cache = temp.newFolder().toPath();
+    String descriptor =
+        DescriptorUtils.javaTypeToDescriptor(TestClassWithBackportedMethod.class.getTypeName());
+    CollectingConsumer consumer = new CollectingConsumer();
+    // Below API level N, Integer.hashCode is backported to a utility class.
+    D8.run(
+        builder(cache, consumer, TestClassWithBackportedMethod.class)
+            .setMinApiLevel(AndroidApiLevel.L.getLevel())
+            .build());
+    assertTrue(consumer.outputs.containsKey(descriptor));
+    assertEquals(0, countEntries(cache));
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.android.tools.r8.GenerateLibrarySnapshot;
+import com.android.tools.r8.ProgramResource;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.dex.ApplicationReader;
+import com.android.tools.r8.graph.DexEncodedField;
+import com.android.tools.r8.graph.DexEncodedMethod;
+import com.android.tools.r8.graph.DexLibraryClass;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LibrarySnapshotTest extends TestBase {
+
+  interface Greeter {
+
+    String greet(String name, int... times);
+  }
+
+  abstract static class AbstractGreeter implements Greeter {
+
+    protected static final String GREETING = "Hello";
+
+    static int instances;
+
+    final String punctuation;
+
+    AbstractGreeter(String punctuation) {
+      this.punctuation = punctuation;
+      instances++;
+    }
+
+    public abstract String greet(String name, int... times);
+
+    // A method with a name that is not ASCII.
+    protected synchronized native long[][] native\u00e9(Object[] objects);
+  }
+
+  public static final class FriendlyGreeter extends AbstractGreeter implements Runnable {
+
+    public FriendlyGreeter() {
+      super("!");
+    }
+
+    @Override
+    public String greet(String name, int... times) {
+      return GREETING + " " + name + punctuation;
+    }
+
+    @Override
+    public void run() {}
+  }
+
+  private Path jar;
+  private Path snapshot;
+
+  @Before
+  public void setUp() throws Exception {
+    jar = jarTestClasses(Greeter.class, AbstractGreeter.class, FriendlyGreeter.class);
+    snapshot = temp.getRoot().toPath().resolve("library.r8lib");
+    GenerateLibrarySnapshot.run(snapshot, Collections.singletonList(jar));
+  }
+
+  private static Map<String, String> describeLibrary(AndroidApp app) throws Exception {
+    Map<String, String> result = new TreeMap<>();
+    for (DexLibraryClass clazz :
+        new ApplicationReader(app, new InternalOptions(), new Timing("LibrarySnapshotTest"))
+            .read()
+            .toDirect()
+            .libraryClasses()) {
+      StringBuilder builder = new StringBuilder();
+      builder.append(clazz.accessFlags).append(" extends ").append(clazz.superType);
+      builder.append(" implements ").append(clazz.interfaces).append('\n');
+      describeFields("static", clazz.staticFields(), builder);
+      describeFields("instance", clazz.instanceFields(), builder);
+      describeMethods("direct", clazz.directMethods(), builder);
+      describeMethods("virtual", clazz.virtualMethods(), builder);
+      result.put(clazz.type.toSourceString(), builder.toString());
+    }
+    return result;
+  }
+
+  private static void describeFields(
+      String kind, List<DexEncodedField> fields, StringBuilder builder) {
+    for (DexEncodedField field : fields) {
+      builder.append(kind).append(' ').append(field.accessFlags).append(' ');
+      builder.append(field.field.toSourceString()).append('\n');
+    }
+  }
+
+  private static void describeMethods(
+      String kind, List<DexEncodedMethod> methods, StringBuilder builder) {
+    for (DexEncodedMethod method : methods) {
+      builder.append(kind).append(' ').append(method.accessFlags).append(' ');
+      builder.append(method.method.toSourceString()).append(' ');
+      builder.append(method.getClassFileVersion()).append('\n');
+    }
+  }
+
+  @Test
+  public void createsSameClassesAsClassFiles() throws Exception {
+    Map<String, String> expected =
+        describeLibrary(AndroidApp.builder().addLibraryFile(jar).build());
+    assertEquals(3, expected.size());
+    assertEquals(expected, describeLibrary(AndroidApp.builder().addLibraryFile(snapshot).build()));
+  }
+
+  @Test
+  public void providesClassFiles() throws Exception {
+    LibrarySnapshotClassFileProvider snapshotProvider =
+        new LibrarySnapshotClassFileProvider(snapshot);
+    // Hide the snapshot provider, such that the classes are read from its class files.
+    ClassFileResourceProvider provider =
+        new ClassFileResourceProvider() {
+          @Override
+          public Set<String> getClassDescriptors() {
+            return snapshotProvider.getClassDescriptors();
+          }
+
+          @Override
+          public ProgramResource getProgramResource(String descriptor) {
+            return snapshotProvider.getProgramResource(descriptor);
+          }
+        };
+    assertEquals(
+        describeLibrary(AndroidApp.builder().addLibraryFile(jar).build()),
+        describeLibrary(AndroidApp.builder().addLibraryResourceProvider(provider).build()));
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.android.tools.r8.TestBase;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedZipFileTest extends TestBase {
+
+  private final Map<String, byte[]> contents = new LinkedHashMap<>();
+  private Path archive;
+
+  @Before
+  public void setUp() throws Exception {
+    Random random = new Random(0);
+    for (int i = 0; i < 100; i++) {
+      // Repeated content compresses, random content does not.
+      byte[] bytes = new byte[random.nextInt(10000)];
+      if (i % 2 == 0) {
+        random.nextBytes(bytes);
+      } else {
+        for (int j = 0; j < bytes.length; j++) {
+          bytes[j] = (byte) (j % 7);
+        }
+      }
+      contents.put("p" + (i % 3) + "/Class\u00e9" + i + ".class", bytes);
+    }
+    contents.put("empty.txt", new byte[0]);
+    archive = temp.getRoot().toPath().resolve("archive.jar");
+    try (ZipOutputStream out =
+        new ZipOutputStream(Files.newOutputStream(archive), StandardCharsets.UTF_8)) {
+      out.setComment("An archive comment.");
+      int index = 0;
+      for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+        ZipEntry zipEntry = new ZipEntry(entry.getKey());
+        if (index++ % 3 == 0) {
+          CRC32 crc = new CRC32();
+          crc.update(entry.getValue());
+          zipEntry.setMethod(ZipEntry.STORED);
+          zipEntry.setSize(entry.getValue().length);
+          zipEntry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(zipEntry);
+        out.write(entry.getValue());
+        out.closeEntry();
+      }
+    }
+  }
+
+  @Test
+  public void readsSameEntriesAsZipFile() throws Exception {
+    try (MappedZipFile mappedZipFile = MappedZipFile.open(archive);
+        ZipFile zipFile = new ZipFile(archive.toFile(), StandardCharsets.UTF_8)) {
+      assertNotNull(mappedZipFile);
+      assertEquals(ImmutableList.copyOf(contents.keySet()),
+          ImmutableList.copyOf(mappedZipFile.getEntryNames()));
+      for (String name : contents.keySet()) {
+        try (InputStream stream = zipFile.getInputStream(zipFile.getEntry(name))) {
+          assertArrayEquals(ByteStreams.toByteArray(stream), mappedZipFile.getBytes(name));
+        }
+      }
+      assertNull(mappedZipFile.getBytes("missing.class"));
+    }
+  }
+
+  @Test
+  public void readsEntriesConcurrently() throws Exception {
+    ExecutorService executor = ThreadUtils.getExecutorService(4);
+    try (MappedZipFile mappedZipFile = MappedZipFile.open(archive)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                    assertArrayEquals(entry.getValue(), mappedZipFile.getBytes(entry.getKey()));
+                  }
+                  return null;
+                }));
+      }
+      ThreadUtils.awaitFutures(futures);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void rejectsNonArchive() throws Exception {
+    Path file = temp.getRoot().toPath().resolve("file.jar");
+    Files.write(file, "Not an archive".getBytes(StandardCharsets.UTF_8));
+    assertNull(MappedZipFile.open(file));
+  }
+
+  @Test
+  public void rejectsNameLengthPastCentralDirectory() throws Exception {
+    byte[] bytes = Files.readAllBytes(archive);
+    // Let the name of the last central directory entry extend past the end of the archive.
+    int header = bytes.length - 4;
+    while (!(bytes[header] == 'P'
+        && bytes[header + 1] == 'K'
+        && bytes[header + 2] == 1
+        && bytes[header + 3] == 2)) {
+      header--;
+    }
+    bytes[header + 28] = (byte) 0xff;
+    bytes[header + 29] = (byte) 0xff;
+    Path file = temp.getRoot().toPath().resolve("malformed.jar");
+    Files.write(file, bytes);
+    try {
+      MappedZipFile.open(file);
+      fail("Expected a ZipException");
+    } catch (ZipException e) {
+      // Expected.
+    }
+  }
+}
@@ -0,0 +1,140 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.android.tools.r8.ByteDataView;
+import com.android.tools.r8.D8;
+import com.android.tools.r8.D8Command;
+import com.android.tools.r8.DexFilePerClassFileConsumer;
+import com.android.tools.r8.DiagnosticsHandler;
+import com.android.tools.r8.TestBase;
+import com.android.tools.r8.ToolHelper;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class ProgramChunksTest extends TestBase {
+
+  interface Greeter {
+
+    String name();
+
+    default String greet() {
+      return "Hello, " + name();
+    }
+  }
+
+  static class World implements Greeter {
+
+    @Override
+    public String name() {
+      return "world";
+    }
+  }
+
+  static class Lambdas {
+
+    static Supplier<String> greeting(Greeter greeter) {
+      return () -> greeter.greet();
+    }
+
+    static int hash(int value, long other) {
+      return Integer.hashCode(value) + Long.hashCode(other);
+    }
+  }
+
+  static class MoreLambdas {
+
+    static Runnable print(String value) {
+      return () -> System.out.println(value);
+    }
+
+    static int hash(long value) {
+      return Long.hashCode(value);
+    }
+  }
+
+  private static final Class<?>[] CLASSES = {
+    Greeter.class, World.class, Lambdas.class, MoreLambdas.class
+  };
+
+  private static class CollectingConsumer implements DexFilePerClassFileConsumer {
+
+    private final boolean combineSyntheticClasses;
+    private final Map<String, byte[]> outputs = new TreeMap<>();
+    private int finishedCount = 0;
+
+    private CollectingConsumer(boolean combineSyntheticClasses) {
+      this.combineSyntheticClasses = combineSyntheticClasses;
+    }
+
+    @Override
+    public synchronized void accept(
+        String primaryClassDescriptor,
+        ByteDataView data,
+        Set<String> descriptors,
+        DiagnosticsHandler handler) {
+      assert !outputs.containsKey(primaryClassDescriptor);
+      outputs.put(primaryClassDescriptor, data.copyByteData());
+    }
+
+    @Override
+    public boolean combineSyntheticClassesWithPrimaryClass() {
+      return combineSyntheticClasses;
+    }
+
+    @Override
+    public void finished(DiagnosticsHandler handler) {
+      finishedCount++;
+    }
+  }
+
+  private final boolean combineSyntheticClasses;
+
+  @Parameters(name = "CombineSyntheticClasses={0}")
+  public static Boolean[] data() {
+    return BooleanUtils.values();
+  }
+
+  public ProgramChunksTest(boolean combineSyntheticClasses) {
+    this.combineSyntheticClasses = combineSyntheticClasses;
+  }
+
+  private CollectingConsumer compile(int chunkSize) throws Exception {
+    CollectingConsumer consumer = new CollectingConsumer(combineSyntheticClasses);
+    D8Command.Builder builder =
+        D8Command.builder()
+            .addLibraryFiles(ToolHelper.getJava8RuntimeJar())
+            .setMinApiLevel(AndroidApiLevel.L.getLevel())
+            .setProgramConsumer(consumer)
+            .setPerClassFileChunkSize(chunkSize);
+    for (Class<?> clazz : CLASSES) {
+      builder.addProgramFiles(ToolHelper.getClassFileForTestClass(clazz));
+    }
+    D8.run(builder.build());
+    assertEquals(1, consumer.finishedCount);
+    return consumer;
+  }
+
+  @Test
+  public void testSameOutputAsSingleCompilation() throws Exception {
+    Map<String, byte[]> expected = compile(0).outputs;
+    for (int chunkSize = 1; chunkSize < CLASSES.length; chunkSize++) {
+      Map<String, byte[]> actual = compile(chunkSize).outputs;
+      assertEquals(expected.keySet(), actual.keySet());
+      for (String descriptor : expected.keySet()) {
+        assertArrayEquals(descriptor, expected.get(descriptor), actual.get(descriptor));
+      }
+    }
+  }
+}
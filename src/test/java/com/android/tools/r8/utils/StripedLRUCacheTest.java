@@ -0,0 +1,78 @@
+// Copyright (c) 2019, the R8 project authors. Please see the AUTHORS file
+// for details. All rights reserved. Use of this source code is governed by a
+// BSD-style license that can be found in the LICENSE file.
+package com.android.tools.r8.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.android.tools.r8.TestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class StripedLRUCacheTest extends TestBase {
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    StripedLRUCache<Integer, String> cache = new StripedLRUCache<>(1, 2);
+    cache.put(1, "1");
+    cache.put(2, "2");
+    // Access 1 so that 2 is the least recently used entry.
+    assertEquals("1", cache.get(1));
+    cache.put(3, "3");
+    assertNull(cache.get(2));
+    assertEquals("1", cache.get(1));
+    assertEquals("3", cache.get(3));
+    assertEquals(3, cache.hits());
+    assertEquals(1, cache.misses());
+    assertEquals(1, cache.evictions());
+  }
+
+  @Test
+  public void putKeepsExistingValue() {
+    StripedLRUCache<Integer, String> cache = new StripedLRUCache<>(4, 4);
+    cache.put(1, "1");
+    cache.put(1, "other");
+    assertEquals("1", cache.get(1));
+    cache.clear();
+    assertTrue(cache.isEmpty());
+    assertNull(cache.get(1));
+    assertEquals(1, cache.hits());
+    assertEquals(1, cache.misses());
+  }
+
+  @Test
+  public void concurrentAccess() throws Exception {
+    int numberOfThreads = 4;
+    int numberOfKeys = 1000;
+    StripedLRUCache<Integer, Integer> cache = new StripedLRUCache<>(8, numberOfKeys);
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < numberOfThreads; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int key = 0; key < numberOfKeys; key++) {
+                    Integer value = cache.get(key);
+                    if (value == null) {
+                      cache.put(key, key);
+                    } else {
+                      assertEquals(key, (int) value);
+                    }
+                  }
+                }));
+      }
+      ThreadUtils.awaitFutures(futures);
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(numberOfThreads * numberOfKeys, cache.hits() + cache.misses());
+    assertEquals(0, cache.evictions());
+  }
+}